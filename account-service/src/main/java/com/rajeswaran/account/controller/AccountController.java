@@ -1,14 +1,25 @@
 package com.rajeswaran.account.controller;
 
+import com.rajeswaran.account.dto.AccountBalance;
+import com.rajeswaran.account.entity.JournalEntry;
 import com.rajeswaran.account.service.AccountService;
+import com.rajeswaran.account.service.LedgerService;
+import com.rajeswaran.common.AppConstants;
 import com.rajeswaran.common.entity.Account;
+import com.rajeswaran.common.pagination.KeysetPage;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
 import com.rajeswaran.common.util.SecurityUtil;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +29,8 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final LedgerService ledgerService;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
 
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
     @GetMapping
@@ -28,6 +41,25 @@ public class AccountController {
         return accounts;
     }
 
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping("/page")
+    public KeysetPage<Account> getAccountsPage(@RequestParam(required = false) Long afterId,
+                                        @RequestParam(required = false) Integer size) {
+        log.info("Received request: getAccountsPage, afterId={}, size={}", afterId, size);
+        KeysetPage<Account> page = accountService.getAccountsPage(afterId, size);
+        log.info("Completed request: getAccountsPage, count={}, nextCursor={}", page.items().size(), page.nextCursor());
+        return page;
+    }
+
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAccounts() {
+        log.info("Received request: streamAllAccounts");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonStreamWriter.stream(accountService::streamAllAccounts));
+    }
+
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN) or hasRole(T(com.rajeswaran.common.AppConstants).ROLE_ACCOUNT_HOLDER)")
     @GetMapping("/{accountNumber}")
     public ResponseEntity<Account> getAccountByNumber(@PathVariable String accountNumber) {
@@ -42,6 +74,42 @@ public class AccountController {
         }
     }
 
+    /**
+     * Balance of the account as of the given time, read from the last journal entry posted by then.
+     * Account holders only get their own accounts.
+     */
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN) or hasRole(T(com.rajeswaran.common.AppConstants).ROLE_ACCOUNT_HOLDER)")
+    @GetMapping("/{accountNumber}/balance")
+    public ResponseEntity<AccountBalance> getBalanceAsOf(@PathVariable String accountNumber,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        log.info("Received request: getBalanceAsOf, accountNumber={}, asOf={}", accountNumber, asOf);
+        Optional<Account> account = accountService.getAccountByAccountNumber(accountNumber);
+        if (account.isEmpty()) {
+            log.info("Completed request: getBalanceAsOf, accountNumber={} not found", accountNumber);
+            return ResponseEntity.notFound().build();
+        }
+        if (!SecurityUtil.extractRolesFromJwt().contains(AppConstants.ROLE_BAAS_ADMIN)
+                && !account.get().getUserName().equals(SecurityUtil.getCurrentUsername())) {
+            log.info("Completed request: getBalanceAsOf, accountNumber={} not owned by the caller", accountNumber);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        // No entry yet means the account did not exist at that time
+        long balance = ledgerService.getBalanceAsOf(accountNumber, asOf).orElse(0L);
+        log.info("Completed request: getBalanceAsOf, accountNumber={}", accountNumber);
+        return ResponseEntity.ok(new AccountBalance(accountNumber, balance, account.get().getCurrency(), asOf));
+    }
+
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping("/{accountNumber}/journal")
+    public KeysetPage<JournalEntry> getJournalPage(@PathVariable String accountNumber,
+                                                   @RequestParam(required = false) Long afterSequence,
+                                                   @RequestParam(required = false) Integer size) {
+        log.info("Received request: getJournalPage, accountNumber={}, afterSequence={}, size={}", accountNumber, afterSequence, size);
+        KeysetPage<JournalEntry> page = ledgerService.getEntriesPage(accountNumber, afterSequence, size);
+        log.info("Completed request: getJournalPage, count={}, nextCursor={}", page.items().size(), page.nextCursor());
+        return page;
+    }
+
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
     @PostMapping
     public Account createAccount(@RequestBody Account account) {
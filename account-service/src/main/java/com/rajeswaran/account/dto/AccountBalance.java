@@ -0,0 +1,13 @@
+package com.rajeswaran.account.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Balance of an account as of a point in time, in minor units of its currency.
+ */
+public record AccountBalance(
+        String accountNumber,
+        long balance,
+        String currency,
+        LocalDateTime asOf) {
+}
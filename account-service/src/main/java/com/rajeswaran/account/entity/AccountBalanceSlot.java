@@ -0,0 +1,35 @@
+package com.rajeswaran.account.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sub-balance of a hot account.
+ *
+ * Credits to a hot account are spread across its slots so they do not queue on the account row lock.
+ * Slot balances are folded back into the account by debits and by periodic consolidation.
+ */
+@Entity
+@Table(name = "account_balance_slots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_account_balance_slot", columnNames = {"account_number", "slot"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_number", nullable = false)
+    private String accountNumber;
+
+    @Column(name = "slot", nullable = false)
+    private int slot;
+
+    @Column(name = "balance_minor", nullable = false)
+    private long balance; // Minor units of the account currency
+}
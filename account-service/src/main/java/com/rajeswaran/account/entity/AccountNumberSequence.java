@@ -0,0 +1,27 @@
+package com.rajeswaran.account.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Shared high-water mark for account numbers.
+ *
+ * Each account-service instance reserves a block of numbers by advancing {@code nextValue} and then
+ * hands them out from memory, so replicas never issue the same number.
+ */
+@Entity
+@Table(name = "account_number_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountNumberSequence {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
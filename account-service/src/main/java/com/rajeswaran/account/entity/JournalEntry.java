@@ -0,0 +1,58 @@
+package com.rajeswaran.account.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only ledger entry: one change of an account balance.
+ *
+ * Entries are numbered per account without gaps and carry the balance after the entry, so every entry
+ * is a balance snapshot. A transfer posts a DEBIT and a CREDIT entry sharing the same transfer ID.
+ */
+@Entity
+@Table(name = "journal_entries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_journal_entry_sequence", columnNames = {"account_number", "entry_sequence"})
+}, indexes = {
+        @Index(name = "idx_journal_entries_account_posted_at_sequence", columnList = "account_number, posted_at, entry_sequence"),
+        @Index(name = "idx_journal_entries_transfer_id", columnList = "transfer_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_number", nullable = false)
+    private String accountNumber;
+
+    @Column(name = "entry_sequence", nullable = false)
+    private long entrySequence;
+
+    @Column(name = "entry_type", nullable = false, length = 16)
+    private String entryType; // OPENING, DEBIT, CREDIT or SWEEP
+
+    @Column(name = "amount_minor", nullable = false)
+    private long amount; // Signed, in minor units of the account currency
+
+    @Column(name = "balance_after_minor", nullable = false)
+    private long balanceAfter;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "transfer_id", length = 36)
+    private String transferId;
+
+    @Column(name = "reference")
+    private String reference;
+
+    @Column(name = "posted_at", nullable = false)
+    private LocalDateTime postedAt;
+}
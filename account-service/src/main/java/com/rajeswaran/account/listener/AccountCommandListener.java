@@ -1,148 +1,231 @@
 package com.rajeswaran.account.listener;
 
+import com.rajeswaran.account.service.AccountNumberAllocator;
 import com.rajeswaran.account.service.AccountService;
 import com.rajeswaran.common.entity.Account;
 import com.rajeswaran.common.entity.Payment;
-import com.rajeswaran.common.entity.User;
+import com.rajeswaran.common.idempotency.CommandReply;
+import com.rajeswaran.common.idempotency.IdempotentCommandProcessor;
+import com.rajeswaran.common.saga.payment.commands.ProcessPaymentBatchCommand;
 import com.rajeswaran.common.saga.payment.commands.ProcessPaymentCommand;
+import com.rajeswaran.common.saga.payment.events.PaymentBatchFailedEvent;
+import com.rajeswaran.common.saga.payment.events.PaymentBatchProcessedEvent;
 import com.rajeswaran.common.saga.payment.events.PaymentFailedEvent;
 import com.rajeswaran.common.saga.payment.events.PaymentProcessedEvent;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.payment.payload.PaymentSettlement;
 import com.rajeswaran.common.saga.useronboarding.commands.OpenAccountCommand;
 import com.rajeswaran.common.saga.useronboarding.events.AccountOpenFailedEvent;
 import com.rajeswaran.common.saga.useronboarding.events.AccountOpenedEvent;
-import lombok.RequiredArgsConstructor;
+import com.rajeswaran.common.saga.useronboarding.payload.UserProfile;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class AccountCommandListener {
 
     private final AccountService accountService;
-    private final StreamBridge streamBridge;
-    private static final AtomicInteger accountNumberSequence = new AtomicInteger(10001);
+    private final IdempotentCommandProcessor idempotentCommandProcessor;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final boolean nettingEnabled;
 
+    public AccountCommandListener(AccountService accountService,
+                                  IdempotentCommandProcessor idempotentCommandProcessor,
+                                  AccountNumberAllocator accountNumberAllocator,
+                                  @Value("${account.netting.enabled:true}") boolean nettingEnabled) {
+        this.accountService = accountService;
+        this.idempotentCommandProcessor = idempotentCommandProcessor;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.nettingEnabled = nettingEnabled;
+    }
+
+    /**
+     * Consumes OpenAccountCommand and opens the user's account.
+     * A redelivered command gets the reply of the first delivery instead of opening a second account.
+     */
     @Bean
     public Consumer<Message<OpenAccountCommand>> accountOpenCommand() {
         return message -> {
             OpenAccountCommand command = message.getPayload();
-            User user = command.getUser();
+            UserProfile user = command.getUser();
             log.info("Received OpenAccountCommand for saga {} and userId: {}",
-                    command.getSagaId(), user.getUserId());
+                    command.getSagaId(), user.userId());
 
-            try {
+            idempotentCommandProcessor.process(command, () -> {
                 // Create account
                 Account account = new Account();
-                account.setAccountNumber(generateAccountNumber());
+                account.setAccountNumber(accountNumberAllocator.nextAccountNumber());
                 account.setAccountType(command.getAccountType());
-                account.setUserId(String.valueOf(user.getUserId()));
-                account.setUserName(user.getUsername());
-                account.setBalance(500.0); // Initial balance
+                account.setUserId(String.valueOf(user.userId()));
+                account.setUserName(user.username());
+                account.setBalance(50_000); // Initial balance of 500.00 in minor units
                 account.setStatus("ACTIVE");
                 account.setCreatedTimestamp(LocalDateTime.now());
-                
+
                 Account savedAccount = accountService.createAccount(account);
-                
-                log.info("Account created successfully for saga {} - accountId: {}, accountNumber: {}", 
+
+                log.info("Account created successfully for saga {} - accountId: {}, accountNumber: {}",
                         command.getSagaId(), savedAccount.getId(), savedAccount.getAccountNumber());
-                
-                // Publish success event
-                AccountOpenedEvent event = AccountOpenedEvent.create(
+
+                // Reply with success event
+                return CommandReply.of("accountOpenedEvent-out-0", AccountOpenedEvent.create(
                     command.getSagaId(),
-                    savedAccount,
+                    savedAccount.getAccountNumber(),
                     user
-                );
-                
-                streamBridge.send("accountOpenedEvent-out-0", event);
-                log.info("Published AccountOpenedEvent for saga {}", command.getSagaId());
-                
-            } catch (Exception e) {
-                log.error("Failed to create account for saga {}, userId: {}", 
-                         command.getSagaId(), user.getUserId(), e);
-                
-                // Publish failure event
-                AccountOpenFailedEvent event = AccountOpenFailedEvent.create(
+                ));
+            }, e -> {
+                log.error("Failed to create account for saga {}, userId: {}",
+                         command.getSagaId(), user.userId(), e);
+
+                // Reply with failure event
+                return CommandReply.of("accountOpenFailedEvent-out-0", AccountOpenFailedEvent.create(
                     command.getSagaId(),
-                    String.valueOf(user.getUserId()),
-                    user.getUsername(),
+                    String.valueOf(user.userId()),
+                    user.username(),
                     "Failed to create account: " + e.getMessage()
-                );
-                
-                streamBridge.send("accountOpenFailedEvent-out-0", event);
-                log.info("Published AccountOpenFailedEvent for saga {}", command.getSagaId());
+                ));
+            });
+        };
+    }
+
+    /**
+     * Consumes the ProcessPaymentCommands of a poll. With netting enabled, the payments are transferred
+     * together in one transaction that writes each account once (see {@link AccountService#transferNetted});
+     * if that fails, or with netting disabled, each command is processed on its own.
+     * The command IDs are recorded in the same transaction as the transfers, so a redelivered command
+     * never moves the money twice.
+     */
+    @Bean
+    public Consumer<List<Message<ProcessPaymentCommand>>> processPaymentCommand() {
+        return messages -> {
+            List<ProcessPaymentCommand> commands = messages.stream().map(Message::getPayload).toList();
+            log.info("[Account] Received batch of {} ProcessPaymentCommands", commands.size());
+
+            if (!nettingEnabled || commands.size() == 1) {
+                commands.forEach(this::processPayment);
+                return;
             }
+            idempotentCommandProcessor.processBatch(commands, this::processNetted, this::processPayment);
         };
     }
 
+    private Map<String, CommandReply> processNetted(List<ProcessPaymentCommand> commands) {
+        List<Payment> payments = commands.stream().map(cmd -> cmd.getPayment().toPayment()).toList();
+        AccountService.BatchTransferResult result = accountService.transferNetted(payments);
+        log.info("[Account] Netted {} payments, {} failed", commands.size(), result.failed().size());
+
+        Map<String, CommandReply> replies = new HashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            ProcessPaymentCommand cmd = commands.get(i);
+            Payment payment = payments.get(i);
+            String failureReason = result.failureReasons().get(payment.getId());
+            replies.put(cmd.getCommandId(), failureReason != null
+                ? paymentFailed(cmd, failureReason, cmd.getPayment())
+                : CommandReply.of("paymentProcessedEvent-out-0", PaymentProcessedEvent.create(cmd.getSagaId(), PaymentSettlement.from(payment))));
+        }
+        return replies;
+    }
+
     /**
-     * Consumes ProcessPaymentCommand, validates accounts, and processes payment atomically.
-     * Uses transactional money transfer to ensure data consistency.
+     * Validates the accounts of a single payment and transfers the money atomically.
+     */
+    private void processPayment(ProcessPaymentCommand cmd) {
+        PaymentInstruction instruction = cmd.getPayment();
+        log.info("[Account] Processing ProcessPaymentCommand for saga {} and payment: {}", cmd.getSagaId(), instruction);
+
+        idempotentCommandProcessor.process(cmd, () -> {
+            // Perform atomic money transfer
+            AccountService.TransferResult result = accountService.transferMoney(
+                instruction.sourceAccountNumber(),
+                instruction.destinationAccountNumber(),
+                instruction.amount(),
+                "Payment ID: " + instruction.paymentId()
+            );
+
+            // Get destination account user name for the payment
+            String destinationAccountUserName = accountService.getAccountByAccountNumber(instruction.destinationAccountNumber())
+                .map(Account::getUserName)
+                .orElse(null);
+
+            log.info("[Account] Successfully transferred {} from {} to {}",
+                instruction.amount(), instruction.sourceAccountNumber(), instruction.destinationAccountNumber());
+
+            // Reply with success event carrying the updated balances
+            return CommandReply.of("paymentProcessedEvent-out-0", PaymentProcessedEvent.create(
+                cmd.getSagaId(),
+                new PaymentSettlement(instruction, destinationAccountUserName, result.getSourceBalance(), result.getDestinationBalance())
+            ));
+        }, e -> {
+            if (e instanceof IllegalArgumentException || e instanceof IllegalStateException) {
+                // Business logic errors (account not found, insufficient balance, etc.)
+                log.warn("[Account] Payment validation failed for saga {} and payment {}: {}",
+                    cmd.getSagaId(), instruction.paymentId(), e.getMessage());
+                return paymentFailed(cmd, e.getMessage(), instruction);
+            }
+            // Other unexpected errors; transient database failures are rethrown by the processor and redelivered
+            log.error("[Account] Unexpected error processing payment for saga {} and payment {}: {}",
+                cmd.getSagaId(), instruction.paymentId(), e.getMessage(), e);
+            return paymentFailed(cmd, "Failed to process payment: " + e.getMessage(), instruction);
+        });
+    }
+
+    /**
+     * Consumes ProcessPaymentBatchCommand and transfers all payments of the batch in one transaction.
+     * Payments that cannot be applied are returned as failed; the batch only fails as a whole if none
+     * could be applied.
      */
     @Bean
-    public Consumer<Message<ProcessPaymentCommand>> processPaymentCommand() {
+    public Consumer<Message<ProcessPaymentBatchCommand>> processPaymentBatchCommand() {
         return message -> {
-            ProcessPaymentCommand cmd = message.getPayload();
-            Payment payment = cmd.getPayment();
-            log.info("[Account] Received ProcessPaymentCommand for saga {} and payment: {}", cmd.getSagaId(), payment);
-
-            try {
-                // Perform atomic money transfer
-                AccountService.TransferResult result = accountService.transferMoney(
-                    payment.getSourceAccountNumber(),
-                    payment.getDestinationAccountNumber(), 
-                    payment.getAmount()
-                );
-                
-                // Get destination account user name for the payment
-                var destOpt = accountService.getAccountByAccountNumber(payment.getDestinationAccountNumber());
-                if (destOpt.isPresent()) {
-                    payment.setDestinationAccountUserName(destOpt.get().getUserName());
+            ProcessPaymentBatchCommand cmd = message.getPayload();
+            log.info("[Account] Received ProcessPaymentBatchCommand for saga {} with {} payments from {}",
+                cmd.getSagaId(), cmd.getPayments().size(), cmd.getSourceAccountNumber());
+
+            idempotentCommandProcessor.process(cmd, () -> {
+                List<Payment> payments = cmd.getPayments().stream().map(PaymentInstruction::toPayment).toList();
+                AccountService.BatchTransferResult result = accountService.transferBatch(cmd.getSourceAccountNumber(), payments);
+                if (result.processed().isEmpty()) {
+                    // Nothing to roll back, so the failure is reported as the reply of a successful transaction
+                    String reason = result.failureReasons().values().stream().findFirst().orElse("empty batch");
+                    return paymentBatchFailed(cmd, "No payment in the batch could be processed: " + reason);
                 }
-                
-                // Set the updated balances on the payment object
-                payment.setSourceAccountBalance(result.getSourceBalance());
-                payment.setDestinationAccountBalance(result.getDestinationBalance());
-
-                log.info("[Account] Successfully transferred {} from {} to {}", 
-                    payment.getAmount(), payment.getSourceAccountNumber(), payment.getDestinationAccountNumber());
-                
-                // Publish success event
-                streamBridge.send("paymentProcessedEvent-out-0", PaymentProcessedEvent.create(
-                    cmd.getSagaId(), payment
+
+                log.info("[Account] Processed {} of {} payments from {}",
+                    result.processed().size(), cmd.getPayments().size(), cmd.getSourceAccountNumber());
+                return CommandReply.of("paymentBatchProcessedEvent-out-0", PaymentBatchProcessedEvent.create(
+                    cmd.getSagaId(),
+                    result.processed().stream().map(PaymentSettlement::from).toList(),
+                    result.failed().stream().map(PaymentInstruction::from).toList(),
+                    result.failureReasons()
                 ));
-                log.info("[Account] Published PaymentProcessedEvent for saga {} and payment: {}", cmd.getSagaId(), payment.getId());
-                
-            } catch (IllegalArgumentException | IllegalStateException e) {
-                // Business logic errors (account not found, insufficient balance, etc.)
-                log.warn("[Account] Payment validation failed for saga {} and payment {}: {}", 
-                    cmd.getSagaId(), payment.getId(), e.getMessage());
-                publishFailed(cmd, e.getMessage(), payment);
-                
-            } catch (Exception e) {
-                // Unexpected errors (database failures, etc.)
-                log.error("[Account] Unexpected error processing payment for saga {} and payment {}: {}", 
-                    cmd.getSagaId(), payment.getId(), e.getMessage(), e);
-                publishFailed(cmd, "Failed to process payment: " + e.getMessage(), payment);
-            }
+            }, e -> {
+                log.error("[Account] Failed to process payment batch for saga {}: {}", cmd.getSagaId(), e.getMessage(), e);
+                return paymentBatchFailed(cmd, "Failed to process payment batch: " + e.getMessage());
+            });
         };
     }
 
-    private void publishFailed(ProcessPaymentCommand cmd, String reason, Payment payment) {
-        streamBridge.send("paymentFailedEvent-out-0", PaymentFailedEvent.create(
+    private CommandReply paymentFailed(ProcessPaymentCommand cmd, String reason, PaymentInstruction payment) {
+        log.warn("[Account] Payment failed for saga {} and payment {}: {}", cmd.getSagaId(), payment.paymentId(), reason);
+        return CommandReply.of("paymentFailedEvent-out-0", PaymentFailedEvent.create(
             cmd.getSagaId(), payment, reason
         ));
-        log.warn("[Account] Payment failed for saga {} and payment {}: {}", cmd.getSagaId(), payment.getId(), reason);
     }
 
-    private String generateAccountNumber() {
-        return String.valueOf(accountNumberSequence.getAndIncrement());
+    private CommandReply paymentBatchFailed(ProcessPaymentBatchCommand cmd, String reason) {
+        log.warn("[Account] Payment batch failed for saga {}: {}", cmd.getSagaId(), reason);
+        return CommandReply.of("paymentBatchFailedEvent-out-0", PaymentBatchFailedEvent.create(
+            cmd.getSagaId(), cmd.getPayments(), reason
+        ));
     }
 }
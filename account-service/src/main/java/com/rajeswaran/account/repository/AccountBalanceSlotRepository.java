@@ -0,0 +1,37 @@
+package com.rajeswaran.account.repository;
+
+import com.rajeswaran.account.entity.AccountBalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+
+    List<AccountBalanceSlot> findByAccountNumber(String accountNumber);
+
+    /**
+     * Locks all slots of an account in slot order, so concurrent sweeps acquire them consistently.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceSlot s WHERE s.accountNumber = :accountNumber ORDER BY s.slot")
+    List<AccountBalanceSlot> findByAccountNumberWithLock(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Locks a single slot of an account.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceSlot s WHERE s.accountNumber = :accountNumber AND s.slot = :slot")
+    Optional<AccountBalanceSlot> findByAccountNumberAndSlotWithLock(@Param("accountNumber") String accountNumber, @Param("slot") int slot);
+
+    boolean existsByAccountNumber(String accountNumber);
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceSlot s WHERE s.accountNumber = :accountNumber")
+    long sumBalance(@Param("accountNumber") String accountNumber);
+}
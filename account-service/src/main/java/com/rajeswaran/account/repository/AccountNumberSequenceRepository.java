@@ -0,0 +1,32 @@
+package com.rajeswaran.account.repository;
+
+import com.rajeswaran.account.entity.AccountNumberSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AccountNumberSequenceRepository extends JpaRepository<AccountNumberSequence, String> {
+
+    /**
+     * Advances the sequence by a block. The row stays locked until the caller's transaction commits.
+     */
+    @Modifying
+    @Query("UPDATE AccountNumberSequence s SET s.nextValue = s.nextValue + :blockSize WHERE s.name = :name")
+    int advance(@Param("name") String name, @Param("blockSize") long blockSize);
+
+    /**
+     * Creates the sequence row unless it exists; an existing row, possibly advanced by another instance,
+     * is left untouched.
+     *
+     * @return 1 if the row was created, 0 if it already existed
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO account_number_sequences (name, next_value) VALUES (:name, :nextValue)", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("nextValue") long nextValue);
+
+    @Query("SELECT s.nextValue FROM AccountNumberSequence s WHERE s.name = :name")
+    long getNextValue(@Param("name") String name);
+}
@@ -1,15 +1,22 @@
 package com.rajeswaran.account.repository;
 
 import com.rajeswaran.common.entity.Account;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, String> {
@@ -25,9 +32,35 @@ public interface AccountRepository extends JpaRepository<Account, String> {
     @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
     Optional<Account> findByAccountNumberWithLock(@Param("accountNumber") String accountNumber);
 
+    /**
+     * Locks a set of accounts in account number order, so batches touching the same accounts
+     * acquire their locks consistently and cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber IN :accountNumbers ORDER BY a.accountNumber")
+    List<Account> findByAccountNumberInWithLock(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    /**
+     * Accounts created before the journal existed: they have no entries and ledger sequence 0.
+     */
+    @Query("SELECT a.accountNumber FROM Account a WHERE a.ledgerSequence = 0")
+    List<String> findAccountNumbersWithoutJournal();
+
     List<Account> findByUserId(String userId);
 
     List<Account> findByUserName(String userName);
 
     void deleteByUserId(String userId);
+
+    List<Account> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NdjsonStreamWriter.FETCH_SIZE))
+    @Query("SELECT a FROM Account a ORDER BY a.id")
+    Stream<Account> streamAll();
+
+    /**
+     * Highest account number in use, for seeding the account number sequence.
+     */
+    @Query(value = "SELECT MAX(CAST(account_number AS UNSIGNED)) FROM accounts", nativeQuery = true)
+    Long findMaxAccountNumber();
 }
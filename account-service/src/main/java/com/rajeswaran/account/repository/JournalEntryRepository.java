@@ -0,0 +1,23 @@
+package com.rajeswaran.account.repository;
+
+import com.rajeswaran.account.entity.JournalEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+
+    /**
+     * Last entry of an account posted at or before the given time; its balance is the balance as of then.
+     * Ordered like the (account_number, posted_at, entry_sequence) index, so it reads a single index entry
+     * backwards from the given time instead of the account's whole history up to it.
+     */
+    Optional<JournalEntry> findFirstByAccountNumberAndPostedAtLessThanEqualOrderByPostedAtDescEntrySequenceDesc(String accountNumber, LocalDateTime postedAt);
+
+    List<JournalEntry> findByAccountNumberAndEntrySequenceGreaterThanOrderByEntrySequenceAsc(String accountNumber, long afterSequence, Limit limit);
+}
@@ -0,0 +1,152 @@
+package com.rajeswaran.account.service;
+
+import com.rajeswaran.account.entity.AccountNumberSequence;
+import com.rajeswaran.account.repository.AccountNumberSequenceRepository;
+import com.rajeswaran.account.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out account numbers that are unique across all account-service instances (hi/lo allocation).
+ *
+ * Each instance reserves a block of numbers by advancing the shared {@link AccountNumberSequence} row
+ * and hands them out from memory with an atomic increment. When a block is down to its last
+ * {@code refill-threshold} numbers, the next block is reserved in the background, so callers only hit
+ * the database if a burst drains the block before the refill completes. Numbers of a block that is not
+ * used up before a restart are skipped, never reissued.
+ */
+@Service
+@Slf4j
+public class AccountNumberAllocator {
+
+    private static final String SEQUENCE_NAME = "account-number";
+    private static final long FIRST_ACCOUNT_NUMBER = 10001;
+
+    private final AccountNumberSequenceRepository sequenceRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SimpleAsyncTaskExecutor refillExecutor;
+    private final long blockSize;
+    private final long refillThreshold;
+
+    private final AtomicReference<Block> currentBlock = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Block>> nextBlock = new AtomicReference<>();
+    private final ReentrantLock switchLock = new ReentrantLock();
+
+    public AccountNumberAllocator(AccountNumberSequenceRepository sequenceRepository,
+                                  AccountRepository accountRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${account.number-allocator.block-size:100}") long blockSize,
+                                  @Value("${account.number-allocator.refill-threshold:20}") long refillThreshold) {
+        this.sequenceRepository = sequenceRepository;
+        this.accountRepository = accountRepository;
+        // Reservations commit on their own, so the sequence row is not locked for the caller's whole transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.refillExecutor = new SimpleAsyncTaskExecutor("account-number-refill-");
+        this.refillExecutor.setVirtualThreads(true);
+        this.blockSize = blockSize;
+        this.refillThreshold = Math.max(1, Math.min(refillThreshold, blockSize));
+    }
+
+    public String nextAccountNumber() {
+        while (true) {
+            Block block = currentBlock.get();
+            if (block != null) {
+                long number = block.next().getAndIncrement();
+                if (number < block.end()) {
+                    if (block.end() - number == refillThreshold) {
+                        prefetchNextBlock();
+                    }
+                    return String.valueOf(number);
+                }
+            }
+            switchBlock(block);
+        }
+    }
+
+    private void switchBlock(Block exhaustedBlock) {
+        switchLock.lock();
+        try {
+            if (currentBlock.get() != exhaustedBlock) {
+                // Another caller already switched to a new block
+                return;
+            }
+            Block block = null;
+            CompletableFuture<Block> prefetched = nextBlock.getAndSet(null);
+            if (prefetched != null) {
+                try {
+                    block = prefetched.join();
+                } catch (CompletionException e) {
+                    log.warn("Prefetching account numbers failed, reserving a block now: {}", e.getCause().getMessage());
+                }
+            }
+            currentBlock.set(block != null ? block : reserveBlock());
+        } finally {
+            switchLock.unlock();
+        }
+    }
+
+    private void prefetchNextBlock() {
+        CompletableFuture<Block> future = new CompletableFuture<>();
+        if (nextBlock.compareAndSet(null, future)) {
+            refillExecutor.execute(() -> {
+                try {
+                    future.complete(reserveBlock());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    private Block reserveBlock() {
+        Long end = transactionTemplate.execute(status -> {
+            if (sequenceRepository.advance(SEQUENCE_NAME, blockSize) == 0) {
+                return null;
+            }
+            return sequenceRepository.getNextValue(SEQUENCE_NAME);
+        });
+        if (end == null) {
+            initializeSequence();
+            return reserveBlock();
+        }
+
+        long start = end - blockSize;
+        log.info("Reserved account numbers {} to {}", start, end - 1);
+        return new Block(new AtomicLong(start), end);
+    }
+
+    /**
+     * Creates the sequence row, starting after the highest account number issued before it existed.
+     * If several instances boot at once, only the first insert takes effect; the row is never merged or
+     * overwritten, since another instance may already have reserved a block from it. The caller then
+     * advances and re-reads the row.
+     */
+    void initializeSequence() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Long maxAccountNumber = accountRepository.findMaxAccountNumber();
+            long firstValue = maxAccountNumber != null ? Math.max(FIRST_ACCOUNT_NUMBER, maxAccountNumber + 1) : FIRST_ACCOUNT_NUMBER;
+            if (sequenceRepository.insertIfAbsent(SEQUENCE_NAME, firstValue) > 0) {
+                log.info("Initialized account number sequence at {}", firstValue);
+            } else {
+                // Another instance created it first
+                log.debug("Account number sequence was initialized concurrently");
+            }
+        });
+    }
+
+    private record Block(AtomicLong next, long end) {
+    }
+}
@@ -1,35 +1,63 @@
 package com.rajeswaran.account.service;
 
+import com.rajeswaran.account.entity.AccountBalanceSlot;
 import com.rajeswaran.account.repository.AccountRepository;
 import com.rajeswaran.common.entity.Account;
+import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.money.Money;
+import com.rajeswaran.common.pagination.KeysetPage;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class AccountService {
     private final AccountRepository accountRepository;
+    private final HotAccountService hotAccountService;
+    private final LedgerService ledgerService;
 
     public List<Account> getAllAccounts() {
         return accountRepository.findAll();
     }
 
+    public KeysetPage<Account> getAccountsPage(Long afterId, Integer size) {
+        int pageSize = KeysetPage.boundedSize(size);
+        List<Account> items = accountRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.startAfter(afterId), Limit.of(pageSize));
+        return KeysetPage.of(items, pageSize, Account::getId);
+    }
+
+    public Stream<Account> streamAllAccounts() {
+        return accountRepository.streamAll();
+    }
+
 
     //Get account by account number
     public Optional<Account> getAccountByAccountNumber(String accountNumber) {
         return accountRepository.findByAccountNumber(accountNumber);
     }
 
+    @Transactional
     public Account createAccount(Account account) {
         // Set created timestamp if not already set
         if (account.getCreatedTimestamp() == null) {
             account.setCreatedTimestamp(LocalDateTime.now());
         }
+        // The initial balance becomes the first journal entry of the account
+        ledgerService.open(account, "Account opened");
         return accountRepository.save(account);
     }
 
@@ -38,22 +66,23 @@ public class AccountService {
     }
 
     // Validate if account exists and has sufficient balance
-    public boolean validateSourceAccount(String accountNumber, double amount) {
+    public boolean validateSourceAccount(String accountNumber, long amount) {
         Optional<Account> accountOpt = getAccountByAccountNumber(accountNumber);
         if (accountOpt.isPresent()) {
             Account account = accountOpt.get();
-            return account.getBalance() >= amount;
+            return Money.covers(Money.add(account.getBalance(), hotAccountService.getPendingBalance(accountNumber)), amount);
         }
         return false;
     }
 
-    // Deduct amount from account balance
-    public boolean deductFromAccount(String accountNumber, double amount) {
-        Optional<Account> accountOpt = getAccountByAccountNumber(accountNumber);
+    // Deduct amount from account balance with a DEBIT journal entry
+    @Transactional
+    public boolean deductFromAccount(String accountNumber, long amount) {
+        Optional<Account> accountOpt = accountRepository.findByAccountNumberWithLock(accountNumber);
         if (accountOpt.isPresent()) {
             Account account = accountOpt.get();
-            if (account.getBalance() >= amount) {
-                account.setBalance(account.getBalance() - amount);
+            if (Money.covers(account.getBalance(), amount)) {
+                ledgerService.debit(account, amount, null, null);
                 accountRepository.save(account);
                 return true;
             }
@@ -61,12 +90,13 @@ public class AccountService {
         return false;
     }
 
-    // Add amount to account balance
-    public boolean addToAccount(String accountNumber, double amount) {
-        Optional<Account> accountOpt = getAccountByAccountNumber(accountNumber);
+    // Add amount to account balance with a CREDIT journal entry
+    @Transactional
+    public boolean addToAccount(String accountNumber, long amount) {
+        Optional<Account> accountOpt = accountRepository.findByAccountNumberWithLock(accountNumber);
         if (accountOpt.isPresent()) {
             Account account = accountOpt.get();
-            account.setBalance(account.getBalance() + amount);
+            ledgerService.credit(account, amount, null, null);
             accountRepository.save(account);
             return true;
         }
@@ -101,29 +131,33 @@ public class AccountService {
     /**
      * Atomically transfers money between two accounts with pessimistic locking.
      * This method ensures that both debit and credit operations happen within a single transaction
-     * with proper locking to prevent concurrent access issues.
+     * with proper locking to prevent concurrent access issues. Both legs are posted to the journal,
+     * except a credit held in a hot account's balance slot, which is journaled when it is swept.
      * 
      * @param sourceAccountNumber the source account number
      * @param destinationAccountNumber the destination account number
      * @param amount the amount to transfer
+     * @param reference the reference recorded on the journal entries
      * @return TransferResult containing success status and updated balances
      */
     @Transactional
-    public TransferResult transferMoney(String sourceAccountNumber, String destinationAccountNumber, double amount) {
-        // Fetch both accounts within the transaction with pessimistic locking
-        // Lock accounts in a consistent order to prevent deadlocks (alphabetical order)
-        String firstAccount = sourceAccountNumber.compareTo(destinationAccountNumber) < 0 ? 
-            sourceAccountNumber : destinationAccountNumber;
-        String secondAccount = sourceAccountNumber.compareTo(destinationAccountNumber) < 0 ? 
-            destinationAccountNumber : sourceAccountNumber;
-            
-        // Lock accounts in consistent order to prevent deadlocks
-        Optional<Account> firstOpt = accountRepository.findByAccountNumberWithLock(firstAccount);
-        Optional<Account> secondOpt = accountRepository.findByAccountNumberWithLock(secondAccount);
-        
-        // Map back to source and destination
-        Optional<Account> sourceOpt = sourceAccountNumber.equals(firstAccount) ? firstOpt : secondOpt;
-        Optional<Account> destOpt = destinationAccountNumber.equals(firstAccount) ? firstOpt : secondOpt;
+    public TransferResult transferMoney(String sourceAccountNumber, String destinationAccountNumber, long amount, String reference) {
+        // Hot destination accounts are credited through a balance slot, so their row is not locked.
+        // All locks are taken in one global order: account rows in account number order, then balance slots.
+        boolean hotDestination = !sourceAccountNumber.equals(destinationAccountNumber)
+                && hotAccountService.hasSlots(destinationAccountNumber);
+
+        Set<String> lockedAccountNumbers = new HashSet<>();
+        lockedAccountNumbers.add(sourceAccountNumber);
+        if (!hotDestination) {
+            lockedAccountNumbers.add(destinationAccountNumber);
+        }
+        Map<String, Account> accounts = lockAccounts(lockedAccountNumbers);
+
+        Optional<Account> sourceOpt = Optional.ofNullable(accounts.get(sourceAccountNumber));
+        Optional<Account> destOpt = hotDestination
+                ? accountRepository.findByAccountNumber(destinationAccountNumber)
+                : Optional.ofNullable(accounts.get(destinationAccountNumber));
         
         if (sourceOpt.isEmpty()) {
             throw new IllegalArgumentException("Source account not found: " + sourceAccountNumber);
@@ -142,23 +176,243 @@ public class AccountService {
         if (!"ACTIVE".equalsIgnoreCase(destAccount.getStatus())) {
             throw new IllegalStateException("Destination account is not active: " + destinationAccountNumber);
         }
+        if (!sourceAccount.getCurrency().equals(destAccount.getCurrency())) {
+            throw new IllegalStateException("Currency mismatch between " + sourceAccountNumber + " and " + destinationAccountNumber);
+        }
+
+        // Slots are locked after all rows, in account number order: debits from a hot account first fold
+        // its slot balances into the (locked) account row, and a hot destination gets one slot locked
+        AccountBalanceSlot destinationSlot = null;
+        for (String accountNumber : new TreeSet<>(List.of(sourceAccountNumber, destinationAccountNumber))) {
+            if (accountNumber.equals(sourceAccountNumber) && hotAccountService.isHot(sourceAccountNumber)) {
+                hotAccountService.sweep(sourceAccount);
+            } else if (accountNumber.equals(destinationAccountNumber) && hotDestination) {
+                destinationSlot = hotAccountService.lockSlot(destinationAccountNumber);
+            }
+        }
+        if (hotDestination && destinationSlot == null) {
+            throw new IllegalStateException("No balance slot found for hot account: " + destinationAccountNumber);
+        }
         
         // Check sufficient balance (now with locked balance)
-        if (sourceAccount.getBalance() < amount) {
-            throw new IllegalStateException("Insufficient balance. Available: " + sourceAccount.getBalance() + ", Required: " + amount);
+        if (!Money.covers(sourceAccount.getBalance(), amount)) {
+            throw new IllegalStateException("Insufficient balance. Available: " + Money.format(sourceAccount.getBalance(), sourceAccount.getCurrency())
+                + ", Required: " + Money.format(amount, sourceAccount.getCurrency()));
         }
         
         // Perform the transfer atomically
-        sourceAccount.setBalance(sourceAccount.getBalance() - amount);
-        destAccount.setBalance(destAccount.getBalance() + amount);
+        String transferId = UUID.randomUUID().toString();
+        ledgerService.debit(sourceAccount, amount, transferId, reference);
+        accountRepository.save(sourceAccount);
+
+        if (hotDestination) {
+            hotAccountService.credit(destinationSlot, amount);
+            long destinationBalance = Money.add(destAccount.getBalance(), hotAccountService.getPendingBalance(destinationAccountNumber));
+            return new TransferResult(true, sourceAccount.getBalance(), destinationBalance);
+        }
+        ledgerService.credit(destAccount, amount, transferId, reference);
         
         // Save both accounts - if either fails, entire transaction rolls back
-        accountRepository.save(sourceAccount);
         accountRepository.save(destAccount);
         
         return new TransferResult(true, sourceAccount.getBalance(), destAccount.getBalance());
     }
 
+    /**
+     * Transfers a batch of payments from one source account in a single transaction.
+     *
+     * The source and all destination accounts are locked once, in account number order, and the
+     * payments are applied in order. A payment that cannot be applied (unknown or inactive destination,
+     * currency mismatch, insufficient balance) is reported as failed without affecting the others.
+     *
+     * @param sourceAccountNumber the common source account of all payments
+     * @param payments the payments to transfer; their balances and destination user names are filled in
+     * @return the processed and failed payments, with the reason of every failure by payment ID
+     * @throws IllegalArgumentException if the source account does not exist
+     * @throws IllegalStateException if the source account is not active
+     */
+    @Transactional
+    public BatchTransferResult transferBatch(String sourceAccountNumber, List<Payment> payments) {
+        Set<String> accountNumbers = new HashSet<>();
+        accountNumbers.add(sourceAccountNumber);
+        payments.forEach(payment -> accountNumbers.add(payment.getDestinationAccountNumber()));
+        Map<String, Account> accounts = lockAccounts(accountNumbers);
+
+        Account sourceAccount = accounts.get(sourceAccountNumber);
+        if (sourceAccount == null) {
+            throw new IllegalArgumentException("Source account not found: " + sourceAccountNumber);
+        }
+        if (!"ACTIVE".equalsIgnoreCase(sourceAccount.getStatus())) {
+            throw new IllegalStateException("Source account is not active: " + sourceAccountNumber);
+        }
+
+        // With a single source, no payment credits the source, so they are simply applied one by one
+        return applyNetted(accounts, payments);
+    }
+
+    /**
+     * Transfers a set of unrelated payments in a single transaction by netting them per account.
+     *
+     * All accounts involved are locked once, in account number order. The payments are applied in order,
+     * each only if its source covers it at that point; a debit that is only covered by a credit from a later
+     * payment of the set is deferred until that credit has been applied, and payments still not covered
+     * once nothing more can be applied fail. No balance is ever overdrawn along the way. Each account row
+     * is written once, and each payment posts its own journal entries and reports the balances right after
+     * it was applied, in the order the processed payments are returned.
+     *
+     * @param payments the payments to transfer; their balances and destination user names are filled in
+     * @return the processed and failed payments, with the reason of every failure by payment ID
+     */
+    @Transactional
+    public BatchTransferResult transferNetted(List<Payment> payments) {
+        Set<String> accountNumbers = new HashSet<>();
+        payments.forEach(payment -> {
+            accountNumbers.add(payment.getSourceAccountNumber());
+            accountNumbers.add(payment.getDestinationAccountNumber());
+        });
+        return applyNetted(lockAccounts(accountNumbers), payments);
+    }
+
+    private Map<String, Account> lockAccounts(Set<String> accountNumbers) {
+        Map<String, Account> accounts = new HashMap<>();
+        accountRepository.findByAccountNumberInWithLock(accountNumbers)
+                .forEach(account -> accounts.put(account.getAccountNumber(), account));
+        return accounts;
+    }
+
+    private BatchTransferResult applyNetted(Map<String, Account> accounts, List<Payment> payments) {
+        List<Payment> processed = new ArrayList<>();
+        List<Payment> failed = new ArrayList<>();
+        Map<Long, String> failureReasons = new HashMap<>();
+
+        List<Payment> valid = new ArrayList<>();
+        for (Payment payment : payments) {
+            String failure = checkAccounts(accounts, payment);
+            if (failure != null) {
+                fail(payment, failure, failed, failureReasons);
+            } else {
+                valid.add(payment);
+            }
+        }
+
+        // Slots are locked after all rows, in account number order: debits from a hot account first fold its
+        // slot balances into the (locked) account row, and hot accounts that only receive money get one slot
+        // locked to be credited through, if they have slots
+        Set<String> debited = new HashSet<>();
+        Set<String> credited = new HashSet<>();
+        valid.forEach(payment -> {
+            debited.add(payment.getSourceAccountNumber());
+            credited.add(payment.getDestinationAccountNumber());
+        });
+        Map<String, AccountBalanceSlot> creditSlots = new HashMap<>();
+        for (String accountNumber : new TreeSet<>(accounts.keySet())) {
+            if (!hotAccountService.isHot(accountNumber)) {
+                continue;
+            }
+            if (debited.contains(accountNumber)) {
+                hotAccountService.sweep(accounts.get(accountNumber));
+            } else if (credited.contains(accountNumber)) {
+                AccountBalanceSlot slot = hotAccountService.lockSlot(accountNumber);
+                if (slot != null) {
+                    creditSlots.put(accountNumber, slot);
+                }
+            }
+        }
+
+        Map<String, Long> balances = new HashMap<>();
+        accounts.forEach((accountNumber, account) -> balances.put(accountNumber, currentBalance(account, debited)));
+
+        // Payments are applied in order. One whose source does not cover it at that point is retried after the
+        // rest, as long as some payment was applied in the meantime and may have credited its source, so no balance
+        // ever goes negative and every reported and journaled balance is one the account really had.
+        List<Payment> pending = valid;
+        boolean progress = true;
+        while (!pending.isEmpty() && progress) {
+            progress = false;
+            List<Payment> deferred = new ArrayList<>();
+            for (Payment payment : pending) {
+                String source = payment.getSourceAccountNumber();
+                String destination = payment.getDestinationAccountNumber();
+                if (!Money.covers(balances.get(source), payment.getAmount())) {
+                    deferred.add(payment);
+                    continue;
+                }
+
+                balances.put(source, Money.subtract(balances.get(source), payment.getAmount()));
+                balances.put(destination, Money.add(balances.get(destination), payment.getAmount()));
+                post(accounts.get(source), accounts.get(destination), payment, creditSlots);
+
+                payment.setDestinationAccountUserName(accounts.get(destination).getUserName());
+                payment.setSourceAccountBalance(balances.get(source));
+                payment.setDestinationAccountBalance(balances.get(destination));
+                processed.add(payment);
+                progress = true;
+            }
+            pending = deferred;
+        }
+        for (Payment payment : pending) {
+            Account sourceAccount = accounts.get(payment.getSourceAccountNumber());
+            long sourceBalance = balances.get(payment.getSourceAccountNumber());
+            fail(payment, "Insufficient balance. Available: " + Money.format(sourceBalance, sourceAccount.getCurrency())
+                + ", Required: " + Money.format(payment.getAmount(), sourceAccount.getCurrency()), failed, failureReasons);
+        }
+
+        // Balances of the locked, managed accounts are written once when the transaction commits
+        return new BatchTransferResult(processed, failed, failureReasons);
+    }
+
+    private void post(Account sourceAccount, Account destAccount, Payment payment, Map<String, AccountBalanceSlot> creditSlots) {
+        String transferId = UUID.randomUUID().toString();
+        String reference = "Payment ID: " + payment.getId();
+        ledgerService.debit(sourceAccount, payment.getAmount(), transferId, reference);
+
+        // Hot accounts that only receive money are credited through their locked balance slot
+        AccountBalanceSlot slot = creditSlots.get(destAccount.getAccountNumber());
+        if (slot != null) {
+            hotAccountService.credit(slot, payment.getAmount());
+        } else {
+            ledgerService.credit(destAccount, payment.getAmount(), transferId, reference);
+        }
+    }
+
+    private String checkAccounts(Map<String, Account> accounts, Payment payment) {
+        Account sourceAccount = accounts.get(payment.getSourceAccountNumber());
+        Account destAccount = accounts.get(payment.getDestinationAccountNumber());
+        if (sourceAccount == null) {
+            return "Source account not found: " + payment.getSourceAccountNumber();
+        }
+        if (destAccount == null) {
+            return "Destination account not found: " + payment.getDestinationAccountNumber();
+        }
+        if (destAccount == sourceAccount) {
+            return "Source and destination account are the same: " + payment.getSourceAccountNumber();
+        }
+        if (!"ACTIVE".equalsIgnoreCase(sourceAccount.getStatus())) {
+            return "Source account is not active: " + payment.getSourceAccountNumber();
+        }
+        if (!"ACTIVE".equalsIgnoreCase(destAccount.getStatus())) {
+            return "Destination account is not active: " + payment.getDestinationAccountNumber();
+        }
+        if (!sourceAccount.getCurrency().equals(destAccount.getCurrency())) {
+            return "Currency mismatch between " + payment.getSourceAccountNumber() + " and " + payment.getDestinationAccountNumber();
+        }
+        return null;
+    }
+
+    private long currentBalance(Account account, Set<String> debited) {
+        // Swept accounts hold their whole balance in the row; others may still have credits in slots
+        if (debited.contains(account.getAccountNumber()) || !hotAccountService.isHot(account.getAccountNumber())) {
+            return account.getBalance();
+        }
+        return Money.add(account.getBalance(), hotAccountService.getPendingBalance(account.getAccountNumber()));
+    }
+
+    private static void fail(Payment payment, String reason, List<Payment> failed, Map<Long, String> failureReasons) {
+        payment.setStatus("FAILED");
+        failed.add(payment);
+        failureReasons.put(payment.getId(), reason);
+    }
+
     /**
      * Alternative transfer method using optimistic locking instead of pessimistic locking.
      * This approach is more performant but may require retry logic in case of concurrent access.
@@ -171,7 +425,7 @@ public class AccountService {
      */
     @Transactional
     public TransferResult transferMoneyOptimistic(String sourceAccountNumber, String destinationAccountNumber, 
-                                                 double amount, int maxRetries) {
+                                                 long amount, int maxRetries) {
         int attempts = 0;
         
         while (attempts <= maxRetries) {
@@ -199,13 +453,13 @@ public class AccountService {
                 }
                 
                 // Check sufficient balance
-                if (sourceAccount.getBalance() < amount) {
-                    throw new IllegalStateException("Insufficient balance. Available: " + sourceAccount.getBalance() + ", Required: " + amount);
+                if (!Money.covers(sourceAccount.getBalance(), amount)) {
+                    throw new IllegalStateException("Insufficient balance. Available: " + Money.format(sourceAccount.getBalance(), sourceAccount.getCurrency())
+                        + ", Required: " + Money.format(amount, sourceAccount.getCurrency()));
                 }
                 
                 // Perform the transfer
-                sourceAccount.setBalance(sourceAccount.getBalance() - amount);
-                destAccount.setBalance(destAccount.getBalance() + amount);
+                ledgerService.transfer(sourceAccount, destAccount, amount, null);
                 
                 // Save both accounts - @Version will handle optimistic locking
                 accountRepository.save(sourceAccount);
@@ -236,17 +490,23 @@ public class AccountService {
      */
     public static class TransferResult {
         private final boolean success;
-        private final double sourceBalance;
-        private final double destinationBalance;
+        private final long sourceBalance;
+        private final long destinationBalance;
         
-        public TransferResult(boolean success, double sourceBalance, double destinationBalance) {
+        public TransferResult(boolean success, long sourceBalance, long destinationBalance) {
             this.success = success;
             this.sourceBalance = sourceBalance;
             this.destinationBalance = destinationBalance;
         }
         
         public boolean isSuccess() { return success; }
-        public double getSourceBalance() { return sourceBalance; }
-        public double getDestinationBalance() { return destinationBalance; }
+        public long getSourceBalance() { return sourceBalance; }
+        public long getDestinationBalance() { return destinationBalance; }
+    }
+
+    /**
+     * Result of a batch transfer: the payments that were applied and those that failed, with their reasons.
+     */
+    public record BatchTransferResult(List<Payment> processed, List<Payment> failed, Map<Long, String> failureReasons) {
     }
 }
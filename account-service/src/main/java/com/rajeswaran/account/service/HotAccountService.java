@@ -0,0 +1,163 @@
+package com.rajeswaran.account.service;
+
+import com.rajeswaran.account.entity.AccountBalanceSlot;
+import com.rajeswaran.account.repository.AccountBalanceSlotRepository;
+import com.rajeswaran.account.repository.AccountRepository;
+import com.rajeswaran.common.entity.Account;
+import com.rajeswaran.common.money.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sub-balance handling for hot accounts (e.g. merchant or settlement accounts).
+ *
+ * Credits to a hot account go to a random balance slot instead of the account row, so they only
+ * contend on 1/N of the lock traffic. Debits and the periodic consolidation lock the account row,
+ * sweep all slots into it and zero them. The account row balance therefore trails incoming credits
+ * by at most one consolidation interval; {@link #getPendingBalance(String)} returns the unswept part.
+ *
+ * Callers take locks in one global order: account rows first, in account number order, then balance
+ * slots, in account number and slot order. The consolidation locks one row and then its slots, so it
+ * follows the same order, and no two of these paths can wait on each other in a cycle.
+ */
+@Service
+@Slf4j
+public class HotAccountService {
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceSlotRepository slotRepository;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> hotAccounts;
+    private final int slotCount;
+    private final Map<String, Counter> creditCounters = new ConcurrentHashMap<>();
+
+    public HotAccountService(AccountRepository accountRepository,
+                             AccountBalanceSlotRepository slotRepository,
+                             LedgerService ledgerService,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${account.hot-accounts.account-numbers:}") List<String> hotAccounts,
+                             @Value("${account.hot-accounts.slots:8}") int slotCount) {
+        this.accountRepository = accountRepository;
+        this.slotRepository = slotRepository;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.hotAccounts = new HashSet<>(hotAccounts);
+        this.hotAccounts.remove("");
+        this.slotCount = slotCount;
+    }
+
+    public boolean isHot(String accountNumber) {
+        return hotAccounts.contains(accountNumber);
+    }
+
+    /**
+     * Whether a hot account has its balance slots. Slots are never removed, so a caller can decide up front
+     * whether to credit a slot or the account row.
+     */
+    public boolean hasSlots(String accountNumber) {
+        return isHot(accountNumber) && slotRepository.existsByAccountNumber(accountNumber);
+    }
+
+    /**
+     * Lock a randomly chosen balance slot of a hot account, to be credited later in the transaction.
+     *
+     * @return the locked slot, or null if the account has no slots yet, in which case the caller credits the account row
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public AccountBalanceSlot lockSlot(String accountNumber) {
+        int slot = ThreadLocalRandom.current().nextInt(slotCount);
+        return slotRepository.findByAccountNumberAndSlotWithLock(accountNumber, slot).orElse(null);
+    }
+
+    /**
+     * Credit a slot locked with {@link #lockSlot(String)}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void credit(AccountBalanceSlot slot, long amount) {
+        slot.setBalance(Money.add(slot.getBalance(), amount));
+        creditCounters.computeIfAbsent(slot.getAccountNumber(), number -> Counter.builder("account.hot.credits")
+                .description("Credits applied to hot account balance slots")
+                .tag("account", number)
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * Move all slot balances into the account with one SWEEP journal entry. The account row must already
+     * be locked by the caller.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sweep(Account account) {
+        long swept = 0;
+        for (AccountBalanceSlot slot : slotRepository.findByAccountNumberWithLock(account.getAccountNumber())) {
+            swept = Money.add(swept, slot.getBalance());
+            slot.setBalance(0);
+        }
+        if (swept != 0) {
+            ledgerService.post(account, "SWEEP", swept, null, "Balance slots");
+            log.debug("Swept {} from balance slots into hot account {}", swept, account.getAccountNumber());
+        }
+    }
+
+    public long getPendingBalance(String accountNumber) {
+        return isHot(accountNumber) ? slotRepository.sumBalance(accountNumber) : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${account.hot-accounts.consolidation-interval-ms:5000}")
+    public void consolidate() {
+        for (String accountNumber : hotAccounts) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        accountRepository.findByAccountNumberWithLock(accountNumber).ifPresent(account -> {
+                            sweep(account);
+                            accountRepository.save(account);
+                        }));
+            } catch (Exception e) {
+                log.warn("Failed to consolidate hot account {}: {}", accountNumber, e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeSlots() {
+        for (String accountNumber : hotAccounts) {
+            Set<Integer> existing = new HashSet<>();
+            slotRepository.findByAccountNumber(accountNumber).forEach(slot -> existing.add(slot.getSlot()));
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (!existing.contains(slot)) {
+                    slotRepository.save(new AccountBalanceSlot(null, accountNumber, slot, 0));
+                }
+            }
+
+            Gauge.builder("account.hot.slots", () -> slotCount)
+                    .description("Balance slots of accounts running in hot-account mode")
+                    .tag("account", accountNumber)
+                    .register(meterRegistry);
+            Gauge.builder("account.hot.pending.balance", () -> slotRepository.sumBalance(accountNumber))
+                    .description("Credits held in balance slots and not yet consolidated")
+                    .tag("account", accountNumber)
+                    .register(meterRegistry);
+            log.info("Account {} running in hot-account mode with {} balance slots", accountNumber, slotCount);
+        }
+    }
+}
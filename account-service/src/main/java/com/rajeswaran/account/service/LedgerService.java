@@ -0,0 +1,123 @@
+package com.rajeswaran.account.service;
+
+import com.rajeswaran.account.entity.JournalEntry;
+import com.rajeswaran.account.repository.JournalEntryRepository;
+import com.rajeswaran.common.entity.Account;
+import com.rajeswaran.common.money.Money;
+import com.rajeswaran.common.pagination.KeysetPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Append-only double-entry journal of account balance changes.
+ *
+ * Every change of an account row balance goes through {@link #post}, which appends an entry numbered
+ * after the account's last one and moves the account balance along with it. The account balance is
+ * therefore the materialized snapshot of its journal, and each entry keeps the snapshot as of its
+ * posting, so a past balance is a single index lookup instead of a replay of the history.
+ *
+ * Postings require the account row to be locked by the caller, which serializes the sequence numbers
+ * of an account. Credits held in the balance slots of a hot account are journaled when they are swept
+ * into the account row.
+ *
+ * Accounts created before the journal existed have ledger sequence 0 and no entries. Their balance is
+ * journaled as an OPENING entry dated at their creation, by the {@link PreLedgerAccountBackfill} at startup
+ * or by their first posting, whichever locks the account first.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+
+    static final String PRE_LEDGER_REFERENCE = "Balance before the journal";
+
+    private final JournalEntryRepository journalEntryRepository;
+
+    /**
+     * Records the opening balance of a new account as its first entry.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void open(Account account, String reference) {
+        long openingBalance = account.getBalance();
+        account.setBalance(0);
+        account.setLedgerSequence(0);
+        post(account, "OPENING", openingBalance, null, reference);
+    }
+
+    /**
+     * Records the balance of a locked account created before the journal as its first entry, posted at the
+     * account's creation time. Does nothing if the account already has entries.
+     *
+     * @return whether an entry was added
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean openPreLedger(Account account) {
+        if (account.getLedgerSequence() != 0) {
+            return false;
+        }
+        account.setLedgerSequence(1);
+        LocalDateTime postedAt = account.getCreatedTimestamp() != null ? account.getCreatedTimestamp() : LocalDateTime.now();
+        journalEntryRepository.save(new JournalEntry(null, account.getAccountNumber(), 1, "OPENING", account.getBalance(),
+                account.getBalance(), account.getCurrency(), null, PRE_LEDGER_REFERENCE, postedAt));
+        return true;
+    }
+
+    /**
+     * Moves an amount between two locked accounts with one DEBIT and one CREDIT entry.
+     *
+     * @return the transfer ID shared by both entries
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String transfer(Account source, Account destination, long amount, String reference) {
+        String transferId = UUID.randomUUID().toString();
+        debit(source, amount, transferId, reference);
+        credit(destination, amount, transferId, reference);
+        return transferId;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public JournalEntry debit(Account account, long amount, String transferId, String reference) {
+        return post(account, "DEBIT", -amount, transferId, reference);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public JournalEntry credit(Account account, long amount, String transferId, String reference) {
+        return post(account, "CREDIT", amount, transferId, reference);
+    }
+
+    /**
+     * Appends an entry to a locked account and applies it to the account balance.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public JournalEntry post(Account account, String entryType, long amount, String transferId, String reference) {
+        if (!"OPENING".equals(entryType)) {
+            openPreLedger(account);
+        }
+        account.setBalance(Money.add(account.getBalance(), amount));
+        account.setLedgerSequence(account.getLedgerSequence() + 1);
+
+        JournalEntry entry = new JournalEntry(null, account.getAccountNumber(), account.getLedgerSequence(), entryType,
+                amount, account.getBalance(), account.getCurrency(), transferId, reference, LocalDateTime.now());
+        return journalEntryRepository.save(entry);
+    }
+
+    /**
+     * Balance of the account row as of the given time, or empty if the account had no entries by then.
+     */
+    public Optional<Long> getBalanceAsOf(String accountNumber, LocalDateTime asOf) {
+        return journalEntryRepository.findFirstByAccountNumberAndPostedAtLessThanEqualOrderByPostedAtDescEntrySequenceDesc(accountNumber, asOf)
+                .map(JournalEntry::getBalanceAfter);
+    }
+
+    public KeysetPage<JournalEntry> getEntriesPage(String accountNumber, Long afterSequence, Integer size) {
+        int pageSize = KeysetPage.boundedSize(size);
+        return KeysetPage.of(journalEntryRepository.findByAccountNumberAndEntrySequenceGreaterThanOrderByEntrySequenceAsc(
+                accountNumber, KeysetPage.startAfter(afterSequence), Limit.of(pageSize)), pageSize, JournalEntry::getEntrySequence);
+    }
+}
@@ -0,0 +1,45 @@
+package com.rajeswaran.account.service;
+
+import com.rajeswaran.account.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Journals the balances of accounts created before the journal existed, so balance-as-of queries find an
+ * OPENING entry for every account.
+ *
+ * Runs once at startup. Each account is locked and opened in its own transaction, and skipped if a posting
+ * or another instance has opened it in the meantime.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PreLedgerAccountBackfill {
+
+    private final AccountRepository accountRepository;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<String> accountNumbers = accountRepository.findAccountNumbersWithoutJournal();
+        int opened = 0;
+        for (String accountNumber : accountNumbers) {
+            Boolean added = transactionTemplate.execute(status -> accountRepository.findByAccountNumberWithLock(accountNumber)
+                    .map(ledgerService::openPreLedger)
+                    .orElse(false));
+            if (Boolean.TRUE.equals(added)) {
+                opened++;
+            }
+        }
+        if (opened > 0) {
+            log.info("Journaled the opening balance of {} accounts created before the journal", opened);
+        }
+    }
+}
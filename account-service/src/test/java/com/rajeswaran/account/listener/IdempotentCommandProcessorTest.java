@@ -0,0 +1,188 @@
+package com.rajeswaran.account.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajeswaran.account.repository.AccountRepository;
+import com.rajeswaran.common.idempotency.CommandReply;
+import com.rajeswaran.common.idempotency.IdempotentCommandProcessor;
+import com.rajeswaran.common.idempotency.ProcessedCommandStore;
+import com.rajeswaran.common.saga.payment.commands.ProcessPaymentCommand;
+import com.rajeswaran.common.saga.payment.events.PaymentFailedEvent;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = IdempotentCommandProcessorTest.JpaConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IdempotentCommandProcessorTest {
+
+    // Only the JPA layer, for the processed_commands table; the application class would scan every component of the service
+    @Configuration
+    @EntityScan({"com.rajeswaran.common.entity", "com.rajeswaran.account.entity"})
+    @EnableJpaRepositories(basePackageClasses = AccountRepository.class)
+    static class JpaConfiguration {
+    }
+
+    private static final String BINDING = "paymentProcessed-out-0";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Configured like the application's mapper, which ignores computed properties such as eventType on reading
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final List<Object> sent = new ArrayList<>();
+    private final AtomicInteger handled = new AtomicInteger();
+    private StreamBridge streamBridge;
+    private ProcessedCommandStore processedCommandStore;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM processed_commands");
+        streamBridge = Mockito.mock(StreamBridge.class);
+        Mockito.when(streamBridge.send(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            sent.add(invocation.getArgument(1));
+            return true;
+        });
+        processedCommandStore = new ProcessedCommandStore(jdbcTemplate, Duration.ofDays(7), 1000);
+    }
+
+    @Test
+    void redeliveryReplaysTheReplyWithoutHandlingAgain() {
+        IdempotentCommandProcessor processor = newProcessor();
+        ProcessPaymentCommand command = command(1);
+
+        processor.process(command, () -> reply(command, "first"), this::unexpectedFailure);
+        processor.process(command, () -> reply(command, "second"), this::unexpectedFailure);
+
+        Assertions.assertEquals(1, handled.get());
+        Assertions.assertEquals(List.of("first", "first"), sentReasons());
+    }
+
+    @Test
+    void storedReplyIsReplayedByAnotherInstance() {
+        ProcessPaymentCommand command = command(2);
+        newProcessor().process(command, () -> reply(command, "first"), this::unexpectedFailure);
+
+        // Nothing in its recent replies: the reply is read back from the processed_commands row
+        newProcessor().process(command, () -> reply(command, "second"), this::unexpectedFailure);
+
+        Assertions.assertEquals(1, handled.get());
+        Assertions.assertEquals(List.of("first", "first"), sentReasons());
+        Assertions.assertInstanceOf(PaymentFailedEvent.class, sent.get(1));
+    }
+
+    @Test
+    void failureReplyIsRecordedAndReplayed() {
+        ProcessPaymentCommand command = command(3);
+        newProcessor().process(command, () -> {
+            handled.incrementAndGet();
+            throw new IllegalStateException("Insufficient balance");
+        }, e -> CommandReply.of(BINDING, PaymentFailedEvent.create(command.getSagaId(), command.getPayment(), e.getMessage())));
+
+        // A redelivery must not turn the reported failure into a success
+        newProcessor().process(command, () -> reply(command, "succeeded"), this::unexpectedFailure);
+
+        Assertions.assertEquals(1, handled.get());
+        Assertions.assertEquals(List.of("Insufficient balance", "Insufficient balance"), sentReasons());
+    }
+
+    @Test
+    void transientFailureIsLeftForRedelivery() {
+        IdempotentCommandProcessor processor = newProcessor();
+        ProcessPaymentCommand command = command(4);
+
+        Assertions.assertThrows(QueryTimeoutException.class, () -> processor.process(command, () -> {
+            handled.incrementAndGet();
+            throw new QueryTimeoutException("Lock wait timeout exceeded");
+        }, this::unexpectedFailure));
+        Assertions.assertTrue(sent.isEmpty());
+
+        processor.process(command, () -> reply(command, "retried"), this::unexpectedFailure);
+
+        Assertions.assertEquals(2, handled.get());
+        Assertions.assertEquals(List.of("retried"), sentReasons());
+    }
+
+    @Test
+    void batchHandlesOnlyNewCommandsAndReplaysTheRest() {
+        ProcessPaymentCommand processed = command(5);
+        ProcessPaymentCommand fresh = command(6);
+        newProcessor().process(processed, () -> reply(processed, "earlier"), this::unexpectedFailure);
+        List<ProcessPaymentCommand> batches = new ArrayList<>();
+
+        newProcessor().processBatch(List.of(processed, fresh), batch -> {
+            batches.addAll(batch);
+            return Map.of(fresh.getCommandId(), reply(fresh, "batched"));
+        }, command -> Assertions.fail("Fell back to individual processing"));
+
+        Assertions.assertEquals(List.of(fresh), batches);
+        Assertions.assertEquals(List.of("earlier", "earlier", "batched"), sentReasons());
+        Assertions.assertTrue(processedCommandStore.findReply(fresh.getCommandId()).isPresent());
+    }
+
+    @Test
+    void failedBatchFallsBackToIndividualProcessing() {
+        IdempotentCommandProcessor processor = newProcessor();
+        ProcessPaymentCommand first = command(7);
+        ProcessPaymentCommand second = command(8);
+
+        processor.processBatch(List.of(first, second), batch -> {
+            throw new IllegalStateException("Batch failed");
+        }, command -> processor.process(command, () -> reply(command, "individual"), this::unexpectedFailure));
+
+        Assertions.assertEquals(2, handled.get());
+        Assertions.assertEquals(List.of("individual", "individual"), sentReasons());
+    }
+
+    private IdempotentCommandProcessor newProcessor() {
+        return new IdempotentCommandProcessor(processedCommandStore, streamBridge, objectMapper,
+                new TransactionTemplate(transactionManager), 100);
+    }
+
+    private CommandReply reply(ProcessPaymentCommand command, String reason) {
+        handled.incrementAndGet();
+        // Any event will do; a failure event carries a distinguishable reason
+        return CommandReply.of(BINDING, PaymentFailedEvent.create(command.getSagaId(), command.getPayment(), reason));
+    }
+
+    private CommandReply unexpectedFailure(Exception e) {
+        return Assertions.fail("Unexpected failure", e);
+    }
+
+    private List<String> sentReasons() {
+        return sent.stream().map(event -> ((PaymentFailedEvent) event).getReason()).toList();
+    }
+
+    private static ProcessPaymentCommand command(long sagaId) {
+        return ProcessPaymentCommand.create(sagaId, new PaymentInstruction(sagaId, "40001", "40002", 100, null, "Test", "tester"));
+    }
+}
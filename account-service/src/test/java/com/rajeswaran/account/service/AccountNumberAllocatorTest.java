@@ -0,0 +1,102 @@
+package com.rajeswaran.account.service;
+
+import com.rajeswaran.account.entity.AccountNumberSequence;
+import com.rajeswaran.account.repository.AccountNumberSequenceRepository;
+import com.rajeswaran.account.repository.AccountRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = AccountNumberAllocatorTest.JpaConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AccountNumberAllocatorTest {
+
+    // Only the JPA layer; the application class would scan every component of the service
+    @Configuration
+    @EntityScan({"com.rajeswaran.common.entity", "com.rajeswaran.account.entity"})
+    @EnableJpaRepositories(basePackageClasses = AccountNumberSequenceRepository.class)
+    static class JpaConfiguration {
+    }
+
+    @Autowired
+    private AccountNumberSequenceRepository sequenceRepository;
+    // Its MAX(CAST(... AS UNSIGNED)) query is MySQL only; no accounts exist before the sequence
+    @MockitoBean
+    private AccountRepository accountRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void resetSequence() {
+        sequenceRepository.deleteAll();
+    }
+
+    @Test
+    void lateInitializationKeepsReservedBlocks() {
+        AccountNumberAllocator first = newAllocator();
+        AccountNumberAllocator second = newAllocator();
+        Assertions.assertEquals("10001", first.nextAccountNumber());
+
+        // The second instance found no row before the first one created it
+        second.initializeSequence();
+
+        Assertions.assertEquals(10011, sequenceRepository.findById("account-number").map(AccountNumberSequence::getNextValue).orElseThrow());
+        Assertions.assertEquals("10011", second.nextAccountNumber());
+    }
+
+    @Test
+    void concurrentFirstBootIssuesUniqueNumbers() throws Exception {
+        int instances = 8;
+        int numbersPerInstance = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(instances)) {
+            for (int i = 0; i < instances; i++) {
+                AccountNumberAllocator allocator = newAllocator();
+                results.add(executor.submit(() -> {
+                    start.await();
+                    List<String> numbers = new ArrayList<>();
+                    for (int n = 0; n < numbersPerInstance; n++) {
+                        numbers.add(allocator.nextAccountNumber());
+                    }
+                    return numbers;
+                }));
+            }
+            start.countDown();
+
+            Set<String> issued = new HashSet<>();
+            for (Future<List<String>> result : results) {
+                result.get().forEach(number -> Assertions.assertTrue(issued.add(number), "Account number issued twice: " + number));
+            }
+            Assertions.assertEquals(instances * numbersPerInstance, issued.size());
+        }
+    }
+
+    private AccountNumberAllocator newAllocator() {
+        return new AccountNumberAllocator(sequenceRepository, accountRepository, transactionManager, 10, 2);
+    }
+}
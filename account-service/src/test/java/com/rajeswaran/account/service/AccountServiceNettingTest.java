@@ -0,0 +1,145 @@
+package com.rajeswaran.account.service;
+
+import com.rajeswaran.account.entity.JournalEntry;
+import com.rajeswaran.account.repository.AccountRepository;
+import com.rajeswaran.account.repository.JournalEntryRepository;
+import com.rajeswaran.common.entity.Account;
+import com.rajeswaran.common.entity.Payment;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class AccountServiceNettingTest {
+
+    private final Map<String, Account> accounts = new TreeMap<>();
+    private final List<JournalEntry> journal = new ArrayList<>();
+    private AccountService accountService;
+
+    @BeforeEach
+    void setUp() {
+        AccountRepository accountRepository = Mockito.mock(AccountRepository.class);
+        Mockito.when(accountRepository.findByAccountNumberInWithLock(ArgumentMatchers.anyCollection()))
+                .thenAnswer(invocation -> accounts.values().stream()
+                        .filter(account -> invocation.<Collection<String>>getArgument(0).contains(account.getAccountNumber()))
+                        .toList());
+        JournalEntryRepository journalEntryRepository = Mockito.mock(JournalEntryRepository.class);
+        Mockito.when(journalEntryRepository.save(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            journal.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        // No hot accounts: every balance is held in the account row
+        HotAccountService hotAccountService = Mockito.mock(HotAccountService.class);
+
+        accountService = new AccountService(accountRepository, hotAccountService, new LedgerService(journalEntryRepository));
+    }
+
+    @Test
+    void appliesCoveredDebitsAndFailsUncoveredOnes() {
+        account("A", 100);
+        account("B", 0);
+        account("C", 0);
+        Payment toB = payment(1, "A", "B", 60);
+        Payment toC = payment(2, "A", "C", 60);
+        Payment fromB = payment(3, "B", "C", 50);
+
+        AccountService.BatchTransferResult result = accountService.transferNetted(List.of(toB, toC, fromB));
+
+        Assertions.assertEquals(List.of(toB, fromB), result.processed());
+        Assertions.assertEquals(List.of(toC), result.failed());
+        Assertions.assertEquals("FAILED", toC.getStatus());
+        Assertions.assertTrue(result.failureReasons().get(2L).startsWith("Insufficient balance"));
+        Assertions.assertEquals(40, accounts.get("A").getBalance());
+        Assertions.assertEquals(10, accounts.get("B").getBalance());
+        Assertions.assertEquals(50, accounts.get("C").getBalance());
+        Assertions.assertEquals(40, toB.getSourceAccountBalance());
+        Assertions.assertEquals(60, toB.getDestinationAccountBalance());
+        Assertions.assertEquals(10, fromB.getSourceAccountBalance());
+        Assertions.assertEquals(50, fromB.getDestinationAccountBalance());
+        assertNoNegativeBalances();
+    }
+
+    @Test
+    void defersDebitsUntilALaterCreditCoversThem() {
+        account("A", 0);
+        account("B", 100);
+        account("C", 0);
+        Payment fromA = payment(1, "A", "C", 70);
+        Payment toA = payment(2, "B", "A", 80);
+
+        AccountService.BatchTransferResult result = accountService.transferNetted(List.of(fromA, toA));
+
+        // Processed in the order they were applied, each with the balances right after it
+        Assertions.assertEquals(List.of(toA, fromA), result.processed());
+        Assertions.assertTrue(result.failed().isEmpty());
+        Assertions.assertEquals(80, toA.getDestinationAccountBalance());
+        Assertions.assertEquals(10, fromA.getSourceAccountBalance());
+        Assertions.assertEquals(10, accounts.get("A").getBalance());
+        Assertions.assertEquals(20, accounts.get("B").getBalance());
+        Assertions.assertEquals(70, accounts.get("C").getBalance());
+        assertNoNegativeBalances();
+    }
+
+    @Test
+    void failsDebitsThatOnlyCoverEachOther() {
+        account("A", 0);
+        account("B", 0);
+        Payment toB = payment(1, "A", "B", 10);
+        Payment toA = payment(2, "B", "A", 10);
+
+        // The set nets to zero, but neither payment can be made first without overdrawing an account
+        AccountService.BatchTransferResult result = accountService.transferNetted(List.of(toB, toA));
+
+        Assertions.assertTrue(result.processed().isEmpty());
+        Assertions.assertEquals(List.of(toB, toA), result.failed());
+        Assertions.assertTrue(journal.isEmpty());
+    }
+
+    @Test
+    void batchFromOneSourceStopsAtItsBalance() {
+        account("A", 100);
+        account("B", 0);
+        account("C", 0);
+        Payment first = payment(1, "A", "B", 70);
+        Payment second = payment(2, "A", "C", 40);
+        Payment third = payment(3, "A", "C", 30);
+
+        AccountService.BatchTransferResult result = accountService.transferBatch("A", List.of(first, second, third));
+
+        Assertions.assertEquals(List.of(first, third), result.processed());
+        Assertions.assertEquals(List.of(second), result.failed());
+        Assertions.assertEquals(0, accounts.get("A").getBalance());
+        Assertions.assertEquals(0, third.getSourceAccountBalance());
+        assertNoNegativeBalances();
+    }
+
+    private void assertNoNegativeBalances() {
+        journal.forEach(entry -> Assertions.assertTrue(entry.getBalanceAfter() >= 0,
+                "Entry " + entry.getEntrySequence() + " of " + entry.getAccountNumber() + " has balance " + entry.getBalanceAfter()));
+    }
+
+    private void account(String accountNumber, long balance) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setUserName("user-" + accountNumber);
+        account.setBalance(balance);
+        account.setStatus("ACTIVE");
+        accounts.put(accountNumber, account);
+    }
+
+    private static Payment payment(long id, String source, String destination, long amount) {
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setSourceAccountNumber(source);
+        payment.setDestinationAccountNumber(destination);
+        payment.setAmount(amount);
+        return payment;
+    }
+}
@@ -0,0 +1,148 @@
+package com.rajeswaran.account.service;
+
+import com.rajeswaran.account.entity.AccountBalanceSlot;
+import com.rajeswaran.account.entity.JournalEntry;
+import com.rajeswaran.account.repository.AccountBalanceSlotRepository;
+import com.rajeswaran.account.repository.AccountRepository;
+import com.rajeswaran.account.repository.JournalEntryRepository;
+import com.rajeswaran.common.entity.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = HotAccountServiceTest.JpaConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class HotAccountServiceTest {
+
+    // Only the JPA layer; the application class would scan every component of the service
+    @Configuration
+    @EntityScan({"com.rajeswaran.common.entity", "com.rajeswaran.account.entity"})
+    @EnableJpaRepositories(basePackageClasses = AccountRepository.class)
+    static class JpaConfiguration {
+    }
+
+    private static final String HOT = "30001";
+    private static final String PAYER = "30002";
+    private static final int SLOTS = 4;
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private HotAccountService hotAccountService;
+    private AccountService accountService;
+
+    @BeforeEach
+    void setUp() {
+        journalEntryRepository.deleteAll();
+        slotRepository.deleteAll();
+        accountRepository.deleteAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        LedgerService ledgerService = new LedgerService(journalEntryRepository);
+        hotAccountService = new HotAccountService(accountRepository, slotRepository, ledgerService, transactionTemplate,
+                new SimpleMeterRegistry(), List.of(HOT), SLOTS);
+        accountService = new AccountService(accountRepository, hotAccountService, ledgerService);
+        hotAccountService.initializeSlots();
+        openAccount(HOT, 0);
+        openAccount(PAYER, 1_000);
+    }
+
+    @Test
+    void slotsAreCreatedOnceForHotAccountsOnly() {
+        hotAccountService.initializeSlots();
+
+        Assertions.assertEquals(SLOTS, slotRepository.findByAccountNumber(HOT).size());
+        Assertions.assertTrue(hotAccountService.hasSlots(HOT));
+        Assertions.assertFalse(hotAccountService.hasSlots(PAYER));
+    }
+
+    @Test
+    void creditsWaitInSlotsUntilConsolidated() {
+        for (int i = 0; i < 20; i++) {
+            transfer(PAYER, HOT, 10);
+        }
+
+        // The hot account row was never touched; the credits are spread over its slots
+        Assertions.assertEquals(0, balance(HOT));
+        Assertions.assertEquals(200, hotAccountService.getPendingBalance(HOT));
+        Assertions.assertEquals(800, balance(PAYER));
+
+        hotAccountService.consolidate();
+
+        Assertions.assertEquals(200, balance(HOT));
+        Assertions.assertEquals(0, hotAccountService.getPendingBalance(HOT));
+        Assertions.assertTrue(slotRepository.findByAccountNumber(HOT).stream().allMatch(slot -> slot.getBalance() == 0));
+        List<JournalEntry> entries = entries(HOT);
+        Assertions.assertEquals(List.of("OPENING", "SWEEP"), entries.stream().map(JournalEntry::getEntryType).toList());
+        Assertions.assertEquals(200, entries.get(1).getBalanceAfter());
+
+        // Nothing left to sweep, so no further entry
+        hotAccountService.consolidate();
+        Assertions.assertEquals(2, entries(HOT).size());
+    }
+
+    @Test
+    void debitFromHotAccountSweepsItsSlotsFirst() {
+        transfer(PAYER, HOT, 100);
+        Assertions.assertEquals(0, balance(HOT));
+
+        AccountService.TransferResult result = transfer(HOT, PAYER, 80);
+
+        Assertions.assertTrue(result.isSuccess());
+        Assertions.assertEquals(20, balance(HOT));
+        Assertions.assertEquals(0, hotAccountService.getPendingBalance(HOT));
+        Assertions.assertEquals(List.of("OPENING", "SWEEP", "DEBIT"), entries(HOT).stream().map(JournalEntry::getEntryType).toList());
+        Assertions.assertEquals(0, slotRepository.findByAccountNumber(HOT).stream().mapToLong(AccountBalanceSlot::getBalance).sum());
+    }
+
+    private AccountService.TransferResult transfer(String source, String destination, long amount) {
+        return transactionTemplate.execute(status -> accountService.transferMoney(source, destination, amount, "Test transfer"));
+    }
+
+    private void openAccount(String accountNumber, long balance) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setUserName("user-" + accountNumber);
+        account.setBalance(balance);
+        account.setStatus("ACTIVE");
+        account.setCreatedTimestamp(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            new LedgerService(journalEntryRepository).open(account, "Initial deposit");
+            accountRepository.save(account);
+        });
+    }
+
+    private long balance(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber).orElseThrow().getBalance();
+    }
+
+    private List<JournalEntry> entries(String accountNumber) {
+        return journalEntryRepository.findByAccountNumberAndEntrySequenceGreaterThanOrderByEntrySequenceAsc(accountNumber, 0, Limit.of(10));
+    }
+}
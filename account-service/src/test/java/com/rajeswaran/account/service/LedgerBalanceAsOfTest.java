@@ -0,0 +1,130 @@
+package com.rajeswaran.account.service;
+
+import com.rajeswaran.account.entity.JournalEntry;
+import com.rajeswaran.account.repository.AccountRepository;
+import com.rajeswaran.account.repository.JournalEntryRepository;
+import com.rajeswaran.common.entity.Account;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = LedgerBalanceAsOfTest.JpaConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LedgerBalanceAsOfTest {
+
+    // Only the JPA layer; the application class would scan every component of the service
+    @Configuration
+    @EntityScan({"com.rajeswaran.common.entity", "com.rajeswaran.account.entity"})
+    @EnableJpaRepositories(basePackageClasses = AccountRepository.class)
+    static class JpaConfiguration {
+    }
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 15, 10, 0);
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    void setUp() {
+        journalEntryRepository.deleteAll();
+        accountRepository.deleteAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        ledgerService = new LedgerService(journalEntryRepository);
+    }
+
+    @Test
+    void backfillOpensAccountsCreatedBeforeTheJournal() {
+        preLedgerAccount("20001", 500);
+        PreLedgerAccountBackfill backfill = new PreLedgerAccountBackfill(accountRepository, ledgerService, transactionTemplate);
+
+        backfill.backfill();
+        backfill.backfill();
+
+        Assertions.assertEquals(Optional.of(500L), ledgerService.getBalanceAsOf("20001", CREATED.plusMinutes(1)));
+        Assertions.assertEquals(Optional.of(500L), ledgerService.getBalanceAsOf("20001", LocalDateTime.now()));
+        Assertions.assertEquals(Optional.empty(), ledgerService.getBalanceAsOf("20001", CREATED.minusMinutes(1)));
+        List<JournalEntry> entries = entries("20001");
+        Assertions.assertEquals(1, entries.size());
+        Assertions.assertEquals("OPENING", entries.get(0).getEntryType());
+        Assertions.assertEquals(CREATED, entries.get(0).getPostedAt());
+        Assertions.assertEquals(1, accountRepository.findByAccountNumber("20001").orElseThrow().getLedgerSequence());
+    }
+
+    @Test
+    void firstPostingOpensAccountsCreatedBeforeTheJournal() {
+        preLedgerAccount("20002", 300);
+
+        transactionTemplate.executeWithoutResult(status ->
+                ledgerService.credit(accountRepository.findByAccountNumberWithLock("20002").orElseThrow(), 200, "transfer-1", "Test credit"));
+
+        Assertions.assertEquals(Optional.of(300L), ledgerService.getBalanceAsOf("20002", CREATED.plusMinutes(1)));
+        Assertions.assertEquals(Optional.of(500L), ledgerService.getBalanceAsOf("20002", LocalDateTime.now()));
+        Assertions.assertEquals(List.of("OPENING", "CREDIT"), entries("20002").stream().map(JournalEntry::getEntryType).toList());
+        Assertions.assertEquals(500, accountRepository.findByAccountNumber("20002").orElseThrow().getBalance());
+    }
+
+    @Test
+    void balanceAsOfFollowsPostings() {
+        Account account = new Account();
+        account.setAccountNumber("20003");
+        account.setUserName("ledger-user");
+        account.setBalance(100);
+        account.setStatus("ACTIVE");
+        account.setCreatedTimestamp(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            ledgerService.open(account, "Initial deposit");
+            accountRepository.save(account);
+        });
+        LocalDateTime afterOpening = LocalDateTime.now();
+
+        transactionTemplate.executeWithoutResult(status ->
+                ledgerService.debit(accountRepository.findByAccountNumberWithLock("20003").orElseThrow(), 40, "transfer-2", "Test debit"));
+
+        Assertions.assertEquals(Optional.of(100L), ledgerService.getBalanceAsOf("20003", afterOpening));
+        Assertions.assertEquals(Optional.of(60L), ledgerService.getBalanceAsOf("20003", LocalDateTime.now()));
+        // Opened through the journal, so the backfill leaves it alone
+        new PreLedgerAccountBackfill(accountRepository, ledgerService, transactionTemplate).backfill();
+        Assertions.assertEquals(2, entries("20003").size());
+    }
+
+    private void preLedgerAccount(String accountNumber, long balance) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setUserName("ledger-user");
+        account.setBalance(balance);
+        account.setStatus("ACTIVE");
+        account.setCreatedTimestamp(CREATED);
+        accountRepository.save(account);
+    }
+
+    private List<JournalEntry> entries(String accountNumber) {
+        return journalEntryRepository.findByAccountNumberAndEntrySequenceGreaterThanOrderByEntrySequenceAsc(accountNumber, 0, Limit.of(10));
+    }
+}
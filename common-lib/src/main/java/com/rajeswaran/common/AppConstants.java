@@ -9,6 +9,9 @@ public final class AppConstants {
 
     // Header Constants for distributed tracing
     public static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
+
+    // Header carrying an explicit Kafka partition key (used when the payload is already serialized)
+    public static final String PARTITION_KEY_HEADER = "X-Partition-Key";
     
     // MDC Keys for structured logging
     public static final String CORRELATION_ID_MDC_KEY = "correlationId";
@@ -0,0 +1,53 @@
+package com.rajeswaran.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajeswaran.common.idempotency.IdempotentCommandProcessor;
+import com.rajeswaran.common.idempotency.ProcessedCommandStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Auto-configuration for idempotent command handling.
+ * Enabled with {@code baas.idempotency.enabled=true} in services whose command listeners use the
+ * {@link IdempotentCommandProcessor}; the service must also scan {@code com.rajeswaran.common.entity}
+ * so the {@code processed_commands} table is created.
+ */
+@AutoConfiguration(after = {HibernateJpaAutoConfiguration.class, JdbcTemplateAutoConfiguration.class,
+        TransactionAutoConfiguration.class, JacksonAutoConfiguration.class})
+@ConditionalOnClass({JdbcTemplate.class, StreamBridge.class})
+@ConditionalOnBean(JdbcTemplate.class)
+@ConditionalOnProperty(prefix = "baas.idempotency", name = "enabled", havingValue = "true")
+public class IdempotencyAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ProcessedCommandStore processedCommandStore(JdbcTemplate jdbcTemplate,
+                                                       @Value("${baas.idempotency.retention:7d}") Duration retention,
+                                                       @Value("${baas.idempotency.purge-batch-size:1000}") int purgeBatchSize) {
+        return new ProcessedCommandStore(jdbcTemplate, retention, purgeBatchSize);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdempotentCommandProcessor idempotentCommandProcessor(ProcessedCommandStore processedCommandStore,
+                                                                 StreamBridge streamBridge,
+                                                                 ObjectMapper objectMapper,
+                                                                 TransactionTemplate transactionTemplate,
+                                                                 @Value("${baas.idempotency.cache-size:10000}") int cacheSize) {
+        return new IdempotentCommandProcessor(processedCommandStore, streamBridge, objectMapper, transactionTemplate, cacheSize);
+    }
+}
@@ -0,0 +1,34 @@
+package com.rajeswaran.common.config;
+
+import com.rajeswaran.common.money.LegacyMoneyColumnMigration;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Auto-configuration of the {@link LegacyMoneyColumnMigration} for services with a JPA data source.
+ * The migration runs after the entity manager factory, so Hibernate has already added the minor-unit
+ * columns. It rewrites shared tables, so it only runs when enabled with
+ * {@code baas.money.legacy-column-migration.enabled=true}: on one instance, started alone, when
+ * upgrading a database that still has the double columns.
+ */
+@AutoConfiguration(after = {HibernateJpaAutoConfiguration.class, JdbcTemplateAutoConfiguration.class})
+@ConditionalOnClass(JdbcTemplate.class)
+@ConditionalOnBean(name = "entityManagerFactory", value = JdbcTemplate.class)
+@ConditionalOnProperty(prefix = "baas.money.legacy-column-migration", name = "enabled", havingValue = "true", matchIfMissing = false)
+public class LegacyMoneyColumnMigrationAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @DependsOn("entityManagerFactory")
+    public LegacyMoneyColumnMigration legacyMoneyColumnMigration(JdbcTemplate jdbcTemplate) {
+        return new LegacyMoneyColumnMigration(jdbcTemplate);
+    }
+}
@@ -0,0 +1,33 @@
+package com.rajeswaran.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Auto-configuration for NDJSON streaming of large listings.
+ * Registers the {@link NdjsonStreamWriter} in every service that has JPA and Spring MVC.
+ */
+@AutoConfiguration(after = {HibernateJpaAutoConfiguration.class, JacksonAutoConfiguration.class})
+@ConditionalOnClass({EntityManagerFactory.class, StreamingResponseBody.class})
+@ConditionalOnBean(EntityManagerFactory.class)
+public class NdjsonStreamingAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public NdjsonStreamWriter ndjsonStreamWriter(ObjectMapper objectMapper,
+                                                 EntityManagerFactory entityManagerFactory,
+                                                 PlatformTransactionManager transactionManager) {
+        return new NdjsonStreamWriter(objectMapper, SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory), transactionManager);
+    }
+}
@@ -0,0 +1,33 @@
+package com.rajeswaran.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajeswaran.common.messaging.SagaBinaryCodec;
+import com.rajeswaran.common.messaging.SagaBinaryMessageConverter;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Auto-configuration for the binary saga message format.
+ * Registers the codec and its message converter in every service that uses Spring Cloud Stream; bindings
+ * opt in by setting their content type to {@value SagaBinaryCodec#CONTENT_TYPE}.
+ */
+@AutoConfiguration(after = JacksonAutoConfiguration.class)
+@ConditionalOnClass({StreamBridge.class, ObjectMapper.class})
+public class SagaBinaryCodecAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SagaBinaryCodec sagaBinaryCodec(ObjectMapper objectMapper) {
+        return new SagaBinaryCodec(objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SagaBinaryMessageConverter sagaBinaryMessageConverter(SagaBinaryCodec sagaBinaryCodec) {
+        return new SagaBinaryMessageConverter(sagaBinaryCodec);
+    }
+}
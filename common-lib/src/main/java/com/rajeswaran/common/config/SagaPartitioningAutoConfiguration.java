@@ -0,0 +1,23 @@
+package com.rajeswaran.common.config;
+
+import com.rajeswaran.common.messaging.SagaPartitionKeyExtractor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.cloud.stream.binder.PartitionKeyExtractorStrategy;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Auto-configuration for partitioning saga messages.
+ * Registers the key extractor referenced by {@code partition-key-extractor-name} in the service bindings.
+ */
+@AutoConfiguration
+@ConditionalOnClass(PartitionKeyExtractorStrategy.class)
+public class SagaPartitioningAutoConfiguration {
+
+    @Bean(SagaPartitionKeyExtractor.BEAN_NAME)
+    @ConditionalOnMissingBean(name = SagaPartitionKeyExtractor.BEAN_NAME)
+    public SagaPartitionKeyExtractor sagaPartitionKeyExtractor() {
+        return new SagaPartitionKeyExtractor();
+    }
+}
@@ -0,0 +1,54 @@
+package com.rajeswaran.common.config;
+
+import com.rajeswaran.common.messaging.VirtualThreadListenerContainerCustomizer;
+import com.rajeswaran.common.metrics.VirtualThreadPinnedMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.cloud.stream.config.ListenerContainerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Auto-configuration for services running with {@code spring.threads.virtual.enabled=true}.
+ * Spring Boot then runs Tomcat request handling and scheduled tasks on virtual threads; this adds the same
+ * for the Kafka consumers created by Spring Cloud Stream, which Boot does not configure, and publishes
+ * the pinned virtual thread metric.
+ */
+@AutoConfiguration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadAutoConfiguration {
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({ListenerContainerCustomizer.class, AbstractMessageListenerContainer.class})
+    static class KafkaListenerConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(ListenerContainerCustomizer.class)
+        public VirtualThreadListenerContainerCustomizer virtualThreadListenerContainerCustomizer(
+                Environment environment,
+                @Value("${baas.virtual-threads.max-listener-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency) {
+            return new VirtualThreadListenerContainerCustomizer(environment, maxConcurrency);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class PinnedThreadMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public VirtualThreadPinnedMetrics virtualThreadPinnedMetrics(
+                @Value("${baas.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+            return new VirtualThreadPinnedMetrics(threshold);
+        }
+    }
+}
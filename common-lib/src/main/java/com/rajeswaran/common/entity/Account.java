@@ -2,6 +2,8 @@ package com.rajeswaran.common.entity;
 
 import java.time.LocalDateTime;
 
+import com.rajeswaran.common.money.Money;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -29,7 +31,11 @@ public class Account {
     private String accountType;
     private String userId;
     private String userName;
-    private double balance;
+    @Column(name = "balance_minor", nullable = false)
+    private long balance; // Minor units of currency
+    @Column(name = "ledger_sequence", nullable = false)
+    private long ledgerSequence; // Sequence number of the last journal entry applied to the balance
+    private String currency = Money.DEFAULT_CURRENCY;
     private String status;
     private LocalDateTime createdTimestamp;
 }
@@ -2,6 +2,8 @@ package com.rajeswaran.common.entity;
 
 import java.time.LocalDateTime;
 
+import com.rajeswaran.common.money.Money;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -22,12 +24,16 @@ public class Payment {
     private Long id;
     private String sourceAccountNumber;
     private String destinationAccountNumber;
-    private double amount;
+    @Column(name = "amount_minor", nullable = false)
+    private long amount; // Minor units of currency
+    private String currency = Money.DEFAULT_CURRENCY;
     private String status;
     private String description;
     private LocalDateTime timestamp;
     private String createdBy;
     private String destinationAccountUserName;
-    private double sourceAccountBalance;
-    private double destinationAccountBalance;
+    @Column(name = "source_account_balance_minor")
+    private long sourceAccountBalance;
+    @Column(name = "destination_account_balance_minor")
+    private long destinationAccountBalance;
 }
@@ -0,0 +1,50 @@
+package com.rajeswaran.common.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A command that has been handled, with the reply event that was published for it.
+ * Rows are kept until {@code expiresAt}, long enough to cover any redelivery of the command.
+ */
+@Entity
+@Table(name = "processed_commands", indexes = {
+        @Index(name = "idx_processed_commands_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedCommand {
+
+    @Id
+    @Column(name = "command_id", length = 64)
+    private String commandId;
+
+    @Column(name = "command_type", nullable = false)
+    private String commandType;
+
+    @Column(name = "reply_binding")
+    private String replyBinding;
+
+    @Column(name = "reply_type")
+    private String replyType;
+
+    @Lob
+    @Column(name = "reply_payload", columnDefinition = "TEXT")
+    private String replyPayload;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -2,17 +2,25 @@ package com.rajeswaran.common.entity;
 
 import java.time.LocalDateTime;
 
+import com.rajeswaran.common.money.Money;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Balance and statement queries of one account over a time range
+        @Index(name = "idx_transactions_account_timestamp", columnList = "account_number, timestamp"),
+        // Per-period activity summaries for balance checkpoints
+        @Index(name = "idx_transactions_timestamp", columnList = "timestamp")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,12 +29,15 @@ public class Transaction {
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
     private String accountNumber;
-    private double amount;
+    @Column(name = "amount_minor", nullable = false)
+    private long amount; // Minor units of currency
+    private String currency = Money.DEFAULT_CURRENCY;
     private String type;
     private String description;
     private String status;
     private String reference;
     private LocalDateTime timestamp;
     private String username; // Added field to track which user owns this transaction
-    private double balance; // Renamed from balanceAfterTransaction to balance
+    @Column(name = "balance_minor")
+    private long balance; // Balance after the transaction, in minor units
 }
@@ -0,0 +1,11 @@
+package com.rajeswaran.common.idempotency;
+
+/**
+ * The event a command handler publishes in reply to a command, and the output binding it is sent to.
+ */
+public record CommandReply(String bindingName, Object event) {
+
+    public static CommandReply of(String bindingName, Object event) {
+        return new CommandReply(bindingName, event);
+    }
+}
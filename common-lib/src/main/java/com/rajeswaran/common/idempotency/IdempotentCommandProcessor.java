@@ -0,0 +1,264 @@
+package com.rajeswaran.common.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajeswaran.common.saga.command.Command;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a command handler at most once per command ID, so commands can be delivered at least once.
+ *
+ * The command ID is inserted into the {@link ProcessedCommandStore} in the same transaction as the
+ * handler's own changes, together with the reply the handler returns; the reply is published after the
+ * commit. A redelivered command is not handled again: the stored reply is published instead, so the
+ * sender still gets its answer if the first reply was lost.
+ *
+ * A new command costs a single insert and no lookup. Replies of recently processed commands are kept
+ * in a bounded LRU map, so most redeliveries, which follow shortly after a rebalance, are answered
+ * without reading the database.
+ *
+ * If the handler throws, its changes are rolled back and the failure reply is recorded instead, so a
+ * redelivery cannot turn a reported failure into a success. Transient failures, such as a lock timeout,
+ * a deadlock or a lost database connection, are not recorded: they are rethrown, nothing is replied, and
+ * the redelivered command is handled again. The same applies if the failure reply cannot be recorded.
+ *
+ * {@link #processBatch} handles a whole poll of commands in one transaction and records them with one
+ * batched insert; if that fails, e.g. because another consumer processed one of the commands in the
+ * meantime, every command is handled on its own instead.
+ */
+@Slf4j
+public class IdempotentCommandProcessor {
+
+    private final ProcessedCommandStore processedCommandStore;
+    private final StreamBridge streamBridge;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, CommandReply> recentReplies;
+
+    public IdempotentCommandProcessor(ProcessedCommandStore processedCommandStore,
+                                      StreamBridge streamBridge,
+                                      ObjectMapper objectMapper,
+                                      TransactionTemplate transactionTemplate,
+                                      int cacheSize) {
+        this.processedCommandStore = processedCommandStore;
+        this.streamBridge = streamBridge;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.recentReplies = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CommandReply> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Handles the command unless it was already processed, then publishes the reply.
+     *
+     * @param handler         applies the command and returns the success reply; runs in a transaction
+     * @param failureHandler  returns the failure reply for an exception thrown by the handler
+     */
+    public void process(Command command, Supplier<CommandReply> handler, Function<Exception, CommandReply> failureHandler) {
+        String commandId = command.getCommandId();
+        CommandReply recentReply = recentReplies.get(commandId);
+        if (recentReply != null) {
+            log.info("{} {} was already processed, replaying its reply", command.getCommandType(), commandId);
+            send(recentReply);
+            return;
+        }
+
+        CommandReply reply;
+        try {
+            reply = transactionTemplate.execute(status -> {
+                claim(command);
+                CommandReply result = handler.get();
+                saveReply(commandId, result);
+                return result;
+            });
+        } catch (DuplicateCommandException e) {
+            replayStoredReply(command);
+            return;
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                log.warn("Transient failure processing {} {}, leaving it for redelivery: {}",
+                        command.getCommandType(), commandId, e.getMessage());
+                throw e;
+            }
+            reply = failureHandler.apply(e);
+            if (!recordFailure(command, reply)) {
+                return;
+            }
+        }
+
+        recentReplies.put(commandId, reply);
+        send(reply);
+    }
+
+    /**
+     * Handles a batch of commands in one transaction unless they were already processed, then publishes
+     * the replies.
+     *
+     * @param batchHandler        applies the new commands and returns the reply to each, by command ID;
+     *                            runs in a transaction
+     * @param individualFallback  handles a single command, typically through {@link #process}; used for
+     *                            every new command if the batch fails
+     */
+    public <C extends Command> void processBatch(List<C> commands,
+                                                 Function<List<C>, Map<String, CommandReply>> batchHandler,
+                                                 Consumer<C> individualFallback) {
+        Map<String, C> newCommands = new LinkedHashMap<>();
+        List<C> duplicates = new ArrayList<>();
+        for (C command : commands) {
+            if (recentReplies.containsKey(command.getCommandId()) || newCommands.putIfAbsent(command.getCommandId(), command) != null) {
+                duplicates.add(command);
+            }
+        }
+        Set<String> processedIds = processedCommandStore.findProcessedIds(newCommands.keySet());
+        processedIds.forEach(commandId -> duplicates.add(newCommands.remove(commandId)));
+        duplicates.forEach(this::replay);
+        if (newCommands.isEmpty()) {
+            return;
+        }
+
+        List<C> batch = List.copyOf(newCommands.values());
+        Map<String, CommandReply> replies;
+        try {
+            replies = transactionTemplate.execute(status -> {
+                Map<String, CommandReply> result = batchHandler.apply(batch);
+                processedCommandStore.insertAll(batch.stream()
+                        .map(command -> toProcessedCommandReply(command, result.get(command.getCommandId())))
+                        .toList());
+                return result;
+            });
+        } catch (Exception e) {
+            log.warn("Failed to process a batch of {} commands, processing them individually: {}", batch.size(), e.getMessage());
+            batch.forEach(individualFallback);
+            return;
+        }
+
+        batch.forEach(command -> {
+            CommandReply reply = replies.get(command.getCommandId());
+            recentReplies.put(command.getCommandId(), reply);
+            send(reply);
+        });
+    }
+
+    /**
+     * Returns false if the command turned out to be processed already and its reply has been replayed.
+     */
+    private boolean recordFailure(Command command, CommandReply reply) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                claim(command);
+                saveReply(command.getCommandId(), reply);
+            });
+        } catch (DuplicateCommandException e) {
+            replayStoredReply(command);
+            return false;
+        } catch (RuntimeException e) {
+            // An unrecorded failure reply could be contradicted by a later redelivery, so none is sent
+            log.error("Failed to record failure of {} {}: {}", command.getCommandType(), command.getCommandId(), e.getMessage(), e);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the exception, or one of its causes, is a failure that may not happen again on a retry.
+     */
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void claim(Command command) {
+        try {
+            processedCommandStore.insert(command.getCommandId(), command.getCommandType());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateCommandException();
+        }
+    }
+
+    private void saveReply(String commandId, CommandReply reply) {
+        try {
+            processedCommandStore.saveReply(commandId, reply.bindingName(), reply.event().getClass().getName(),
+                    objectMapper.writeValueAsString(reply.event()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize reply to command " + commandId, e);
+        }
+    }
+
+    private void replay(Command command) {
+        CommandReply recentReply = recentReplies.get(command.getCommandId());
+        if (recentReply != null) {
+            log.info("{} {} was already processed, replaying its reply", command.getCommandType(), command.getCommandId());
+            send(recentReply);
+        } else {
+            replayStoredReply(command);
+        }
+    }
+
+    private ProcessedCommandStore.ProcessedCommandReply toProcessedCommandReply(Command command, CommandReply reply) {
+        if (reply == null) {
+            throw new IllegalStateException("No reply to command " + command.getCommandId());
+        }
+        try {
+            return new ProcessedCommandStore.ProcessedCommandReply(command.getCommandId(), command.getCommandType(),
+                    reply.bindingName(), reply.event().getClass().getName(), objectMapper.writeValueAsString(reply.event()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize reply to command " + command.getCommandId(), e);
+        }
+    }
+
+    private void replayStoredReply(Command command) {
+        String commandId = command.getCommandId();
+        ProcessedCommandStore.StoredReply storedReply = processedCommandStore.findReply(commandId).orElse(null);
+        if (storedReply == null) {
+            log.warn("{} {} was already processed but has no stored reply, ignoring", command.getCommandType(), commandId);
+            return;
+        }
+
+        CommandReply reply;
+        try {
+            reply = CommandReply.of(storedReply.bindingName(),
+                    objectMapper.readValue(storedReply.payload(), Class.forName(storedReply.replyType())));
+        } catch (JsonProcessingException | ClassNotFoundException e) {
+            throw new IllegalStateException("Failed to read stored reply to command " + commandId, e);
+        }
+
+        log.info("{} {} was already processed, replaying its stored reply", command.getCommandType(), commandId);
+        recentReplies.put(commandId, reply);
+        send(reply);
+    }
+
+    private void send(CommandReply reply) {
+        streamBridge.send(reply.bindingName(), reply.event());
+    }
+
+    private static class DuplicateCommandException extends RuntimeException {
+    }
+}
@@ -0,0 +1,117 @@
+package com.rajeswaran.common.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * JDBC access to the {@code processed_commands} table (see {@link com.rajeswaran.common.entity.ProcessedCommand}).
+ *
+ * Rows are claimed by inserting the command ID, so a concurrent delivery of the same command blocks on
+ * the primary key until the first one commits and then fails with a duplicate key. Expired rows are
+ * deleted in bounded batches through the {@code expires_at} index.
+ */
+@Slf4j
+public class ProcessedCommandStore {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO processed_commands (command_id, command_type, processed_at, expires_at) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_WITH_REPLY_SQL =
+            "INSERT INTO processed_commands (command_id, command_type, reply_binding, reply_type, reply_payload, processed_at, expires_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SAVE_REPLY_SQL =
+            "UPDATE processed_commands SET reply_binding = ?, reply_type = ?, reply_payload = ? WHERE command_id = ?";
+    private static final String FIND_REPLY_SQL =
+            "SELECT reply_binding, reply_type, reply_payload FROM processed_commands WHERE command_id = ?";
+    private static final String PURGE_SQL =
+            "DELETE FROM processed_commands WHERE expires_at < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final int purgeBatchSize;
+
+    public ProcessedCommandStore(JdbcTemplate jdbcTemplate, Duration retention, int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    /**
+     * Records the command as processed; throws a {@link org.springframework.dao.DuplicateKeyException} if it already was.
+     */
+    public void insert(String commandId, String commandType) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(INSERT_SQL, commandId, commandType, Timestamp.valueOf(now), Timestamp.valueOf(now.plus(retention)));
+    }
+
+    /**
+     * Records a batch of processed commands together with their replies in one JDBC batch; throws a
+     * {@link org.springframework.dao.DuplicateKeyException} if any of them already was.
+     */
+    public void insertAll(List<ProcessedCommandReply> processedCommands) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp processedAt = Timestamp.valueOf(now);
+        Timestamp expiresAt = Timestamp.valueOf(now.plus(retention));
+        jdbcTemplate.batchUpdate(INSERT_WITH_REPLY_SQL, processedCommands.stream()
+                .map(processed -> new Object[]{processed.commandId(), processed.commandType(), processed.bindingName(),
+                        processed.replyType(), processed.replyPayload(), processedAt, expiresAt})
+                .toList());
+    }
+
+    /**
+     * Returns the IDs among the given ones that have already been processed.
+     */
+    public Set<String> findProcessedIds(Collection<String> commandIds) {
+        if (commandIds.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(commandIds.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT command_id FROM processed_commands WHERE command_id IN (" + placeholders + ")",
+                String.class, commandIds.toArray()));
+    }
+
+    public void saveReply(String commandId, String bindingName, String replyType, String replyPayload) {
+        jdbcTemplate.update(SAVE_REPLY_SQL, bindingName, replyType, replyPayload, commandId);
+    }
+
+    /**
+     * Returns the stored reply, or empty if the command is unknown or was processed without a reply.
+     */
+    public Optional<StoredReply> findReply(String commandId) {
+        List<StoredReply> replies = jdbcTemplate.query(FIND_REPLY_SQL,
+                (rs, rowNum) -> new StoredReply(rs.getString("reply_binding"), rs.getString("reply_type"), rs.getString("reply_payload")),
+                commandId);
+        return replies.stream().filter(reply -> reply.bindingName() != null).findFirst();
+    }
+
+    @Scheduled(fixedDelayString = "${baas.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int deleted;
+        int total = 0;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        if (total > 0) {
+            log.info("Purged {} expired processed commands", total);
+        }
+    }
+
+    public record ProcessedCommandReply(String commandId, String commandType, String bindingName, String replyType, String replyPayload) {
+    }
+
+    public record StoredReply(String bindingName, String replyType, String payload) {
+    }
+}
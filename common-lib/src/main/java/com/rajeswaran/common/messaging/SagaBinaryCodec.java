@@ -0,0 +1,723 @@
+package com.rajeswaran.common.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.MimeType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of saga commands and events.
+ *
+ * Objects are written straight from their fields, and read back straight into them, through a schema
+ * built once per class by reflection: the record components of a record, otherwise the instance fields
+ * of the class and its superclasses. No JSON or Jackson tree is built on the way. Each value carries a
+ * one-byte tag: integers as zig-zag varints, UUID strings (command and event IDs) as 16 bytes, instants
+ * as epoch seconds and nanos, and field names and short strings written once per message and referenced
+ * by index afterwards, which matters for batches of payments. The field names of the saga messages are
+ * predefined, so they are never written out at all. Null fields are left out.
+ *
+ * Fields are matched by name, so a field the reader does not know is skipped and a field the writer did
+ * not send keeps its default; messages stay readable across services that add fields at different times.
+ * Maps are written as objects keyed by the keys' text, and collections and arrays as arrays.
+ *
+ * Every payload starts with {@link #MAGIC} and the format {@link #VERSION}. The predefined field names
+ * are part of the format: names may only be appended to {@link #FIELD_NAMES} together with a new
+ * version and its entry in {@link #FIELD_NAME_COUNTS}. Payloads of every version up to the current one
+ * are decoded with the names of their own version, so old messages still in flight stay readable
+ * during a rolling upgrade.
+ */
+public class SagaBinaryCodec {
+
+    public static final String CONTENT_TYPE = "application/x-saga-binary";
+    public static final MimeType MIME_TYPE = MimeType.valueOf(CONTENT_TYPE);
+
+    static final byte MAGIC = (byte) 0xB5;
+    static final byte VERSION = 1;
+
+    private static final int TAG_START_OBJECT = 1;
+    private static final int TAG_END_OBJECT = 2;
+    private static final int TAG_START_ARRAY = 3;
+    private static final int TAG_END_ARRAY = 4;
+    private static final int TAG_FIELD_NAME = 5;
+    private static final int TAG_FIELD_NAME_REF = 6;
+    private static final int TAG_STRING = 7;
+    private static final int TAG_STRING_REF = 8;
+    private static final int TAG_UUID_STRING = 9;
+    private static final int TAG_LONG = 10;
+    private static final int TAG_BIG_INTEGER = 11;
+    private static final int TAG_DOUBLE = 12;
+    private static final int TAG_BIG_DECIMAL = 13;
+    private static final int TAG_TRUE = 14;
+    private static final int TAG_FALSE = 15;
+    private static final int TAG_NULL = 16;
+    private static final int TAG_BINARY = 17;
+    private static final int TAG_INSTANT = 18;
+
+    /**
+     * Predefined field names of all versions, referenced by their index.
+     */
+    private static final List<String> FIELD_NAMES = List.of(
+            "commandId", "eventId", "sagaId", "timestamp", "commandType", "eventType", "success", "errorMessage",
+            "reason", "payment", "payments", "id", "sourceAccountNumber", "destinationAccountNumber", "amount",
+            "currency", "status", "description", "createdBy", "destinationAccountUserName", "sourceAccountBalance",
+            "destinationAccountBalance", "version", "user", "userId", "username", "userName", "email", "fullName",
+            "account", "accountNumber", "accountType", "balance", "ledgerSequence", "createdTimestamp", "paymentId",
+            "paymentCount", "processedPayments", "failedPayments", "rejectedPayments", "failureReasons",
+            "completedCount", "failedCount", "subject", "message");
+    private static final Map<String, Integer> FIELD_NAME_INDEX = indexOf(FIELD_NAMES);
+
+    /**
+     * Number of predefined field names of each version, indexed by version; version n uses the first
+     * {@code FIELD_NAME_COUNTS[n]} entries of {@link #FIELD_NAMES}.
+     */
+    private static final int[] FIELD_NAME_COUNTS = {0, 45};
+
+    static {
+        if (FIELD_NAME_COUNTS.length != VERSION + 1 || FIELD_NAME_COUNTS[VERSION] != FIELD_NAMES.size()) {
+            throw new IllegalStateException("Field name counts do not match saga binary format version " + VERSION);
+        }
+    }
+
+    /**
+     * Longer strings (descriptions, error messages) rarely repeat and are not worth a table entry.
+     */
+    private static final int MAX_REFERENCED_STRING_LENGTH = 64;
+
+    private static final ClassValue<Schema> SCHEMAS = new ClassValue<>() {
+        @Override
+        protected Schema computeValue(Class<?> type) {
+            return Schema.of(type);
+        }
+    };
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param objectMapper reads payloads whose content type is JSON, see {@link #read(byte[], Object, Class)}
+     */
+    public SagaBinaryCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public static boolean isBinary(Object contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MimeType mimeType = contentType instanceof MimeType type ? type : MimeType.valueOf(contentType.toString());
+        return MIME_TYPE.equalsTypeAndSubtype(mimeType);
+    }
+
+    public byte[] encode(Object payload) throws IOException {
+        Writer out = new Writer();
+        out.write(MAGIC);
+        out.write(VERSION);
+        try {
+            writeValue(out, payload);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Cannot encode " + payload.getClass().getName() + ": " + e.getMessage(), e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a payload into the given type. With {@code Object.class}, objects are read as maps and arrays as lists.
+     */
+    public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (payload.length < 2 || buffer.get() != MAGIC) {
+            throw new IOException("Not a saga binary payload");
+        }
+        byte version = buffer.get();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported saga binary format version " + version);
+        }
+
+        Reader in = new Reader(buffer, FIELD_NAME_COUNTS[version]);
+        try {
+            Object value = readValue(in, in.tag(), type);
+            if (buffer.hasRemaining()) {
+                throw new IOException("Trailing bytes after saga binary payload");
+            }
+            return type.isPrimitive() ? (T) value : type.cast(value);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt saga binary payload for " + type.getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a payload in the encoding named by the message content type, binary or JSON.
+     */
+    public <T> T read(byte[] payload, Object contentType, Class<T> type) throws IOException {
+        return isBinary(contentType) ? decode(payload, type) : objectMapper.readValue(payload, type);
+    }
+
+    // Encoding
+
+    private void writeValue(Writer out, Object value) {
+        switch (value) {
+            case null -> out.write(TAG_NULL);
+            case String text -> writeString(out, text);
+            case Long number -> writeLong(out, number);
+            case Integer number -> writeLong(out, number);
+            case Short number -> writeLong(out, number);
+            case Byte number -> writeLong(out, number);
+            case Boolean bool -> out.write(bool ? TAG_TRUE : TAG_FALSE);
+            case Instant instant -> writeInstant(out, instant);
+            case Double number -> writeDouble(out, number);
+            case Float number -> writeDouble(out, number);
+            case BigDecimal number -> {
+                out.write(TAG_BIG_DECIMAL);
+                out.writeText(number.toString());
+            }
+            case BigInteger number -> {
+                out.write(TAG_BIG_INTEGER);
+                out.writeText(number.toString());
+            }
+            case Enum<?> constant -> writeString(out, constant.name());
+            case LocalDateTime dateTime -> writeString(out, dateTime.toString());
+            case LocalDate date -> writeString(out, date.toString());
+            case byte[] bytes -> {
+                out.write(TAG_BINARY);
+                out.writeVarLong(bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+            case Collection<?> collection -> {
+                out.write(TAG_START_ARRAY);
+                for (Object element : collection) {
+                    writeValue(out, element);
+                }
+                out.write(TAG_END_ARRAY);
+            }
+            case Object[] array -> {
+                out.write(TAG_START_ARRAY);
+                for (Object element : array) {
+                    writeValue(out, element);
+                }
+                out.write(TAG_END_ARRAY);
+            }
+            case Map<?, ?> map -> {
+                out.write(TAG_START_OBJECT);
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeFieldName(out, String.valueOf(entry.getKey()));
+                    writeValue(out, entry.getValue());
+                }
+                out.write(TAG_END_OBJECT);
+            }
+            default -> writeObject(out, value);
+        }
+    }
+
+    private void writeObject(Writer out, Object value) {
+        Schema schema = SCHEMAS.get(value.getClass());
+        out.write(TAG_START_OBJECT);
+        for (Property property : schema.properties()) {
+            Object fieldValue = property.get(value);
+            if (fieldValue != null) {
+                writeFieldName(out, property.name());
+                writeValue(out, fieldValue);
+            }
+        }
+        out.write(TAG_END_OBJECT);
+    }
+
+    private static void writeLong(Writer out, long value) {
+        out.write(TAG_LONG);
+        out.writeVarLong(zigZag(value));
+    }
+
+    private static void writeDouble(Writer out, double value) {
+        out.write(TAG_DOUBLE);
+        out.writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    private static void writeFieldName(Writer out, String name) {
+        Integer index = FIELD_NAME_INDEX.get(name);
+        if (index != null) {
+            out.write(TAG_FIELD_NAME_REF);
+            out.writeVarLong(index);
+            return;
+        }
+
+        Integer messageIndex = out.names.get(name);
+        if (messageIndex != null) {
+            out.write(TAG_FIELD_NAME_REF);
+            out.writeVarLong(FIELD_NAMES.size() + messageIndex);
+        } else {
+            out.names.put(name, out.names.size());
+            out.write(TAG_FIELD_NAME);
+            out.writeText(name);
+        }
+    }
+
+    private static void writeString(Writer out, String value) {
+        if (writeReference(out, value)) {
+            return;
+        }
+
+        if (value.length() == 36 && isCanonicalUuid(value)) {
+            out.values.put(value, out.values.size());
+            UUID uuid = UUID.fromString(value);
+            out.write(TAG_UUID_STRING);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            if (value.length() <= MAX_REFERENCED_STRING_LENGTH) {
+                out.values.put(value, out.values.size());
+            }
+            out.write(TAG_STRING);
+            out.writeText(value);
+        }
+    }
+
+    private static void writeInstant(Writer out, Instant instant) {
+        if (writeReference(out, instant)) {
+            return;
+        }
+        out.values.put(instant, out.values.size());
+        out.write(TAG_INSTANT);
+        out.writeVarLong(zigZag(instant.getEpochSecond()));
+        out.writeVarLong(instant.getNano());
+    }
+
+    private static boolean writeReference(Writer out, Object value) {
+        Integer index = out.values.get(value);
+        if (index == null) {
+            return false;
+        }
+        out.write(TAG_STRING_REF);
+        out.writeVarLong(index);
+        return true;
+    }
+
+    // Decoding
+
+    private Object readValue(Reader in, int tag, Type type) throws IOException {
+        Class<?> raw = rawClass(type);
+        return switch (tag) {
+            case TAG_START_OBJECT -> readObject(in, type, raw);
+            case TAG_START_ARRAY -> readArray(in, type, raw);
+            case TAG_NULL -> raw.isPrimitive() ? defaultValue(raw) : null;
+            default -> coerce(readScalar(in, tag), raw);
+        };
+    }
+
+    private Object readObject(Reader in, Type type, Class<?> raw) throws IOException {
+        if (raw == Object.class || Map.class.isAssignableFrom(raw)) {
+            Type keyType = typeArgument(type, 0);
+            Type valueType = typeArgument(type, 1);
+            Map<Object, Object> map = new LinkedHashMap<>();
+            int tag;
+            while ((tag = in.tag()) != TAG_END_OBJECT) {
+                Object key = coerce(readFieldName(in, tag), rawClass(keyType));
+                map.put(key, readValue(in, in.tag(), valueType));
+            }
+            return map;
+        }
+
+        Schema schema = SCHEMAS.get(raw);
+        Object[] values = schema.defaults();
+        int tag;
+        while ((tag = in.tag()) != TAG_END_OBJECT) {
+            Property property = schema.property(readFieldName(in, tag));
+            if (property == null) {
+                // Written by a newer or older version of the class; reading it keeps the name and string tables in step
+                readValue(in, in.tag(), Object.class);
+            } else {
+                values[property.index()] = readValue(in, in.tag(), property.type());
+            }
+        }
+        return schema.create(values);
+    }
+
+    private Object readArray(Reader in, Type type, Class<?> raw) throws IOException {
+        Type elementType = raw.isArray() ? componentType(type, raw) : typeArgument(type, 0);
+        List<Object> elements = new ArrayList<>();
+        int tag;
+        while ((tag = in.tag()) != TAG_END_ARRAY) {
+            elements.add(readValue(in, tag, elementType));
+        }
+
+        if (raw.isArray()) {
+            Object array = Array.newInstance(raw.getComponentType(), elements.size());
+            for (int i = 0; i < elements.size(); i++) {
+                Array.set(array, i, elements.get(i));
+            }
+            return array;
+        }
+        if (Set.class.isAssignableFrom(raw)) {
+            return new LinkedHashSet<>(elements);
+        }
+        if (raw != Object.class && !raw.isAssignableFrom(ArrayList.class)) {
+            throw new IllegalArgumentException("Cannot read an array as " + raw.getName());
+        }
+        return elements;
+    }
+
+    private String readFieldName(Reader in, int tag) throws IOException {
+        return switch (tag) {
+            case TAG_FIELD_NAME -> {
+                String name = in.text();
+                in.names.add(name);
+                yield name;
+            }
+            case TAG_FIELD_NAME_REF -> {
+                int index = (int) in.varLong();
+                yield index < in.predefinedNames ? FIELD_NAMES.get(index) : in.names.get(index - in.predefinedNames);
+            }
+            default -> throw new IOException("Expected a field name, found tag " + tag);
+        };
+    }
+
+    private Object readScalar(Reader in, int tag) throws IOException {
+        return switch (tag) {
+            case TAG_STRING -> {
+                String value = in.text();
+                if (value.length() <= MAX_REFERENCED_STRING_LENGTH) {
+                    in.values.add(value);
+                }
+                yield value;
+            }
+            case TAG_STRING_REF -> in.values.get((int) in.varLong());
+            case TAG_UUID_STRING -> {
+                String value = new UUID(in.buffer.getLong(), in.buffer.getLong()).toString();
+                in.values.add(value);
+                yield value;
+            }
+            case TAG_INSTANT -> {
+                Instant value = Instant.ofEpochSecond(unZigZag(in.varLong()), in.varLong());
+                in.values.add(value);
+                yield value;
+            }
+            case TAG_LONG -> unZigZag(in.varLong());
+            case TAG_BIG_INTEGER -> new BigInteger(in.text());
+            case TAG_DOUBLE -> Double.longBitsToDouble(in.buffer.getLong());
+            case TAG_BIG_DECIMAL -> new BigDecimal(in.text());
+            case TAG_TRUE -> Boolean.TRUE;
+            case TAG_FALSE -> Boolean.FALSE;
+            case TAG_BINARY -> {
+                byte[] bytes = new byte[(int) in.varLong()];
+                in.buffer.get(bytes);
+                yield bytes;
+            }
+            default -> throw new IOException("Unexpected saga binary tag " + tag);
+        };
+    }
+
+    /**
+     * Converts a scalar to the type of the field it is read into, the way Jackson would for JSON.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object coerce(Object value, Class<?> type) {
+        if (type == Object.class || type.isInstance(value)) {
+            return value;
+        }
+        if (type == String.class) {
+            return value.toString();
+        }
+        if (type == long.class || type == Long.class) {
+            return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+        }
+        if (type == int.class || type == Integer.class) {
+            return value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString());
+        }
+        if (type == short.class || type == Short.class) {
+            return value instanceof Number number ? number.shortValue() : Short.parseShort(value.toString());
+        }
+        if (type == byte.class || type == Byte.class) {
+            return value instanceof Number number ? number.byteValue() : Byte.parseByte(value.toString());
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Boolean.parseBoolean(value.toString());
+        }
+        if (type == double.class || type == Double.class) {
+            return value instanceof Number number ? number.doubleValue() : Double.parseDouble(value.toString());
+        }
+        if (type == float.class || type == Float.class) {
+            return value instanceof Number number ? number.floatValue() : Float.parseFloat(value.toString());
+        }
+        if (type == BigDecimal.class) {
+            return value instanceof Double || value instanceof Float ? BigDecimal.valueOf(((Number) value).doubleValue()) : new BigDecimal(value.toString());
+        }
+        if (type == BigInteger.class) {
+            return new BigInteger(value.toString());
+        }
+        if (type == Instant.class) {
+            return toInstant(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value.toString());
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value.toString());
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) type, value.toString());
+        }
+        throw new IllegalArgumentException("Cannot read " + value.getClass().getSimpleName() + " as " + type.getName());
+    }
+
+    /**
+     * Instants are written as such, but payloads encoded from JSON may hold them as text or as epoch seconds.
+     */
+    private static Instant toInstant(Object value) {
+        return switch (value) {
+            case String text -> Instant.parse(text);
+            case Long seconds -> Instant.ofEpochSecond(seconds);
+            case Number number -> {
+                BigDecimal seconds = number instanceof BigDecimal decimal ? decimal : new BigDecimal(number.toString());
+                long epochSecond = seconds.setScale(0, java.math.RoundingMode.FLOOR).longValueExact();
+                yield Instant.ofEpochSecond(epochSecond, seconds.subtract(BigDecimal.valueOf(epochSecond)).movePointRight(9).longValue());
+            }
+            default -> throw new IllegalArgumentException("Cannot read " + value.getClass().getSimpleName() + " as an instant");
+        };
+    }
+
+    private static Object defaultValue(Class<?> primitive) {
+        return Array.get(Array.newInstance(primitive, 1), 0);
+    }
+
+    private static Class<?> rawClass(Type type) {
+        return switch (type) {
+            case Class<?> c -> c;
+            case ParameterizedType parameterized -> (Class<?>) parameterized.getRawType();
+            case GenericArrayType array -> Array.newInstance(rawClass(array.getGenericComponentType()), 0).getClass();
+            case WildcardType wildcard -> rawClass(wildcard.getUpperBounds()[0]);
+            default -> Object.class;
+        };
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType parameterized && parameterized.getActualTypeArguments().length > index) {
+            return parameterized.getActualTypeArguments()[index];
+        }
+        return Object.class;
+    }
+
+    private static Type componentType(Type type, Class<?> raw) {
+        return type instanceof GenericArrayType array ? array.getGenericComponentType() : raw.getComponentType();
+    }
+
+    private static Map<String, Integer> indexOf(List<String> values) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (index.put(values.get(i), i) != null) {
+                throw new IllegalStateException("Duplicate field name " + values.get(i));
+            }
+        }
+        return Map.copyOf(index);
+    }
+
+    private static boolean isCanonicalUuid(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean valid = (i == 8 || i == 13 || i == 18 || i == 23) ? c == '-' : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Fields of a class as they are written, and how an instance is created from them.
+     */
+    private record Schema(Property[] properties, Map<String, Property> byName, Constructor<?> constructor, boolean record) {
+
+        static Schema of(Class<?> type) {
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isPrimitive() || type.isArray()) {
+                throw new IllegalArgumentException("No saga binary schema for " + type.getName());
+            }
+
+            List<Field> fields = new ArrayList<>();
+            Constructor<?> constructor;
+            try {
+                if (type.isRecord()) {
+                    RecordComponent[] components = type.getRecordComponents();
+                    Class<?>[] parameterTypes = new Class<?>[components.length];
+                    for (int i = 0; i < components.length; i++) {
+                        fields.add(type.getDeclaredField(components[i].getName()));
+                        parameterTypes[i] = components[i].getType();
+                    }
+                    constructor = type.getDeclaredConstructor(parameterTypes);
+                } else {
+                    List<Class<?>> hierarchy = new ArrayList<>();
+                    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                        hierarchy.add(0, c);
+                    }
+                    for (Class<?> c : hierarchy) {
+                        for (Field field : c.getDeclaredFields()) {
+                            int modifiers = field.getModifiers();
+                            if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                                fields.add(field);
+                            }
+                        }
+                    }
+                    constructor = type.getDeclaredConstructor();
+                }
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException | NoSuchFieldException e) {
+                throw new IllegalArgumentException("No saga binary schema for " + type.getName() + ": " + e.getMessage(), e);
+            }
+
+            Property[] properties = new Property[fields.size()];
+            Map<String, Property> byName = new HashMap<>();
+            for (int i = 0; i < properties.length; i++) {
+                Field field = fields.get(i);
+                field.setAccessible(true);
+                properties[i] = new Property(field.getName(), field.getGenericType(), field, i);
+                byName.put(field.getName(), properties[i]);
+            }
+            return new Schema(properties, Map.copyOf(byName), constructor, type.isRecord());
+        }
+
+        Property property(String name) {
+            return byName.get(name);
+        }
+
+        Object[] defaults() {
+            Object[] values = new Object[properties.length];
+            for (Property property : properties) {
+                Class<?> raw = property.field().getType();
+                if (raw.isPrimitive()) {
+                    values[property.index()] = defaultValue(raw);
+                }
+            }
+            return values;
+        }
+
+        Object create(Object[] values) {
+            try {
+                if (record) {
+                    return constructor.newInstance(values);
+                }
+                Object instance = constructor.newInstance();
+                for (Property property : properties) {
+                    Object value = values[property.index()];
+                    if (value != null) {
+                        property.field().set(instance, value);
+                    }
+                }
+                return instance;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot create " + constructor.getDeclaringClass().getName() + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private record Property(String name, Type type, Field field, int index) {
+
+        Object get(Object instance) {
+            try {
+                return field.get(instance);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot read " + name + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Output buffer with the field names and values written so far, for references.
+     */
+    private static final class Writer extends ByteArrayOutputStream {
+
+        private final Map<String, Integer> names = new HashMap<>();
+        private final Map<Object, Integer> values = new HashMap<>();
+
+        Writer() {
+            super(256);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        void writeText(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Input buffer with the field names and values read so far, for references.
+     */
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+        private final int predefinedNames;
+        private final List<String> names = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+
+        Reader(ByteBuffer buffer, int predefinedNames) {
+            this.buffer = buffer;
+            this.predefinedNames = predefinedNames;
+        }
+
+        int tag() {
+            return buffer.get();
+        }
+
+        long varLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        String text() throws IOException {
+            int length = (int) varLong();
+            String text = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return text;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.rajeswaran.common.messaging;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+
+import java.io.IOException;
+
+/**
+ * Message converter for the {@value SagaBinaryCodec#CONTENT_TYPE} content type.
+ *
+ * Spring Cloud Stream picks it up as a bean and uses it for every binding whose content type is set to
+ * {@value SagaBinaryCodec#CONTENT_TYPE}. Consumers choose the converter from the content type header of
+ * each message, so JSON and binary messages can share a topic while services are switched over.
+ */
+public class SagaBinaryMessageConverter extends AbstractMessageConverter {
+
+    private final SagaBinaryCodec codec;
+
+    public SagaBinaryMessageConverter(SagaBinaryCodec codec) {
+        super(SagaBinaryCodec.MIME_TYPE);
+        this.codec = codec;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            return null;
+        }
+        try {
+            return codec.decode(payload, targetClass);
+        } catch (IOException e) {
+            throw new MessageConversionException(message, "Failed to decode " + targetClass.getSimpleName(), e);
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        try {
+            return codec.encode(payload);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to encode " + payload.getClass().getSimpleName(), e);
+        }
+    }
+}
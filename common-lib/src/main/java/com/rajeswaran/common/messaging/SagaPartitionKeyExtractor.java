@@ -0,0 +1,55 @@
+package com.rajeswaran.common.messaging;
+
+import com.rajeswaran.common.AppConstants;
+import com.rajeswaran.common.saga.command.BaseCommand;
+import com.rajeswaran.common.saga.event.BaseEvent;
+import com.rajeswaran.common.saga.payment.commands.ProcessPaymentBatchCommand;
+import com.rajeswaran.common.saga.payment.commands.ProcessPaymentCommand;
+import org.springframework.cloud.stream.binder.PartitionKeyExtractorStrategy;
+import org.springframework.messaging.Message;
+
+/**
+ * Partition key strategy shared by all saga output bindings.
+ *
+ * Commands and events are keyed by saga ID so every message of a saga lands on the same partition.
+ * ProcessPaymentCommand and ProcessPaymentBatchCommand are keyed by the source account number instead,
+ * so debits of one account are processed in order by the account-service. An explicit {@link AppConstants#PARTITION_KEY_HEADER}
+ * takes precedence, which lets already serialized payloads (e.g. from an outbox) keep their key.
+ */
+public class SagaPartitionKeyExtractor implements PartitionKeyExtractorStrategy {
+
+    public static final String BEAN_NAME = "sagaPartitionKeyExtractor";
+
+    @Override
+    public Object extractKey(Message<?> message) {
+        Object key = message.getHeaders().get(AppConstants.PARTITION_KEY_HEADER);
+        if (key == null) {
+            key = keyFor(message.getPayload());
+        }
+        // Fall back to the message ID so unknown payloads are still spread across partitions
+        return key != null ? key : message.getHeaders().getId();
+    }
+
+    /**
+     * Resolve the partition key of a saga command or event.
+     *
+     * @param payload the command or event
+     * @return the partition key, or null if the payload is not a saga message
+     */
+    public static String keyFor(Object payload) {
+        if (payload instanceof ProcessPaymentCommand command && command.getPayment() != null
+                && command.getPayment().sourceAccountNumber() != null) {
+            return command.getPayment().sourceAccountNumber();
+        }
+        if (payload instanceof ProcessPaymentBatchCommand command && command.getSourceAccountNumber() != null) {
+            return command.getSourceAccountNumber();
+        }
+        if (payload instanceof BaseCommand command && command.getSagaId() != null) {
+            return command.getSagaId().toString();
+        }
+        if (payload instanceof BaseEvent event && event.getSagaId() != null) {
+            return event.getSagaId().toString();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.rajeswaran.common.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.config.ListenerContainerCustomizer;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+/**
+ * Runs the consumers of every Kafka binding on virtual threads and caps their concurrency.
+ *
+ * Listener invocations are almost entirely blocking JDBC work, so a binding never gets more consumers
+ * than there are connections in the pool. The cap is {@code baas.virtual-threads.listener-concurrency.<destination>}
+ * if set, otherwise {@code baas.virtual-threads.max-listener-concurrency}, which defaults to the Hikari
+ * maximum pool size.
+ */
+@Slf4j
+public class VirtualThreadListenerContainerCustomizer implements ListenerContainerCustomizer<AbstractMessageListenerContainer<?, ?>> {
+
+    private final Environment environment;
+    private final int maxConcurrency;
+
+    public VirtualThreadListenerContainerCustomizer(Environment environment, int maxConcurrency) {
+        this.environment = environment;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void configure(AbstractMessageListenerContainer<?, ?> container, String destinationName, String group) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(destinationName + "-");
+        executor.setVirtualThreads(true);
+        container.getContainerProperties().setListenerTaskExecutor(executor);
+
+        if (container instanceof ConcurrentMessageListenerContainer<?, ?> concurrentContainer) {
+            int limit = environment.getProperty("baas.virtual-threads.listener-concurrency." + destinationName, Integer.class, maxConcurrency);
+            if (concurrentContainer.getConcurrency() > limit) {
+                log.warn("Limiting concurrency of binding for {} from {} to {}", destinationName, concurrentContainer.getConcurrency(), limit);
+                concurrentContainer.setConcurrency(limit);
+            }
+        }
+        log.debug("Kafka listener for {} (group {}) runs on virtual threads", destinationName, group);
+    }
+}
@@ -0,0 +1,53 @@
+package com.rajeswaran.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Publishes {@code jvm.threads.virtual.pinned}: how often and how long virtual threads blocked while pinned
+ * to their carrier thread, e.g. inside a {@code synchronized} block.
+ *
+ * Pinning is read from the {@code jdk.VirtualThreadPinned} JFR event, which the JVM only emits for pins
+ * longer than the threshold. A steady rate of pinned threads means blocking calls are holding carrier
+ * threads and virtual threads no longer scale past the number of CPUs.
+ */
+@Slf4j
+public class VirtualThreadPinnedMetrics implements MeterBinder, AutoCloseable {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final Duration threshold;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinnedMetrics(Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        Timer pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads were blocked while pinned to their carrier thread")
+                .register(registry);
+
+        if (recordingStream == null) {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(threshold);
+            recordingStream.startAsync();
+            log.info("Recording virtual thread pinning longer than {}", threshold);
+        }
+        recordingStream.onEvent(PINNED_EVENT, event -> pinned.record(event.getDuration()));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (recordingStream != null) {
+            recordingStream.close();
+            recordingStream = null;
+        }
+    }
+}
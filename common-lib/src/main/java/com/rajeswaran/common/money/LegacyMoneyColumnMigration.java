@@ -0,0 +1,73 @@
+package com.rajeswaran.common.money;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * One-off migration of the money columns from {@code double} major units to {@code long} minor units.
+ *
+ * The entities map their amounts to new {@code *_minor} BIGINT columns, which {@code ddl-auto: update}
+ * adds next to the old DOUBLE columns but never removes. The old columns are NOT NULL, so every insert
+ * into a table that still has one fails. On startup, after Hibernate has updated the schema, each old
+ * column that is still NOT NULL is copied into its minor-unit column and then made nullable. The old
+ * columns and their values are kept, so a rollback to a release that reads them still finds them; they
+ * are dropped in a later release. Rows written before the currency column existed are all in
+ * {@link Money#DEFAULT_CURRENCY}.
+ *
+ * A nullable old column marks a migrated one, so the copy runs once per column and never overwrites
+ * amounts changed since. The tables are shared by all services, so the migration is enabled on a single
+ * instance while the others are stopped, see {@link com.rajeswaran.common.config.LegacyMoneyColumnMigrationAutoConfiguration}.
+ */
+@Slf4j
+public class LegacyMoneyColumnMigration implements InitializingBean {
+
+    record LegacyColumn(String table, String legacyColumn, String minorColumn) {
+    }
+
+    static final List<LegacyColumn> LEGACY_COLUMNS = List.of(
+            new LegacyColumn("accounts", "balance", "balance_minor"),
+            new LegacyColumn("account_balance_slots", "balance", "balance_minor"),
+            new LegacyColumn("payments", "amount", "amount_minor"),
+            new LegacyColumn("payments", "source_account_balance", "source_account_balance_minor"),
+            new LegacyColumn("payments", "destination_account_balance", "destination_account_balance_minor"),
+            new LegacyColumn("transactions", "amount", "amount_minor"),
+            new LegacyColumn("transactions", "balance", "balance_minor"));
+
+    private static final String COLUMN_NULLABLE_SQL =
+            "SELECT is_nullable FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LegacyMoneyColumnMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        BigDecimal factor = BigDecimal.TEN.pow(Currency.getInstance(Money.DEFAULT_CURRENCY).getDefaultFractionDigits());
+        for (LegacyColumn column : LEGACY_COLUMNS) {
+            // The minor-unit column only exists once a service mapping the table has updated the schema
+            if (!"NO".equals(nullable(column.table(), column.legacyColumn())) || nullable(column.table(), column.minorColumn()) == null) {
+                continue;
+            }
+            int rows = jdbcTemplate.update("UPDATE " + column.table() + " SET " + column.minorColumn()
+                    + " = ROUND(" + column.legacyColumn() + " * " + factor + ") WHERE " + column.legacyColumn() + " IS NOT NULL");
+            jdbcTemplate.execute("ALTER TABLE " + column.table() + " MODIFY " + column.legacyColumn() + " DOUBLE NULL");
+            log.info("Migrated {} rows of {}.{} to {}; the old column is kept and now nullable",
+                    rows, column.table(), column.legacyColumn(), column.minorColumn());
+        }
+    }
+
+    /**
+     * Returns YES or NO, or null if the column does not exist.
+     */
+    private String nullable(String table, String column) {
+        List<String> nullable = jdbcTemplate.queryForList(COLUMN_NULLABLE_SQL, String.class, table, column);
+        return nullable.isEmpty() ? null : nullable.get(0);
+    }
+}
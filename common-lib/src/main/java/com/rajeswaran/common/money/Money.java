@@ -0,0 +1,105 @@
+package com.rajeswaran.common.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Monetary amount in minor units (e.g. cents) of a currency.
+ *
+ * Entities and saga payloads carry amounts as primitive {@code long} minor units together with a
+ * currency code; the static helpers below work directly on those values so balance arithmetic does
+ * not allocate. Overflow is reported instead of wrapping. Conversion to and from major units is only
+ * needed at the API edge and for display.
+ */
+public record Money(long minorUnits, String currency) implements Comparable<Money> {
+
+    public static final String DEFAULT_CURRENCY = "USD";
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money of(long minorUnits, String currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money ofMajor(BigDecimal amount, String currency) {
+        return new Money(toMinorUnits(amount, currency), currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(add(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(subtract(minorUnits, other.minorUnits), currency);
+    }
+
+    public BigDecimal toMajor() {
+        return toMajorUnits(minorUnits, currency);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toMajor().toPlainString() + " " + currency;
+    }
+
+    // === Primitive helpers on minor units ===
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static int compare(long a, long b) {
+        return Long.compare(a, b);
+    }
+
+    public static boolean covers(long balance, long amount) {
+        return balance >= amount;
+    }
+
+    /**
+     * Convert a major unit amount (e.g. 12.34) to minor units (1234).
+     *
+     * @throws ArithmeticException if the amount has more decimals than the currency allows or does not fit in a long
+     */
+    public static long toMinorUnits(BigDecimal amount, String currency) {
+        return amount.setScale(fractionDigits(currency), RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toMajorUnits(long minorUnits, String currency) {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    /**
+     * Format minor units for display, e.g. {@code 1234, "USD"} as {@code 12.34 USD}.
+     */
+    public static String format(long minorUnits, String currency) {
+        String code = currency != null ? currency : DEFAULT_CURRENCY;
+        return toMajorUnits(minorUnits, code).toPlainString() + " " + code;
+    }
+
+    private static int fractionDigits(String currency) {
+        return Math.max(Currency.getInstance(currency).getDefaultFractionDigits(), 0);
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.rajeswaran.common.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (cursor) paginated listing.
+ *
+ * Pages are ordered by id; the next page is requested with {@code afterId = nextCursor}.
+ * {@code nextCursor} is null on the last page.
+ */
+public record KeysetPage<T>(List<T> items, Long nextCursor) {
+
+    public static final int DEFAULT_SIZE = 100;
+    public static final int MAX_SIZE = 1000;
+
+    /**
+     * Clamp a requested page size to 1..{@link #MAX_SIZE}, defaulting to {@link #DEFAULT_SIZE}.
+     */
+    public static int boundedSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * Cursor value to start from; ids are positive so 0 means "from the beginning".
+     */
+    public static long startAfter(Long afterId) {
+        return afterId != null ? afterId : 0L;
+    }
+
+    public static <T> KeysetPage<T> of(List<T> items, int size, Function<T, Long> idExtractor) {
+        Long nextCursor = items.size() == size ? idExtractor.apply(items.get(items.size() - 1)) : null;
+        return new KeysetPage<>(items, nextCursor);
+    }
+}
@@ -0,0 +1,98 @@
+package com.rajeswaran.common.pagination;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Writes a repository {@link Stream} as newline-delimited JSON.
+ *
+ * The query runs in a read-only transaction on the response thread. Rows are serialized one by one and
+ * the persistence context is cleared every {@link #CHUNK_SIZE} rows, so memory stays flat regardless of
+ * table size. Repository stream queries should set a fetch size (see {@link #FETCH_SIZE}).
+ *
+ * Other line formats (e.g. CSV) can be written with {@link #stream(Supplier, byte[], RowEncoder, boolean)},
+ * optionally gzip-compressed on the fly. Writes block while the client is not reading, which holds the
+ * cursor where it is until the client catches up.
+ */
+public class NdjsonStreamWriter {
+
+    public static final String FETCH_SIZE = "500";
+    private static final int CHUNK_SIZE = 500;
+
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public NdjsonStreamWriter(ObjectMapper objectMapper, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> query) {
+        return stream(query, false);
+    }
+
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> query, boolean gzip) {
+        return stream(query, null, this::writeJsonLine, gzip);
+    }
+
+    /**
+     * Streams the query result with a custom encoding.
+     *
+     * @param header  bytes written before the first row, or null
+     * @param encoder writes one row, including its line terminator
+     * @param gzip    compresses the response; every chunk is sync-flushed so the client receives it at once
+     */
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> query, byte[] header, RowEncoder<T> encoder, boolean gzip) {
+        return responseStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> items = query.get()) {
+                OutputStream outputStream = gzip ? new GZIPOutputStream(responseStream, true) : responseStream;
+                if (header != null) {
+                    outputStream.write(header);
+                }
+                write(items.iterator(), encoder, outputStream);
+                if (outputStream instanceof GZIPOutputStream gzipStream) {
+                    // Writes the trailer; the response stream itself is closed by the container
+                    gzipStream.finish();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeJsonLine(Object item, OutputStream outputStream) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(item));
+        outputStream.write('\n');
+    }
+
+    private <T> void write(Iterator<T> items, RowEncoder<T> encoder, OutputStream outputStream) throws IOException {
+        int count = 0;
+        while (items.hasNext()) {
+            encoder.write(items.next(), outputStream);
+            if (++count % CHUNK_SIZE == 0) {
+                outputStream.flush();
+                entityManager.clear();
+            }
+        }
+        outputStream.flush();
+    }
+
+    @FunctionalInterface
+    public interface RowEncoder<T> {
+        void write(T item, OutputStream outputStream) throws IOException;
+    }
+}
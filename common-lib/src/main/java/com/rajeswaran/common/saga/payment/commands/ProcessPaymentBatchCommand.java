@@ -0,0 +1,44 @@
+package com.rajeswaran.common.saga.payment.commands;
+
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.command.BaseCommand;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Command to debit a batch of validated payments from their common source account and credit their destinations.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class ProcessPaymentBatchCommand extends BaseCommand {
+
+    String sourceAccountNumber;
+
+    @ToString.Exclude
+    List<PaymentInstruction> payments;
+
+    public ProcessPaymentBatchCommand(String commandId, Long sagaId, Instant timestamp, String sourceAccountNumber, List<PaymentInstruction> payments) {
+        super(commandId, sagaId, timestamp);
+        this.sourceAccountNumber = sourceAccountNumber;
+        this.payments = payments;
+    }
+
+    public static ProcessPaymentBatchCommand create(Long sagaId, String sourceAccountNumber, List<PaymentInstruction> payments) {
+        return new ProcessPaymentBatchCommand(
+            java.util.UUID.randomUUID().toString(),
+            sagaId,
+            Instant.now(),
+            sourceAccountNumber,
+            payments
+        );
+    }
+}
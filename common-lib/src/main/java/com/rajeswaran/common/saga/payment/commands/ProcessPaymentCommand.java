@@ -1,6 +1,6 @@
 package com.rajeswaran.common.saga.payment.commands;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
 import com.rajeswaran.common.saga.command.BaseCommand;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -20,14 +20,14 @@ import java.time.Instant;
 @SuperBuilder
 public class ProcessPaymentCommand extends BaseCommand {
 
-    Payment payment;
+    PaymentInstruction payment;
 
-    public ProcessPaymentCommand(String commandId, Long sagaId, Instant timestamp, Payment payment) {
+    public ProcessPaymentCommand(String commandId, Long sagaId, Instant timestamp, PaymentInstruction payment) {
         super(commandId, sagaId, timestamp);
         this.payment = payment;
     }
 
-    public static ProcessPaymentCommand create(Long sagaId, Payment payment) {
+    public static ProcessPaymentCommand create(Long sagaId, PaymentInstruction payment) {
         return new ProcessPaymentCommand(
             java.util.UUID.randomUUID().toString(),
             sagaId,
@@ -0,0 +1,41 @@
+package com.rajeswaran.common.saga.payment.commands;
+
+import com.rajeswaran.common.saga.payment.payload.PaymentSettlement;
+import com.rajeswaran.common.saga.command.BaseCommand;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Command to record the debit and credit transactions of a batch of processed payments.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class RecordTransactionBatchCommand extends BaseCommand {
+
+
+    @ToString.Exclude
+    List<PaymentSettlement> payments;
+
+    public RecordTransactionBatchCommand(String commandId, Long sagaId, Instant timestamp, List<PaymentSettlement> payments) {
+        super(commandId, sagaId, timestamp);
+        this.payments = payments;
+    }
+
+    public static RecordTransactionBatchCommand create(Long sagaId, List<PaymentSettlement> payments) {
+        return new RecordTransactionBatchCommand(
+            java.util.UUID.randomUUID().toString(),
+            sagaId,
+            Instant.now(),
+            payments
+        );
+    }
+}
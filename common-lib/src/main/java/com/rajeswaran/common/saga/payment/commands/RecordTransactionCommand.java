@@ -1,6 +1,6 @@
 package com.rajeswaran.common.saga.payment.commands;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentSettlement;
 import com.rajeswaran.common.saga.command.BaseCommand;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -20,14 +20,14 @@ import java.time.Instant;
 @SuperBuilder
 public class RecordTransactionCommand extends BaseCommand {
 
-    Payment payment;
+    PaymentSettlement payment;
 
-    public RecordTransactionCommand(String commandId, Long sagaId, Instant timestamp, Payment payment) {
+    public RecordTransactionCommand(String commandId, Long sagaId, Instant timestamp, PaymentSettlement payment) {
         super(commandId, sagaId, timestamp);
         this.payment = payment;
     }
 
-    public static RecordTransactionCommand create(long sagaId, Payment payment) {
+    public static RecordTransactionCommand create(long sagaId, PaymentSettlement payment) {
         return new RecordTransactionCommand(
             java.util.UUID.randomUUID().toString(),
             sagaId,
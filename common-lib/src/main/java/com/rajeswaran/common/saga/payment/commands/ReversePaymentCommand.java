@@ -31,7 +31,7 @@ public class ReversePaymentCommand extends BaseCommand {
     private String destinationAccountNumber;
 
     @Positive
-    private double amount;
+    private long amount;
 
     private String reason;
 
@@ -39,7 +39,7 @@ public class ReversePaymentCommand extends BaseCommand {
 
     public ReversePaymentCommand(String commandId, Long sagaId, Instant timestamp,
                                 String paymentId, String sourceAccountNumber, String destinationAccountNumber,
-                                double amount, String reason, String username) {
+                                long amount, String reason, String username) {
         super(commandId, sagaId, timestamp);
         this.paymentId = paymentId;
         this.sourceAccountNumber = sourceAccountNumber;
@@ -51,7 +51,7 @@ public class ReversePaymentCommand extends BaseCommand {
 
     public static ReversePaymentCommand create(long sagaId, String paymentId,
                                               String sourceAccountNumber, String destinationAccountNumber,
-                                              double amount, String reason, String username) {
+                                              long amount, String reason, String username) {
         return new ReversePaymentCommand(
             java.util.UUID.randomUUID().toString(),
             sagaId,
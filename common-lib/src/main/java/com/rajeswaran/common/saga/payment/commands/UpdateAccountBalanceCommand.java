@@ -31,13 +31,13 @@ public class UpdateAccountBalanceCommand extends BaseCommand {
     private String destinationAccountNumber;
 
     @Positive
-    private double amount;
+    private long amount;
 
     private String description;
 
     public UpdateAccountBalanceCommand(String commandId, Long sagaId, Instant timestamp,
                                       String paymentId, String sourceAccountNumber, String destinationAccountNumber,
-                                      double amount, String description) {
+                                      long amount, String description) {
         super(commandId, sagaId, timestamp);
         this.paymentId = paymentId;
         this.sourceAccountNumber = sourceAccountNumber;
@@ -48,7 +48,7 @@ public class UpdateAccountBalanceCommand extends BaseCommand {
 
     public static UpdateAccountBalanceCommand create(long sagaId, String paymentId,
                                                     String sourceAccountNumber, String destinationAccountNumber,
-                                                    double amount, String description) {
+                                                    long amount, String description) {
         return new UpdateAccountBalanceCommand(
             java.util.UUID.randomUUID().toString(),
             sagaId,
@@ -0,0 +1,41 @@
+package com.rajeswaran.common.saga.payment.commands;
+
+import com.rajeswaran.common.saga.payment.payload.PaymentStatusChange;
+import com.rajeswaran.common.saga.command.BaseCommand;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Command to store the final status of every payment in a batch.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class UpdatePaymentBatchStatusCommand extends BaseCommand {
+
+
+    @ToString.Exclude
+    List<PaymentStatusChange> statusChanges;
+
+    public UpdatePaymentBatchStatusCommand(String commandId, Long sagaId, Instant timestamp, List<PaymentStatusChange> statusChanges) {
+        super(commandId, sagaId, timestamp);
+        this.statusChanges = statusChanges;
+    }
+
+    public static UpdatePaymentBatchStatusCommand create(Long sagaId, List<PaymentStatusChange> statusChanges) {
+        return new UpdatePaymentBatchStatusCommand(
+            java.util.UUID.randomUUID().toString(),
+            sagaId,
+            Instant.now(),
+            statusChanges
+        );
+    }
+}
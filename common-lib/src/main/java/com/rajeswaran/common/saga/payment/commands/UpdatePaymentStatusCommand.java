@@ -1,6 +1,6 @@
 package com.rajeswaran.common.saga.payment.commands;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentStatusChange;
 import com.rajeswaran.common.saga.command.BaseCommand;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -11,7 +11,7 @@ import lombok.experimental.SuperBuilder;
 import java.time.Instant;
 
 /**
- * Command to update payment object.
+ * Command to store the final status of a payment.
  */
 @Getter
 @ToString
@@ -20,20 +20,20 @@ import java.time.Instant;
 @SuperBuilder
 public class UpdatePaymentStatusCommand extends BaseCommand {
 
-    private Payment payment;
+    private PaymentStatusChange statusChange;
 
     public UpdatePaymentStatusCommand(String commandId, Long sagaId, Instant timestamp, 
-                                     Payment payment) {
+                                     PaymentStatusChange statusChange) {
         super(commandId, sagaId, timestamp);
-        this.payment = payment;
+        this.statusChange = statusChange;
     }
 
-    public static UpdatePaymentStatusCommand create(long sagaId, Payment payment) {
+    public static UpdatePaymentStatusCommand create(long sagaId, PaymentStatusChange statusChange) {
         return new UpdatePaymentStatusCommand(
             java.util.UUID.randomUUID().toString(),
             sagaId,
             Instant.now(),
-            payment
+            statusChange
         );
     }
 }
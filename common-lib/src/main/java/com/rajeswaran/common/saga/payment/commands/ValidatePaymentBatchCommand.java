@@ -0,0 +1,41 @@
+package com.rajeswaran.common.saga.payment.commands;
+
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.command.BaseCommand;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Command to validate and register a batch of payments from one source account.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class ValidatePaymentBatchCommand extends BaseCommand {
+
+
+    @ToString.Exclude
+    List<PaymentInstruction> payments;
+
+    public ValidatePaymentBatchCommand(String commandId, Long sagaId, Instant timestamp, List<PaymentInstruction> payments) {
+        super(commandId, sagaId, timestamp);
+        this.payments = payments;
+    }
+
+    public static ValidatePaymentBatchCommand create(Long sagaId, List<PaymentInstruction> payments) {
+        return new ValidatePaymentBatchCommand(
+            java.util.UUID.randomUUID().toString(),
+            sagaId,
+            Instant.now(),
+            payments
+        );
+    }
+}
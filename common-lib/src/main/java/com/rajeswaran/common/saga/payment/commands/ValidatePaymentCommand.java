@@ -1,6 +1,6 @@
 package com.rajeswaran.common.saga.payment.commands;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
 import com.rajeswaran.common.saga.command.BaseCommand;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
@@ -22,14 +22,14 @@ import java.time.Instant;
 @SuperBuilder
 public class ValidatePaymentCommand extends BaseCommand {
 
-    Payment payment;
+    PaymentInstruction payment;
 
-    public ValidatePaymentCommand(String commandId, Long sagaId, Instant timestamp, Payment payment) {
+    public ValidatePaymentCommand(String commandId, Long sagaId, Instant timestamp, PaymentInstruction payment) {
         super(commandId, sagaId, timestamp);
         this.payment = payment;
     }
 
-    public static ValidatePaymentCommand create(long sagaId, Payment payment) {
+    public static ValidatePaymentCommand create(long sagaId, PaymentInstruction payment) {
         return new ValidatePaymentCommand(
             java.util.UUID.randomUUID().toString(),
             sagaId,
@@ -27,13 +27,13 @@ public class AccountBalanceUpdateFailedEvent extends BaseEvent {
     @NotBlank
     private String destinationAccountNumber;
 
-    private double amount;
+    private long amount;
 
     private String reason;
 
     public static AccountBalanceUpdateFailedEvent create(Long sagaId, String paymentId,
                                                         String sourceAccountNumber, String destinationAccountNumber,
-                                                        double amount, String reason) {
+                                                        long amount, String reason) {
         return AccountBalanceUpdateFailedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
@@ -29,13 +29,13 @@ public class AccountBalanceUpdatedEvent extends BaseEvent {
     private String destinationAccountNumber;
 
     @Positive
-    private double amount;
+    private long amount;
 
     private String description;
 
     public static AccountBalanceUpdatedEvent create(long sagaId, String paymentId,
                                                    String sourceAccountNumber, String destinationAccountNumber,
-                                                   double amount, String description) {
+                                                   long amount, String description) {
         return AccountBalanceUpdatedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
@@ -0,0 +1,42 @@
+package com.rajeswaran.common.saga.payment.events;
+
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.payment.payload.PaymentSettlement;
+import com.rajeswaran.common.saga.event.BaseEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event indicating a batch has been processed; payments that could not be transferred are returned as failed with their reasons.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class PaymentBatchProcessedEvent extends BaseEvent {
+
+    @ToString.Exclude
+    private List<PaymentSettlement> processedPayments;
+    @ToString.Exclude
+    private List<PaymentInstruction> failedPayments;
+    @ToString.Exclude
+    private Map<Long, String> failureReasons;
+
+    public static PaymentBatchProcessedEvent create(Long sagaId, List<PaymentSettlement> processedPayments, List<PaymentInstruction> failedPayments, Map<Long, String> failureReasons) {
+        return PaymentBatchProcessedEvent.builder()
+            .eventId(java.util.UUID.randomUUID().toString())
+            .sagaId(sagaId)
+            .timestamp(java.time.Instant.now())
+            .processedPayments(processedPayments)
+            .failedPayments(failedPayments)
+            .failureReasons(failureReasons)
+            .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.rajeswaran.common.saga.payment.events;
+
+import com.rajeswaran.common.saga.event.BaseEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Event indicating the final status of every payment in a batch has been stored.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class PaymentBatchStatusUpdatedEvent extends BaseEvent {
+
+    private int completedCount;
+    private int failedCount;
+
+    public static PaymentBatchStatusUpdatedEvent create(Long sagaId, int completedCount, int failedCount) {
+        return PaymentBatchStatusUpdatedEvent.builder()
+            .eventId(java.util.UUID.randomUUID().toString())
+            .sagaId(sagaId)
+            .timestamp(java.time.Instant.now())
+            .completedCount(completedCount)
+            .failedCount(failedCount)
+            .build();
+    }
+}
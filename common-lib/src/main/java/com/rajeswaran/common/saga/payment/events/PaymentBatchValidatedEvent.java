@@ -0,0 +1,37 @@
+package com.rajeswaran.common.saga.payment.events;
+
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.event.BaseEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+/**
+ * Event indicating the valid payments of a batch have been registered; invalid ones are returned as rejected.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class PaymentBatchValidatedEvent extends BaseEvent {
+
+    @ToString.Exclude
+    private List<PaymentInstruction> payments;
+    @ToString.Exclude
+    private List<PaymentInstruction> rejectedPayments;
+
+    public static PaymentBatchValidatedEvent create(Long sagaId, List<PaymentInstruction> payments, List<PaymentInstruction> rejectedPayments) {
+        return PaymentBatchValidatedEvent.builder()
+            .eventId(java.util.UUID.randomUUID().toString())
+            .sagaId(sagaId)
+            .timestamp(java.time.Instant.now())
+            .payments(payments)
+            .rejectedPayments(rejectedPayments)
+            .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.rajeswaran.common.saga.payment.events;
+
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.event.BaseEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+/**
+ * Event indicating no payment of a batch passed validation.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class PaymentBatchValidationFailedEvent extends BaseEvent {
+
+    @ToString.Exclude
+    private List<PaymentInstruction> payments;
+    private String reason;
+
+    public static PaymentBatchValidationFailedEvent create(Long sagaId, List<PaymentInstruction> payments, String reason) {
+        return PaymentBatchValidationFailedEvent.builder()
+            .eventId(java.util.UUID.randomUUID().toString())
+            .sagaId(sagaId)
+            .timestamp(java.time.Instant.now())
+            .payments(payments)
+            .reason(reason)
+            .build();
+    }
+}
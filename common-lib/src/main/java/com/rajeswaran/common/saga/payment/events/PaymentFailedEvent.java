@@ -1,6 +1,6 @@
 package com.rajeswaran.common.saga.payment.events;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
 import com.rajeswaran.common.saga.event.BaseEvent;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -18,11 +18,11 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class PaymentFailedEvent extends BaseEvent {
 
-    private Payment payment;
+    private PaymentInstruction payment;
     private String reason;
 
 
-    public static PaymentFailedEvent create(Long sagaId, Payment payment, String reason) {
+    public static PaymentFailedEvent create(Long sagaId, PaymentInstruction payment, String reason) {
         return PaymentFailedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
@@ -1,6 +1,6 @@
 package com.rajeswaran.common.saga.payment.events;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentSettlement;
 import com.rajeswaran.common.saga.event.BaseEvent;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -18,9 +18,9 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class PaymentProcessedEvent extends BaseEvent {
 
-    Payment payment;
+    PaymentSettlement payment;
 
-    public static PaymentProcessedEvent create(Long sagaId, Payment payment) {
+    public static PaymentProcessedEvent create(Long sagaId, PaymentSettlement payment) {
         return PaymentProcessedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
@@ -29,7 +29,7 @@ public class PaymentReversedEvent extends BaseEvent {
     private String destinationAccountNumber;
 
     @Positive
-    private double amount;
+    private long amount;
 
     private String reason;
 
@@ -37,7 +37,7 @@ public class PaymentReversedEvent extends BaseEvent {
 
     public static PaymentReversedEvent create(Long sagaId, String paymentId,
                                              String sourceAccountNumber, String destinationAccountNumber,
-                                             double amount, String reason, String username) {
+                                             long amount, String reason, String username) {
         return PaymentReversedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
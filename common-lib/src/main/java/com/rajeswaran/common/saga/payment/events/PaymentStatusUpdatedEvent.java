@@ -1,6 +1,6 @@
 package com.rajeswaran.common.saga.payment.events;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
 import com.rajeswaran.common.saga.event.BaseEvent;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -9,7 +9,7 @@ import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 
 /**
- * Event indicating payment has been successfully updated.
+ * Event indicating the status of a payment has been stored.
  */
 @Getter
 @ToString
@@ -18,14 +18,17 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class PaymentStatusUpdatedEvent extends BaseEvent {
 
-    private Payment payment;
+    private PaymentInstruction payment;
 
-    public static PaymentStatusUpdatedEvent create(Long sagaId, Payment payment) {
+    private String status;
+
+    public static PaymentStatusUpdatedEvent create(Long sagaId, PaymentInstruction payment, String status) {
         return PaymentStatusUpdatedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
             .timestamp(java.time.Instant.now())
             .payment(payment)
+            .status(status)
             .build();
     }
 }
@@ -1,6 +1,6 @@
 package com.rajeswaran.common.saga.payment.events;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
 import com.rajeswaran.common.saga.event.BaseEvent;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
@@ -20,9 +20,9 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class PaymentValidatedEvent extends BaseEvent {
 
-    Payment payment;
+    PaymentInstruction payment;
 
-    public static PaymentValidatedEvent create(Long sagaId, Payment payment) {
+    public static PaymentValidatedEvent create(Long sagaId, PaymentInstruction payment) {
         return PaymentValidatedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
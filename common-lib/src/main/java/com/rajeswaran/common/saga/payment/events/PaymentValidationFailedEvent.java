@@ -1,6 +1,6 @@
 package com.rajeswaran.common.saga.payment.events;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
 import com.rajeswaran.common.saga.event.BaseEvent;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -18,10 +18,10 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class PaymentValidationFailedEvent extends BaseEvent {
 
-    Payment payment;
+    PaymentInstruction payment;
     private String reason;
 
-    public static PaymentValidationFailedEvent create(Long sagaId, Payment payment, String reason) {
+    public static PaymentValidationFailedEvent create(Long sagaId, PaymentInstruction payment, String reason) {
         return PaymentValidationFailedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
@@ -0,0 +1,32 @@
+package com.rajeswaran.common.saga.payment.events;
+
+import com.rajeswaran.common.saga.event.BaseEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Event indicating recording the transactions of a batch of payments has failed.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class TransactionBatchFailedEvent extends BaseEvent {
+
+    private int paymentCount;
+    private String reason;
+
+    public static TransactionBatchFailedEvent create(Long sagaId, int paymentCount, String reason) {
+        return TransactionBatchFailedEvent.builder()
+            .eventId(java.util.UUID.randomUUID().toString())
+            .sagaId(sagaId)
+            .timestamp(java.time.Instant.now())
+            .paymentCount(paymentCount)
+            .reason(reason)
+            .build();
+    }
+}
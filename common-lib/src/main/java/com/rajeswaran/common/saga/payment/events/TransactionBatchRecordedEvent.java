@@ -0,0 +1,30 @@
+package com.rajeswaran.common.saga.payment.events;
+
+import com.rajeswaran.common.saga.event.BaseEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Event indicating the transactions of a batch of payments have been recorded.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class TransactionBatchRecordedEvent extends BaseEvent {
+
+    private int paymentCount;
+
+    public static TransactionBatchRecordedEvent create(Long sagaId, int paymentCount) {
+        return TransactionBatchRecordedEvent.builder()
+            .eventId(java.util.UUID.randomUUID().toString())
+            .sagaId(sagaId)
+            .timestamp(java.time.Instant.now())
+            .paymentCount(paymentCount)
+            .build();
+    }
+}
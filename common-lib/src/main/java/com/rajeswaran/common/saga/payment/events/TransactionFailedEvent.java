@@ -1,6 +1,5 @@
 package com.rajeswaran.common.saga.payment.events;
 
-import com.rajeswaran.common.entity.Payment;
 import com.rajeswaran.common.saga.event.BaseEvent;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -18,16 +17,16 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class TransactionFailedEvent extends BaseEvent {
 
-    Payment payment;
+    Long paymentId;
     private String reason;
 
 
-    public static TransactionFailedEvent create(Long sagaId, Payment payment, String reason) {
+    public static TransactionFailedEvent create(Long sagaId, Long paymentId, String reason) {
         return TransactionFailedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
             .timestamp(java.time.Instant.now())
-            .payment(payment)
+            .paymentId(paymentId)
             .reason(reason)
             .build();
     }
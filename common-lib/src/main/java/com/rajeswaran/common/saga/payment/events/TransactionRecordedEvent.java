@@ -1,6 +1,5 @@
 package com.rajeswaran.common.saga.payment.events;
 
-import com.rajeswaran.common.entity.Payment;
 import com.rajeswaran.common.saga.event.BaseEvent;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -18,14 +17,14 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class TransactionRecordedEvent extends BaseEvent {
 
-    Payment payment;
+    Long paymentId;
 
-    public static TransactionRecordedEvent create(Long sagaId, Payment payment) {
+    public static TransactionRecordedEvent create(Long sagaId, Long paymentId) {
         return TransactionRecordedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
             .timestamp(java.time.Instant.now())
-            .payment(payment)
+            .paymentId(paymentId)
             .build();
     }
 }
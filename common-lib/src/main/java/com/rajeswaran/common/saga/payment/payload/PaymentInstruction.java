@@ -0,0 +1,43 @@
+package com.rajeswaran.common.saga.payment.payload;
+
+import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.money.Money;
+
+/**
+ * What a payment asks for: the payload of the validation and processing messages.
+ * The payment ID is {@code null} until the payment-service has registered the payment.
+ *
+ * Currency codes are interned, so the payments of a batch share one instance per currency.
+ */
+public record PaymentInstruction(Long paymentId,
+                                 String sourceAccountNumber,
+                                 String destinationAccountNumber,
+                                 long amount,
+                                 String currency,
+                                 String description,
+                                 String createdBy) {
+
+    public PaymentInstruction {
+        currency = currency != null ? currency.intern() : Money.DEFAULT_CURRENCY;
+    }
+
+    public static PaymentInstruction from(Payment payment) {
+        return new PaymentInstruction(payment.getId(), payment.getSourceAccountNumber(), payment.getDestinationAccountNumber(),
+            payment.getAmount(), payment.getCurrency(), payment.getDescription(), payment.getCreatedBy());
+    }
+
+    /**
+     * Creates an unsaved payment entity with the fields of this instruction.
+     */
+    public Payment toPayment() {
+        Payment payment = new Payment();
+        payment.setId(paymentId);
+        payment.setSourceAccountNumber(sourceAccountNumber);
+        payment.setDestinationAccountNumber(destinationAccountNumber);
+        payment.setAmount(amount);
+        payment.setCurrency(currency);
+        payment.setDescription(description);
+        payment.setCreatedBy(createdBy);
+        return payment;
+    }
+}
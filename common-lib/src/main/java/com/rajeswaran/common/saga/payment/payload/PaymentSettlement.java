@@ -0,0 +1,22 @@
+package com.rajeswaran.common.saga.payment.payload;
+
+import com.rajeswaran.common.entity.Payment;
+
+/**
+ * Outcome of a transfer: the payment together with the balances it left on both accounts,
+ * which is all the transaction-service needs to record it.
+ */
+public record PaymentSettlement(PaymentInstruction payment,
+                                String destinationAccountUserName,
+                                long sourceAccountBalance,
+                                long destinationAccountBalance) {
+
+    public static PaymentSettlement from(Payment payment) {
+        return new PaymentSettlement(PaymentInstruction.from(payment), payment.getDestinationAccountUserName(),
+            payment.getSourceAccountBalance(), payment.getDestinationAccountBalance());
+    }
+
+    public Long paymentId() {
+        return payment.paymentId();
+    }
+}
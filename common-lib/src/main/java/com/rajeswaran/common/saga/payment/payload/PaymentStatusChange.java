@@ -0,0 +1,23 @@
+package com.rajeswaran.common.saga.payment.payload;
+
+/**
+ * Final status of a registered payment, with the balances of a completed transfer.
+ */
+public record PaymentStatusChange(Long paymentId,
+                                  String status,
+                                  String destinationAccountUserName,
+                                  long sourceAccountBalance,
+                                  long destinationAccountBalance) {
+
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    public static PaymentStatusChange completed(PaymentSettlement settlement) {
+        return new PaymentStatusChange(settlement.paymentId(), COMPLETED, settlement.destinationAccountUserName(),
+            settlement.sourceAccountBalance(), settlement.destinationAccountBalance());
+    }
+
+    public static PaymentStatusChange failed(Long paymentId) {
+        return new PaymentStatusChange(paymentId, FAILED, null, 0, 0);
+    }
+}
@@ -1,7 +1,7 @@
 package com.rajeswaran.common.saga.useronboarding.commands;
 
 import com.rajeswaran.common.saga.command.BaseCommand;
-import com.rajeswaran.common.entity.User;
+import com.rajeswaran.common.saga.useronboarding.payload.NewUser;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -22,14 +22,14 @@ import java.time.Instant;
 public class CreateUserCommand extends BaseCommand {
     
     @NotNull
-    private User user;
+    private NewUser user;
     
-    public CreateUserCommand(String commandId, Long sagaId, Instant timestamp, User user) {
+    public CreateUserCommand(String commandId, Long sagaId, Instant timestamp, NewUser user) {
         super(commandId, sagaId, timestamp);
         this.user = user;
     }
     
-    public static CreateUserCommand create(Long sagaId, User user) {
+    public static CreateUserCommand create(Long sagaId, NewUser user) {
         return new CreateUserCommand(
             java.util.UUID.randomUUID().toString(),
             sagaId,
@@ -1,7 +1,7 @@
 package com.rajeswaran.common.saga.useronboarding.commands;
 
 import com.rajeswaran.common.saga.command.BaseCommand;
-import com.rajeswaran.common.entity.User;
+import com.rajeswaran.common.saga.useronboarding.payload.UserProfile;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -26,16 +26,16 @@ public class OpenAccountCommand extends BaseCommand {
     private String accountType;
     
     @NotNull
-    private User user;
+    private UserProfile user;
     
     public OpenAccountCommand(String commandId, Long sagaId, Instant timestamp,
-                            String accountType, User user) {
+                            String accountType, UserProfile user) {
         super(commandId, sagaId, timestamp);
         this.accountType = accountType;
         this.user = user;
     }
     
-    public static OpenAccountCommand create(Long sagaId, String accountType, User user) {
+    public static OpenAccountCommand create(Long sagaId, String accountType, UserProfile user) {
         return new OpenAccountCommand(
             java.util.UUID.randomUUID().toString(),
             sagaId,
@@ -3,9 +3,8 @@ package com.rajeswaran.common.saga.useronboarding.events;
 import java.time.Instant;
 import java.util.UUID;
 
-import com.rajeswaran.common.entity.Account;
-import com.rajeswaran.common.entity.User;
 import com.rajeswaran.common.saga.event.BaseEvent;
+import com.rajeswaran.common.saga.useronboarding.payload.UserProfile;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -23,18 +22,18 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class AccountOpenedEvent extends BaseEvent {
 
-    Account account;
+    String accountNumber;
 
-    User user;
+    UserProfile user;
 
-    public static AccountOpenedEvent create(Long sagaId, Account account, User user) {
+    public static AccountOpenedEvent create(Long sagaId, String accountNumber, UserProfile user) {
         return AccountOpenedEvent.builder()
             .eventId(UUID.randomUUID().toString())
             .sagaId(sagaId)
             .timestamp(Instant.now())
             .success(true)
             .errorMessage(null)
-            .account(account)
+            .accountNumber(accountNumber)
             .user(user)
             .build();
     }
@@ -2,7 +2,7 @@ package com.rajeswaran.common.saga.useronboarding.events;
 
 import java.time.Instant;
 
-import com.rajeswaran.common.entity.User;
+import com.rajeswaran.common.saga.useronboarding.payload.UserProfile;
 import com.rajeswaran.common.saga.event.BaseEvent;
 
 import jakarta.validation.constraints.NotNull;
@@ -22,9 +22,9 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class UserCreatedEvent extends BaseEvent {
     @NotNull
-    private User user;
+    private UserProfile user;
 
-    public static UserCreatedEvent create(Long sagaId, User user) {
+    public static UserCreatedEvent create(Long sagaId, UserProfile user) {
         return UserCreatedEvent.builder()
             .eventId(java.util.UUID.randomUUID().toString())
             .sagaId(sagaId)
@@ -0,0 +1,28 @@
+package com.rajeswaran.common.saga.useronboarding.payload;
+
+import com.rajeswaran.common.entity.User;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * User to be created by the user-service, as taken from the identity provider.
+ */
+public record NewUser(String username, String email, String fullName, Set<String> roles) {
+
+    public NewUser {
+        roles = roles != null ? Set.copyOf(roles) : Set.of();
+    }
+
+    /**
+     * Creates an unsaved user entity with the fields of this payload.
+     */
+    public User toUser() {
+        return User.builder()
+            .username(username)
+            .email(email)
+            .fullName(fullName)
+            .roles(new HashSet<>(roles))
+            .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.rajeswaran.common.saga.useronboarding.payload;
+
+import com.rajeswaran.common.AppConstants;
+import com.rajeswaran.common.entity.User;
+
+/**
+ * A created user as seen by the later onboarding steps. Roles are reduced to the one decision
+ * the saga makes with them.
+ */
+public record UserProfile(Long userId, String username, String fullName, boolean admin) {
+
+    public static UserProfile from(User user) {
+        return new UserProfile(user.getUserId(), user.getUsername(), user.getFullName(),
+            user.getRoles() != null && user.getRoles().contains(AppConstants.ROLE_BAAS_ADMIN));
+    }
+}
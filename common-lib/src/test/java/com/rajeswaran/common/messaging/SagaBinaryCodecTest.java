@@ -0,0 +1,199 @@
+package com.rajeswaran.common.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajeswaran.common.saga.command.Command;
+import com.rajeswaran.common.saga.event.Event;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SagaBinaryCodecTest {
+
+    // Same settings as the ObjectMapper Spring Boot configures for the services
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final SagaBinaryCodec codec = new SagaBinaryCodec(objectMapper);
+    private final AtomicLong sampleNumbers = new AtomicLong(1);
+
+    static List<Class<?>> messageTypes() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AssignableTypeFilter(Command.class));
+        scanner.addIncludeFilter(new AssignableTypeFilter(Event.class));
+        List<Class<?>> types = new ArrayList<>();
+        for (var candidate : scanner.findCandidateComponents("com.rajeswaran.common.saga")) {
+            types.add(Class.forName(candidate.getBeanClassName()));
+        }
+        return types;
+    }
+
+    @Test
+    void findsAllMessageTypes() throws ClassNotFoundException {
+        Set<String> packages = new HashSet<>();
+        messageTypes().forEach(type -> packages.add(type.getPackageName()));
+        Assertions.assertEquals(Set.of(
+                "com.rajeswaran.common.saga.notification.commands",
+                "com.rajeswaran.common.saga.payment.commands",
+                "com.rajeswaran.common.saga.payment.events",
+                "com.rajeswaran.common.saga.useronboarding.commands",
+                "com.rajeswaran.common.saga.useronboarding.events"), packages);
+    }
+
+    @ParameterizedTest
+    @MethodSource("messageTypes")
+    void roundTripsPopulatedMessage(Class<?> type) throws Exception {
+        assertRoundTrip(populate(type), type);
+    }
+
+    @ParameterizedTest
+    @MethodSource("messageTypes")
+    void roundTripsMessageWithNulls(Class<?> type) throws Exception {
+        Constructor<?> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        assertRoundTrip(constructor.newInstance(), type);
+    }
+
+    @Test
+    void roundTripsUnknownAndRepeatedFieldNames() throws IOException {
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("notPredefined", "x");
+        inner.put("sagaId", -7L);
+        inner.put("nothing", null);
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("customField", List.of(inner, inner));
+        payload.put("anotherField", Map.of("customField", "x", "notPredefined", 1.5));
+        payload.put("decimal", new BigDecimal("12345678901234567890.123"));
+        payload.put("longText", "y".repeat(200));
+
+        byte[] encoded = codec.encode(payload);
+        Assertions.assertEquals(payload, codec.decode(encoded, Map.class));
+    }
+
+    @Test
+    void ignoresUnknownFieldsOfKnownTypes() throws Exception {
+        Class<?> type = messageTypes().get(0);
+        Object message = populate(type);
+        // Fields of the message as a sender with one more field would write them
+        Map<String, Object> fields = decodeFields(codec.encode(message));
+        fields.put("fieldAddedByANewerSender", List.of("value", Map.of("nested", 1L)));
+
+        Object decoded = codec.decode(codec.encode(fields), type);
+        Assertions.assertEquals(objectMapper.valueToTree(message), objectMapper.valueToTree(decoded));
+    }
+
+    @Test
+    void rejectsUnsupportedVersions() throws IOException {
+        byte[] encoded = codec.encode(Map.of("sagaId", 1L));
+        Assertions.assertEquals(SagaBinaryCodec.VERSION, encoded[1]);
+
+        encoded[1] = SagaBinaryCodec.VERSION + 1;
+        Assertions.assertThrows(IOException.class, () -> codec.decode(encoded, Map.class));
+        encoded[1] = 0;
+        Assertions.assertThrows(IOException.class, () -> codec.decode(encoded, Map.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> decodeFields(byte[] encoded) throws IOException {
+        return (Map<String, Object>) codec.decode(encoded, Map.class);
+    }
+
+    private void assertRoundTrip(Object message, Class<?> type) throws IOException {
+        byte[] encoded = codec.encode(message);
+        Object decoded = codec.decode(encoded, type);
+        Assertions.assertEquals(objectMapper.valueToTree(message), objectMapper.valueToTree(decoded), type.getSimpleName());
+    }
+
+    /**
+     * Builds an instance with every field set, recursing into nested payloads and collections.
+     */
+    private Object populate(Class<?> type) throws Exception {
+        if (type.isRecord()) {
+            RecordComponent[] components = type.getRecordComponents();
+            Object[] values = new Object[components.length];
+            Class<?>[] parameterTypes = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                values[i] = sample(components[i].getName(), components[i].getGenericType());
+                parameterTypes[i] = components[i].getType();
+            }
+            return type.getDeclaredConstructor(parameterTypes).newInstance(values);
+        }
+
+        Constructor<?> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Object instance = constructor.newInstance();
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                field.set(instance, sample(field.getName(), field.getGenericType()));
+            }
+        }
+        return instance;
+    }
+
+    private Object sample(String name, Type type) throws Exception {
+        if (type instanceof ParameterizedType parameterized) {
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            Type[] arguments = parameterized.getActualTypeArguments();
+            if (List.class.isAssignableFrom(raw)) {
+                return List.of(sample(name, arguments[0]), sample(name, arguments[0]));
+            }
+            if (Set.class.isAssignableFrom(raw)) {
+                return Set.of(sample(name, arguments[0]));
+            }
+            if (Map.class.isAssignableFrom(raw)) {
+                return Map.of(sample(name, arguments[0]), sample(name, arguments[1]));
+            }
+            throw new IllegalArgumentException("No sample for " + type);
+        }
+
+        Class<?> c = (Class<?>) type;
+        if (c == String.class) {
+            return name.endsWith("Id") ? UUID.randomUUID().toString() : name + "-" + sampleNumbers.incrementAndGet();
+        }
+        if (c == Long.class || c == long.class) {
+            return sampleNumbers.incrementAndGet() * 1_000_003L;
+        }
+        if (c == Integer.class || c == int.class) {
+            return (int) sampleNumbers.incrementAndGet();
+        }
+        if (c == Boolean.class || c == boolean.class) {
+            return true;
+        }
+        if (c == Double.class || c == double.class) {
+            return 0.25 + sampleNumbers.incrementAndGet();
+        }
+        if (c == BigDecimal.class) {
+            return new BigDecimal("1234.56");
+        }
+        if (c == Instant.class) {
+            return Instant.parse("2026-10-18T10:15:30.123456Z").plusSeconds(sampleNumbers.incrementAndGet());
+        }
+        if (c.isEnum()) {
+            return c.getEnumConstants()[0];
+        }
+        return populate(c);
+    }
+}
@@ -1,16 +1,21 @@
 package com.rajeswaran.notification.controller;
 
 import com.rajeswaran.common.entity.Notification;
+import com.rajeswaran.common.pagination.KeysetPage;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
 import com.rajeswaran.common.util.SecurityUtil;
 import com.rajeswaran.notification.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +26,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class NotificationController {
     private final NotificationService notificationService;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
     
     @GetMapping
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
@@ -31,6 +37,25 @@ public class NotificationController {
         return notifications;
     }
 
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping("/page")
+    public KeysetPage<Notification> getNotificationsPage(@RequestParam(required = false) Long afterId,
+                                        @RequestParam(required = false) Integer size) {
+        log.info("Received request: getNotificationsPage, afterId={}, size={}", afterId, size);
+        KeysetPage<Notification> page = notificationService.getNotificationsPage(afterId, size);
+        log.info("Completed request: getNotificationsPage, count={}, nextCursor={}", page.items().size(), page.nextCursor());
+        return page;
+    }
+
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllNotifications() {
+        log.info("Received request: streamAllNotifications");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonStreamWriter.stream(notificationService::streamAllNotifications));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Notification> getNotificationById(@PathVariable Long id) {
         log.info("Received request: getNotificationById, id={}", id);
@@ -1,14 +1,27 @@
 package com.rajeswaran.notification.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.rajeswaran.common.entity.Notification;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
     List<Notification> findByUserName(String userName);
+
+    List<Notification> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NdjsonStreamWriter.FETCH_SIZE))
+    @Query("SELECT n FROM Notification n ORDER BY n.id")
+    Stream<Notification> streamAll();
 }
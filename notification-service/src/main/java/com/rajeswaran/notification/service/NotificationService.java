@@ -3,10 +3,13 @@ package com.rajeswaran.notification.service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import com.rajeswaran.common.entity.Notification;
+import com.rajeswaran.common.pagination.KeysetPage;
 import com.rajeswaran.common.saga.notification.commands.SendNotificationCommand;
 import com.rajeswaran.notification.repository.NotificationRepository;
 
@@ -21,6 +24,16 @@ public class NotificationService {
         return notificationRepository.findAll();
     }
 
+    public KeysetPage<Notification> getNotificationsPage(Long afterId, Integer size) {
+        int pageSize = KeysetPage.boundedSize(size);
+        List<Notification> items = notificationRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.startAfter(afterId), Limit.of(pageSize));
+        return KeysetPage.of(items, pageSize, Notification::getId);
+    }
+
+    public Stream<Notification> streamAllNotifications() {
+        return notificationRepository.streamAll();
+    }
+
     public Optional<Notification> getNotificationById(Long id) {
         return notificationRepository.findById(id);
     }
@@ -1,13 +1,17 @@
 package com.rajeswaran.payment.controller;
 
+import com.rajeswaran.common.pagination.KeysetPage;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
 import com.rajeswaran.common.util.SecurityUtil;
 import com.rajeswaran.common.entity.Payment;
 import com.rajeswaran.payment.service.PaymentService;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,6 +22,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class PaymentController {
     private final PaymentService paymentService;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
 
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
     @GetMapping
@@ -28,6 +33,25 @@ public class PaymentController {
         return payments;
     }
 
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping("/page")
+    public KeysetPage<Payment> getPaymentsPage(@RequestParam(required = false) Long afterId,
+                                        @RequestParam(required = false) Integer size) {
+        log.info("Received request: getPaymentsPage, afterId={}, size={}", afterId, size);
+        KeysetPage<Payment> page = paymentService.getPaymentsPage(afterId, size);
+        log.info("Completed request: getPaymentsPage, count={}, nextCursor={}", page.items().size(), page.nextCursor());
+        return page;
+    }
+
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPayments() {
+        log.info("Received request: streamAllPayments");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonStreamWriter.stream(paymentService::streamAllPayments));
+    }
+
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_ACCOUNT_HOLDER)")
     @GetMapping("/my-payments")
     public List<Payment> getMyPayments() {
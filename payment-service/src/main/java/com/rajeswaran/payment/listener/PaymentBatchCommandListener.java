@@ -0,0 +1,100 @@
+package com.rajeswaran.payment.listener;
+
+import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.commands.UpdatePaymentBatchStatusCommand;
+import com.rajeswaran.common.saga.payment.commands.ValidatePaymentBatchCommand;
+import com.rajeswaran.common.saga.payment.events.PaymentBatchStatusUpdatedEvent;
+import com.rajeswaran.common.saga.payment.events.PaymentBatchValidatedEvent;
+import com.rajeswaran.common.saga.payment.events.PaymentBatchValidationFailedEvent;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.payment.service.PaymentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Handles the payment-service steps of the bulk payment saga: registering a batch of payments
+ * and storing their final status, each with one batched write.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentBatchCommandListener {
+
+    private final PaymentService paymentService;
+    private final StreamBridge streamBridge;
+
+    /**
+     * Consumes ValidatePaymentBatchCommand, registers the valid payments and rejects the rest.
+     */
+    @Bean
+    public Consumer<Message<ValidatePaymentBatchCommand>> validatePaymentBatchCommand() {
+        return message -> {
+            ValidatePaymentBatchCommand command = message.getPayload();
+            log.info("Received ValidatePaymentBatchCommand for saga {} with {} payments", command.getSagaId(), command.getPayments().size());
+
+            List<Payment> valid = new ArrayList<>();
+            List<PaymentInstruction> rejected = new ArrayList<>();
+            for (PaymentInstruction payment : command.getPayments()) {
+                // Same checks as for a single payment
+                if (payment.amount() > 0 && payment.sourceAccountNumber() != null && payment.destinationAccountNumber() != null) {
+                    valid.add(payment.toPayment());
+                } else {
+                    rejected.add(payment);
+                }
+            }
+
+            if (valid.isEmpty()) {
+                streamBridge.send("paymentBatchValidationFailedEvent-out-0", PaymentBatchValidationFailedEvent.create(
+                    command.getSagaId(),
+                    rejected,
+                    "Validation failed: No payment in the batch has a valid amount and account information"
+                ));
+                log.warn("Published PaymentBatchValidationFailedEvent for saga {}", command.getSagaId());
+                return;
+            }
+
+            List<Payment> registered = paymentService.createPayments(valid);
+            streamBridge.send("paymentBatchValidatedEvent-out-0", PaymentBatchValidatedEvent.create(
+                command.getSagaId(),
+                registered.stream().map(PaymentInstruction::from).toList(),
+                rejected
+            ));
+            log.info("Published PaymentBatchValidatedEvent for saga {}: {} registered, {} rejected",
+                command.getSagaId(), registered.size(), rejected.size());
+        };
+    }
+
+    /**
+     * Consumes UpdatePaymentBatchStatusCommand and stores the status of every payment in the batch.
+     */
+    @Bean
+    public Consumer<Message<UpdatePaymentBatchStatusCommand>> updatePaymentBatchStatusCommand() {
+        return message -> {
+            UpdatePaymentBatchStatusCommand command = message.getPayload();
+            log.info("Received UpdatePaymentBatchStatusCommand for saga {} with {} payments", command.getSagaId(), command.getStatusChanges().size());
+
+            try {
+                List<Payment> updated = paymentService.updatePaymentStatuses(command.getStatusChanges());
+                int completed = (int) updated.stream().filter(payment -> "COMPLETED".equals(payment.getStatus())).count();
+
+                streamBridge.send("paymentBatchStatusUpdatedEvent-out-0", PaymentBatchStatusUpdatedEvent.create(
+                    command.getSagaId(),
+                    completed,
+                    updated.size() - completed
+                ));
+                log.info("Updated status of {} payments for saga {}", updated.size(), command.getSagaId());
+            } catch (Exception e) {
+                log.error("Error updating payment batch for saga {}: {}", command.getSagaId(), e.getMessage(), e);
+                // Retried by the saga when the step times out
+            }
+        };
+    }
+}
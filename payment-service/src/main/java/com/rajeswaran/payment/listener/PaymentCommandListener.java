@@ -4,6 +4,7 @@ import com.rajeswaran.common.entity.Payment;
 import com.rajeswaran.common.saga.payment.commands.ValidatePaymentCommand;
 import com.rajeswaran.common.saga.payment.events.PaymentValidatedEvent;
 import com.rajeswaran.common.saga.payment.events.PaymentValidationFailedEvent;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
 import com.rajeswaran.payment.service.PaymentService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,20 +34,20 @@ public class PaymentCommandListener {
     public Consumer<Message<ValidatePaymentCommand>> validatePaymentCommand(PaymentService paymentService) {
         return message -> {
             ValidatePaymentCommand command = message.getPayload();
-            Payment payment = command.getPayment();
+            PaymentInstruction payment = command.getPayment();
             log.info("Received ValidatePaymentCommand for saga {} and payment: {}", command.getSagaId(), payment);
 
             // Basic validation placeholder (always succeeds for now)
-            boolean valid = payment.getAmount() > 0 && payment.getSourceAccountNumber() != null && payment.getDestinationAccountNumber() != null;
+            boolean valid = payment.amount() > 0 && payment.sourceAccountNumber() != null && payment.destinationAccountNumber() != null;
 
             if (valid) {
+                Payment registered = paymentService.createPayment(payment.toPayment());
                 PaymentValidatedEvent event = PaymentValidatedEvent.create(
                     command.getSagaId(),
-                    payment
+                    PaymentInstruction.from(registered)
                 );
-                paymentService.createPayment(payment);
                 streamBridge.send("paymentValidatedEvent-out-0", event);
-                log.info("Published PaymentValidatedEvent for saga {} and payment: {}", command.getSagaId(), payment);
+                log.info("Published PaymentValidatedEvent for saga {} and payment: {}", command.getSagaId(), registered.getId());
             } else {
                 PaymentValidationFailedEvent event = PaymentValidationFailedEvent.create(
                     command.getSagaId(),
@@ -54,7 +55,7 @@ public class PaymentCommandListener {
                     "Validation failed: Invalid amount or account information"
                 );
                 streamBridge.send("paymentValidationFailedEvent-out-0", event);
-                log.warn("Published PaymentValidationFailedEvent for saga {} and payment: {}", command.getSagaId(), payment.getId());
+                log.warn("Published PaymentValidationFailedEvent for saga {} and payment: {}", command.getSagaId(), payment.paymentId());
             }
         };
     }
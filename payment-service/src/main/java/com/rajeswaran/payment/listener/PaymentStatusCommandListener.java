@@ -10,9 +10,10 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
-import java.util.Optional;
 import java.util.function.Consumer;
 import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.payment.payload.PaymentStatusChange;
 
 /**
  * Handles UpdatePaymentStatusCommand to update payment status.
@@ -26,32 +27,33 @@ public class PaymentStatusCommandListener {
     private final StreamBridge streamBridge;
 
     /**
-     * Consumes UpdatePaymentStatusCommand and updates the entire payment object.
+     * Consumes UpdatePaymentStatusCommand and stores the status on the registered payment.
      */
     @Bean
     public Consumer<Message<UpdatePaymentStatusCommand>> updatePaymentStatusCommand() {
         return message -> {
             UpdatePaymentStatusCommand command = message.getPayload();
-            Payment payment = command.getPayment();
+            PaymentStatusChange change = command.getStatusChange();
             
             log.info("Received UpdatePaymentStatusCommand for saga {} and payment: {} to status: {}", 
-                    command.getSagaId(), payment.getId(), payment.getStatus());
+                    command.getSagaId(), change.paymentId(), change.status());
 
             try {
-                Payment updatedPayment = paymentService.updatePayment(payment);
+                Payment updatedPayment = paymentService.updatePaymentStatus(change);
                 
-                log.info("Successfully updated payment {} to status: {}", payment.getId(), payment.getStatus());
+                log.info("Successfully updated payment {} to status: {}", change.paymentId(), change.status());
                 
                 // Publish success event
                 PaymentStatusUpdatedEvent event = PaymentStatusUpdatedEvent.create(
                     command.getSagaId(),
-                    updatedPayment
+                    PaymentInstruction.from(updatedPayment),
+                    updatedPayment.getStatus()
                 );
                 streamBridge.send("paymentStatusUpdatedEvent-out-0", event);
                 
             } catch (Exception e) {
                 log.error("Error updating payment {}: {}", 
-                        payment.getId(), e.getMessage(), e);
+                        change.paymentId(), e.getMessage(), e);
                 // Could publish a failure event here if needed
             }
         };
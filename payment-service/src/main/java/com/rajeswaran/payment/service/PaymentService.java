@@ -1,12 +1,21 @@
 package com.rajeswaran.payment.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.pagination.KeysetPage;
+import com.rajeswaran.common.saga.payment.payload.PaymentStatusChange;
 import com.rajeswaran.payment.repository.PaymentRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -20,6 +29,16 @@ public class PaymentService {
         return paymentRepository.findAll();
     }
 
+    public KeysetPage<Payment> getPaymentsPage(Long afterId, Integer size) {
+        int pageSize = KeysetPage.boundedSize(size);
+        List<Payment> items = paymentRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.startAfter(afterId), Limit.of(pageSize));
+        return KeysetPage.of(items, pageSize, Payment::getId);
+    }
+
+    public Stream<Payment> streamAllPayments() {
+        return paymentRepository.streamAll();
+    }
+
     public List<Payment> getPaymentsByUsername(String username) {
         return paymentRepository.findByCreatedBy(username);
     }
@@ -34,12 +53,62 @@ public class PaymentService {
         return paymentRepository.save(payment);
     }
 
+    /**
+     * Registers a batch of payments as PENDING with one batched insert.
+     */
+    @Transactional
+    public List<Payment> createPayments(List<Payment> payments) {
+        LocalDateTime now = LocalDateTime.now();
+        payments.forEach(payment -> {
+            payment.setTimestamp(now);
+            payment.setStatus("PENDING");
+        });
+        return paymentRepository.saveAll(payments);
+    }
+
     public void deletePayment(Long id) {
         paymentRepository.deleteById(id);
     }
 
-    public Payment updatePayment(Payment payment) {
-        payment.setTimestamp(LocalDateTime.now());
-        return paymentRepository.save(payment);
+    /**
+     * Stores the final status of a registered payment, with the balances of a completed transfer.
+     *
+     * @throws IllegalArgumentException if the payment does not exist
+     */
+    @Transactional
+    public Payment updatePaymentStatus(PaymentStatusChange change) {
+        Payment payment = paymentRepository.findById(change.paymentId())
+            .orElseThrow(() -> new IllegalArgumentException("Payment not found: " + change.paymentId()));
+        apply(payment, change, LocalDateTime.now());
+        return payment;
+    }
+
+    /**
+     * Stores the final status of a batch of payments, loading them with one query.
+     * Changes of unknown payments are skipped.
+     */
+    @Transactional
+    public List<Payment> updatePaymentStatuses(List<PaymentStatusChange> changes) {
+        Map<Long, Payment> payments = paymentRepository.findAllById(changes.stream().map(PaymentStatusChange::paymentId).toList())
+            .stream()
+            .collect(Collectors.toMap(Payment::getId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        List<Payment> updated = new ArrayList<>(payments.size());
+        for (PaymentStatusChange change : changes) {
+            Payment payment = payments.get(change.paymentId());
+            if (payment != null) {
+                apply(payment, change, now);
+                updated.add(payment);
+            }
+        }
+        return updated;
+    }
+
+    private void apply(Payment payment, PaymentStatusChange change, LocalDateTime now) {
+        payment.setStatus(change.status());
+        payment.setDestinationAccountUserName(change.destinationAccountUserName());
+        payment.setSourceAccountBalance(change.sourceAccountBalance());
+        payment.setDestinationAccountBalance(change.destinationAccountBalance());
+        payment.setTimestamp(now);
     }
 }
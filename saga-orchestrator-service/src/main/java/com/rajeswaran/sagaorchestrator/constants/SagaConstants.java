@@ -29,6 +29,12 @@ public final class SagaConstants {
      */
     public static final String PAYMENT_PROCESSING_SAGA = "payment-processing-saga";
 
+    /**
+     * Bulk payment saga name used for processing a chunk of a bulk payment file
+     * that shares one source account.
+     */
+    public static final String BULK_PAYMENT_SAGA = "bulk-payment-saga";
+
     public enum SagaStepStatus {
         STARTED,
         COMPLETED,
@@ -42,4 +48,18 @@ public final class SagaConstants {
         FAILED,
         ROLLED_BACK
     }
+
+    /**
+     * How the payload of a step record is stored.
+     */
+    public enum StepPayloadFormat {
+        /** JSON text of the command or event */
+        JSON,
+        /** Deflate-compressed saga binary encoding */
+        COMPRESSED,
+        /** Topic, partition and offset of the reply on Kafka; the event itself is not stored */
+        KAFKA_OFFSET,
+        /** Not retained */
+        NONE
+    }
 }
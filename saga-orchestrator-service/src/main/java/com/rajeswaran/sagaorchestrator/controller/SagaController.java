@@ -1,26 +1,50 @@
 package com.rajeswaran.sagaorchestrator.controller;
 
-import com.rajeswaran.common.entity.Payment;
-import com.rajeswaran.common.entity.User;
+import com.rajeswaran.common.AppConstants;
+import com.rajeswaran.common.money.Money;
+import com.rajeswaran.common.pagination.KeysetPage;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.useronboarding.payload.NewUser;
 import com.rajeswaran.common.util.SecurityUtil;
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import com.rajeswaran.sagaorchestrator.dto.ArchivedSagaStep;
+import com.rajeswaran.sagaorchestrator.dto.BulkPaymentBatchProgress;
+import com.rajeswaran.sagaorchestrator.dto.BulkPaymentSummary;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceFilter;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary;
+import com.rajeswaran.sagaorchestrator.dto.SagaStepSummary;
+import com.rajeswaran.sagaorchestrator.entity.BulkPayment;
 import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
 import com.rajeswaran.sagaorchestrator.saga.payment.PaymentProcessingSaga;
 import com.rajeswaran.sagaorchestrator.saga.payment.PaymentRequest;
 import com.rajeswaran.sagaorchestrator.saga.useronboarding.UserOnboardingSaga;
+import com.rajeswaran.sagaorchestrator.service.BulkPaymentService;
+import com.rajeswaran.sagaorchestrator.service.SagaArchiver;
 import com.rajeswaran.sagaorchestrator.service.SagaStateManager;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @RestController
@@ -31,16 +55,74 @@ public class SagaController {
     private final UserOnboardingSaga userOnboardingSaga;
     private final PaymentProcessingSaga paymentProcessingSaga;
     private final SagaStateManager sagaStateManager;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
+    private final BulkPaymentService bulkPaymentService;
+    private final SagaArchiver sagaArchiver;
 
     @GetMapping("/instances")
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
-    public ResponseEntity<List<SagaInstance>> getAllSagaInstances() {
-        log.info("Received request to get all saga instances");
+    public ResponseEntity<KeysetPage<SagaInstanceSummary>> getSagaInstances(
+            @RequestParam(required = false) SagaConstants.SagaStatus status,
+            @RequestParam(required = false) String sagaName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size) {
+        log.info("Received request to get saga instances, status={}, sagaName={}, from={}, to={}, afterId={}, size={}",
+                status, sagaName, from, to, afterId, size);
+
+        KeysetPage<SagaInstanceSummary> page = sagaStateManager.findSagaInstances(
+                new SagaInstanceFilter(status, sagaName, from, to), afterId, size);
+
+        log.info("Retrieved {} saga instances, nextCursor={}", page.items().size(), page.nextCursor());
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/instances/{sagaId}/steps")
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    public ResponseEntity<List<SagaStepSummary>> getSagaSteps(@PathVariable Long sagaId) {
+        log.info("Received request to get steps of saga {}", sagaId);
+
+        List<SagaStepSummary> steps = sagaStateManager.getSagaSteps(sagaId);
+
+        log.info("Retrieved {} steps for saga {}", steps.size(), sagaId);
+        return ResponseEntity.ok(steps);
+    }
+
+    @GetMapping(value = "/instances/{sagaId}/steps/{stepId}/payload", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    public ResponseEntity<String> getStepPayload(@PathVariable Long sagaId, @PathVariable Long stepId) {
+        log.info("Received request to get payload of step {} in saga {}", stepId, sagaId);
+        return sagaStateManager.getStepPayload(sagaId, stepId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-        List<SagaInstance> sagaInstances = sagaStateManager.getAllSagaInstances();
+    @GetMapping("/archive/{sagaId}")
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    public ResponseEntity<SagaInstanceSummary> getArchivedSaga(@PathVariable Long sagaId) {
+        log.info("Received request to get archived saga {}", sagaId);
+        return sagaArchiver.findArchivedSaga(sagaId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/archive/{sagaId}/steps")
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    public ResponseEntity<List<ArchivedSagaStep>> getArchivedSagaSteps(@PathVariable Long sagaId) {
+        log.info("Received request to get steps of archived saga {}", sagaId);
+        return sagaArchiver.getArchivedSteps(sagaId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-        log.info("Retrieved {} saga instances", sagaInstances.size());
-        return ResponseEntity.ok(sagaInstances);
+    @GetMapping(value = "/instances/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    public ResponseEntity<StreamingResponseBody> streamAllSagaInstances() {
+        log.info("Received request to stream all saga instances");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonStreamWriter.stream(sagaStateManager::streamAllSagaInstances));
     }
 
     @PostMapping("/start/user-onboarding")
@@ -48,15 +130,14 @@ public class SagaController {
     public ResponseEntity<String> startUserOnboardingSaga() {
         log.info("Received request to start user onboarding saga");
 
-        User user = new User();
-        user.setUsername(SecurityUtil.getCurrentUsername());
-        user.setRoles(SecurityUtil.extractRolesFromJwt());
-
+        String email = null;
+        String fullName = null;
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication.getPrincipal() instanceof org.springframework.security.oauth2.jwt.Jwt jwt) {
-            user.setEmail(jwt.getClaimAsString("email"));
-            user.setFullName(jwt.getClaimAsString("name"));
+            email = jwt.getClaimAsString("email");
+            fullName = jwt.getClaimAsString("name");
         }
+        NewUser user = new NewUser(SecurityUtil.getCurrentUsername(), email, fullName, SecurityUtil.extractRolesFromJwt());
 
         // Use Saga interface to start saga with payload - this will automatically trigger the first command
         SagaInstance sagaInstance = userOnboardingSaga.startSaga(user);
@@ -72,16 +153,54 @@ public class SagaController {
     public ResponseEntity<String> startPaymentProcessingSaga(@RequestBody PaymentRequest paymentRequest) {
         log.info("Received request to start payment processing saga");
 
-        Payment payment = new Payment();
-        payment.setSourceAccountNumber(paymentRequest.getSourceAccountNumber());
-        payment.setDestinationAccountNumber(paymentRequest.getDestinationAccountNumber());
-        payment.setAmount(paymentRequest.getAmount());
-        payment.setDescription(paymentRequest.getDescription());
-        payment.setCreatedBy(SecurityUtil.getCurrentUsername());
+        PaymentInstruction payment;
+        try {
+            payment = paymentRequest.toInstruction(SecurityUtil.getCurrentUsername());
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            String currency = paymentRequest.getCurrency() != null ? paymentRequest.getCurrency() : Money.DEFAULT_CURRENCY;
+            return ResponseEntity.badRequest().body("Invalid amount " + paymentRequest.getAmount() + " for currency " + currency);
+        }
 
         SagaInstance sagaInstance = paymentProcessingSaga.startSaga(payment);
 
         log.info("Payment processing saga {} started", sagaInstance);
         return ResponseEntity.accepted().body("Payment processing started with saga ID: " + sagaInstance.getId());
     }
+
+    /**
+     * Starts a bulk payment from a CSV or NDJSON file streamed in the request body.
+     * Payments are grouped by source account into batch sagas; their progress is reported by
+     * {@link #getBulkPaymentProgress(String)}.
+     */
+    @PostMapping(value = "/start/bulk-payment", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BulkPaymentSummary> startBulkPayment(HttpServletRequest request) throws IOException {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+        log.info("Received request to start bulk payment ({})", ndjson ? "NDJSON" : "CSV");
+
+        BulkPaymentSummary summary = bulkPaymentService.startBulkPayment(request.getInputStream(), ndjson, SecurityUtil.getCurrentUsername());
+
+        log.info("Bulk payment {} started with {} batches", summary.bulkId(), summary.batchCount());
+        return ResponseEntity.accepted().body(summary);
+    }
+
+    /**
+     * Progress of the batches of a bulk payment. Only admins and the user who uploaded it can read it.
+     */
+    @GetMapping("/bulk-payments/{bulkId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<BulkPaymentBatchProgress>> getBulkPaymentProgress(@PathVariable String bulkId) {
+        log.info("Received request to get progress of bulk payment {}", bulkId);
+
+        Optional<BulkPayment> bulkPayment = bulkPaymentService.getBulkPayment(bulkId);
+        if (bulkPayment.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!SecurityUtil.extractRolesFromJwt().contains(AppConstants.ROLE_BAAS_ADMIN)
+                && !SecurityUtil.getCurrentUsername().equals(bulkPayment.get().getCreatedBy())) {
+            log.info("Bulk payment {} not uploaded by the caller", bulkId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(bulkPaymentService.getProgress(bulkId));
+    }
 }
@@ -0,0 +1,20 @@
+package com.rajeswaran.sagaorchestrator.dto;
+
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+
+import java.time.LocalDateTime;
+
+/**
+ * Step record of an archived saga, with its payload rendered as JSON.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record ArchivedSagaStep(
+        Long id,
+        String stepName,
+        SagaConstants.SagaStepStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        String payload) {
+}
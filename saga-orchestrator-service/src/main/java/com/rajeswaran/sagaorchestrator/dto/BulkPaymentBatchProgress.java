@@ -0,0 +1,23 @@
+package com.rajeswaran.sagaorchestrator.dto;
+
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one batch of a bulk payment upload. Payments that are neither processed nor failed
+ * are still in flight. A batch whose saga could not be started has no saga ID or status, and says why.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record BulkPaymentBatchProgress(
+        Long sagaId,
+        String sourceAccountNumber,
+        int paymentCount,
+        int processedCount,
+        int failedCount,
+        SagaConstants.SagaStatus status,
+        LocalDateTime updatedAt,
+        String failureReason) {
+}
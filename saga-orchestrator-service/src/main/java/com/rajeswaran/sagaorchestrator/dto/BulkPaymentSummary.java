@@ -0,0 +1,21 @@
+package com.rajeswaran.sagaorchestrator.dto;
+
+import java.util.List;
+
+/**
+ * Result of a bulk payment upload: the batch sagas that were started, the batches whose saga could
+ * not be started, and the rows that were rejected before reaching a batch (only the first few
+ * rejections and batch failures are listed).
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record BulkPaymentSummary(
+        String bulkId,
+        int paymentCount,
+        int batchCount,
+        int failedBatchCount,
+        List<String> failedBatches,
+        int rejectedCount,
+        List<String> rejectedRows) {
+}
@@ -0,0 +1,19 @@
+package com.rajeswaran.sagaorchestrator.dto;
+
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for saga instance queries. Null fields are not applied;
+ * the time window is [createdFrom, createdTo).
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record SagaInstanceFilter(
+        SagaConstants.SagaStatus status,
+        String sagaName,
+        LocalDateTime createdFrom,
+        LocalDateTime createdTo) {
+}
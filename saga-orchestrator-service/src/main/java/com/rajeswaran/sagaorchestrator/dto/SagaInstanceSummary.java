@@ -0,0 +1,20 @@
+package com.rajeswaran.sagaorchestrator.dto;
+
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saga instance row for listings, without its steps.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record SagaInstanceSummary(
+        Long id,
+        String sagaName,
+        SagaConstants.SagaStatus status,
+        int currentStep,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
@@ -0,0 +1,19 @@
+package com.rajeswaran.sagaorchestrator.dto;
+
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saga step row without its payload; the payload is fetched separately on demand.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record SagaStepSummary(
+        Long id,
+        String stepName,
+        SagaConstants.SagaStepStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
@@ -0,0 +1,51 @@
+package com.rajeswaran.sagaorchestrator.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A bulk payment upload.
+ *
+ * Created before the file is read, so the upload and its owner are known even if reading it fails
+ * part way; the counters are filled in once the whole file has been handed to batch sagas.
+ */
+@Entity
+@Table(name = "bulk_payment")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPayment {
+
+    @Id
+    @Column(name = "bulk_id", length = 36)
+    private String bulkId;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @Column(name = "payment_count", nullable = false)
+    private int paymentCount;
+
+    @Column(name = "batch_count", nullable = false)
+    private int batchCount;
+
+    @Column(name = "failed_batch_count", nullable = false)
+    private int failedBatchCount;
+
+    @Column(name = "rejected_count", nullable = false)
+    private int rejectedCount;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
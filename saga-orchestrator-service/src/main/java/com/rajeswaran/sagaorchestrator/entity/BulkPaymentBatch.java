@@ -0,0 +1,61 @@
+package com.rajeswaran.sagaorchestrator.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one batch of a bulk payment upload.
+ *
+ * Every batch is processed by its own bulk payment saga; the counters are updated as the saga's
+ * validation and processing replies arrive. A batch whose saga could not be started has no saga,
+ * all of its payments counted as failed and the reason in {@code failureReason}.
+ */
+@Entity
+@Table(name = "bulk_payment_batch", indexes = {
+        @Index(name = "idx_bulk_payment_batch_bulk_id", columnList = "bulk_id"),
+        @Index(name = "idx_bulk_payment_batch_saga_id", columnList = "saga_id", unique = true)
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bulk_id", nullable = false, length = 36)
+    private String bulkId;
+
+    @Column(name = "saga_id")
+    private Long sagaId;
+
+    @Column(name = "source_account_number", nullable = false)
+    private String sourceAccountNumber;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @Column(name = "payment_count", nullable = false)
+    private int paymentCount;
+
+    @Column(name = "processed_count", nullable = false)
+    private int processedCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private int failedCount;
+
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
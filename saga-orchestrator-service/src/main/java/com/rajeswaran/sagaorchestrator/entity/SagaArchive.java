@@ -0,0 +1,59 @@
+package com.rajeswaran.sagaorchestrator.entity;
+
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Summary of a terminal saga moved out of {@code saga_instance} by the saga archiver.
+ *
+ * Keeps the saga's ID and summary columns for lookups; its step records, with their payloads rendered
+ * as JSON, are kept as one compressed blob.
+ */
+@Entity
+@Table(name = "saga_archive", indexes = {
+        @Index(name = "idx_saga_archive_saga_name_created_at", columnList = "saga_name, created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaArchive {
+
+    /**
+     * ID the saga had in {@code saga_instance}.
+     */
+    @Id
+    private Long id;
+
+    @Column(name = "saga_name", nullable = false)
+    private String sagaName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private SagaConstants.SagaStatus status;
+
+    @Column(name = "current_step")
+    private int currentStep;
+
+    @Column(name = "step_count")
+    private int stepCount;
+
+    @Lob
+    @Column(name = "steps", columnDefinition = "MEDIUMBLOB")
+    private byte[] steps;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "saga_instance")
+@Table(name = "saga_instance", indexes = {
+        @Index(name = "idx_saga_instance_status_created_at", columnList = "status, created_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -34,6 +36,19 @@ public class SagaInstance {
     @Column(name = "status", nullable = false)
     private SagaConstants.SagaStatus status;
 
+    /**
+     * Parallel step group the saga is currently waiting on, with the number of branch replies
+     * needed to join and the number received so far.
+     */
+    @Column(name = "join_group")
+    private String joinGroup;
+
+    @Column(name = "join_required")
+    private int joinRequired;
+
+    @Column(name = "join_completed")
+    private int joinCompleted;
+
     @OneToMany(mappedBy = "sagaInstance", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @OrderBy("createdAt ASC")
     private List<SagaStepInstance> stepInstances;
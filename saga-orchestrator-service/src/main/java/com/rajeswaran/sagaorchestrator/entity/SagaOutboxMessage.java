@@ -0,0 +1,57 @@
+package com.rajeswaran.sagaorchestrator.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saga command waiting to be published to Kafka.
+ *
+ * Written in the same transaction as the step record that starts the command and removed
+ * by the outbox relay once the command has been handed to the binder. The command is held
+ * in the wire format it is sent in: {@code payloadData} for the saga binary encoding,
+ * {@code payload} for JSON.
+ */
+@Entity
+@Table(name = "saga_outbox", indexes = {
+        @Index(name = "idx_saga_outbox_saga_id", columnList = "saga_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "saga_id", nullable = false)
+    private Long sagaId;
+
+    @Column(name = "binding_name", nullable = false)
+    private String bindingName;
+
+    @Lob
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Lob
+    @Column(name = "payload_data", columnDefinition = "MEDIUMBLOB")
+    private byte[] payloadData;
+
+    @Column(name = "partition_key", length = 64)
+    private String partitionKey;
+
+    @Column(name = "correlation_id", length = 128)
+    private String correlationId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -13,7 +13,10 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "saga_step_instance")
+@Table(name = "saga_step_instance", indexes = {
+        @Index(name = "idx_saga_step_instance_saga_step_created_at", columnList = "saga_instance_id, step_name, created_at"),
+        @Index(name = "idx_saga_step_instance_status_deadline", columnList = "status, deadline")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -36,10 +39,34 @@ public class SagaStepInstance {
     @Column(name = "status", nullable = false)
     private SagaConstants.SagaStepStatus status;
 
+    /**
+     * How the step payload is stored, see {@link com.rajeswaran.sagaorchestrator.service.SagaStepPayloadCodec};
+     * null for records holding JSON or text written before payload formats were introduced.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payload_format", length = 16)
+    private SagaConstants.StepPayloadFormat payloadFormat;
+
+    /**
+     * JSON text or Kafka offset of the payload, depending on its format.
+     */
     @Lob
     @Column(name = "payload", columnDefinition = "TEXT")
     private String payload;
 
+    /**
+     * Compressed binary payload.
+     */
+    @Lob
+    @Column(name = "payload_data", columnDefinition = "MEDIUMBLOB")
+    private byte[] payloadData;
+
+    /**
+     * Time by which a reply is expected for a STARTED step; cleared once the step completes or fails.
+     */
+    @Column(name = "deadline")
+    private LocalDateTime deadline;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
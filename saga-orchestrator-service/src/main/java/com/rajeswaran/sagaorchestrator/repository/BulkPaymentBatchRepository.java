@@ -0,0 +1,31 @@
+package com.rajeswaran.sagaorchestrator.repository;
+
+import com.rajeswaran.sagaorchestrator.dto.BulkPaymentBatchProgress;
+import com.rajeswaran.sagaorchestrator.entity.BulkPaymentBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BulkPaymentBatchRepository extends JpaRepository<BulkPaymentBatch, Long> {
+
+    Optional<BulkPaymentBatch> findBySagaId(Long sagaId);
+
+    @Modifying
+    @Query("UPDATE BulkPaymentBatch b SET b.processedCount = b.processedCount + :processed, b.failedCount = b.failedCount + :failed WHERE b.sagaId = :sagaId")
+    int addProgress(@Param("sagaId") Long sagaId, @Param("processed") int processed, @Param("failed") int failed);
+
+    /**
+     * Progress of every batch of a bulk payment upload, with the status of the batch's saga if it was started.
+     */
+    @Query("SELECT new com.rajeswaran.sagaorchestrator.dto.BulkPaymentBatchProgress("
+            + "b.sagaId, b.sourceAccountNumber, b.paymentCount, b.processedCount, b.failedCount, s.status, "
+            + "COALESCE(s.updatedAt, b.createdAt), b.failureReason) "
+            + "FROM BulkPaymentBatch b LEFT JOIN SagaInstance s ON s.id = b.sagaId WHERE b.bulkId = :bulkId ORDER BY b.id")
+    List<BulkPaymentBatchProgress> findProgressByBulkId(@Param("bulkId") String bulkId);
+}
@@ -0,0 +1,9 @@
+package com.rajeswaran.sagaorchestrator.repository;
+
+import com.rajeswaran.sagaorchestrator.entity.BulkPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BulkPaymentRepository extends JpaRepository<BulkPayment, String> {
+}
@@ -0,0 +1,21 @@
+package com.rajeswaran.sagaorchestrator.repository;
+
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary;
+import com.rajeswaran.sagaorchestrator.entity.SagaArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SagaArchiveRepository extends JpaRepository<SagaArchive, Long> {
+
+    /**
+     * Looks up an archived saga without reading its compressed steps.
+     */
+    @Query("SELECT new com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary(a.id, a.sagaName, a.status, a.currentStep, a.createdAt, a.updatedAt) "
+            + "FROM SagaArchive a WHERE a.id = :sagaId")
+    Optional<SagaInstanceSummary> findSummary(@Param("sagaId") Long sagaId);
+}
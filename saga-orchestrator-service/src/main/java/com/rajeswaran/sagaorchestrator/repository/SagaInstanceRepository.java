@@ -1,14 +1,90 @@
 package com.rajeswaran.sagaorchestrator.repository;
 
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary;
 import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface SagaInstanceRepository extends JpaRepository<SagaInstance, Long> {
-    @Query("SELECT DISTINCT s FROM SagaInstance s LEFT JOIN FETCH s.stepInstances ORDER BY s.createdAt DESC")
-    List<SagaInstance> findAllWithStepInstances();
+public interface SagaInstanceRepository extends JpaRepository<SagaInstance, Long>, SagaInstanceRepositoryCustom {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NdjsonStreamWriter.FETCH_SIZE))
+    @Query("SELECT new com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary(s.id, s.sagaName, s.status, s.currentStep, s.createdAt, s.updatedAt) "
+            + "FROM SagaInstance s ORDER BY s.id")
+    Stream<SagaInstanceSummary> streamAllSummaries();
+
+    /**
+     * Updates the saga status in a single statement without loading the entity first.
+     */
+    @Modifying
+    @Query("UPDATE SagaInstance s SET s.status = :status, s.updatedAt = :updatedAt WHERE s.id = :sagaId")
+    int updateStatus(@Param("sagaId") Long sagaId,
+                     @Param("status") SagaConstants.SagaStatus status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Starts waiting on a parallel step group, resetting the join counter.
+     */
+    @Modifying
+    @Query("UPDATE SagaInstance s SET s.joinGroup = :joinGroup, s.joinRequired = :joinRequired, s.joinCompleted = 0, "
+            + "s.updatedAt = :updatedAt WHERE s.id = :sagaId")
+    int startJoin(@Param("sagaId") Long sagaId,
+                  @Param("joinGroup") String joinGroup,
+                  @Param("joinRequired") int joinRequired,
+                  @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Counts a branch reply for the given group. Returns 0 if the saga is no longer in progress, waits on
+     * another group or has already joined. The row stays locked until the transaction ends, so concurrent
+     * replies are counted one after the other.
+     */
+    @Modifying
+    @Query("UPDATE SagaInstance s SET s.joinCompleted = s.joinCompleted + 1, s.updatedAt = :updatedAt "
+            + "WHERE s.id = :sagaId AND s.joinGroup = :joinGroup AND s.status = :status AND s.joinCompleted < s.joinRequired")
+    int incrementJoin(@Param("sagaId") Long sagaId,
+                      @Param("joinGroup") String joinGroup,
+                      @Param("status") SagaConstants.SagaStatus status,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("SELECT CASE WHEN s.joinCompleted >= s.joinRequired THEN true ELSE false END FROM SagaInstance s WHERE s.id = :sagaId")
+    boolean isJoinComplete(@Param("sagaId") Long sagaId);
+
+    /**
+     * Locks the oldest sagas in the given statuses created before the cutoff, skipping rows already locked
+     * by another archiver (lock timeout -2 is rendered as SKIP LOCKED). Served by the (status, created_at) index.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT s FROM SagaInstance s WHERE s.status IN :statuses AND s.createdAt < :cutoff ORDER BY s.createdAt")
+    List<SagaInstance> findArchivable(@Param("statuses") Collection<SagaConstants.SagaStatus> statuses,
+                                      @Param("cutoff") LocalDateTime cutoff,
+                                      Limit limit);
+
+    /**
+     * Returns the next IDs of sagas in the given status after the given ID. Only reads the (status, created_at)
+     * index, which holds the primary key, and not the saga rows.
+     */
+    @Query("SELECT s.id FROM SagaInstance s WHERE s.status = :status AND s.id > :afterId ORDER BY s.id")
+    List<Long> findIdsByStatus(@Param("status") SagaConstants.SagaStatus status,
+                               @Param("afterId") Long afterId,
+                               Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM SagaInstance s WHERE s.id IN :sagaIds")
+    int deleteAllBySagaIds(@Param("sagaIds") Collection<Long> sagaIds);
 }
@@ -0,0 +1,21 @@
+package com.rajeswaran.sagaorchestrator.repository;
+
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceFilter;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary;
+
+import java.util.List;
+
+/**
+ * Saga instance queries with optional filters that cannot be expressed as a single derived query.
+ */
+public interface SagaInstanceRepositoryCustom {
+
+    /**
+     * Find saga summaries matching the filter, newest first, continuing after the given saga.
+     *
+     * @param filter optional status, saga name and creation time window
+     * @param afterId the last saga ID of the previous page, or null for the first page
+     * @param limit the maximum number of rows
+     */
+    List<SagaInstanceSummary> findSummaries(SagaInstanceFilter filter, Long afterId, int limit);
+}
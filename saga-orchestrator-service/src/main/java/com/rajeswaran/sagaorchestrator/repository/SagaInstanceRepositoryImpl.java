@@ -0,0 +1,56 @@
+package com.rajeswaran.sagaorchestrator.repository;
+
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceFilter;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the saga listing query from the filters that are actually set, so MySQL can use the
+ * (status, created_at) index instead of evaluating "param IS NULL OR ..." predicates.
+ * Rows are ordered by (created_at, id) descending and paged by keyset on that pair.
+ */
+public class SagaInstanceRepositoryImpl implements SagaInstanceRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SagaInstanceSummary> findSummaries(SagaInstanceFilter filter, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT new com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary(")
+                .append("s.id, s.sagaName, s.status, s.currentStep, s.createdAt, s.updatedAt) FROM SagaInstance s WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (filter.status() != null) {
+            jpql.append(" AND s.status = :status");
+            params.put("status", filter.status());
+        }
+        if (filter.sagaName() != null) {
+            jpql.append(" AND s.sagaName = :sagaName");
+            params.put("sagaName", filter.sagaName());
+        }
+        if (filter.createdFrom() != null) {
+            jpql.append(" AND s.createdAt >= :createdFrom");
+            params.put("createdFrom", filter.createdFrom());
+        }
+        if (filter.createdTo() != null) {
+            jpql.append(" AND s.createdAt < :createdTo");
+            params.put("createdTo", filter.createdTo());
+        }
+        if (afterId != null) {
+            jpql.append(" AND (s.createdAt < (SELECT c.createdAt FROM SagaInstance c WHERE c.id = :afterId)")
+                    .append(" OR (s.createdAt = (SELECT c.createdAt FROM SagaInstance c WHERE c.id = :afterId) AND s.id < :afterId))");
+            params.put("afterId", afterId);
+        }
+        jpql.append(" ORDER BY s.createdAt DESC, s.id DESC");
+
+        TypedQuery<SagaInstanceSummary> query = entityManager.createQuery(jpql.toString(), SagaInstanceSummary.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,45 @@
+package com.rajeswaran.sagaorchestrator.repository;
+
+import com.rajeswaran.sagaorchestrator.entity.SagaOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public interface SagaOutboxMessageRepository extends JpaRepository<SagaOutboxMessage, Long> {
+
+    /**
+     * Locks the oldest pending message of each saga, skipping rows already locked by another relay.
+     *
+     * Only the outbox rows are locked ({@code FOR UPDATE OF m}); the subquery is a plain read, so a saga whose
+     * oldest message is locked by another relay is skipped as a whole instead of handing its next message
+     * to this relay. Later messages of a saga are picked up once the earlier ones have been deleted, which
+     * keeps per-saga order with several relays. MIN(id) per saga is read from the saga_id index.
+     */
+    @Query(value = "SELECT m.* FROM saga_outbox m "
+            + "WHERE m.id = (SELECT MIN(o.id) FROM saga_outbox o WHERE o.saga_id = m.saga_id) "
+            + "ORDER BY m.id LIMIT :limit FOR UPDATE OF m SKIP LOCKED", nativeQuery = true)
+    List<SagaOutboxMessage> findNextBatch(@Param("limit") int limit);
+
+    /**
+     * Locks the pending messages of sagas whose oldest message this relay has locked, oldest first.
+     *
+     * No other relay can hold messages of these sagas, as it would need their oldest message first, so
+     * the rows are locked without SKIP LOCKED. The limit cuts the batch by ID, which leaves every saga
+     * with an unbroken run of its oldest messages.
+     */
+    @Query(value = "SELECT m.* FROM saga_outbox m WHERE m.saga_id IN (:sagaIds) "
+            + "ORDER BY m.id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<SagaOutboxMessage> findPendingForSagas(@Param("sagaIds") Collection<Long> sagaIds, @Param("limit") int limit);
+
+    /**
+     * Returns which of the given sagas still have commands waiting to be relayed.
+     */
+    @Query("SELECT DISTINCT m.sagaId FROM SagaOutboxMessage m WHERE m.sagaId IN :sagaIds")
+    Set<Long> findSagaIdsWithPendingMessages(@Param("sagaIds") Collection<Long> sagaIds);
+}
@@ -1,18 +1,103 @@
 package com.rajeswaran.sagaorchestrator.repository;
 
 import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import com.rajeswaran.sagaorchestrator.dto.SagaStepSummary;
 import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
 import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SagaStepInstanceRepository extends JpaRepository<SagaStepInstance, Long> {
     Optional<SagaStepInstance> findFirstBySagaInstanceAndStepNameAndStatusOrderByCreatedAtDesc(
             SagaInstance sagaInstance, String stepName, SagaConstants.SagaStepStatus status);
-    
-    Optional<SagaStepInstance> findFirstBySagaInstanceAndStepNameOrderByCreatedAtDesc(
-            SagaInstance sagaInstance, String stepName);
+
+    /**
+     * Returns the most recent step record for the given saga and step name.
+     * Used only when the step is not already held in the saga state cache.
+     */
+    Optional<SagaStepInstance> findFirstBySagaInstanceIdAndStepNameOrderByIdDesc(Long sagaId, String stepName);
+
+    /**
+     * Updates a step record in a single statement without loading the entity first.
+     */
+    @Modifying
+    @Query("UPDATE SagaStepInstance s SET s.status = :status, s.payloadFormat = :payloadFormat, s.payload = :payload, "
+            + "s.payloadData = :payloadData, s.deadline = NULL, s.updatedAt = :updatedAt WHERE s.id = :stepId")
+    int updateStatus(@Param("stepId") Long stepId,
+                     @Param("status") SagaConstants.SagaStepStatus status,
+                     @Param("payloadFormat") SagaConstants.StepPayloadFormat payloadFormat,
+                     @Param("payload") String payload,
+                     @Param("payloadData") byte[] payloadData,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Returns steps in the given status whose deadline has passed, oldest deadline first.
+     * Served by the (status, deadline) index, so only overdue steps are read.
+     */
+    @Query("SELECT s FROM SagaStepInstance s JOIN FETCH s.sagaInstance "
+            + "WHERE s.status = :status AND s.deadline < :now ORDER BY s.deadline")
+    List<SagaStepInstance> findExpired(@Param("status") SagaConstants.SagaStepStatus status,
+                                       @Param("now") LocalDateTime now,
+                                       Limit limit);
+
+    /**
+     * Returns the steps of the given sagas in the given status whose deadline has passed.
+     */
+    @Query("SELECT s FROM SagaStepInstance s JOIN FETCH s.sagaInstance "
+            + "WHERE s.sagaInstance.id IN :sagaIds AND s.status = :status AND s.deadline < :now ORDER BY s.id")
+    List<SagaStepInstance> findExpiredBySagaIds(@Param("sagaIds") Collection<Long> sagaIds,
+                                                @Param("status") SagaConstants.SagaStepStatus status,
+                                                @Param("now") LocalDateTime now);
+
+    /**
+     * Moves a step from one status to another, keeping its payload. Returns 0 if the step is no
+     * longer in the expected status or its deadline was pushed out, e.g. because its reply arrived
+     * or another orchestrator instance timed it out or resent it first.
+     */
+    @Modifying
+    @Query("UPDATE SagaStepInstance s SET s.status = :status, s.deadline = NULL, s.updatedAt = :updatedAt "
+            + "WHERE s.id = :stepId AND s.status = :expectedStatus AND s.deadline = :currentDeadline")
+    int updateStatusIfCurrent(@Param("stepId") Long stepId,
+                              @Param("expectedStatus") SagaConstants.SagaStepStatus expectedStatus,
+                              @Param("currentDeadline") LocalDateTime currentDeadline,
+                              @Param("status") SagaConstants.SagaStepStatus status,
+                              @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Pushes out the deadline of a step still in the expected status. Returns 0 if the step has moved on
+     * or another orchestrator instance pushed it out first.
+     */
+    @Modifying
+    @Query("UPDATE SagaStepInstance s SET s.deadline = :deadline, s.updatedAt = :updatedAt "
+            + "WHERE s.id = :stepId AND s.status = :expectedStatus AND s.deadline = :currentDeadline")
+    int updateDeadlineIfCurrent(@Param("stepId") Long stepId,
+                                @Param("expectedStatus") SagaConstants.SagaStepStatus expectedStatus,
+                                @Param("currentDeadline") LocalDateTime currentDeadline,
+                                @Param("deadline") LocalDateTime deadline,
+                                @Param("updatedAt") LocalDateTime updatedAt);
+
+    long countBySagaInstanceIdAndStepName(Long sagaId, String stepName);
+
+    @Query("SELECT new com.rajeswaran.sagaorchestrator.dto.SagaStepSummary(s.id, s.stepName, s.status, s.createdAt, s.updatedAt) "
+            + "FROM SagaStepInstance s WHERE s.sagaInstance.id = :sagaId ORDER BY s.createdAt, s.id")
+    List<SagaStepSummary> findSummariesBySagaInstanceId(@Param("sagaId") Long sagaId);
+
+    Optional<SagaStepInstance> findByIdAndSagaInstanceId(Long stepId, Long sagaId);
+
+    @Query("SELECT s FROM SagaStepInstance s JOIN FETCH s.sagaInstance WHERE s.sagaInstance.id IN :sagaIds ORDER BY s.id")
+    List<SagaStepInstance> findAllBySagaIds(@Param("sagaIds") Collection<Long> sagaIds);
+
+    @Modifying
+    @Query("DELETE FROM SagaStepInstance s WHERE s.sagaInstance.id IN :sagaIds")
+    int deleteAllBySagaIds(@Param("sagaIds") Collection<Long> sagaIds);
 }
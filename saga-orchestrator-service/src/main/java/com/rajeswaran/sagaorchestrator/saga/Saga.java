@@ -2,17 +2,29 @@ package com.rajeswaran.sagaorchestrator.saga;
 
 import com.rajeswaran.common.saga.notification.commands.SendNotificationCommand;
 import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import com.rajeswaran.sagaorchestrator.saga.engine.SagaDefinition;
+import com.rajeswaran.sagaorchestrator.saga.engine.SagaParallelGroup;
+import com.rajeswaran.sagaorchestrator.saga.engine.SagaStepDefinition;
 import com.rajeswaran.sagaorchestrator.saga.payment.PaymentProcessingSteps;
+import com.rajeswaran.sagaorchestrator.service.MessageOffset;
+import com.rajeswaran.sagaorchestrator.service.SagaOutbox;
 import com.rajeswaran.sagaorchestrator.service.SagaStateManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Abstract base class defining the core saga lifecycle operations.
  * 
  * This abstract class provides common fields and default implementations for saga operations
- * and delegates to the SagaStateManager for state management.
+ * and delegates to the SagaStateManager for state management. Events are routed to a saga by the
+ * SagaEventDispatcher according to its {@link #defineSaga() definition}.
  * 
  * @author Rajeswaran
  * @since 1.0.0
@@ -22,7 +34,10 @@ import org.springframework.cloud.stream.function.StreamBridge;
 public abstract class Saga {
     
     protected final SagaStateManager sagaStateManager;
-    protected final StreamBridge streamBridge;
+    protected final SagaOutbox sagaOutbox;
+    protected final TransactionTemplate transactionTemplate;
+
+    private final Supplier<SagaDefinition> definition = SingletonSupplier.of(this::defineSaga);
     
     /**
      * Get the name of this saga type.
@@ -47,6 +62,23 @@ public abstract class Saga {
      * @param sagaId the saga ID
      */
     public abstract void completeSagaFlow(Long sagaId);
+
+    /**
+     * Describe the steps of this saga, the events that answer them and their compensations.
+     * Called once; the definition is compiled into the transition table used to dispatch events.
+     * 
+     * @return the saga definition
+     */
+    protected abstract SagaDefinition defineSaga();
+
+    /**
+     * Get the definition of this saga, built on first use.
+     * 
+     * @return the saga definition
+     */
+    public SagaDefinition getDefinition() {
+        return definition.get();
+    }
     
     /**
      * Start a new saga instance.
@@ -107,7 +139,19 @@ public abstract class Saga {
      * @param payload the step payload
      */
     public void completeStep(Long sagaId, String stepName, Object payload) {
-        sagaStateManager.completeStep(sagaId, stepName, payload);
+        completeStep(sagaId, stepName, payload, null);
+    }
+
+    /**
+     * Complete a saga step with the reply read from Kafka.
+     * 
+     * @param sagaId the saga ID
+     * @param stepName the step name
+     * @param payload the reply event
+     * @param offset where the reply was read from, or null
+     */
+    public void completeStep(Long sagaId, String stepName, Object payload, MessageOffset offset) {
+        sagaStateManager.completeStep(sagaId, stepName, payload, offset);
     }
     
     /**
@@ -118,7 +162,97 @@ public abstract class Saga {
      * @param errorMessage the error message or payload
      */
     public void failStep(Long sagaId, String stepName, Object errorMessage) {
-        sagaStateManager.failStep(sagaId, stepName, errorMessage);
+        failStep(sagaId, stepName, errorMessage, null);
+    }
+
+    /**
+     * Fail a saga step with the failure event read from Kafka.
+     * 
+     * @param sagaId the saga ID
+     * @param stepName the step name
+     * @param errorMessage the failure event
+     * @param offset where the event was read from, or null
+     */
+    public void failStep(Long sagaId, String stepName, Object errorMessage, MessageOffset offset) {
+        sagaStateManager.failStep(sagaId, stepName, errorMessage, offset);
+    }
+
+    /**
+     * Record a step as STARTED and store its command in the outbox in one transaction.
+     * The command is published to the output binding declared for the step in the saga definition.
+     * 
+     * @param sagaId the saga ID
+     * @param stepName the step being started
+     * @param command the command to publish
+     */
+    protected void startStepAndSend(Long sagaId, String stepName, Object command) {
+        String bindingName = getDefinition().getStep(stepName).bindingName();
+        transactionTemplate.executeWithoutResult(status -> {
+            sagaOutbox.send(sagaId, bindingName, command);
+            startStep(sagaId, stepName, command);
+        });
+    }
+
+    /**
+     * Start all steps of a parallel group and store their commands in the outbox in one transaction.
+     * The saga waits on the group until its quorum of steps has completed, then the group's join
+     * handler runs.
+     * 
+     * @param sagaId the saga ID
+     * @param groupName the parallel group declared in the saga definition
+     * @param commandsByStep the command to publish for each step of the group
+     */
+    protected void startParallelSteps(Long sagaId, String groupName, Map<String, Object> commandsByStep) {
+        SagaParallelGroup group = getDefinition().getParallelGroup(groupName);
+        if (!commandsByStep.keySet().equals(Set.copyOf(group.stepNames()))) {
+            throw new IllegalArgumentException("Parallel group " + groupName + " expects commands for steps " + group.stepNames()
+                + ", got " + commandsByStep.keySet());
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            sagaStateManager.startJoin(sagaId, groupName, group.quorum());
+            commandsByStep.forEach((stepName, command) -> startStepAndSend(sagaId, stepName, command));
+        });
+    }
+
+    /**
+     * Start a timed-out step again by resending the command it stored.
+     * 
+     * @param sagaId the saga ID
+     * @param step the timed-out step
+     */
+    public void retryStep(Long sagaId, SagaStepInstance step) {
+        log.info("Retrying step '{}' for saga {}", step.getStepName(), sagaId);
+        Class<?> commandType = getDefinition().getStep(step.getStepName()).commandType();
+        startStepAndSend(sagaId, step.getStepName(), readCommand(step, commandType));
+    }
+
+    /**
+     * Publish the command of a STARTED step again without recording a new attempt, e.g. after a restart.
+     * The command keeps its ID, and the step's deadline is pushed out first, so an orchestrator instance
+     * that finds the step already pushed out by another one does not send it twice.
+     * 
+     * @param sagaId the saga ID
+     * @param step the STARTED step
+     * @return false if the step was no longer STARTED or was resent by another instance
+     */
+    public boolean resendStep(Long sagaId, SagaStepInstance step) {
+        SagaStepDefinition stepDefinition = getDefinition().getStep(step.getStepName());
+        Object command = readCommand(step, stepDefinition.commandType());
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!sagaStateManager.restartStep(step)) {
+                return false;
+            }
+            sagaOutbox.send(sagaId, stepDefinition.bindingName(), command);
+            return true;
+        }));
+    }
+
+    /**
+     * Read the command a step sent from its stored payload.
+     */
+    protected <T> T readCommand(SagaStepInstance step, Class<T> commandType) {
+        return sagaStateManager.readStepCommand(step, commandType);
     }
 
     protected void triggerSendNotificationCommand(Long sagaId, String userName, String subject, String message) {
@@ -132,11 +266,11 @@ public abstract class Saga {
                 message
         );
 
-        // Record step as STARTED before publishing command
-        startStep(sagaId, PaymentProcessingSteps.SEND_NOTIFICATION.getStepName(), command);
-
-        streamBridge.send("sendNotificationCommand-out-0", command);
-
-        completeStep(sagaId, PaymentProcessingSteps.SEND_NOTIFICATION.getStepName(), command);
+        // Notifications are fire-and-forget, so the step is started and completed together with the outbox write
+        transactionTemplate.executeWithoutResult(status -> {
+            startStep(sagaId, PaymentProcessingSteps.SEND_NOTIFICATION.getStepName(), command);
+            sagaOutbox.send(sagaId, "sendNotificationCommand-out-0", command);
+            completeStep(sagaId, PaymentProcessingSteps.SEND_NOTIFICATION.getStepName(), command);
+        });
     }
 }
@@ -0,0 +1,200 @@
+package com.rajeswaran.sagaorchestrator.saga.bulkpayment;
+
+import com.rajeswaran.common.saga.payment.commands.ProcessPaymentBatchCommand;
+import com.rajeswaran.common.saga.payment.commands.RecordTransactionBatchCommand;
+import com.rajeswaran.common.saga.payment.commands.UpdatePaymentBatchStatusCommand;
+import com.rajeswaran.common.saga.payment.commands.ValidatePaymentBatchCommand;
+import com.rajeswaran.common.saga.payment.events.*;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.payment.payload.PaymentSettlement;
+import com.rajeswaran.common.saga.payment.payload.PaymentStatusChange;
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import com.rajeswaran.sagaorchestrator.entity.BulkPaymentBatch;
+import com.rajeswaran.sagaorchestrator.repository.BulkPaymentBatchRepository;
+import com.rajeswaran.sagaorchestrator.saga.Saga;
+import com.rajeswaran.sagaorchestrator.saga.engine.SagaDefinition;
+import com.rajeswaran.sagaorchestrator.service.SagaOutbox;
+import com.rajeswaran.sagaorchestrator.service.SagaStateManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Self-orchestrating Bulk Payment Saga: processes a chunk of a bulk payment upload whose payments
+ * share one source account, with one command per step for the whole chunk.
+ *
+ * Happy Path Flow:
+ * 1. Produces ValidatePaymentBatchCommand → Listens for PaymentBatchValidatedEvent/PaymentBatchValidationFailedEvent
+ * 2. Produces ProcessPaymentBatchCommand → Listens for PaymentBatchProcessedEvent/PaymentBatchFailedEvent
+ * 3. In parallel, once the money has moved:
+ *    - Produces RecordTransactionBatchCommand → Listens for TransactionBatchRecordedEvent/TransactionBatchFailedEvent
+ *    - Produces UpdatePaymentBatchStatusCommand → Listens for PaymentBatchStatusUpdatedEvent
+ * 4. Sends a summary notification and completes saga when both have been recorded
+ *
+ * Payments rejected by validation or that cannot be transferred (e.g. unknown destination, insufficient
+ * balance) fail on their own and are counted in the batch progress; the batch continues with the rest.
+ *
+ * Failure Flows:
+ * - If no payment passes validation → Fails saga
+ * - If no payment can be transferred → Updates all payment statuses to FAILED → Sends failure notification → Fails saga
+ * - If transaction recording fails or times out → Fails saga
+ *
+ * Timeouts:
+ * - Batch processing is idempotent in the account-service and status updates have no side effects when
+ *   repeated, so both are retried
+ * - Validation and transaction recording would register payments or transactions twice, so they fail the saga
+ */
+@Component
+@Slf4j
+public class BulkPaymentSaga extends Saga {
+
+    /**
+     * Steps that run in parallel once the batch has been processed.
+     */
+    private static final String BATCH_COMPLETION = "batch-completion";
+
+    private final BulkPaymentBatchRepository bulkPaymentBatchRepository;
+
+    public BulkPaymentSaga(SagaStateManager sagaStateManager, SagaOutbox sagaOutbox, TransactionTemplate transactionTemplate,
+                           BulkPaymentBatchRepository bulkPaymentBatchRepository) {
+        super(sagaStateManager, sagaOutbox, transactionTemplate);
+        this.bulkPaymentBatchRepository = bulkPaymentBatchRepository;
+    }
+
+    @Override
+    public String getSagaName() {
+        return SagaConstants.BULK_PAYMENT_SAGA;
+    }
+
+    @Override
+    protected SagaDefinition defineSaga() {
+        return SagaDefinition.builder(getSagaName())
+            .step(BulkPaymentSteps.VALIDATE_BATCH.getStepName())
+                .command("validatePaymentBatchCommand-out-0", ValidatePaymentBatchCommand.class)
+                .onSuccess(PaymentBatchValidatedEvent.class, this::onBatchValidated)
+                .onFailure(PaymentBatchValidationFailedEvent.class, this::onBatchValidationFailed)
+            .step(BulkPaymentSteps.PROCESS_BATCH.getStepName())
+                .command("processPaymentBatchCommand-out-0", ProcessPaymentBatchCommand.class)
+                .onSuccess(PaymentBatchProcessedEvent.class, this::onBatchProcessed)
+                .onFailure(PaymentBatchFailedEvent.class, this::onBatchFailed)
+                .retryOnTimeout()
+            .step(BulkPaymentSteps.RECORD_BATCH_TRANSACTIONS.getStepName())
+                .inParallelGroup(BATCH_COMPLETION)
+                .command("recordTransactionBatchCommand-out-0", RecordTransactionBatchCommand.class)
+                .onSuccess(TransactionBatchRecordedEvent.class)
+                .onFailure(TransactionBatchFailedEvent.class, this::onTransactionBatchFailed)
+            .step(BulkPaymentSteps.UPDATE_BATCH_STATUS.getStepName())
+                .inParallelGroup(BATCH_COMPLETION)
+                .command("updatePaymentBatchStatusCommand-out-0", UpdatePaymentBatchStatusCommand.class)
+                .onSuccess(PaymentBatchStatusUpdatedEvent.class, this::onBatchStatusUpdated)
+                .retryOnTimeout()
+            .join(BATCH_COMPLETION, this::onBatchCompleted)
+            .build();
+    }
+
+    @Override
+    public void startSagaFlow(Long sagaId, Object payload) {
+        if (payload instanceof PaymentBatch batch) {
+            log.info("Starting bulk payment saga flow {} for {} payments from {} (bulk {})",
+                sagaId, batch.payments().size(), batch.sourceAccountNumber(), batch.bulkId());
+
+            // The progress row exists before any reply can arrive
+            transactionTemplate.executeWithoutResult(status -> {
+                bulkPaymentBatchRepository.save(BulkPaymentBatch.builder()
+                    .bulkId(batch.bulkId())
+                    .sagaId(sagaId)
+                    .sourceAccountNumber(batch.sourceAccountNumber())
+                    .createdBy(batch.createdBy())
+                    .paymentCount(batch.payments().size())
+                    .build());
+                startStepAndSend(sagaId, BulkPaymentSteps.VALIDATE_BATCH.getStepName(),
+                    ValidatePaymentBatchCommand.create(sagaId, batch.payments()));
+            });
+        } else {
+            throw new IllegalArgumentException("BulkPaymentSaga requires PaymentBatch as payload, got: " +
+                (payload != null ? payload.getClass().getSimpleName() : "null"));
+        }
+    }
+
+    @Override
+    public void completeSagaFlow(Long sagaId) {
+        log.info("Bulk payment saga {} completed successfully", sagaId);
+    }
+
+    // === EVENT HANDLERS (Run by the saga engine after the step has been completed or failed) ===
+
+    private void onBatchValidated(Long sagaId, PaymentBatchValidatedEvent event) {
+        bulkPaymentBatchRepository.addProgress(sagaId, 0, event.getRejectedPayments().size());
+
+        List<PaymentInstruction> payments = event.getPayments();
+        log.info("Triggering ProcessPaymentBatchCommand for saga {} with {} payments ({} rejected)",
+            sagaId, payments.size(), event.getRejectedPayments().size());
+        startStepAndSend(sagaId, BulkPaymentSteps.PROCESS_BATCH.getStepName(),
+            ProcessPaymentBatchCommand.create(sagaId, payments.get(0).sourceAccountNumber(), payments));
+    }
+
+    private void onBatchValidationFailed(Long sagaId, PaymentBatchValidationFailedEvent event) {
+        log.warn("Payment batch of saga {} failed validation: {}", sagaId, event.getReason());
+        bulkPaymentBatchRepository.addProgress(sagaId, 0, event.getPayments().size());
+        failSaga(sagaId);
+    }
+
+    private void onBatchProcessed(Long sagaId, PaymentBatchProcessedEvent event) {
+        List<PaymentSettlement> processed = event.getProcessedPayments();
+        List<PaymentInstruction> failed = event.getFailedPayments();
+        bulkPaymentBatchRepository.addProgress(sagaId, processed.size(), failed.size());
+        if (!failed.isEmpty()) {
+            log.warn("{} payments of saga {} could not be processed: {}", failed.size(), sagaId, event.getFailureReasons());
+        }
+
+        List<PaymentStatusChange> statusChanges = new ArrayList<>(processed.size() + failed.size());
+        processed.forEach(settlement -> statusChanges.add(PaymentStatusChange.completed(settlement)));
+        failed.forEach(payment -> statusChanges.add(PaymentStatusChange.failed(payment.paymentId())));
+
+        // Neither command depends on the other, so both are started together and joined in onBatchCompleted
+        startParallelSteps(sagaId, BATCH_COMPLETION, Map.of(
+            BulkPaymentSteps.RECORD_BATCH_TRANSACTIONS.getStepName(), RecordTransactionBatchCommand.create(sagaId, processed),
+            BulkPaymentSteps.UPDATE_BATCH_STATUS.getStepName(), UpdatePaymentBatchStatusCommand.create(sagaId, statusChanges)
+        ));
+    }
+
+    private void onBatchFailed(Long sagaId, PaymentBatchFailedEvent event) {
+        log.error("Payment batch of saga {} failed: {}", sagaId, event.getReason());
+        bulkPaymentBatchRepository.addProgress(sagaId, 0, event.getPayments().size());
+
+        // Update payment statuses to FAILED before failing the saga
+        List<PaymentStatusChange> statusChanges = event.getPayments().stream()
+            .map(payment -> PaymentStatusChange.failed(payment.paymentId()))
+            .toList();
+        startStepAndSend(sagaId, BulkPaymentSteps.UPDATE_BATCH_STATUS.getStepName(),
+            UpdatePaymentBatchStatusCommand.create(sagaId, statusChanges));
+    }
+
+    private void onTransactionBatchFailed(Long sagaId, TransactionBatchFailedEvent event) {
+        log.error("Transaction recording failed for saga {} ({} payments), reason: {}; the transaction history needs to be repaired",
+            sagaId, event.getPaymentCount(), event.getReason());
+        failSaga(sagaId);
+    }
+
+    private void onBatchStatusUpdated(Long sagaId, PaymentBatchStatusUpdatedEvent event) {
+        // With completed payments the update is a branch of the completion group and is handled by the join
+        if (event.getCompletedCount() == 0) {
+            bulkPaymentBatchRepository.findBySagaId(sagaId).ifPresent(batch -> triggerSendNotificationCommand(sagaId,
+                batch.getCreatedBy(), "Bulk Payment Batch Failed",
+                String.format("None of the %d payments from account %s could be processed.", batch.getPaymentCount(), batch.getSourceAccountNumber())));
+            failSaga(sagaId);
+        }
+    }
+
+    private void onBatchCompleted(Long sagaId) {
+        bulkPaymentBatchRepository.findBySagaId(sagaId).ifPresent(batch -> triggerSendNotificationCommand(sagaId,
+            batch.getCreatedBy(), "Bulk Payment Batch Processed",
+            String.format("%d of %d payments from account %s have been processed successfully, %d failed.",
+                batch.getProcessedCount(), batch.getPaymentCount(), batch.getSourceAccountNumber(), batch.getFailedCount())));
+        completeSaga(sagaId);
+    }
+}
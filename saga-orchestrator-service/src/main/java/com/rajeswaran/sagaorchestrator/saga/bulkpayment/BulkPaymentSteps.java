@@ -0,0 +1,33 @@
+package com.rajeswaran.sagaorchestrator.saga.bulkpayment;
+
+/**
+ * Enumeration of bulk payment saga steps.
+ *
+ * Defines the sequence of steps in the bulk payment saga flow:
+ * 1. VALIDATE_BATCH - Validate and register all payments of the batch
+ * 2. PROCESS_BATCH - Debit the source account and credit all destinations in one transaction
+ * 3. RECORD_BATCH_TRANSACTIONS and UPDATE_BATCH_STATUS - Run in parallel once the money has moved
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public enum BulkPaymentSteps {
+
+    VALIDATE_BATCH("validate-payment-batch"),
+
+    PROCESS_BATCH("process-payment-batch"),
+
+    RECORD_BATCH_TRANSACTIONS("record-batch-transactions"),
+
+    UPDATE_BATCH_STATUS("update-payment-batch-status");
+
+    private final String stepName;
+
+    BulkPaymentSteps(String stepName) {
+        this.stepName = stepName;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+}
@@ -0,0 +1,15 @@
+package com.rajeswaran.sagaorchestrator.saga.bulkpayment;
+
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+
+import java.util.List;
+
+/**
+ * Payload that starts a bulk payment saga: a chunk of a bulk payment upload whose payments all
+ * debit the same source account.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record PaymentBatch(String bulkId, String sourceAccountNumber, String createdBy, List<PaymentInstruction> payments) {
+}
@@ -0,0 +1,283 @@
+package com.rajeswaran.sagaorchestrator.saga.engine;
+
+import com.rajeswaran.common.saga.event.Event;
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarative description of a saga: its steps, the command each step sends, the success and failure
+ * events that answer it and the compensation to run when it times out.
+ *
+ * <pre>
+ * SagaDefinition.builder("payment-processing-saga")
+ *     .step("validate-payment")
+ *         .command("validatePaymentCommand-out-0", ValidatePaymentCommand.class)
+ *         .onSuccess(PaymentValidatedEvent.class, this::onPaymentValidated)
+ *         .onFailure(PaymentValidationFailedEvent.class)
+ *         .retryOnTimeout()
+ *     .step("process-payment")
+ *         ...
+ *     .step("record-transaction")
+ *         .inParallelGroup("payment-completion")
+ *         ...
+ *     .step("update-payment-status")
+ *         .inParallelGroup("payment-completion")
+ *         ...
+ *     .join("payment-completion", this::onPaymentCompleted)
+ *     .build();
+ * </pre>
+ *
+ * Steps in the same parallel group are started together with {@code Saga.startParallelSteps} and the
+ * group's join handler runs once all of them, or the given quorum, have completed.
+ *
+ * Definitions are compiled into the {@link SagaTransitionTable} at startup and are immutable.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public final class SagaDefinition {
+
+    private final String sagaName;
+    private final Map<String, SagaStepDefinition> steps;
+    private final List<SagaTransition<?>> transitions;
+    private final Map<String, SagaParallelGroup> parallelGroups;
+
+    private SagaDefinition(String sagaName,
+                           Map<String, SagaStepDefinition> steps,
+                           List<SagaTransition<?>> transitions,
+                           Map<String, SagaParallelGroup> parallelGroups) {
+        this.sagaName = sagaName;
+        this.steps = Map.copyOf(steps);
+        this.transitions = List.copyOf(transitions);
+        this.parallelGroups = Map.copyOf(parallelGroups);
+    }
+
+    public static Builder builder(String sagaName) {
+        return new Builder(sagaName);
+    }
+
+    public String getSagaName() {
+        return sagaName;
+    }
+
+    public Map<String, SagaStepDefinition> getSteps() {
+        return steps;
+    }
+
+    public List<SagaTransition<?>> getTransitions() {
+        return transitions;
+    }
+
+    public Map<String, SagaParallelGroup> getParallelGroups() {
+        return parallelGroups;
+    }
+
+    public SagaParallelGroup getParallelGroup(String groupName) {
+        SagaParallelGroup group = parallelGroups.get(groupName);
+        if (group == null) {
+            throw new IllegalArgumentException("Saga " + sagaName + " has no parallel group " + groupName);
+        }
+        return group;
+    }
+
+    public SagaStepDefinition getStep(String stepName) {
+        SagaStepDefinition step = steps.get(stepName);
+        if (step == null) {
+            throw new IllegalArgumentException("Saga " + sagaName + " has no step " + stepName);
+        }
+        return step;
+    }
+
+    public static final class Builder {
+
+        private final String sagaName;
+        private final Map<String, SagaStepDefinition> steps = new LinkedHashMap<>();
+        private final List<SagaTransition<?>> transitions = new ArrayList<>();
+        private final Map<String, JoinDefinition> joins = new LinkedHashMap<>();
+        private StepBuilder currentStep;
+
+        private Builder(String sagaName) {
+            this.sagaName = sagaName;
+        }
+
+        public StepBuilder step(String stepName) {
+            finishStep();
+            if (steps.containsKey(stepName)) {
+                throw new IllegalStateException("Step " + stepName + " is defined twice in saga " + sagaName);
+            }
+            currentStep = new StepBuilder(this, stepName);
+            return currentStep;
+        }
+
+        /**
+         * Runs the handler once every step of the parallel group has completed.
+         */
+        public Builder join(String groupName, SagaJoinHandler joinHandler) {
+            return join(groupName, 0, joinHandler);
+        }
+
+        /**
+         * Runs the handler once {@code quorum} steps of the parallel group have completed.
+         * Replies arriving after the join are recorded but do not run the handler again.
+         */
+        public Builder join(String groupName, int quorum, SagaJoinHandler joinHandler) {
+            finishStep();
+            if (joins.putIfAbsent(groupName, new JoinDefinition(quorum, joinHandler)) != null) {
+                throw new IllegalStateException("Parallel group " + groupName + " is joined twice in saga " + sagaName);
+            }
+            return this;
+        }
+
+        public SagaDefinition build() {
+            finishStep();
+            return new SagaDefinition(sagaName, steps, transitions, buildParallelGroups());
+        }
+
+        private Map<String, SagaParallelGroup> buildParallelGroups() {
+            Map<String, List<String>> branches = new LinkedHashMap<>();
+            steps.values().stream()
+                    .filter(step -> step.parallelGroup() != null)
+                    .forEach(step -> branches.computeIfAbsent(step.parallelGroup(), group -> new ArrayList<>()).add(step.stepName()));
+
+            Map<String, SagaParallelGroup> parallelGroups = new LinkedHashMap<>();
+            branches.forEach((groupName, stepNames) -> {
+                JoinDefinition join = joins.get(groupName);
+                if (join == null) {
+                    throw new IllegalStateException("Parallel group " + groupName + " of saga " + sagaName + " has no join");
+                }
+                int quorum = join.quorum() > 0 ? join.quorum() : stepNames.size();
+                if (quorum > stepNames.size()) {
+                    throw new IllegalStateException("Quorum " + quorum + " of parallel group " + groupName + " exceeds its " + stepNames.size() + " steps");
+                }
+                parallelGroups.put(groupName, new SagaParallelGroup(groupName, List.copyOf(stepNames), quorum, join.joinHandler()));
+            });
+            joins.keySet().stream()
+                    .filter(groupName -> !parallelGroups.containsKey(groupName))
+                    .findFirst()
+                    .ifPresent(groupName -> {
+                        throw new IllegalStateException("Join of saga " + sagaName + " refers to unknown parallel group " + groupName);
+                    });
+            return parallelGroups;
+        }
+
+        private void finishStep() {
+            if (currentStep != null) {
+                steps.put(currentStep.stepName, currentStep.toDefinition());
+                currentStep = null;
+            }
+        }
+    }
+
+    public static final class StepBuilder {
+
+        private final Builder builder;
+        private final String stepName;
+        private String bindingName;
+        private Class<?> commandType;
+        private boolean retryOnTimeout;
+        private SagaTimeoutHandler timeoutHandler;
+        private String parallelGroup;
+
+        private StepBuilder(Builder builder, String stepName) {
+            this.builder = builder;
+            this.stepName = stepName;
+        }
+
+        /**
+         * The command this step publishes and the output binding it is published to.
+         */
+        public StepBuilder command(String bindingName, Class<?> commandType) {
+            this.bindingName = bindingName;
+            this.commandType = commandType;
+            return this;
+        }
+
+        /**
+         * Makes the step a branch of the parallel group; completing it counts towards the group's join.
+         */
+        public StepBuilder inParallelGroup(String groupName) {
+            this.parallelGroup = groupName;
+            return this;
+        }
+
+        /**
+         * Completes the step when the event arrives, then runs the handler.
+         */
+        public <E extends Event> StepBuilder onSuccess(Class<E> eventType, SagaEventHandler<E> handler) {
+            return on(eventType, SagaConstants.SagaStepStatus.COMPLETED, handler);
+        }
+
+        /**
+         * Completes the step when the event arrives; for branches whose only follow-up is the join.
+         */
+        public <E extends Event> StepBuilder onSuccess(Class<E> eventType) {
+            return on(eventType, SagaConstants.SagaStepStatus.COMPLETED, null);
+        }
+
+        /**
+         * Fails the step when the event arrives, then runs the handler, typically a compensation.
+         */
+        public <E extends Event> StepBuilder onFailure(Class<E> eventType, SagaEventHandler<E> handler) {
+            return on(eventType, SagaConstants.SagaStepStatus.FAILED, handler);
+        }
+
+        /**
+         * Fails the step and the saga when the event arrives; for steps with nothing to compensate.
+         */
+        public <E extends Event> StepBuilder onFailure(Class<E> eventType) {
+            return on(eventType, SagaConstants.SagaStepStatus.FAILED, null);
+        }
+
+        /**
+         * Resends the step's command when it times out, until the configured attempts are used up.
+         * Only for commands that are safe to process twice.
+         */
+        public StepBuilder retryOnTimeout() {
+            this.retryOnTimeout = true;
+            return this;
+        }
+
+        /**
+         * Runs the handler when the step times out (and cannot be retried) instead of failing the saga.
+         */
+        public StepBuilder onTimeout(SagaTimeoutHandler timeoutHandler) {
+            this.timeoutHandler = timeoutHandler;
+            return this;
+        }
+
+        public StepBuilder step(String stepName) {
+            return builder.step(stepName);
+        }
+
+        public Builder join(String groupName, SagaJoinHandler joinHandler) {
+            return builder.join(groupName, joinHandler);
+        }
+
+        public Builder join(String groupName, int quorum, SagaJoinHandler joinHandler) {
+            return builder.join(groupName, quorum, joinHandler);
+        }
+
+        public SagaDefinition build() {
+            return builder.build();
+        }
+
+        private <E extends Event> StepBuilder on(Class<E> eventType, SagaConstants.SagaStepStatus stepStatus, SagaEventHandler<E> handler) {
+            builder.transitions.add(new SagaTransition<>(builder.sagaName, stepName, eventType, stepStatus, handler));
+            return this;
+        }
+
+        private SagaStepDefinition toDefinition() {
+            if (retryOnTimeout && bindingName == null) {
+                throw new IllegalStateException("Step " + stepName + " of saga " + builder.sagaName + " retries without a command");
+            }
+            return new SagaStepDefinition(stepName, bindingName, commandType, retryOnTimeout, timeoutHandler, parallelGroup);
+        }
+    }
+
+    private record JoinDefinition(int quorum, SagaJoinHandler joinHandler) {
+    }
+}
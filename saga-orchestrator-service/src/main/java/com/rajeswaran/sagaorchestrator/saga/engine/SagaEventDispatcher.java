@@ -0,0 +1,261 @@
+package com.rajeswaran.sagaorchestrator.saga.engine;
+
+import com.rajeswaran.common.messaging.SagaBinaryCodec;
+import com.rajeswaran.common.saga.event.Event;
+import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import com.rajeswaran.sagaorchestrator.saga.Saga;
+import com.rajeswaran.sagaorchestrator.service.MessageOffset;
+import com.rajeswaran.sagaorchestrator.service.SagaStateManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Single entry point for all saga events.
+ *
+ * The {@code sagaEvent} consumer subscribes to every event topic and receives the events of a poll together.
+ * Each message is mapped to its event type through the topics configured under {@code saga.event-topics}
+ * and looked up in the {@link SagaTransitionTable}: the step it answers is completed or failed, then the
+ * saga's handler starts the next step or a compensation. A failure event without a handler fails the saga.
+ * Completing a branch of a parallel group also counts towards the group's join, and the reply that reaches
+ * the quorum runs the join handler.
+ *
+ * All events of a poll are applied in one transaction, which commits before the poll's offsets, so their
+ * step updates can be written in one batch (see {@link com.rajeswaran.sagaorchestrator.service.SagaStepWriteBehind})
+ * and a crash before the commit leaves them to be redelivered. If any event fails, that transaction is rolled
+ * back and each event is applied in a transaction of its own; an event that fails again fails its saga.
+ * A reply for a step that is no longer STARTED, e.g. one redelivered because its offset was not committed
+ * before a restart, has already been handled and is ignored.
+ *
+ * Payloads are decoded according to their content type header, binary or JSON.
+ *
+ * New sagas need a {@link SagaDefinition} and a topic for each new event type; their events are picked up
+ * without new input bindings.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class SagaEventDispatcher {
+
+    private final Map<String, Saga> sagasByName;
+    private final SagaTransitionTable transitionTable;
+    private final SagaStateManager sagaStateManager;
+    private final SagaBinaryCodec sagaBinaryCodec;
+    private final TransactionTemplate transactionTemplate;
+
+    public SagaEventDispatcher(List<Saga> sagas,
+                               SagaStateManager sagaStateManager,
+                               SagaBinaryCodec sagaBinaryCodec,
+                               TransactionTemplate transactionTemplate,
+                               Environment environment) {
+        Map<String, String> eventTopics = Binder.get(environment)
+                .bind("saga.event-topics", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        this.sagasByName = sagas.stream().collect(Collectors.toMap(Saga::getSagaName, Function.identity()));
+        this.transitionTable = SagaTransitionTable.compile(sagas.stream().map(Saga::getDefinition).toList(), eventTopics);
+        this.sagaStateManager = sagaStateManager;
+        this.sagaBinaryCodec = sagaBinaryCodec;
+        this.transactionTemplate = transactionTemplate;
+        log.info("Compiled {} saga transitions for sagas {}", transitionTable.size(), sagasByName.keySet());
+    }
+
+    @Bean
+    public Consumer<List<Message<byte[]>>> sagaEvent() {
+        return messages -> {
+            List<PreparedEvent> events = new ArrayList<>(messages.size());
+            for (Message<byte[]> message : messages) {
+                String topic = message.getHeaders().get(KafkaHeaders.RECEIVED_TOPIC, String.class);
+                Class<? extends Event> eventType = transitionTable.getEventType(topic);
+                if (eventType == null) {
+                    log.debug("No saga handles events from topic {}, ignoring", topic);
+                    continue;
+                }
+
+                Event event;
+                try {
+                    event = sagaBinaryCodec.read(message.getPayload(), message.getHeaders().get(MessageHeaders.CONTENT_TYPE), eventType);
+                } catch (IOException e) {
+                    log.error("Discarding unreadable {} from topic {}: {}", eventType.getSimpleName(), topic, e.getMessage());
+                    continue;
+                }
+                PreparedEvent prepared = prepare(event, MessageOffset.of(message.getHeaders()));
+                if (prepared != null) {
+                    events.add(prepared);
+                }
+            }
+            dispatchAll(events);
+        };
+    }
+
+    public void dispatch(Event event) {
+        dispatch(event, null);
+    }
+
+    /**
+     * @param offset where the event was read from Kafka, kept as the step payload in KAFKA_OFFSET retention
+     */
+    public void dispatch(Event event, MessageOffset offset) {
+        PreparedEvent prepared = prepare(event, offset);
+        if (prepared != null) {
+            dispatchAlone(prepared);
+        }
+    }
+
+    /**
+     * Applies events in one transaction, falling back to one transaction per event if any of them fails.
+     */
+    void dispatchAll(List<PreparedEvent> events) {
+        if (events.size() <= 1) {
+            events.forEach(this::dispatchAlone);
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> events.forEach(this::apply));
+        } catch (Exception batchError) {
+            log.warn("Applying {} saga events together failed, applying them one by one: {}", events.size(), batchError.getMessage());
+            events.forEach(this::dispatchAlone);
+        }
+    }
+
+    private PreparedEvent prepare(Event event, MessageOffset offset) {
+        Long sagaId = event.getSagaId();
+        Class<? extends Event> eventType = event.getClass();
+
+        String sagaName = resolveSagaName(eventType, sagaId);
+        SagaTransition<?> transition = sagaName != null ? transitionTable.getTransition(sagaName, eventType) : null;
+        if (transition == null) {
+            log.warn("No transition for {} of saga {}, ignoring", eventType.getSimpleName(), sagaId);
+            return null;
+        }
+
+        log.info("Received {} for saga {} ({}, step '{}')", eventType.getSimpleName(), sagaId, sagaName, transition.stepName());
+        return new PreparedEvent(event, offset, sagasByName.get(sagaName), sagaName, transition);
+    }
+
+    private void dispatchAlone(PreparedEvent prepared) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(prepared));
+        } catch (Exception e) {
+            Long sagaId = prepared.event().getSagaId();
+            log.error("Error processing {} for saga {}: {}", prepared.event().getClass().getSimpleName(), sagaId, e.getMessage(), e);
+            prepared.saga().failSaga(sagaId);
+        }
+    }
+
+    private void apply(PreparedEvent prepared) {
+        Event event = prepared.event();
+        Long sagaId = event.getSagaId();
+        Saga saga = prepared.saga();
+        SagaTransition<?> transition = prepared.transition();
+
+        if (!sagaStateManager.isAwaitingReply(sagaId, transition.stepName())) {
+            log.info("Ignoring {} for saga {}: step '{}' is not waiting for a reply", event.getClass().getSimpleName(), sagaId, transition.stepName());
+            return;
+        }
+
+        if (transition.isFailure()) {
+            saga.failStep(sagaId, transition.stepName(), event, prepared.offset());
+        } else {
+            saga.completeStep(sagaId, transition.stepName(), event, prepared.offset());
+        }
+
+        if (transition.handler() != null) {
+            transition.handle(sagaId, event);
+        } else if (transition.isFailure()) {
+            saga.failSaga(sagaId);
+        }
+
+        if (!transition.isFailure()) {
+            joinIfComplete(prepared.sagaName(), sagaId, transition.stepName());
+        }
+    }
+
+    private String resolveSagaName(Class<? extends Event> eventType, Long sagaId) {
+        String sagaName = transitionTable.getOwningSagaName(eventType);
+        if (sagaName != null) {
+            return sagaName;
+        }
+        // Event type shared by several sagas
+        return sagaStateManager.getSagaInstance(sagaId).map(SagaInstance::getSagaName).orElse(null);
+    }
+
+    private void joinIfComplete(String sagaName, Long sagaId, String stepName) {
+        SagaStepDefinition stepDefinition = transitionTable.getStep(sagaName, stepName);
+        if (stepDefinition == null || stepDefinition.parallelGroup() == null) {
+            return;
+        }
+
+        SagaParallelGroup group = transitionTable.getParallelGroup(sagaName, stepDefinition.parallelGroup());
+        if (sagaStateManager.completeJoinBranch(sagaId, group.name())) {
+            log.info("Saga {} joined parallel group '{}'", sagaId, group.name());
+            group.joinHandler().handle(sagaId);
+        }
+    }
+
+    /**
+     * Resends the command of a step found STARTED on startup, if the step is safe to resend. Other steps are
+     * left to time out.
+     *
+     * @return true if the command was resent
+     */
+    public boolean dispatchRecovery(SagaStepInstance step) {
+        Long sagaId = step.getSagaInstance().getId();
+        String sagaName = step.getSagaInstance().getSagaName();
+        Saga saga = sagasByName.get(sagaName);
+        SagaStepDefinition stepDefinition = transitionTable.getStep(sagaName, step.getStepName());
+
+        if (saga == null || stepDefinition == null || !stepDefinition.retryOnTimeout()) {
+            return false;
+        }
+        return saga.resendStep(sagaId, step);
+    }
+
+    /**
+     * Handles a step that got no reply before its deadline and has already been marked as FAILED:
+     * resends its command while attempts are left and the step allows it, otherwise runs its
+     * timeout handler, or fails the saga if it has none.
+     */
+    public void dispatchTimeout(SagaStepInstance step, boolean retryAllowed) {
+        Long sagaId = step.getSagaInstance().getId();
+        String sagaName = step.getSagaInstance().getSagaName();
+        Saga saga = sagasByName.get(sagaName);
+        SagaStepDefinition stepDefinition = transitionTable.getStep(sagaName, step.getStepName());
+
+        if (saga == null || stepDefinition == null) {
+            log.error("No definition for step '{}' of saga {} ({}), failing saga", step.getStepName(), sagaId, sagaName);
+            sagaStateManager.failSaga(sagaId);
+        } else if (stepDefinition.retryOnTimeout() && retryAllowed) {
+            saga.retryStep(sagaId, step);
+        } else if (stepDefinition.timeoutHandler() != null) {
+            stepDefinition.timeoutHandler().handle(sagaId, step);
+        } else {
+            log.warn("Step '{}' of saga {} timed out, failing saga", step.getStepName(), sagaId);
+            saga.failSaga(sagaId);
+        }
+    }
+
+    /**
+     * An event with the saga and transition it was routed to.
+     */
+    record PreparedEvent(Event event, MessageOffset offset, Saga saga, String sagaName, SagaTransition<?> transition) {
+    }
+}
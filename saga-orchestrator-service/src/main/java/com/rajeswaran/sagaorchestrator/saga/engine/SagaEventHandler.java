@@ -0,0 +1,16 @@
+package com.rajeswaran.sagaorchestrator.saga.engine;
+
+import com.rajeswaran.common.saga.event.Event;
+
+/**
+ * Reaction of a saga to an event, run after the engine has completed or failed the step the event belongs to.
+ *
+ * @param <E> the event type
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface SagaEventHandler<E extends Event> {
+
+    void handle(Long sagaId, E event);
+}
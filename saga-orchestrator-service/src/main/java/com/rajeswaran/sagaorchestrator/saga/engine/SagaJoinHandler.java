@@ -0,0 +1,13 @@
+package com.rajeswaran.sagaorchestrator.saga.engine;
+
+/**
+ * Reaction of a saga once enough branches of a parallel step group have completed.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface SagaJoinHandler {
+
+    void handle(Long sagaId);
+}
@@ -0,0 +1,19 @@
+package com.rajeswaran.sagaorchestrator.saga.engine;
+
+import java.util.List;
+
+/**
+ * Steps that are started together and joined once {@code quorum} of them have completed.
+ *
+ * @param name the group name stored on the saga instance while it waits
+ * @param stepNames the branch steps
+ * @param quorum the number of completed branches needed to join
+ * @param joinHandler the saga's reaction to the join
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record SagaParallelGroup(String name,
+                                List<String> stepNames,
+                                int quorum,
+                                SagaJoinHandler joinHandler) {
+}
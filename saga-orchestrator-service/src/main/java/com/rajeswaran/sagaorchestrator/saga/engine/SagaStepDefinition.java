@@ -0,0 +1,21 @@
+package com.rajeswaran.sagaorchestrator.saga.engine;
+
+/**
+ * A saga step: the command it sends and what to do when no reply arrives in time.
+ *
+ * @param stepName the step name stored on the step record
+ * @param bindingName the output binding the step's command is published to
+ * @param commandType the command type, used to read the command back for retries
+ * @param retryOnTimeout whether the command is safe to resend after a timeout
+ * @param timeoutHandler the compensation to run on timeout, or null to fail the saga
+ * @param parallelGroup the parallel group the step is a branch of, or null
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record SagaStepDefinition(String stepName,
+                                 String bindingName,
+                                 Class<?> commandType,
+                                 boolean retryOnTimeout,
+                                 SagaTimeoutHandler timeoutHandler,
+                                 String parallelGroup) {
+}
@@ -0,0 +1,15 @@
+package com.rajeswaran.sagaorchestrator.saga.engine;
+
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+
+/**
+ * Reaction of a saga to a step that got no reply before its deadline, typically a compensation.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface SagaTimeoutHandler {
+
+    void handle(Long sagaId, SagaStepInstance step);
+}
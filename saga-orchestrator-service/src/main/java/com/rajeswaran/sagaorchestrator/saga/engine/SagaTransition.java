@@ -0,0 +1,32 @@
+package com.rajeswaran.sagaorchestrator.saga.engine;
+
+import com.rajeswaran.common.saga.event.Event;
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+
+/**
+ * Entry of the transition table: the step an event answers, the status it moves the step to and the
+ * saga's reaction.
+ *
+ * @param sagaName the saga the event belongs to
+ * @param stepName the step the event answers
+ * @param eventType the event type
+ * @param stepStatus COMPLETED for success events, FAILED for failure events
+ * @param handler the saga's reaction, or null to only record the step (and fail the saga on failure)
+ * @param <E> the event type
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record SagaTransition<E extends Event>(String sagaName,
+                                              String stepName,
+                                              Class<E> eventType,
+                                              SagaConstants.SagaStepStatus stepStatus,
+                                              SagaEventHandler<E> handler) {
+
+    public boolean isFailure() {
+        return stepStatus == SagaConstants.SagaStepStatus.FAILED;
+    }
+
+    public void handle(Long sagaId, Event event) {
+        handler.handle(sagaId, eventType.cast(event));
+    }
+}
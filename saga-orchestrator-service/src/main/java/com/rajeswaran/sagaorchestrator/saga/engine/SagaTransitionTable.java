@@ -0,0 +1,125 @@
+package com.rajeswaran.sagaorchestrator.saga.engine;
+
+import com.rajeswaran.common.saga.event.Event;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable lookup tables compiled from all saga definitions at startup.
+ *
+ * Transitions are keyed by (sagaName, eventType), steps by (sagaName, stepName) and parallel groups
+ * by (sagaName, groupName). Events arrive without a saga name, so event types that belong to exactly
+ * one saga also map straight to that saga; only event types shared by several sagas need the saga
+ * instance to be looked up.
+ * Each event type is read from the topic configured for it under {@code saga.event-topics}, e.g.
+ * payment-validated-event for PaymentValidatedEvent; compiling fails if an event type handled by a saga
+ * has no topic, or a topic names an event type no saga handles.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public final class SagaTransitionTable {
+
+    private final Map<TransitionKey, SagaTransition<?>> transitions;
+    private final Map<NameKey, SagaStepDefinition> steps;
+    private final Map<NameKey, SagaParallelGroup> parallelGroups;
+    private final Map<String, Class<? extends Event>> eventTypesByTopic;
+    private final Map<Class<? extends Event>, String> sagaNamesByEventType;
+
+    private SagaTransitionTable(Map<TransitionKey, SagaTransition<?>> transitions,
+                                Map<NameKey, SagaStepDefinition> steps,
+                                Map<NameKey, SagaParallelGroup> parallelGroups,
+                                Map<String, Class<? extends Event>> eventTypesByTopic,
+                                Map<Class<? extends Event>, String> sagaNamesByEventType) {
+        this.transitions = Map.copyOf(transitions);
+        this.steps = Map.copyOf(steps);
+        this.parallelGroups = Map.copyOf(parallelGroups);
+        this.eventTypesByTopic = Map.copyOf(eventTypesByTopic);
+        this.sagaNamesByEventType = Map.copyOf(sagaNamesByEventType);
+    }
+
+    /**
+     * @param eventTopics the topic of each event type, mapped to the event type's simple class name
+     */
+    public static SagaTransitionTable compile(Collection<SagaDefinition> definitions, Map<String, String> eventTopics) {
+        Map<TransitionKey, SagaTransition<?>> transitions = new HashMap<>();
+        Map<NameKey, SagaStepDefinition> steps = new HashMap<>();
+        Map<NameKey, SagaParallelGroup> parallelGroups = new HashMap<>();
+        Map<String, Class<? extends Event>> eventTypesByTopic = new HashMap<>();
+        Map<Class<? extends Event>, String> sagaNamesByEventType = new HashMap<>();
+        Set<Class<? extends Event>> sharedEventTypes = new HashSet<>();
+
+        for (SagaDefinition definition : definitions) {
+            String sagaName = definition.getSagaName();
+            definition.getSteps().values().forEach(step -> steps.put(new NameKey(sagaName, step.stepName()), step));
+            definition.getParallelGroups().values().forEach(group -> parallelGroups.put(new NameKey(sagaName, group.name()), group));
+
+            for (SagaTransition<?> transition : definition.getTransitions()) {
+                Class<? extends Event> eventType = transition.eventType();
+                if (transitions.putIfAbsent(new TransitionKey(sagaName, eventType), transition) != null) {
+                    throw new IllegalStateException("Saga " + sagaName + " handles " + eventType.getSimpleName() + " more than once");
+                }
+                String owner = sagaNamesByEventType.putIfAbsent(eventType, sagaName);
+                if (owner != null && !owner.equals(sagaName)) {
+                    sharedEventTypes.add(eventType);
+                }
+            }
+        }
+        sharedEventTypes.forEach(sagaNamesByEventType::remove);
+
+        Map<String, Class<? extends Event>> eventTypesByName = new HashMap<>();
+        sagaNamesByEventType.keySet().forEach(eventType -> eventTypesByName.put(eventType.getSimpleName(), eventType));
+        sharedEventTypes.forEach(eventType -> eventTypesByName.put(eventType.getSimpleName(), eventType));
+        eventTopics.forEach((topic, eventTypeName) -> {
+            Class<? extends Event> eventType = eventTypesByName.get(eventTypeName);
+            if (eventType == null) {
+                throw new IllegalStateException("Topic " + topic + " is mapped to " + eventTypeName + ", which no saga handles");
+            }
+            eventTypesByTopic.put(topic, eventType);
+        });
+        Set<Class<? extends Event>> unmapped = new HashSet<>(eventTypesByName.values());
+        eventTypesByTopic.values().forEach(unmapped::remove);
+        if (!unmapped.isEmpty()) {
+            throw new IllegalStateException("No topic configured for event types " + unmapped.stream().map(Class::getSimpleName).sorted().toList());
+        }
+
+        return new SagaTransitionTable(transitions, steps, parallelGroups, eventTypesByTopic, sagaNamesByEventType);
+    }
+
+    public Class<? extends Event> getEventType(String topic) {
+        return eventTypesByTopic.get(topic);
+    }
+
+    /**
+     * Returns the only saga handling the event type, or null if it is handled by several sagas.
+     */
+    public String getOwningSagaName(Class<? extends Event> eventType) {
+        return sagaNamesByEventType.get(eventType);
+    }
+
+    public SagaTransition<?> getTransition(String sagaName, Class<? extends Event> eventType) {
+        return transitions.get(new TransitionKey(sagaName, eventType));
+    }
+
+    public SagaStepDefinition getStep(String sagaName, String stepName) {
+        return steps.get(new NameKey(sagaName, stepName));
+    }
+
+    public SagaParallelGroup getParallelGroup(String sagaName, String groupName) {
+        return parallelGroups.get(new NameKey(sagaName, groupName));
+    }
+
+    public int size() {
+        return transitions.size();
+    }
+
+    private record TransitionKey(String sagaName, Class<?> eventType) {
+    }
+
+    private record NameKey(String sagaName, String name) {
+    }
+}
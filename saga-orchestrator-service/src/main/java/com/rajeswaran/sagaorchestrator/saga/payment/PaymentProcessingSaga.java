@@ -1,21 +1,25 @@
 package com.rajeswaran.sagaorchestrator.saga.payment;
 
-import com.rajeswaran.common.entity.Payment;
+import com.rajeswaran.common.money.Money;
 import com.rajeswaran.common.saga.payment.commands.ProcessPaymentCommand;
 import com.rajeswaran.common.saga.payment.commands.RecordTransactionCommand;
 import com.rajeswaran.common.saga.payment.commands.UpdatePaymentStatusCommand;
 import com.rajeswaran.common.saga.payment.commands.ValidatePaymentCommand;
 import com.rajeswaran.common.saga.payment.events.*;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.payment.payload.PaymentSettlement;
+import com.rajeswaran.common.saga.payment.payload.PaymentStatusChange;
 import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
 import com.rajeswaran.sagaorchestrator.saga.Saga;
+import com.rajeswaran.sagaorchestrator.saga.engine.SagaDefinition;
+import com.rajeswaran.sagaorchestrator.service.SagaOutbox;
 import com.rajeswaran.sagaorchestrator.service.SagaStateManager;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.stream.function.StreamBridge;
-import org.springframework.context.annotation.Bean;
-import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.function.Consumer;
+import java.util.Map;
 
 /**
  * Self-orchestrating Payment Processing Saga using command/event pattern.
@@ -23,21 +27,35 @@ import java.util.function.Consumer;
  * Happy Path Flow:
  * 1. Produces ValidatePaymentCommand → Listens for PaymentValidatedEvent/PaymentValidationFailedEvent
  * 2. Produces ProcessPaymentCommand → Listens for PaymentProcessedEvent/PaymentFailedEvent
- * 3. Produces RecordTransactionCommand → Listens for TransactionRecordedEvent/TransactionFailedEvent
- * 4. Produces UpdatePaymentStatusCommand → Listens for PaymentStatusUpdatedEvent
- * 5. Produces SendNotificationCommand → Completes saga
+ * 3. In parallel, once the money has moved:
+ *    - Produces RecordTransactionCommand → Listens for TransactionRecordedEvent/TransactionFailedEvent
+ *    - Produces UpdatePaymentStatusCommand (COMPLETED) → Listens for PaymentStatusUpdatedEvent
+ *    - Produces SendNotificationCommand
+ * 4. Completes saga when both the transaction and the payment status have been recorded
  *
  * Failure Flows:
  * - If validation fails → Fails saga immediately
  * - If payment processing fails → Updates payment status to FAILED → Sends failure notification → Fails saga
- * - If transaction recording fails → Sends failure notification directly (no status update needed)
+ * - If transaction recording fails → Fails saga; the payment itself went through, so the customer is not notified
+ *
+ * Timeouts:
+ * - Validation and payment status updates have no side effects when repeated and are retried
+ * - Payment processing is retried: the account service records each command ID with its reply, so a resent
+ *   command replays the original outcome instead of moving the money twice. If all attempts time out, the
+ *   outcome is unknown, so the saga fails without marking the payment FAILED
+ * - Transaction recording is never resent; it is handled like a failure reply
  */
 @Component
 @Slf4j
 public class PaymentProcessingSaga extends Saga {
 
-    public PaymentProcessingSaga(SagaStateManager sagaStateManager, StreamBridge streamBridge) {
-        super(sagaStateManager, streamBridge);
+    /**
+     * Steps that run in parallel once the payment has been processed.
+     */
+    private static final String PAYMENT_COMPLETION = "payment-completion";
+
+    public PaymentProcessingSaga(SagaStateManager sagaStateManager, SagaOutbox sagaOutbox, TransactionTemplate transactionTemplate) {
+        super(sagaStateManager, sagaOutbox, transactionTemplate);
     }
 
     @Override
@@ -45,13 +63,43 @@ public class PaymentProcessingSaga extends Saga {
         return SagaConstants.PAYMENT_PROCESSING_SAGA;
     }
 
+    @Override
+    protected SagaDefinition defineSaga() {
+        return SagaDefinition.builder(getSagaName())
+            .step(PaymentProcessingSteps.VALIDATE_PAYMENT.getStepName())
+                .command("validatePaymentCommand-out-0", ValidatePaymentCommand.class)
+                .onSuccess(PaymentValidatedEvent.class, this::onPaymentValidated)
+                // No compensation needed for validation failure
+                .onFailure(PaymentValidationFailedEvent.class)
+                .retryOnTimeout()
+            .step(PaymentProcessingSteps.PROCESS_PAYMENT.getStepName())
+                .command("processPaymentCommand-out-0", ProcessPaymentCommand.class)
+                .onSuccess(PaymentProcessedEvent.class, this::onPaymentProcessed)
+                .onFailure(PaymentFailedEvent.class, this::onPaymentFailed)
+                .retryOnTimeout()
+                .onTimeout(this::onPaymentProcessingTimeout)
+            .step(PaymentProcessingSteps.RECORD_TRANSACTION.getStepName())
+                .inParallelGroup(PAYMENT_COMPLETION)
+                .command("recordTransactionCommand-out-0", RecordTransactionCommand.class)
+                .onSuccess(TransactionRecordedEvent.class)
+                .onFailure(TransactionFailedEvent.class, this::onTransactionFailed)
+                .onTimeout(this::onTransactionRecordingTimeout)
+            .step(PaymentProcessingSteps.UPDATE_PAYMENT_STATUS.getStepName())
+                .inParallelGroup(PAYMENT_COMPLETION)
+                .command("updatePaymentStatusCommand-out-0", UpdatePaymentStatusCommand.class)
+                .onSuccess(PaymentStatusUpdatedEvent.class, this::onPaymentStatusUpdated)
+                .retryOnTimeout()
+            .join(PAYMENT_COMPLETION, this::onPaymentCompleted)
+            .build();
+    }
+
     @Override
     public void startSagaFlow(Long sagaId, Object payload) {
-        if (payload instanceof Payment payment) {
+        if (payload instanceof PaymentInstruction payment) {
             log.info("Starting payment processing saga flow {} for payment: {}", sagaId, payment);
             triggerValidatePaymentCommand(sagaId, payment);
         } else {
-            throw new IllegalArgumentException("PaymentProcessingSaga requires PaymentRequest as payload, got: " +
+            throw new IllegalArgumentException("PaymentProcessingSaga requires PaymentInstruction as payload, got: " +
                 (payload != null ? payload.getClass().getSimpleName() : "null"));
         }
     }
@@ -63,7 +111,7 @@ public class PaymentProcessingSaga extends Saga {
 
     // === COMMAND PRODUCERS (Triggers commands to other services) ===
 
-    private void triggerValidatePaymentCommand(Long sagaId, Payment payment) {
+    private void triggerValidatePaymentCommand(Long sagaId, PaymentInstruction payment) {
         log.info("Triggering ValidatePaymentCommand for saga {} and payment: {}", sagaId, payment);
 
         ValidatePaymentCommand command = ValidatePaymentCommand.create(
@@ -71,13 +119,11 @@ public class PaymentProcessingSaga extends Saga {
             payment
         );
 
-        // Record step as STARTED before publishing command
-        startStep(sagaId, PaymentProcessingSteps.VALIDATE_PAYMENT.getStepName(), command);
-
-        streamBridge.send("validatePaymentCommand-out-0", command);
+        // Record step as STARTED and store the command in the outbox in one transaction
+        startStepAndSend(sagaId, PaymentProcessingSteps.VALIDATE_PAYMENT.getStepName(), command);
     }
 
-    private void triggerProcessPaymentCommand(Long sagaId, Payment payment) {
+    private void triggerProcessPaymentCommand(Long sagaId, PaymentInstruction payment) {
         log.info("Triggering ProcessPaymentCommand for saga {} and payment: {}", sagaId, payment);
 
         ProcessPaymentCommand command = ProcessPaymentCommand.create(
@@ -85,258 +131,106 @@ public class PaymentProcessingSaga extends Saga {
             payment
         );
 
-        // Record step as STARTED before publishing command
-        startStep(sagaId, PaymentProcessingSteps.PROCESS_PAYMENT.getStepName(), command);
-
-        streamBridge.send("processPaymentCommand-out-0", command);
+        startStepAndSend(sagaId, PaymentProcessingSteps.PROCESS_PAYMENT.getStepName(), command);
     }
 
-    private void triggerRecordTransactionCommand(Long sagaId, Payment payment) {
-        log.info("Triggering RecordTransactionCommand for saga {} and payment: {}", sagaId, payment);
+    private void triggerPaymentCompletionCommands(Long sagaId, PaymentSettlement settlement) {
+        log.info("Triggering RecordTransactionCommand and UpdatePaymentStatusCommand for saga {} and payment: {}", sagaId, settlement);
 
-        RecordTransactionCommand command = RecordTransactionCommand.create(
-            sagaId,
-            payment
-        );
+        PaymentStatusChange statusChange = PaymentStatusChange.completed(settlement);
 
-        // Record step as STARTED before publishing command
-        startStep(sagaId, PaymentProcessingSteps.RECORD_TRANSACTION.getStepName(), command);
+        // Neither command depends on the other, so both are started together and joined in onPaymentCompleted
+        startParallelSteps(sagaId, PAYMENT_COMPLETION, Map.of(
+            PaymentProcessingSteps.RECORD_TRANSACTION.getStepName(), RecordTransactionCommand.create(sagaId, settlement),
+            PaymentProcessingSteps.UPDATE_PAYMENT_STATUS.getStepName(), UpdatePaymentStatusCommand.create(sagaId, statusChange)
+        ));
 
-        streamBridge.send("recordTransactionCommand-out-0", command);
+        // The money has moved, so the customer is notified without waiting for the bookkeeping steps
+        PaymentInstruction payment = settlement.payment();
+        String subject = "Payment Processed Successfully";
+        String notificationMessage = String.format(
+                "Your payment of %s from account %s to account %s has been processed successfully and marked as %s. Payment ID: %s",
+                Money.format(payment.amount(), payment.currency()), payment.sourceAccountNumber(), payment.destinationAccountNumber(),
+                statusChange.status(), payment.paymentId()
+        );
+        triggerSendNotificationCommand(sagaId, payment.createdBy(), subject, notificationMessage);
     }
 
-    private void triggerUpdatePaymentStatusCommand(Long sagaId, Payment payment, String status) {
-        log.info("Triggering UpdatePaymentStatusCommand for saga {} and payment: {} to status: {}", sagaId, payment.getId(), status);
-
-        // Set the payment status in the saga
-        payment.setStatus(status);
+    private void triggerPaymentFailedStatusCommand(Long sagaId, Long paymentId) {
+        log.info("Triggering UpdatePaymentStatusCommand for saga {} and payment: {} to status: {}", sagaId, paymentId, PaymentStatusChange.FAILED);
 
         UpdatePaymentStatusCommand command = UpdatePaymentStatusCommand.create(
             sagaId,
-            payment
+            PaymentStatusChange.failed(paymentId)
         );
 
-        // Record step as STARTED before publishing command
-        startStep(sagaId, PaymentProcessingSteps.UPDATE_PAYMENT_STATUS.getStepName(), command);
-
-        streamBridge.send("updatePaymentStatusCommand-out-0", command);
+        startStepAndSend(sagaId, PaymentProcessingSteps.UPDATE_PAYMENT_STATUS.getStepName(), command);
     }
 
+    private void triggerPaymentFailedNotification(Long sagaId, PaymentInstruction payment) {
+        String subject = "Payment Processing Failed";
+        String notificationMessage = String.format(
+                "Your payment of %s from account %s to account %s failed to process. Payment ID: %s",
+                Money.format(payment.amount(), payment.currency()), payment.sourceAccountNumber(), payment.destinationAccountNumber(), payment.paymentId()
+        );
 
+        triggerSendNotificationCommand(sagaId, payment.createdBy(), subject, notificationMessage);
+    }
 
-    // === EVENT LISTENERS (Responds to events from other services) ===
+    // === EVENT HANDLERS (Run by the saga engine after the step has been completed or failed) ===
 
-    /**
-     * Listens for PaymentValidatedEvent to proceed to next step or PaymentValidationFailedEvent to handle failure.
-     */
-    @Bean
-    public Consumer<Message<PaymentValidatedEvent>> paymentValidatedEvent() {
-        return message -> {
-            PaymentValidatedEvent event = message.getPayload();
-            Payment payment = event.getPayment();
-            Long sagaId = event.getSagaId();
-
-            log.info("Received PaymentValidatedEvent for saga {}, payment: {}", sagaId, payment.getId());
-
-            try {
-                // Complete current step
-                completeStep(sagaId, PaymentProcessingSteps.VALIDATE_PAYMENT.getStepName(), event);
-
-                // Proceed to next step: Process Payment
-                triggerProcessPaymentCommand(sagaId, payment);
-
-            } catch (Exception e) {
-                log.error("Error processing PaymentValidatedEvent for saga {}: {}", sagaId, e.getMessage(), e);
-                failSaga(sagaId);
-            }
-        };
+    private void onPaymentValidated(Long sagaId, PaymentValidatedEvent event) {
+        // Proceed to next step: Process Payment
+        triggerProcessPaymentCommand(sagaId, event.getPayment());
     }
 
-    /**
-     * Listens for PaymentValidationFailedEvent to handle payment validation failure.
-     */
-    @Bean
-    public Consumer<Message<PaymentValidationFailedEvent>> paymentValidationFailedEvent() {
-        return message -> {
-            PaymentValidationFailedEvent event = message.getPayload();
-            Long sagaId = event.getSagaId();
-
-            log.error("Received PaymentValidationFailedEvent for saga {}, payment: {}, reason: {}",
-                sagaId, event.getPayment().getId(), event.getReason());
-
-            try {
-                // Mark step as failed
-                failStep(sagaId, PaymentProcessingSteps.VALIDATE_PAYMENT.getStepName(), event);
-
-                // Handle saga failure (no compensation needed for validation failure)
-                failSaga(sagaId);
-
-            } catch (Exception e) {
-                log.error("Error processing PaymentValidationFailedEvent for saga {}: {}", sagaId, e.getMessage(), e);
-            }
-        };
+    private void onPaymentProcessed(Long sagaId, PaymentProcessedEvent event) {
+        // Proceed to the parallel completion steps (skip UpdateAccountBalanceCommand)
+        triggerPaymentCompletionCommands(sagaId, event.getPayment());
     }
 
-    /**
-     * Listens for PaymentProcessedEvent to proceed to next step or PaymentFailedEvent to handle failure.
-     */
-    @Bean
-    public Consumer<Message<PaymentProcessedEvent>> paymentProcessedEvent() {
-        return message -> {
-            PaymentProcessedEvent event = message.getPayload();
-            Payment payment = event.getPayment();
-            Long sagaId = event.getSagaId();
-
-            log.info("Received PaymentProcessedEvent for saga {}, payment: {}", sagaId, payment);
-
-            try {
-                // Complete current step
-                completeStep(sagaId, PaymentProcessingSteps.PROCESS_PAYMENT.getStepName(), event);
-
-                // Proceed to next step: Record Transaction (skip UpdateAccountBalanceCommand)
-                triggerRecordTransactionCommand(sagaId, payment);
-
-            } catch (Exception e) {
-                log.error("Error processing PaymentProcessedEvent for saga {}: {}", sagaId, e.getMessage(), e);
-                failSaga(sagaId);
-            }
-        };
-    }
+    private void onPaymentFailed(Long sagaId, PaymentFailedEvent event) {
+        log.error("Payment {} failed for saga {}, reason: {}", event.getPayment().paymentId(), sagaId, event.getReason());
 
-    /**
-     * Listens for PaymentFailedEvent to handle payment processing failure.
-     */
-    @Bean
-    public Consumer<Message<PaymentFailedEvent>> paymentFailedEvent() {
-        return message -> {
-            PaymentFailedEvent event = message.getPayload();
-            Payment payment = event.getPayment();
-            Long sagaId = event.getSagaId();
-
-            log.error("Received PaymentFailedEvent for saga {}, payment: {}, reason: {}",
-                sagaId, payment.getId(), event.getReason());
-
-            try {
-                // Mark step as failed
-                failStep(sagaId, PaymentProcessingSteps.PROCESS_PAYMENT.getStepName(), event);
-
-                // Update payment status to FAILED before failing the saga
-                triggerUpdatePaymentStatusCommand(sagaId, payment, "FAILED");
-
-            } catch (Exception e) {
-                log.error("Error processing PaymentFailedEvent for saga {}: {}", sagaId, e.getMessage(), e);
-                failSaga(sagaId);
-            }
-        };
+        // Update payment status to FAILED before failing the saga
+        triggerPaymentFailedStatusCommand(sagaId, event.getPayment().paymentId());
     }
 
-    /**
-     * Listens for TransactionRecordedEvent to proceed to next step or TransactionFailedEvent to handle failure.
-     */
-    @Bean
-    public Consumer<Message<TransactionRecordedEvent>> transactionRecordedEvent() {
-        return message -> {
-            TransactionRecordedEvent event = message.getPayload();
-            Payment payment = event.getPayment();
-            Long sagaId = event.getSagaId();
-
-            log.info("Received TransactionRecordedEvent for saga {}, payment: {}", sagaId, payment);
-
-            try {
-                // Complete current step
-                completeStep(sagaId, PaymentProcessingSteps.RECORD_TRANSACTION.getStepName(), event);
-
-                // Trigger payment status update to COMPLETED
-                triggerUpdatePaymentStatusCommand(sagaId, payment, "COMPLETED");
-
-            } catch (Exception e) {
-                log.error("Error processing TransactionRecordedEvent for saga {}: {}", sagaId, e.getMessage(), e);
-                failSaga(sagaId);
-            }
-        };
+    private void onTransactionFailed(Long sagaId, TransactionFailedEvent event) {
+        log.error("Transaction recording failed for saga {}, payment: {}, reason: {}; the transaction history needs to be repaired",
+            sagaId, event.getPaymentId(), event.getReason());
+        failSaga(sagaId);
     }
 
-    /**
-     * Listens for TransactionFailedEvent to handle transaction recording failure.
-     */
-    @Bean
-    public Consumer<Message<TransactionFailedEvent>> transactionFailedEvent() {
-        return message -> {
-            TransactionFailedEvent event = message.getPayload();
-            Payment payment = event.getPayment();
-            Long sagaId = event.getSagaId();
-
-            log.error("Received TransactionFailedEvent for saga {}, payment: {}, reason: {}",
-                sagaId, payment.getId(), event.getReason());
-
-            try {
-                // Mark step as failed
-                failStep(sagaId, PaymentProcessingSteps.RECORD_TRANSACTION.getStepName(), event);
-
+    private void onPaymentStatusUpdated(Long sagaId, PaymentStatusUpdatedEvent event) {
+        // A COMPLETED status is a branch of the completion group and is handled by the join
+        if (PaymentStatusChange.FAILED.equals(event.getStatus())) {
+            // Trigger failure notification and fail saga
+            triggerPaymentFailedNotification(sagaId, event.getPayment());
+            failSaga(sagaId);
+        }
+    }
 
-                String subject = "Payment Processing Failed";
-                String notificationMessage = String.format(
-                        "Your payment of $%.2f from account %s to account %s failed to process. Payment ID: %s",
-                        payment.getAmount(), payment.getSourceAccountNumber(), payment.getDestinationAccountNumber(), payment.getId()
-                );
+    private void onPaymentCompleted(Long sagaId) {
+        completeSaga(sagaId);
+    }
 
-                triggerSendNotificationCommand(sagaId, payment.getCreatedBy(), subject, notificationMessage);
+    // === TIMEOUT HANDLERS ===
 
-            } catch (Exception e) {
-                log.error("Error processing TransactionFailedEvent for saga {}: {}", sagaId, e.getMessage(), e);
-            }
-        };
+    private void onPaymentProcessingTimeout(Long sagaId, SagaStepInstance step) {
+        // Every attempt timed out: the debit may have been applied, so the payment must not be marked FAILED.
+        // Its stored reply is replayed when the command is resent, which settles the payment's status.
+        PaymentInstruction payment = readCommand(step, ProcessPaymentCommand.class).getPayment();
+        log.error("Payment {} timed out in processing for saga {} after all attempts, outcome unknown; "
+            + "the command of step {} can be resent to settle it", payment.paymentId(), sagaId, step.getId());
+        failSaga(sagaId);
     }
 
-    /**
-     * Listens for PaymentStatusUpdatedEvent to proceed to final step.
-     */
-    @Bean
-    public Consumer<Message<PaymentStatusUpdatedEvent>> paymentStatusUpdatedEvent() {
-        return message -> {
-            PaymentStatusUpdatedEvent event = message.getPayload();
-            Payment payment = event.getPayment();
-            Long sagaId = event.getSagaId();
-
-            log.info("Received PaymentStatusUpdatedEvent for saga {}, payment: {} with status: {}", 
-                    sagaId, payment.getId(), payment.getStatus());
-
-            try {
-                // Complete the update payment status step
-                completeStep(sagaId, PaymentProcessingSteps.UPDATE_PAYMENT_STATUS.getStepName(), event);
-
-                String subject;
-                String notificationMessage;
-                
-                if ("FAILED".equals(payment.getStatus())) {
-                    // Handle failed payment notification
-                    subject = "Payment Processing Failed";
-                    notificationMessage = String.format(
-                            "Your payment of $%.2f from account %s to account %s failed to process. Payment ID: %s",
-                            payment.getAmount(), payment.getSourceAccountNumber(), payment.getDestinationAccountNumber(), payment.getId()
-                    );
-                    
-                    // Trigger notification and fail saga
-                    triggerSendNotificationCommand(sagaId, payment.getCreatedBy(), subject, notificationMessage);
-                    failSaga(sagaId);
-                } else {
-                    // Handle successful payment notification
-                    subject = "Payment Processed Successfully";
-                    notificationMessage = String.format(
-                            "Your payment of $%.2f from account %s to account %s has been processed successfully and marked as %s. Payment ID: %s",
-                            payment.getAmount(), payment.getSourceAccountNumber(), payment.getDestinationAccountNumber(), 
-                            payment.getStatus(), payment.getId()
-                    );
-                    
-                    // Trigger notification and complete saga
-                    triggerSendNotificationCommand(sagaId, payment.getCreatedBy(), subject, notificationMessage);
-                    completeSaga(sagaId);
-                }
-
-            } catch (Exception e) {
-                log.error("Error processing PaymentStatusUpdatedEvent for saga {}: {}", sagaId, e.getMessage(), e);
-                failSaga(sagaId);
-            }
-        };
+    private void onTransactionRecordingTimeout(Long sagaId, SagaStepInstance step) {
+        // Resending could record the transactions twice, so treat it like a TransactionFailedEvent
+        PaymentSettlement settlement = readCommand(step, RecordTransactionCommand.class).getPayment();
+        log.error("Transaction recording timed out for saga {}, payment: {}; the transaction history needs to be repaired",
+            sagaId, settlement.paymentId());
+        failSaga(sagaId);
     }
 }
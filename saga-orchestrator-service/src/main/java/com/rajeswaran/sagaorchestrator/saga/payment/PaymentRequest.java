@@ -1,11 +1,15 @@
 package com.rajeswaran.sagaorchestrator.saga.payment;
 
+import com.rajeswaran.common.money.Money;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 /**
  * Request object to initiate a payment processing saga.
  * Contains all necessary information to process a payment transaction.
@@ -20,6 +24,23 @@ public class PaymentRequest {
 
     private String sourceAccountNumber;
     private String destinationAccountNumber;
-    private double amount;
+    private BigDecimal amount; // Major units, e.g. 12.34
+    private String currency;
     private String description;
+
+    /**
+     * Converts the request into a payment instruction with its amount in minor units.
+     *
+     * @throws ArithmeticException if the amount has more decimals than the currency allows
+     * @throws IllegalArgumentException if the amount is missing, zero or negative, or the currency is unknown
+     */
+    public PaymentInstruction toInstruction(String createdBy) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("amount must be positive, was " + amount);
+        }
+        String paymentCurrency = currency != null ? currency : Money.DEFAULT_CURRENCY;
+        long minorUnits = Money.toMinorUnits(amount, paymentCurrency);
+        return new PaymentInstruction(null, sourceAccountNumber, destinationAccountNumber, minorUnits, paymentCurrency,
+            description, createdBy);
+    }
 }
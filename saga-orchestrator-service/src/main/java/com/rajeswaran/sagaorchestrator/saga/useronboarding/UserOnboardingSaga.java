@@ -1,21 +1,20 @@
 package com.rajeswaran.sagaorchestrator.saga.useronboarding;
 
-import com.rajeswaran.common.AppConstants;
-import com.rajeswaran.common.entity.User;
 import com.rajeswaran.common.saga.useronboarding.commands.CreateUserCommand;
 import com.rajeswaran.common.saga.useronboarding.commands.DeleteUserCommand;
 import com.rajeswaran.common.saga.useronboarding.commands.OpenAccountCommand;
 import com.rajeswaran.common.saga.useronboarding.events.*;
+import com.rajeswaran.common.saga.useronboarding.payload.NewUser;
+import com.rajeswaran.common.saga.useronboarding.payload.UserProfile;
 import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
 import com.rajeswaran.sagaorchestrator.saga.Saga;
+import com.rajeswaran.sagaorchestrator.saga.engine.SagaDefinition;
+import com.rajeswaran.sagaorchestrator.service.SagaOutbox;
 import com.rajeswaran.sagaorchestrator.service.SagaStateManager;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.stream.function.StreamBridge;
-import org.springframework.context.annotation.Bean;
-import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
-
-import java.util.function.Consumer;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Self-orchestrating User Onboarding Saga using command/event pattern.
@@ -32,13 +31,15 @@ import java.util.function.Consumer;
  * 
  * Compensation Flow:
  * - If account opening fails → Produces DeleteUserCommand
+ * - If user creation or account opening times out → Produces DeleteUserCommand
+ * - If user deletion times out → Resends DeleteUserCommand until the attempts are used up
  */
 @Component
 @Slf4j
 public class UserOnboardingSaga extends Saga {
     
-    public UserOnboardingSaga(SagaStateManager sagaStateManager, StreamBridge streamBridge) {
-        super(sagaStateManager, streamBridge);
+    public UserOnboardingSaga(SagaStateManager sagaStateManager, SagaOutbox sagaOutbox, TransactionTemplate transactionTemplate) {
+        super(sagaStateManager, sagaOutbox, transactionTemplate);
     }
     
     @Override
@@ -46,13 +47,35 @@ public class UserOnboardingSaga extends Saga {
         return SagaConstants.USER_ONBOARDING_SAGA;
     }
     
+    @Override
+    protected SagaDefinition defineSaga() {
+        return SagaDefinition.builder(getSagaName())
+            .step(UserOnboardingSteps.CREATE_USER.getStepName())
+                .command("createUserCommand-out-0", CreateUserCommand.class)
+                .onSuccess(UserCreatedEvent.class, this::onUserCreated)
+                .onFailure(UserCreationFailedEvent.class, this::onUserCreationFailed)
+                .onTimeout(this::onUserCreationTimeout)
+            .step(UserOnboardingSteps.OPEN_ACCOUNT.getStepName())
+                .command("accountOpenCommand-out-0", OpenAccountCommand.class)
+                .onSuccess(AccountOpenedEvent.class, this::onAccountOpened)
+                .onFailure(AccountOpenFailedEvent.class, this::onAccountOpenFailed)
+                .onTimeout(this::onAccountOpeningTimeout)
+            .step(UserOnboardingSteps.DELETE_USER.getStepName())
+                .command("deleteUserCommand-out-0", DeleteUserCommand.class)
+                .onSuccess(UserDeletedEvent.class, this::onUserDeleted)
+                .onFailure(UserDeletionFailedEvent.class, this::onUserDeletionFailed)
+                .retryOnTimeout()
+                .onTimeout(this::onUserDeletionTimeout)
+            .build();
+    }
+
     @Override
     public void startSagaFlow(Long sagaId, Object payload) {
-        if (payload instanceof User user) {
-            log.info("Starting user onboarding saga flow {} for user: {}", sagaId, user.getUsername());
+        if (payload instanceof NewUser user) {
+            log.info("Starting user onboarding saga flow {} for user: {}", sagaId, user.username());
             triggerCreateUserCommand(sagaId, user);
         } else {
-            throw new IllegalArgumentException("UserOnboardingSaga requires User as payload, got: " + 
+            throw new IllegalArgumentException("UserOnboardingSaga requires NewUser as payload, got: " + 
                 (payload != null ? payload.getClass().getSimpleName() : "null"));
         }
     }
@@ -64,7 +87,7 @@ public class UserOnboardingSaga extends Saga {
     
     // === COMMAND PRODUCERS (Triggers commands to other services) ===
     
-    private void triggerCreateUserCommand(Long sagaId, User user) {
+    private void triggerCreateUserCommand(Long sagaId, NewUser user) {
         log.info("Triggering CreateUserCommand for saga {} and user: {}", sagaId, user);
         
         
@@ -73,14 +96,12 @@ public class UserOnboardingSaga extends Saga {
             user
         );
 
-        // Record step as STARTED before publishing command
-        startStep(sagaId, UserOnboardingSteps.CREATE_USER.getStepName(), command);
-        
-        streamBridge.send("createUserCommand-out-0", command);
+        // Record step as STARTED and store the command in the outbox in one transaction
+        startStepAndSend(sagaId, UserOnboardingSteps.CREATE_USER.getStepName(), command);
     }
     
-    private void triggerOpenAccountCommand(Long sagaId, User user) {
-        log.info("Triggering OpenAccountCommand for saga {} and userId: {}", sagaId, user.getUserId());
+    private void triggerOpenAccountCommand(Long sagaId, UserProfile user) {
+        log.info("Triggering OpenAccountCommand for saga {} and userId: {}", sagaId, user.userId());
         
         OpenAccountCommand command = OpenAccountCommand.create(
             sagaId,
@@ -88,10 +109,7 @@ public class UserOnboardingSaga extends Saga {
             user
         );
 
-        // Record step as STARTED before publishing command
-        startStep(sagaId, UserOnboardingSteps.OPEN_ACCOUNT.getStepName(), command);
-
-        streamBridge.send("accountOpenCommand-out-0", command);
+        startStepAndSend(sagaId, UserOnboardingSteps.OPEN_ACCOUNT.getStepName(), command);
     }
     
     private void triggerDeleteUserCommand(Long sagaId, String username) {
@@ -102,112 +120,86 @@ public class UserOnboardingSaga extends Saga {
             username
         );
 
-        // Record step as STARTED before publishing command
-        startStep(sagaId, UserOnboardingSteps.DELETE_USER.getStepName(), command);
-        
-        streamBridge.send("deleteUserCommand-out-0", command);
+        startStepAndSend(sagaId, UserOnboardingSteps.DELETE_USER.getStepName(), command);
     }
     
-    // === EVENT LISTENERS (Consumes events from other services) ===
-     @Bean
-    public Consumer<Message<UserCreatedEvent>> userCreatedEvent() {
-        return message -> {
-
-            UserCreatedEvent event = message.getPayload();
+    // === EVENT HANDLERS (Run by the saga engine after the step has been completed or failed) ===
 
-            log.info("User created successfully for saga {}, event: {}", event.getSagaId(), event);
-            
-            completeStep(event.getSagaId(), UserOnboardingSteps.CREATE_USER.getStepName(), event);
+    private void onUserCreated(Long sagaId, UserCreatedEvent event) {
+        log.info("User created successfully for saga {}, event: {}", sagaId, event);
+        
+        UserProfile user = event.getUser();
+        
+        // Check if user has admin role
+        if (user.admin()) {
+            log.info("User {} has admin role, skipping account opening and proceeding to notification", user.username());
             
-            User user = event.getUser();
+            // Send admin welcome notification
+            String subject = "Welcome to BaaS Banking Service - Admin Access";
+            String notificationMessage = String.format("Hello %s,\n\nWelcome to BaaS Banking service! You have been granted admin access.\n\nBest regards,\nYour Company", user.fullName());
             
-            // Check if user has admin role
-            if (user.getRoles() != null && user.getRoles().contains(AppConstants.ROLE_BAAS_ADMIN)) {
-                log.info("User {} has admin role, skipping account opening and proceeding to notification", user.getUsername());
-                
-                // Send admin welcome notification
-                String subject = "Welcome to BaaS Banking Service - Admin Access";
-                String notificationMessage = String.format("Hello %s,\n\nWelcome to BaaS Banking service! You have been granted admin access.\n\nBest regards,\nYour Company", user.getFullName());
-                
-                triggerSendNotificationCommand(event.getSagaId(), user.getUsername(), subject, notificationMessage);
-                
-                // Complete saga after notification is sent
-                completeSaga(event.getSagaId());
-            } else {
-                // Proceed to next step: Open Account for regular users
-                triggerOpenAccountCommand(event.getSagaId(), user);
-            }
-        };
-    }
-
-    @Bean
-    public Consumer<Message<UserCreationFailedEvent>> userCreationFailedEvent() {
-        return message -> {
-            UserCreationFailedEvent event = message.getPayload();
-            log.error("User creation failed for saga {}: {}", event.getSagaId(), event.getErrorMessage());
+            triggerSendNotificationCommand(sagaId, user.username(), subject, notificationMessage);
             
-            failStep(event.getSagaId(), UserOnboardingSteps.CREATE_USER.getStepName(), event);
-            failSaga(event.getSagaId());
-        };
+            // Complete saga after notification is sent
+            completeSaga(sagaId);
+        } else {
+            // Proceed to next step: Open Account for regular users
+            triggerOpenAccountCommand(sagaId, user);
+        }
     }
-     @Bean
-    public Consumer<Message<AccountOpenedEvent>> accountOpenedEvent() {
-        return message -> {
-            AccountOpenedEvent event = message.getPayload();
 
-            log.info("Account opened successfully for saga {}, event: {}", event.getSagaId(), event);
-            
-            completeStep(event.getSagaId(), UserOnboardingSteps.OPEN_ACCOUNT.getStepName(), event);
-            
-            // Proceed to next step: Send Welcome Notification
-            // We need email and fullName, but they're not in AccountOpenedEvent, so we'll use userId for now
-            User user = event.getUser();
+    private void onUserCreationFailed(Long sagaId, UserCreationFailedEvent event) {
+        log.error("User creation failed for saga {}: {}", sagaId, event.getErrorMessage());
+        failSaga(sagaId);
+    }
 
-            String subject = "Welcome to BaaS Banking Service";
-            String notificationMessage = String.format("Hello %s,\n\nWelcome to  BaaS Banking service! Your account number is %s.\n\nBest regards,\nYour Company", user.getFullName(), event.getAccount().getAccountNumber());
+    private void onAccountOpened(Long sagaId, AccountOpenedEvent event) {
+        log.info("Account opened successfully for saga {}, event: {}", sagaId, event);
+        
+        // Proceed to next step: Send Welcome Notification
+        UserProfile user = event.getUser();
 
-            triggerSendNotificationCommand(event.getSagaId(), user.getUsername(), subject, notificationMessage);
+        String subject = "Welcome to BaaS Banking Service";
+        String notificationMessage = String.format("Hello %s,\n\nWelcome to  BaaS Banking service! Your account number is %s.\n\nBest regards,\nYour Company", user.fullName(), event.getAccountNumber());
 
-            // Record step as STARTED before publishing command
-            completeSaga(event.getSagaId());
+        triggerSendNotificationCommand(sagaId, user.username(), subject, notificationMessage);
 
-        };
+        completeSaga(sagaId);
     }
 
-    @Bean
-    public Consumer<Message<AccountOpenFailedEvent>> accountOpenFailedEvent() {
-        return message -> {
-            AccountOpenFailedEvent event = message.getPayload();
-            log.error("Account opening failed for saga {}: {}", event.getSagaId(), event.getErrorMessage());
-            
-            failStep(event.getSagaId(), UserOnboardingSteps.OPEN_ACCOUNT.getStepName(), event);
-            
-            // Trigger compensation: Delete the user that was created earlier using username
-            triggerDeleteUserCommand(event.getSagaId(), event.getUsername());
-        };
+    private void onAccountOpenFailed(Long sagaId, AccountOpenFailedEvent event) {
+        log.error("Account opening failed for saga {}: {}", sagaId, event.getErrorMessage());
+        
+        // Trigger compensation: Delete the user that was created earlier using username
+        triggerDeleteUserCommand(sagaId, event.getUsername());
     }
 
-    @Bean
-    public Consumer<Message<UserDeletedEvent>> userDeletedEvent() {
-        return message -> {
-            UserDeletedEvent event = message.getPayload();
-            log.info("User deleted successfully for saga {} (compensation completed)", event.getSagaId());
-            
-            completeStep(event.getSagaId(), UserOnboardingSteps.DELETE_USER.getStepName(), event);
-            failSaga(event.getSagaId());
-            log.info("User onboarding saga {} failed and compensation completed", event.getSagaId());
-        };
+    private void onUserDeleted(Long sagaId, UserDeletedEvent event) {
+        failSaga(sagaId);
+        log.info("User onboarding saga {} failed and compensation completed", sagaId);
     }
 
-    @Bean
-    public Consumer<Message<UserDeletionFailedEvent>> userDeletionFailedEvent() {
-        return message -> {
-            UserDeletionFailedEvent event = message.getPayload();
-            log.error("User deletion failed for saga {} (compensation failed): {}", event.getSagaId(), event.getErrorMessage());
-            
-            failStep(event.getSagaId(), UserOnboardingSteps.DELETE_USER.getStepName(), event);
-            failSaga(event.getSagaId());
-            log.error("User onboarding saga {} failed and compensation also failed - manual intervention required", event.getSagaId());
-        };
+    private void onUserDeletionFailed(Long sagaId, UserDeletionFailedEvent event) {
+        log.error("User deletion failed for saga {} (compensation failed): {}", sagaId, event.getErrorMessage());
+        failSaga(sagaId);
+        log.error("User onboarding saga {} failed and compensation also failed - manual intervention required", sagaId);
+    }
+
+    // === TIMEOUT HANDLERS ===
+
+    private void onUserCreationTimeout(Long sagaId, SagaStepInstance step) {
+        // The user may still be created after the timeout, so compensate as if it was
+        NewUser user = readCommand(step, CreateUserCommand.class).getUser();
+        triggerDeleteUserCommand(sagaId, user.username());
+    }
+
+    private void onAccountOpeningTimeout(Long sagaId, SagaStepInstance step) {
+        UserProfile user = readCommand(step, OpenAccountCommand.class).getUser();
+        triggerDeleteUserCommand(sagaId, user.username());
+    }
+
+    private void onUserDeletionTimeout(Long sagaId, SagaStepInstance step) {
+        failSaga(sagaId);
+        log.error("User onboarding saga {} failed and compensation timed out - manual intervention required", sagaId);
     }
 }
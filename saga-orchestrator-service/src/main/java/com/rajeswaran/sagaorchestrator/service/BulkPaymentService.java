@@ -0,0 +1,269 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.sagaorchestrator.dto.BulkPaymentBatchProgress;
+import com.rajeswaran.sagaorchestrator.dto.BulkPaymentSummary;
+import com.rajeswaran.sagaorchestrator.entity.BulkPayment;
+import com.rajeswaran.sagaorchestrator.entity.BulkPaymentBatch;
+import com.rajeswaran.sagaorchestrator.repository.BulkPaymentBatchRepository;
+import com.rajeswaran.sagaorchestrator.repository.BulkPaymentRepository;
+import com.rajeswaran.sagaorchestrator.saga.bulkpayment.BulkPaymentSaga;
+import com.rajeswaran.sagaorchestrator.saga.bulkpayment.PaymentBatch;
+import com.rajeswaran.sagaorchestrator.saga.payment.PaymentRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Turns a bulk payment file into batch sagas.
+ *
+ * The file is read line by line, as CSV or NDJSON, and payments are grouped by source account. As soon
+ * as a source account has {@code chunk-size} payments, they are handed to a new {@link BulkPaymentSaga},
+ * so memory is bounded by the number of source accounts times the chunk size, not by the file size.
+ * Rows that cannot be parsed, are longer than 1024 characters or have a description longer than the
+ * payments table holds are skipped and reported; all other checks are left to the batch sagas. The upload
+ * is recorded as a {@link BulkPayment} before the first row is read, and a batch whose saga fails to start
+ * is recorded as failed without stopping the others.
+ *
+ * CSV rows have the columns {@code sourceAccountNumber,destinationAccountNumber,amount,currency,description}
+ * with an optional header row; the description is the rest of the line and may contain commas.
+ * NDJSON rows are {@link PaymentRequest} objects.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@Service
+@Slf4j
+public class BulkPaymentService {
+
+    private static final String CSV_HEADER_PREFIX = "sourceAccountNumber";
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+    // Longest description the payments table holds
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+    // Room for two account numbers, an amount, a currency and a full description, in CSV or NDJSON
+    private static final int MAX_ROW_LENGTH = 1024;
+
+    private final BulkPaymentSaga bulkPaymentSaga;
+    private final BulkPaymentBatchRepository bulkPaymentBatchRepository;
+    private final BulkPaymentRepository bulkPaymentRepository;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public BulkPaymentService(BulkPaymentSaga bulkPaymentSaga,
+                              BulkPaymentBatchRepository bulkPaymentBatchRepository,
+                              BulkPaymentRepository bulkPaymentRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${saga.bulk-payment.chunk-size:100}") int chunkSize) {
+        this.bulkPaymentSaga = bulkPaymentSaga;
+        this.bulkPaymentBatchRepository = bulkPaymentBatchRepository;
+        this.bulkPaymentRepository = bulkPaymentRepository;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkPaymentSummary startBulkPayment(InputStream input, boolean ndjson, String createdBy) throws IOException {
+        // The upload exists, with its owner, before any batch can reference it
+        BulkPayment bulkPayment = bulkPaymentRepository.save(BulkPayment.builder()
+                .bulkId(UUID.randomUUID().toString())
+                .createdBy(createdBy)
+                .build());
+        String bulkId = bulkPayment.getBulkId();
+        Map<String, List<PaymentInstruction>> pendingBySource = new HashMap<>();
+        List<String> rejectedRows = new ArrayList<>();
+        List<String> failedBatches = new ArrayList<>();
+        int paymentCount = 0;
+        int rejectedCount = 0;
+        int batchCount = 0;
+        int failedBatchCount = 0;
+
+        try (RowReader reader = new RowReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.next()) != null) {
+                int lineNumber = reader.lineNumber();
+                if (line.isBlank() || (!ndjson && lineNumber == 1 && line.startsWith(CSV_HEADER_PREFIX))) {
+                    continue;
+                }
+
+                PaymentInstruction payment;
+                try {
+                    if (reader.truncated()) {
+                        throw new IllegalArgumentException("row is longer than " + MAX_ROW_LENGTH + " characters");
+                    }
+                    PaymentRequest request = ndjson ? objectMapper.readValue(line, PaymentRequest.class) : parseCsv(line);
+                    if (request.getSourceAccountNumber() == null || request.getSourceAccountNumber().isBlank()) {
+                        throw new IllegalArgumentException("source account number is missing");
+                    }
+                    if (request.getDescription() != null && request.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+                        throw new IllegalArgumentException("description is longer than " + MAX_DESCRIPTION_LENGTH + " characters");
+                    }
+                    payment = request.toInstruction(createdBy);
+                } catch (Exception e) {
+                    rejectedCount++;
+                    if (rejectedRows.size() < MAX_REPORTED_REJECTIONS) {
+                        rejectedRows.add("Line " + lineNumber + ": " + e.getMessage());
+                    }
+                    continue;
+                }
+
+                paymentCount++;
+                String source = payment.sourceAccountNumber();
+                List<PaymentInstruction> chunk = pendingBySource.computeIfAbsent(source, key -> new ArrayList<>(chunkSize));
+                chunk.add(payment);
+                if (chunk.size() >= chunkSize) {
+                    batchCount++;
+                    if (!startBatch(bulkId, source, createdBy, pendingBySource.remove(source), failedBatches)) {
+                        failedBatchCount++;
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<String, List<PaymentInstruction>> entry : pendingBySource.entrySet()) {
+            batchCount++;
+            if (!startBatch(bulkId, entry.getKey(), createdBy, entry.getValue(), failedBatches)) {
+                failedBatchCount++;
+            }
+        }
+
+        bulkPayment.setPaymentCount(paymentCount);
+        bulkPayment.setBatchCount(batchCount);
+        bulkPayment.setFailedBatchCount(failedBatchCount);
+        bulkPayment.setRejectedCount(rejectedCount);
+        bulkPayment.setCompletedAt(LocalDateTime.now());
+        bulkPaymentRepository.save(bulkPayment);
+
+        log.info("Bulk payment {} started: {} payments in {} batches ({} failed to start), {} rows rejected",
+                bulkId, paymentCount, batchCount, failedBatchCount, rejectedCount);
+        return new BulkPaymentSummary(bulkId, paymentCount, batchCount, failedBatchCount, failedBatches, rejectedCount, rejectedRows);
+    }
+
+    public Optional<BulkPayment> getBulkPayment(String bulkId) {
+        return bulkPaymentRepository.findById(bulkId);
+    }
+
+    public List<BulkPaymentBatchProgress> getProgress(String bulkId) {
+        return bulkPaymentBatchRepository.findProgressByBulkId(bulkId);
+    }
+
+    /**
+     * Starts the saga of one batch. A batch whose saga cannot be started is recorded as failed, with all
+     * of its payments, and the rest of the file carries on.
+     *
+     * @return whether the saga was started
+     */
+    private boolean startBatch(String bulkId, String sourceAccountNumber, String createdBy, List<PaymentInstruction> payments,
+                            List<String> failedBatches) {
+        try {
+            bulkPaymentSaga.startSaga(new PaymentBatch(bulkId, sourceAccountNumber, createdBy, payments));
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to start a batch of {} payments from {} for bulk payment {}: {}",
+                    payments.size(), sourceAccountNumber, bulkId, e.getMessage(), e);
+            String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            bulkPaymentBatchRepository.save(BulkPaymentBatch.builder()
+                    .bulkId(bulkId)
+                    .sourceAccountNumber(sourceAccountNumber)
+                    .createdBy(createdBy)
+                    .paymentCount(payments.size())
+                    .failedCount(payments.size())
+                    .failureReason(reason.length() > 500 ? reason.substring(0, 500) : reason)
+                    .build());
+            if (failedBatches.size() < MAX_REPORTED_REJECTIONS) {
+                failedBatches.add(payments.size() + " payments from " + sourceAccountNumber + ": " + reason);
+            }
+            return false;
+        }
+    }
+
+    private PaymentRequest parseCsv(String line) {
+        String[] columns = line.split(",", 5);
+        if (columns.length < 3) {
+            throw new IllegalArgumentException("expected at least source account, destination account and amount");
+        }
+        PaymentRequest request = new PaymentRequest();
+        request.setSourceAccountNumber(columns[0].trim());
+        request.setDestinationAccountNumber(columns[1].trim());
+        request.setAmount(new BigDecimal(columns[2].trim()));
+        if (columns.length > 3 && !columns[3].isBlank()) {
+            request.setCurrency(columns[3].trim());
+        }
+        if (columns.length > 4) {
+            request.setDescription(columns[4].trim());
+        }
+        return request;
+    }
+
+    /**
+     * Reads the rows of an upload, keeping at most {@link #MAX_ROW_LENGTH} characters of each, so a file
+     * without line breaks cannot fill the heap.
+     */
+    private static final class RowReader implements AutoCloseable {
+
+        private final Reader reader;
+        private final StringBuilder row = new StringBuilder();
+        private int lineNumber;
+        private boolean truncated;
+        private boolean endOfInput;
+
+        private RowReader(Reader reader) {
+            this.reader = new BufferedReader(reader);
+        }
+
+        /**
+         * Returns the next row without its line break, or null at the end of the input.
+         */
+        private String next() throws IOException {
+            if (endOfInput) {
+                return null;
+            }
+            row.setLength(0);
+            truncated = false;
+            int c;
+            while ((c = reader.read()) != -1 && c != '\n') {
+                if (row.length() < MAX_ROW_LENGTH) {
+                    row.append((char) c);
+                } else {
+                    truncated = true;
+                }
+            }
+            if (c == -1) {
+                endOfInput = true;
+                if (row.isEmpty() && !truncated) {
+                    return null;
+                }
+            }
+            lineNumber++;
+            int length = row.length();
+            return length > 0 && row.charAt(length - 1) == '\r' ? row.substring(0, length - 1) : row.toString();
+        }
+
+        private int lineNumber() {
+            return lineNumber;
+        }
+
+        private boolean truncated() {
+            return truncated;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * Position of a consumed message on Kafka.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+public record MessageOffset(String topic, int partition, long offset) {
+
+    /**
+     * @return the position of the received message, or null if the headers do not carry one
+     */
+    public static MessageOffset of(MessageHeaders headers) {
+        String topic = headers.get(KafkaHeaders.RECEIVED_TOPIC, String.class);
+        Integer partition = headers.get(KafkaHeaders.RECEIVED_PARTITION, Integer.class);
+        Long offset = headers.get(KafkaHeaders.OFFSET, Long.class);
+        return topic != null && partition != null && offset != null ? new MessageOffset(topic, partition, offset) : null;
+    }
+
+    @Override
+    public String toString() {
+        return topic + "-" + partition + "@" + offset;
+    }
+}
@@ -0,0 +1,157 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import com.rajeswaran.sagaorchestrator.dto.ArchivedSagaStep;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary;
+import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import com.rajeswaran.sagaorchestrator.repository.SagaArchiveRepository;
+import com.rajeswaran.sagaorchestrator.repository.SagaInstanceRepository;
+import com.rajeswaran.sagaorchestrator.repository.SagaStepInstanceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Moves terminal sagas out of the hot {@code saga_instance} and {@code saga_step_instance} tables.
+ *
+ * On a fixed interval, COMPLETED and ROLLED_BACK sagas created longer ago than the retention period
+ * are archived in chunks, each in its own short transaction: the chunk's saga rows are locked with
+ * SKIP LOCKED, so several orchestrator instances archive different sagas, a summary row with the
+ * saga's steps compressed into one blob is written to {@code saga_archive}, and the saga and step
+ * rows are deleted. Sagas still in progress are never touched.
+ *
+ * Archived sagas are looked up by ID through their summary row; their steps are only decompressed
+ * when asked for.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@Service
+@Slf4j
+public class SagaArchiver {
+
+    private static final Set<SagaConstants.SagaStatus> TERMINAL_STATUSES =
+            Set.of(SagaConstants.SagaStatus.COMPLETED, SagaConstants.SagaStatus.ROLLED_BACK);
+
+    private static final String INSERT_ARCHIVE_SQL =
+            "INSERT INTO saga_archive (id, saga_name, status, current_step, step_count, steps, created_at, updated_at, archived_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final SagaInstanceRepository sagaInstanceRepository;
+    private final SagaStepInstanceRepository sagaStepInstanceRepository;
+    private final SagaArchiveRepository sagaArchiveRepository;
+    private final SagaStepPayloadCodec sagaStepPayloadCodec;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int chunkSize;
+
+    public SagaArchiver(SagaInstanceRepository sagaInstanceRepository,
+                        SagaStepInstanceRepository sagaStepInstanceRepository,
+                        SagaArchiveRepository sagaArchiveRepository,
+                        SagaStepPayloadCodec sagaStepPayloadCodec,
+                        JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${saga.archive.enabled:true}") boolean enabled,
+                        @Value("${saga.archive.retention:7d}") Duration retention,
+                        @Value("${saga.archive.chunk-size:200}") int chunkSize) {
+        this.sagaInstanceRepository = sagaInstanceRepository;
+        this.sagaStepInstanceRepository = sagaStepInstanceRepository;
+        this.sagaArchiveRepository = sagaArchiveRepository;
+        this.sagaStepPayloadCodec = sagaStepPayloadCodec;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${saga.archive.interval-ms:60000}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int archived = 0;
+        try {
+            int chunk;
+            do {
+                chunk = transactionTemplate.execute(status -> archiveChunk(cutoff));
+                archived += chunk;
+            } while (chunk == chunkSize);
+        } catch (Exception e) {
+            log.error("Failed to archive sagas created before {}: {}", cutoff, e.getMessage(), e);
+        }
+        if (archived > 0) {
+            log.info("Archived {} sagas created before {}", archived, cutoff);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<SagaInstanceSummary> findArchivedSaga(Long sagaId) {
+        return sagaArchiveRepository.findSummary(sagaId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<List<ArchivedSagaStep>> getArchivedSteps(Long sagaId) {
+        return sagaArchiveRepository.findById(sagaId)
+                .map(archive -> List.of(sagaStepPayloadCodec.decompress(archive.getSteps(), ArchivedSagaStep[].class)));
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<SagaInstance> sagas = sagaInstanceRepository.findArchivable(TERMINAL_STATUSES, cutoff, Limit.of(chunkSize));
+        if (sagas.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> sagaIds = sagas.stream().map(SagaInstance::getId).toList();
+        Map<Long, List<ArchivedSagaStep>> stepsBySaga = sagaStepInstanceRepository.findAllBySagaIds(sagaIds).stream()
+                .collect(Collectors.groupingBy(step -> step.getSagaInstance().getId(),
+                        Collectors.mapping(this::toArchivedStep, Collectors.toList())));
+
+        Timestamp archivedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(sagas.size());
+        for (SagaInstance saga : sagas) {
+            List<ArchivedSagaStep> steps = stepsBySaga.getOrDefault(saga.getId(), List.of());
+            rows.add(new Object[]{
+                    saga.getId(),
+                    saga.getSagaName(),
+                    saga.getStatus().name(),
+                    saga.getCurrentStep(),
+                    steps.size(),
+                    sagaStepPayloadCodec.compress(steps.toArray(ArchivedSagaStep[]::new)),
+                    saga.getCreatedAt() != null ? Timestamp.valueOf(saga.getCreatedAt()) : null,
+                    saga.getUpdatedAt() != null ? Timestamp.valueOf(saga.getUpdatedAt()) : null,
+                    archivedAt
+            });
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ARCHIVE_SQL, rows);
+        sagaStepInstanceRepository.deleteAllBySagaIds(sagaIds);
+        sagaInstanceRepository.deleteAllBySagaIds(sagaIds);
+        return sagas.size();
+    }
+
+    private ArchivedSagaStep toArchivedStep(SagaStepInstance step) {
+        String payload = sagaStepPayloadCodec.render(step.getPayloadFormat(), step.getPayload(), step.getPayloadData()).orElse(null);
+        return new ArchivedSagaStep(step.getId(), step.getStepName(), step.getStatus(), step.getCreatedAt(), step.getUpdatedAt(), payload);
+    }
+}
@@ -0,0 +1,89 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajeswaran.common.messaging.SagaBinaryCodec;
+import com.rajeswaran.common.messaging.SagaPartitionKeyExtractor;
+import com.rajeswaran.common.util.CorrelationIdMessageUtils;
+import com.rajeswaran.sagaorchestrator.entity.SagaOutboxMessage;
+import com.rajeswaran.sagaorchestrator.repository.SagaOutboxMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Transactional outbox for saga commands.
+ *
+ * Commands are stored in the caller's transaction, next to the step record that starts them,
+ * and published to Kafka by the {@link SagaOutboxRelay} after the transaction commits.
+ * Commands are stored already encoded in the wire format set by {@code saga.outbox.content-type},
+ * the {@link SagaBinaryCodec} encoding by default, so the relay sends the stored bytes as they are.
+ */
+@Service
+@Slf4j
+public class SagaOutbox {
+
+    private final SagaOutboxMessageRepository outboxMessageRepository;
+    private final SagaOutboxRelay outboxRelay;
+    private final SagaBinaryCodec sagaBinaryCodec;
+    private final ObjectMapper objectMapper;
+    private final boolean binary;
+
+    public SagaOutbox(SagaOutboxMessageRepository outboxMessageRepository,
+                      SagaOutboxRelay outboxRelay,
+                      SagaBinaryCodec sagaBinaryCodec,
+                      ObjectMapper objectMapper,
+                      @Value("${saga.outbox.content-type:" + SagaBinaryCodec.CONTENT_TYPE + "}") String contentType) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.outboxRelay = outboxRelay;
+        this.sagaBinaryCodec = sagaBinaryCodec;
+        this.objectMapper = objectMapper;
+        this.binary = SagaBinaryCodec.isBinary(contentType);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void send(Long sagaId, String bindingName, Object command) {
+        SagaOutboxMessage.SagaOutboxMessageBuilder builder = SagaOutboxMessage.builder();
+        try {
+            if (binary) {
+                builder.payloadData(sagaBinaryCodec.encode(command));
+            } else {
+                builder.payload(objectMapper.writeValueAsString(command));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize command " + command.getClass().getSimpleName(), e);
+        }
+        SagaOutboxMessage outboxMessage = builder
+                .sagaId(sagaId)
+                .bindingName(bindingName)
+                .partitionKey(SagaPartitionKeyExtractor.keyFor(command))
+                .correlationId(CorrelationIdMessageUtils.getCurrentCorrelationId())
+                .build();
+        outboxMessageRepository.save(outboxMessage);
+        log.debug("Stored {} for saga {} in outbox for binding {}", command.getClass().getSimpleName(), sagaId, bindingName);
+
+        // Publish as soon as the command is committed instead of waiting for the next poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.wakeUp();
+            }
+        });
+    }
+
+    /**
+     * Returns which of the given sagas still have commands waiting to be relayed.
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> findSagasWithPendingCommands(Collection<Long> sagaIds) {
+        return outboxMessageRepository.findSagaIdsWithPendingMessages(sagaIds);
+    }
+}
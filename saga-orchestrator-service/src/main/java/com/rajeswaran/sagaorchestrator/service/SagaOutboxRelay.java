@@ -0,0 +1,232 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.rajeswaran.common.AppConstants;
+import com.rajeswaran.common.messaging.SagaBinaryCodec;
+import com.rajeswaran.sagaorchestrator.entity.SagaOutboxMessage;
+import com.rajeswaran.sagaorchestrator.repository.SagaOutboxMessageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.DefaultKafkaHeaderMapper;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the saga outbox to Kafka in batches.
+ *
+ * A single relay thread wakes up whenever a transaction that wrote to the outbox commits, or
+ * after the poll interval at the latest. Each batch locks the oldest pending message of every saga
+ * with SKIP LOCKED, then the messages queued behind them, so several orchestrator instances can relay
+ * side by side without two of them holding messages of the same saga.
+ *
+ * The whole batch is sent asynchronously with the {@link KafkaTemplate} and its acknowledgements are
+ * awaited together; acknowledged messages are then deleted in one statement. Messages of one saga are
+ * chained, each sent once the previous one has been acknowledged, which keeps per-saga order. When a
+ * send fails or is not acknowledged within {@code saga.outbox.send-timeout-ms}, the message and the rest
+ * of its saga stay in the outbox and are retried with the next batch.
+ *
+ * Commands go to the destination of their output binding, on the partition the binder's partitioning
+ * ({@code partition-key-extractor-name}, {@code partition-count}) would choose for their partition key, so
+ * keys keep their partitions. Payloads are stored by the {@link SagaOutbox} already encoded and are sent
+ * as they are: binary payloads with the {@link SagaBinaryCodec} content type, JSON text as JSON.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class SagaOutboxRelay {
+
+    private final SagaOutboxMessageRepository outboxMessageRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final BindingServiceProperties bindingServiceProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long sendTimeoutMs;
+    // Headers are written JSON encoded with their types, the way the binder writes them
+    private final DefaultKafkaHeaderMapper headerMapper = new DefaultKafkaHeaderMapper();
+    // Sends the next message of a saga once the previous one is acknowledged, off the producer's I/O thread
+    private final ExecutorService chainedSends = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("saga-outbox-send").daemon(true).factory());
+
+    private final Semaphore signal = new Semaphore(0);
+    private volatile boolean running;
+    private Thread worker;
+
+    public SagaOutboxRelay(SagaOutboxMessageRepository outboxMessageRepository,
+                           KafkaTemplate<String, byte[]> kafkaTemplate,
+                           BindingServiceProperties bindingServiceProperties,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${saga.outbox.batch-size:500}") int batchSize,
+                           @Value("${saga.outbox.poll-interval-ms:500}") long pollIntervalMs,
+                           @Value("${saga.outbox.send-timeout-ms:30000}") long sendTimeoutMs) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.bindingServiceProperties = bindingServiceProperties;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        headerMapper.setEncodeStrings(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("saga-outbox-relay").daemon(true).start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        signal.release();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        chainedSends.shutdownNow();
+    }
+
+    public void wakeUp() {
+        signal.release();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                signal.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+                while (running && relayBatch() > 0) {
+                    // Keep draining while messages are being sent
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Saga outbox relay failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private int relayBatch() throws InterruptedException {
+        Integer sent = transactionTemplate.execute(status -> {
+            List<SagaOutboxMessage> heads = outboxMessageRepository.findNextBatch(batchSize);
+            if (heads.isEmpty()) {
+                return 0;
+            }
+            List<SagaOutboxMessage> batch = outboxMessageRepository.findPendingForSagas(
+                    heads.stream().map(SagaOutboxMessage::getSagaId).toList(), batchSize);
+
+            Map<SagaOutboxMessage, CompletableFuture<?>> sends = new LinkedHashMap<>();
+            Map<Long, CompletableFuture<?>> lastSendOfSaga = new HashMap<>();
+            for (SagaOutboxMessage outboxMessage : batch) {
+                CompletableFuture<?> previous = lastSendOfSaga.get(outboxMessage.getSagaId());
+                CompletableFuture<?> send = previous == null
+                        ? publish(outboxMessage)
+                        : previous.thenComposeAsync(acknowledged -> publish(outboxMessage), chainedSends);
+                lastSendOfSaga.put(outboxMessage.getSagaId(), send);
+                sends.put(outboxMessage, send);
+            }
+            awaitAll(sends.values());
+
+            List<Long> sentIds = new ArrayList<>(batch.size());
+            sends.forEach((outboxMessage, send) -> {
+                if (send.isDone() && !send.isCompletedExceptionally()) {
+                    sentIds.add(outboxMessage.getId());
+                }
+            });
+            outboxMessageRepository.deleteAllByIdInBatch(sentIds);
+            log.debug("Relayed {} of {} outbox messages", sentIds.size(), batch.size());
+            return sentIds.size();
+        });
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return sent != null ? sent : 0;
+    }
+
+    private void awaitAll(Iterable<CompletableFuture<?>> sends) {
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        sends.forEach(pending::add);
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Failed sends have been logged; the rest of the batch is still deleted
+        } catch (TimeoutException e) {
+            log.warn("Outbox messages not acknowledged within {} ms; they are sent again with the next batch", sendTimeoutMs);
+        } catch (InterruptedException e) {
+            // Nothing of the batch is known to be sent; the caller stops the relay
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<?> publish(SagaOutboxMessage outboxMessage) {
+        try {
+            boolean binary = outboxMessage.getPayloadData() != null;
+            Map<String, Object> headers = new HashMap<>();
+            headers.put(MessageHeaders.CONTENT_TYPE, binary ? SagaBinaryCodec.CONTENT_TYPE : MimeTypeUtils.APPLICATION_JSON_VALUE);
+            if (outboxMessage.getCorrelationId() != null) {
+                headers.put(AppConstants.CORRELATION_ID_HEADER, outboxMessage.getCorrelationId());
+            }
+            if (outboxMessage.getPartitionKey() != null) {
+                headers.put(AppConstants.PARTITION_KEY_HEADER, outboxMessage.getPartitionKey());
+            }
+            RecordHeaders recordHeaders = new RecordHeaders();
+            headerMapper.fromHeaders(new MessageHeaders(headers), recordHeaders);
+
+            String bindingName = outboxMessage.getBindingName();
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+                    bindingServiceProperties.getBindingDestination(bindingName),
+                    partitionOf(outboxMessage, bindingName),
+                    outboxMessage.getPartitionKey(),
+                    binary ? outboxMessage.getPayloadData() : outboxMessage.getPayload().getBytes(StandardCharsets.UTF_8),
+                    recordHeaders);
+            return kafkaTemplate.send(record).whenComplete((result, failure) -> {
+                if (failure != null) {
+                    logFailure(outboxMessage, failure);
+                }
+            });
+        } catch (Exception e) {
+            logFailure(outboxMessage, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Partition the binder's default partition selector picks for the message's partition key.
+     */
+    private Integer partitionOf(SagaOutboxMessage outboxMessage, String bindingName) {
+        int partitionCount = bindingServiceProperties.getProducerProperties(bindingName).getPartitionCount();
+        if (partitionCount <= 1) {
+            return null;
+        }
+        // Messages stored without a key are spread like the binder spreads them, by a per-message value
+        Object key = outboxMessage.getPartitionKey() != null ? outboxMessage.getPartitionKey() : outboxMessage.getId();
+        int hashCode = key.hashCode();
+        return Math.abs((hashCode == Integer.MIN_VALUE ? 0 : Math.abs(hashCode)) % partitionCount);
+    }
+
+    private void logFailure(SagaOutboxMessage outboxMessage, Throwable failure) {
+        log.warn("Failed to relay outbox message {} for saga {} to {}: {}",
+                outboxMessage.getId(), outboxMessage.getSagaId(), outboxMessage.getBindingName(), failure.getMessage());
+    }
+}
@@ -0,0 +1,129 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import com.rajeswaran.sagaorchestrator.saga.engine.SagaEventDispatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Resumes in-flight sagas when the orchestrator starts.
+ *
+ * The IDs of IN_PROGRESS sagas are paged from the (status, created_at) index without reading saga rows,
+ * and each page is handed to a bounded pool of workers, so recovery time grows with the backlog divided
+ * by the pool size. A worker reads the page's STARTED steps that are past their deadline and resends the
+ * command of those that are safe to resend, unless the saga still has commands waiting in the outbox,
+ * which the relay publishes anyway. Steps still within their deadline are left alone, as their reply can
+ * still reach any instance, and nothing is cached, so sagas driven by other instances stay out of this cache.
+ * Resent commands keep their command ID, and each step is claimed by pushing out its deadline first, so
+ * a step is resent once even when several orchestrator instances start together or the
+ * {@link SagaTimeoutSweeper} reaches it first. Steps that are not safe to resend are left to the sweeper.
+ *
+ * Replies consumed but not committed before the restart are redelivered by Kafka; the
+ * {@link SagaEventDispatcher} ignores those whose step has already been answered.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class SagaRecovery {
+
+    private final SagaStateManager sagaStateManager;
+    private final SagaEventDispatcher sagaEventDispatcher;
+    private final SagaOutbox sagaOutbox;
+    private final boolean enabled;
+    private final int workers;
+    private final int pageSize;
+
+    public SagaRecovery(SagaStateManager sagaStateManager,
+                        SagaEventDispatcher sagaEventDispatcher,
+                        SagaOutbox sagaOutbox,
+                        @Value("${saga.recovery.enabled:true}") boolean enabled,
+                        @Value("${saga.recovery.workers:4}") int workers,
+                        @Value("${saga.recovery.page-size:500}") int pageSize) {
+        this.sagaStateManager = sagaStateManager;
+        this.sagaEventDispatcher = sagaEventDispatcher;
+        this.sagaOutbox = sagaOutbox;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.pageSize = pageSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        List<Future<Integer>> pages = new ArrayList<>();
+        int sagas = 0;
+        int resent = 0;
+        // Virtual threads, but only as many as there are workers, so recovery does not drain the connection pool
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("saga-recovery-", 0).factory())) {
+            Long afterId = 0L;
+            List<Long> sagaIds;
+            do {
+                sagaIds = sagaStateManager.findInProgressSagaIds(afterId, pageSize);
+                if (!sagaIds.isEmpty()) {
+                    List<Long> page = sagaIds;
+                    pages.add(executor.submit(() -> recoverPage(page)));
+                    sagas += page.size();
+                    afterId = page.get(page.size() - 1);
+                }
+            } while (sagaIds.size() == pageSize);
+
+            for (Future<Integer> page : pages) {
+                resent += page.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Saga recovery interrupted");
+            return;
+        } catch (ExecutionException e) {
+            log.error("Failed to recover in-flight sagas: {}", e.getCause().getMessage(), e.getCause());
+        } catch (Exception e) {
+            log.error("Failed to recover in-flight sagas: {}", e.getMessage(), e);
+        }
+
+        log.info("Recovered {} in-flight sagas and resent {} steps in {} ms", sagas, resent, System.currentTimeMillis() - startedAt);
+    }
+
+    private int recoverPage(List<Long> sagaIds) {
+        List<SagaStepInstance> expiredSteps = sagaStateManager.findExpiredSteps(sagaIds);
+        if (expiredSteps.isEmpty()) {
+            return 0;
+        }
+        Set<Long> pendingSagaIds = sagaOutbox.findSagasWithPendingCommands(
+                expiredSteps.stream().map(step -> step.getSagaInstance().getId()).collect(Collectors.toSet()));
+
+        int resent = 0;
+        for (SagaStepInstance step : expiredSteps) {
+            Long sagaId = step.getSagaInstance().getId();
+            if (pendingSagaIds.contains(sagaId)) {
+                continue;
+            }
+            try {
+                if (sagaEventDispatcher.dispatchRecovery(step)) {
+                    log.info("Resent step '{}' of saga {}", step.getStepName(), sagaId);
+                    resent++;
+                }
+            } catch (Exception e) {
+                log.error("Failed to resend step '{}' of saga {}: {}", step.getStepName(), sagaId, e.getMessage(), e);
+            }
+        }
+        return resent;
+    }
+}
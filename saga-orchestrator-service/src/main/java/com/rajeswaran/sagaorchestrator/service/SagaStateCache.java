@@ -0,0 +1,118 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory cache of in-flight sagas and their most recent step records, keyed by saga ID.
+ *
+ * Sits in front of the saga repositories so that step transitions for live sagas can be
+ * written without reading the saga or the step back from the database. Sagas are removed as
+ * soon as they reach a terminal state.
+ *
+ * Lookups only read a {@link ConcurrentHashMap} and stamp the entry's last access time, so
+ * event handlers never wait on each other here. Eviction is a separate pass: once the cache
+ * grows past its maximum size, the thread that notices removes the least recently used tenth
+ * of the sagas while other threads carry on.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@Component
+public class SagaStateCache {
+
+    private final Map<Long, CachedSaga> sagas = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final int evictTo;
+    // Not synchronized: threads that find eviction running skip it instead of waiting
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public SagaStateCache(@Value("${saga.cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.evictTo = maxSize - Math.max(1, maxSize / 10);
+    }
+
+    public void put(SagaInstance sagaInstance) {
+        sagas.put(sagaInstance.getId(), new CachedSaga(sagaInstance));
+        if (sagas.size() > maxSize) {
+            evict();
+        }
+    }
+
+    public SagaInstance getSagaInstance(Long sagaId) {
+        CachedSaga cachedSaga = touch(sagaId);
+        return cachedSaga != null ? cachedSaga.sagaInstance : null;
+    }
+
+    public void putStep(Long sagaId, SagaStepInstance stepInstance) {
+        CachedSaga cachedSaga = touch(sagaId);
+        if (cachedSaga != null) {
+            cachedSaga.steps.put(stepInstance.getStepName(), stepInstance);
+        }
+    }
+
+    public SagaStepInstance getStep(Long sagaId, String stepName) {
+        CachedSaga cachedSaga = touch(sagaId);
+        return cachedSaga != null ? cachedSaga.steps.get(stepName) : null;
+    }
+
+    public void remove(Long sagaId) {
+        sagas.remove(sagaId);
+    }
+
+    public int size() {
+        return sagas.size();
+    }
+
+    private CachedSaga touch(Long sagaId) {
+        CachedSaga cachedSaga = sagas.get(sagaId);
+        if (cachedSaga != null) {
+            cachedSaga.lastAccess = System.nanoTime();
+        }
+        return cachedSaga;
+    }
+
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = sagas.size() - evictTo;
+            if (excess <= 0) {
+                return;
+            }
+            // Access times are copied first, as handlers keep updating them while the entries are sorted
+            List<Candidate> eldest = sagas.entrySet().stream()
+                    .map(entry -> new Candidate(entry.getKey(), entry.getValue(), entry.getValue().lastAccess))
+                    .sorted(Comparator.comparingLong(Candidate::lastAccess))
+                    .limit(excess)
+                    .toList();
+            // Only removes the entry that was found, not one put again for the same saga meanwhile
+            eldest.forEach(candidate -> sagas.remove(candidate.sagaId(), candidate.cachedSaga()));
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private record Candidate(Long sagaId, CachedSaga cachedSaga, long lastAccess) {
+    }
+
+    private static final class CachedSaga {
+
+        private final SagaInstance sagaInstance;
+        private final Map<String, SagaStepInstance> steps = new ConcurrentHashMap<>();
+        private volatile long lastAccess = System.nanoTime();
+
+        private CachedSaga(SagaInstance sagaInstance) {
+            this.sagaInstance = sagaInstance;
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.rajeswaran.sagaorchestrator.service;
 
+import com.rajeswaran.common.pagination.KeysetPage;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceFilter;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary;
+import com.rajeswaran.sagaorchestrator.dto.SagaStepSummary;
 import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface SagaStateManager {
 
@@ -13,10 +20,42 @@ public interface SagaStateManager {
     
     // Step lifecycle (with mandatory payload for audit trail)
     void startStep(Long sagaId, String stepName, Object payload);
-    void completeStep(Long sagaId, String stepName, Object payload);
-    void failStep(Long sagaId, String stepName, Object errorMessage);
+    void completeStep(Long sagaId, String stepName, Object payload, MessageOffset offset);
+    void failStep(Long sagaId, String stepName, Object errorMessage, MessageOffset offset);
+
+    default void completeStep(Long sagaId, String stepName, Object payload) {
+        completeStep(sagaId, stepName, payload, null);
+    }
+
+    default void failStep(Long sagaId, String stepName, Object errorMessage) {
+        failStep(sagaId, stepName, errorMessage, null);
+    }
+
+    // Reads back the command a step sent, for retries and timeout compensation
+    <T> T readStepCommand(SagaStepInstance step, Class<T> commandType);
+
+    // Parallel step groups: the saga joins once the required number of branches have completed
+    void startJoin(Long sagaId, String joinGroup, int joinRequired);
+    boolean completeJoinBranch(Long sagaId, String joinGroup);
+
+    // Step deadlines: overdue STARTED steps are timed out by the SagaTimeoutSweeper
+    List<SagaStepInstance> findExpiredSteps(int limit);
+    boolean timeoutStep(SagaStepInstance stepInstance);
+    long countStepAttempts(Long sagaId, String stepName);
+
+    // Whether the latest record of the step is still STARTED, i.e. a reply for it has not been handled yet
+    boolean isAwaitingReply(Long sagaId, String stepName);
+
+    // Startup recovery: overdue STARTED steps of in-flight sagas are resent by the SagaRecovery
+    List<Long> findInProgressSagaIds(Long afterId, int limit);
+    List<SagaStepInstance> findExpiredSteps(List<Long> sagaIds);
+    boolean restartStep(SagaStepInstance stepInstance);
 
     // Saga query operations
-    List<SagaInstance> getAllSagaInstances();
+    Optional<SagaInstance> getSagaInstance(Long sagaId);
+    KeysetPage<SagaInstanceSummary> findSagaInstances(SagaInstanceFilter filter, Long afterId, Integer size);
+    Stream<SagaInstanceSummary> streamAllSagaInstances();
+    List<SagaStepSummary> getSagaSteps(Long sagaId);
+    Optional<String> getStepPayload(Long sagaId, Long stepId);
 
 }
@@ -1,26 +1,69 @@
 package com.rajeswaran.sagaorchestrator.service;
 
+import com.rajeswaran.common.pagination.KeysetPage;
 import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceFilter;
+import com.rajeswaran.sagaorchestrator.dto.SagaInstanceSummary;
+import com.rajeswaran.sagaorchestrator.dto.SagaStepSummary;
 import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
 import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
 import com.rajeswaran.sagaorchestrator.repository.SagaInstanceRepository;
 import com.rajeswaran.sagaorchestrator.repository.SagaStepInstanceRepository;
-import lombok.RequiredArgsConstructor;
+import com.rajeswaran.sagaorchestrator.service.SagaStepPayloadCodec.StoredPayload;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-import java.util.List;
-
+/**
+ * Saga state manager that writes every state transition as a single INSERT or UPDATE.
+ *
+ * In-flight sagas and their latest step records are held in the {@link SagaStateCache}, so
+ * completing or failing a step is an UPDATE by primary key and recording a new step does not
+ * read the saga first. The database is only read when a saga is not cached, e.g. after a
+ * restart or when it was started by another orchestrator instance. New steps are inserted right away;
+ * with write-behind enabled, completions and failures are handed to the {@link SagaStepWriteBehind},
+ * which writes them in one batch when the transaction commits.
+ *
+ * Cached records are changed before the transaction commits. If it rolls back, changed step records are
+ * restored and the saga is evicted, so the cache never holds state or IDs that were not committed.
+ *
+ * Every STARTED step is given a deadline, which is cleared when the step completes or fails.
+ * Step payloads are stored as decided by the {@link SagaStepPayloadCodec}.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class SagaStateManagerImpl implements SagaStateManager {
 
     private final SagaInstanceRepository sagaInstanceRepository;
     private final SagaStepInstanceRepository sagaStepInstanceRepository;
+    private final SagaStateCache sagaStateCache;
+    private final SagaStepWriteBehind sagaStepWriteBehind;
+    private final SagaStepPayloadCodec sagaStepPayloadCodec;
+    private final Duration stepTimeout;
+
+    public SagaStateManagerImpl(SagaInstanceRepository sagaInstanceRepository,
+                                SagaStepInstanceRepository sagaStepInstanceRepository,
+                                SagaStateCache sagaStateCache,
+                                SagaStepWriteBehind sagaStepWriteBehind,
+                                SagaStepPayloadCodec sagaStepPayloadCodec,
+                                @Value("${saga.timeout.step-timeout-ms:30000}") long stepTimeoutMs) {
+        this.sagaInstanceRepository = sagaInstanceRepository;
+        this.sagaStepInstanceRepository = sagaStepInstanceRepository;
+        this.sagaStateCache = sagaStateCache;
+        this.sagaStepWriteBehind = sagaStepWriteBehind;
+        this.sagaStepPayloadCodec = sagaStepPayloadCodec;
+        this.stepTimeout = Duration.ofMillis(stepTimeoutMs);
+    }
 
     @Override
     @Transactional
@@ -33,6 +76,8 @@ public class SagaStateManagerImpl implements SagaStateManager {
                 .currentStep(0)
                 .build();
         SagaInstance savedInstance = sagaInstanceRepository.save(sagaInstance);
+        sagaStateCache.put(savedInstance);
+        evictOnRollback(savedInstance.getId());
 
         log.info("Saga {} created successfully with ID: {}", sagaName, savedInstance.getId());
         return savedInstance;
@@ -56,64 +101,297 @@ public class SagaStateManagerImpl implements SagaStateManager {
     @Transactional
     public void startStep(Long sagaId, String stepName, Object payload) {
         log.info("Starting step '{}' for saga {}", stepName, sagaId);
-        recordStep(sagaId, stepName, SagaConstants.SagaStepStatus.STARTED, payload != null ? payload.toString() : "");
+        recordStep(sagaId, stepName, SagaConstants.SagaStepStatus.STARTED, encodeCommand(payload));
     }
 
     @Override
     @Transactional
-    public void completeStep(Long sagaId, String stepName, Object payload) {
+    public void completeStep(Long sagaId, String stepName, Object payload, MessageOffset offset) {
         log.info("Completing step '{}' for saga {}", stepName, sagaId);
-        updateStepStatus(sagaId, stepName, SagaConstants.SagaStepStatus.COMPLETED, payload != null ? payload.toString() : "");
+        updateStepStatus(sagaId, stepName, SagaConstants.SagaStepStatus.COMPLETED, encodeReply(payload, offset));
     }
 
     @Override
     @Transactional
-    public void failStep(Long sagaId, String stepName, Object errorMessage) {
+    public void failStep(Long sagaId, String stepName, Object errorMessage, MessageOffset offset) {
         log.info("Failing step '{}' for saga {} with error: {}", stepName, sagaId, errorMessage);
-        updateStepStatus(sagaId, stepName, SagaConstants.SagaStepStatus.FAILED, errorMessage != null ? errorMessage.toString() : "");
+        updateStepStatus(sagaId, stepName, SagaConstants.SagaStepStatus.FAILED, encodeReply(errorMessage, offset));
+    }
+
+    @Override
+    public <T> T readStepCommand(SagaStepInstance step, Class<T> commandType) {
+        return sagaStepPayloadCodec.readCommand(step, commandType);
+    }
+
+    @Override
+    @Transactional
+    public void startJoin(Long sagaId, String joinGroup, int joinRequired) {
+        log.info("Saga {} waiting on {} branches of group '{}'", sagaId, joinRequired, joinGroup);
+        int updated = sagaInstanceRepository.startJoin(sagaId, joinGroup, joinRequired, LocalDateTime.now());
+        if (updated == 0) {
+            throw new RuntimeException("Saga instance not found: " + sagaId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public boolean completeJoinBranch(Long sagaId, String joinGroup) {
+        int updated = sagaInstanceRepository.incrementJoin(sagaId, joinGroup, SagaConstants.SagaStatus.IN_PROGRESS, LocalDateTime.now());
+        if (updated == 0) {
+            log.debug("Ignoring branch of group '{}' for saga {}: not waiting on it", joinGroup, sagaId);
+            return false;
+        }
+        return sagaInstanceRepository.isJoinComplete(sagaId);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<SagaInstance> getAllSagaInstances() {
-        log.info("Retrieving all saga instances with step instances");
-        return sagaInstanceRepository.findAllWithStepInstances();
+    public List<SagaStepInstance> findExpiredSteps(int limit) {
+        return sagaStepInstanceRepository.findExpired(SagaConstants.SagaStepStatus.STARTED, LocalDateTime.now(), Limit.of(limit));
+    }
+
+    @Override
+    @Transactional
+    public boolean timeoutStep(SagaStepInstance stepInstance) {
+        Long sagaId = stepInstance.getSagaInstance().getId();
+        LocalDateTime now = LocalDateTime.now();
+        int updated = sagaStepInstanceRepository.updateStatusIfCurrent(stepInstance.getId(),
+                SagaConstants.SagaStepStatus.STARTED, stepInstance.getDeadline(), SagaConstants.SagaStepStatus.FAILED, now);
+        if (updated == 0) {
+            return false;
+        }
+
+        log.warn("Step '{}' of saga {} timed out (deadline {})", stepInstance.getStepName(), sagaId, stepInstance.getDeadline());
+        SagaStepInstance cached = sagaStateCache.getStep(sagaId, stepInstance.getStepName());
+        if (cached != null && stepInstance.getId().equals(cached.getId())) {
+            restoreOnRollback(sagaId, cached);
+            cached.setStatus(SagaConstants.SagaStepStatus.FAILED);
+            cached.setDeadline(null);
+            cached.setUpdatedAt(now);
+        }
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countStepAttempts(Long sagaId, String stepName) {
+        return sagaStepInstanceRepository.countBySagaInstanceIdAndStepName(sagaId, stepName);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isAwaitingReply(Long sagaId, String stepName) {
+        SagaStepInstance cached = sagaStateCache.getStep(sagaId, stepName);
+        if (cached != null) {
+            return cached.getStatus() == SagaConstants.SagaStepStatus.STARTED;
+        }
+
+        sagaStepWriteBehind.flush();
+        // A missing step is left to the caller, which fails the saga when it tries to update it
+        return sagaStepInstanceRepository.findFirstBySagaInstanceIdAndStepNameOrderByIdDesc(sagaId, stepName)
+                .map(step -> step.getStatus() == SagaConstants.SagaStepStatus.STARTED)
+                .orElse(true);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findInProgressSagaIds(Long afterId, int limit) {
+        return sagaInstanceRepository.findIdsByStatus(SagaConstants.SagaStatus.IN_PROGRESS, afterId, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SagaStepInstance> findExpiredSteps(List<Long> sagaIds) {
+        // Read-only, so sagas owned by other orchestrator instances are not pulled into this instance's cache
+        return sagaStepInstanceRepository.findExpiredBySagaIds(sagaIds, SagaConstants.SagaStepStatus.STARTED, LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional
+    public boolean restartStep(SagaStepInstance stepInstance) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime deadline = now.plus(stepTimeout);
+        int updated = sagaStepInstanceRepository.updateDeadlineIfCurrent(stepInstance.getId(),
+                SagaConstants.SagaStepStatus.STARTED, stepInstance.getDeadline(), deadline, now);
+        if (updated == 0) {
+            return false;
+        }
+
+        Long sagaId = stepInstance.getSagaInstance().getId();
+        SagaStepInstance cached = sagaStateCache.getStep(sagaId, stepInstance.getStepName());
+        if (cached != null && stepInstance.getId().equals(cached.getId())) {
+            restoreOnRollback(sagaId, cached);
+            cached.setDeadline(deadline);
+            cached.setUpdatedAt(now);
+        }
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<SagaInstance> getSagaInstance(Long sagaId) {
+        SagaInstance cached = sagaStateCache.getSagaInstance(sagaId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return sagaInstanceRepository.findById(sagaId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<SagaInstanceSummary> findSagaInstances(SagaInstanceFilter filter, Long afterId, Integer size) {
+        int pageSize = KeysetPage.boundedSize(size);
+        List<SagaInstanceSummary> sagaInstances = sagaInstanceRepository.findSummaries(filter, afterId, pageSize);
+        return KeysetPage.of(sagaInstances, pageSize, SagaInstanceSummary::id);
+    }
+
+    @Override
+    public Stream<SagaInstanceSummary> streamAllSagaInstances() {
+        return sagaInstanceRepository.streamAllSummaries();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SagaStepSummary> getSagaSteps(Long sagaId) {
+        return sagaStepInstanceRepository.findSummariesBySagaInstanceId(sagaId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getStepPayload(Long sagaId, Long stepId) {
+        return sagaStepInstanceRepository.findByIdAndSagaInstanceId(stepId, sagaId)
+                .flatMap(step -> sagaStepPayloadCodec.render(step.getPayloadFormat(), step.getPayload(), step.getPayloadData()));
     }
 
     // Private helper methods
     
     private void updateSagaStatus(Long sagaId, SagaConstants.SagaStatus status) {
-        SagaInstance sagaInstance = sagaInstanceRepository.findById(sagaId)
-                .orElseThrow(() -> new RuntimeException("Saga instance not found: " + sagaId));
-        
-        sagaInstance.setStatus(status);
-        sagaInstanceRepository.save(sagaInstance);
+        int updated = sagaInstanceRepository.updateStatus(sagaId, status, LocalDateTime.now());
+        if (updated == 0) {
+            throw new RuntimeException("Saga instance not found: " + sagaId);
+        }
+        // Terminal sagas no longer need to be cached
+        sagaStateCache.remove(sagaId);
     }
 
-    private void recordStep(Long sagaId, String stepName, SagaConstants.SagaStepStatus status, String payload) {
-        SagaInstance sagaInstance = sagaInstanceRepository.findById(sagaId)
-                .orElseThrow(() -> new RuntimeException("Saga instance not found: " + sagaId));
-        
+    private StoredPayload encodeCommand(Object command) {
+        return command != null ? sagaStepPayloadCodec.encodeCommand(command) : StoredPayload.NONE;
+    }
+
+    private StoredPayload encodeReply(Object reply, MessageOffset offset) {
+        return reply != null ? sagaStepPayloadCodec.encodeReply(reply, offset) : StoredPayload.NONE;
+    }
+
+    private void recordStep(Long sagaId, String stepName, SagaConstants.SagaStepStatus status, StoredPayload payload) {
+        LocalDateTime now = LocalDateTime.now();
         SagaStepInstance stepInstance = SagaStepInstance.builder()
-                .sagaInstance(sagaInstance)
+                .sagaInstance(resolveSagaInstance(sagaId))
                 .stepName(stepName)
                 .status(status)
-                .payload(payload != null ? payload : "")
+                .payloadFormat(payload.format())
+                .payload(payload.text())
+                .payloadData(payload.data())
+                .deadline(now.plus(stepTimeout))
+                .updatedAt(now)
                 .build();
-        
+
+        // Always inserted right away: the step's command is already in the outbox and its reply must find the row
         sagaStepInstanceRepository.save(stepInstance);
+        sagaStateCache.putStep(sagaId, stepInstance);
+        evictOnRollback(sagaId);
     }
     
-    private void updateStepStatus(Long sagaId, String stepName, SagaConstants.SagaStepStatus status, String payload) {
+    private void updateStepStatus(Long sagaId, String stepName, SagaConstants.SagaStepStatus status, StoredPayload payload) {
+        SagaStepInstance stepInstance = resolveStep(sagaId, stepName);
+        restoreOnRollback(sagaId, stepInstance);
+        stepInstance.setStatus(status);
+        stepInstance.setPayloadFormat(payload.format());
+        stepInstance.setPayload(payload.text());
+        stepInstance.setPayloadData(payload.data());
+        stepInstance.setDeadline(null);
+        stepInstance.setUpdatedAt(LocalDateTime.now());
+
+        if (sagaStepWriteBehind.isEnabled()) {
+            sagaStepWriteBehind.enqueue(stepInstance);
+            return;
+        }
+
+        int updated = sagaStepInstanceRepository.updateStatus(stepInstance.getId(), status,
+                stepInstance.getPayloadFormat(), stepInstance.getPayload(), stepInstance.getPayloadData(), stepInstance.getUpdatedAt());
+        if (updated == 0) {
+            throw new RuntimeException("Step instance not found for saga " + sagaId + " and step: " + stepName);
+        }
+    }
+
+    private void evictOnRollback(Long sagaId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    sagaStateCache.remove(sagaId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Restores a step record changed in place if the transaction rolls back. Other threads may still hold the
+     * record from before the eviction, so evicting it from the cache alone is not enough.
+     */
+    private void restoreOnRollback(Long sagaId, SagaStepInstance stepInstance) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        SagaConstants.SagaStepStatus status = stepInstance.getStatus();
+        SagaConstants.StepPayloadFormat payloadFormat = stepInstance.getPayloadFormat();
+        String payload = stepInstance.getPayload();
+        byte[] payloadData = stepInstance.getPayloadData();
+        LocalDateTime deadline = stepInstance.getDeadline();
+        LocalDateTime updatedAt = stepInstance.getUpdatedAt();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int completionStatus) {
+                if (completionStatus != STATUS_COMMITTED) {
+                    stepInstance.setStatus(status);
+                    stepInstance.setPayloadFormat(payloadFormat);
+                    stepInstance.setPayload(payload);
+                    stepInstance.setPayloadData(payloadData);
+                    stepInstance.setDeadline(deadline);
+                    stepInstance.setUpdatedAt(updatedAt);
+                    sagaStateCache.remove(sagaId);
+                }
+            }
+        });
+    }
+
+    private SagaInstance resolveSagaInstance(Long sagaId) {
+        SagaInstance cached = sagaStateCache.getSagaInstance(sagaId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Saga was started by another orchestrator instance, before a restart, or has been evicted
         SagaInstance sagaInstance = sagaInstanceRepository.findById(sagaId)
                 .orElseThrow(() -> new RuntimeException("Saga instance not found: " + sagaId));
-        
-        // Find the most recent step with the given name
-        SagaStepInstance stepInstance = sagaStepInstanceRepository.findFirstBySagaInstanceAndStepNameOrderByCreatedAtDesc(sagaInstance, stepName)
+        sagaStateCache.put(sagaInstance);
+        return sagaInstance;
+    }
+
+    private SagaStepInstance resolveStep(Long sagaId, String stepName) {
+        SagaStepInstance cached = sagaStateCache.getStep(sagaId, stepName);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Make sure steps queued by this transaction are visible before falling back to the database
+        sagaStepWriteBehind.flush();
+        SagaStepInstance stepInstance = sagaStepInstanceRepository.findFirstBySagaInstanceIdAndStepNameOrderByIdDesc(sagaId, stepName)
                 .orElseThrow(() -> new RuntimeException("Step instance not found for saga " + sagaId + " and step: " + stepName));
-        
-        stepInstance.setStatus(status);
-        stepInstance.setPayload(payload != null ? payload : "");
-        sagaStepInstanceRepository.save(stepInstance);
+        resolveSagaInstance(sagaId);
+        sagaStateCache.putStep(sagaId, stepInstance);
+        return stepInstance;
     }
 }
@@ -0,0 +1,227 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajeswaran.common.messaging.SagaBinaryCodec;
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants.StepPayloadFormat;
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decides what is kept of a payload in a step record, according to {@code saga.state.step-payload.retention}:
+ * <ul>
+ *   <li>{@code JSON}: the JSON text of the command or event</li>
+ *   <li>{@code COMPRESSED}: the saga binary encoding, deflated</li>
+ *   <li>{@code KAFKA_OFFSET}: for replies, only where the event can be found on Kafka</li>
+ *   <li>{@code NONE}: nothing once the step has been answered</li>
+ * </ul>
+ *
+ * The command of a STARTED step is always kept, as JSON in {@code JSON} mode and compressed otherwise,
+ * because a timed-out step is retried or compensated from it. The retention mode applies to the reply
+ * that completes or fails the step and replaces the command.
+ *
+ * Each mode reports the bytes it stores as {@code saga.step.payload.stored.bytes}, tagged by format.
+ * {@code JSON} and {@code COMPRESSED} also report the bytes they save compared to the JSON text as
+ * {@code saga.step.payload.saved.bytes}; {@code KAFKA_OFFSET} and {@code NONE} never serialize the reply,
+ * so they do not.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class SagaStepPayloadCodec {
+
+    private final SagaBinaryCodec sagaBinaryCodec;
+    private final ObjectMapper objectMapper;
+    private final StepPayloadFormat retention;
+    private final Map<StepPayloadFormat, Counter> storedBytes = new EnumMap<>(StepPayloadFormat.class);
+    private final Map<StepPayloadFormat, Counter> savedBytes = new EnumMap<>(StepPayloadFormat.class);
+
+    public SagaStepPayloadCodec(SagaBinaryCodec sagaBinaryCodec,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${saga.state.step-payload.retention:COMPRESSED}") StepPayloadFormat retention) {
+        this.sagaBinaryCodec = sagaBinaryCodec;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+        for (StepPayloadFormat format : StepPayloadFormat.values()) {
+            storedBytes.put(format, Counter.builder("saga.step.payload.stored.bytes")
+                    .description("Bytes of step payloads written to step records")
+                    .baseUnit("bytes")
+                    .tag("format", format.name())
+                    .register(meterRegistry));
+            savedBytes.put(format, Counter.builder("saga.step.payload.saved.bytes")
+                    .description("Bytes of step payloads not written compared to their JSON text")
+                    .baseUnit("bytes")
+                    .tag("format", format.name())
+                    .register(meterRegistry));
+        }
+        log.info("Saga step payload retention: {}", retention);
+    }
+
+    /**
+     * Payload of a step record in the format it is stored in.
+     */
+    public record StoredPayload(StepPayloadFormat format, String text, byte[] data) {
+
+        static final StoredPayload NONE = new StoredPayload(StepPayloadFormat.NONE, null, null);
+    }
+
+    /**
+     * Encodes the command a step sends.
+     */
+    public StoredPayload encodeCommand(Object command) {
+        String json = toJson(command);
+        return record(json, retention == StepPayloadFormat.JSON
+                ? new StoredPayload(StepPayloadFormat.JSON, json, null)
+                : compressPayload(command));
+    }
+
+    /**
+     * Encodes the reply that completes or fails a step.
+     *
+     * @param offset where the reply was read from Kafka, or null if it was not
+     */
+    public StoredPayload encodeReply(Object reply, MessageOffset offset) {
+        return switch (retention) {
+            case JSON -> {
+                String json = toJson(reply);
+                yield record(json, new StoredPayload(StepPayloadFormat.JSON, json, null));
+            }
+            case COMPRESSED -> record(toJson(reply), compressPayload(reply));
+            // Replies that did not come from Kafka, e.g. completed notification steps, have nothing to point to
+            case KAFKA_OFFSET -> record(null, offset != null
+                    ? new StoredPayload(StepPayloadFormat.KAFKA_OFFSET, offset.toString(), null)
+                    : StoredPayload.NONE);
+            case NONE -> record(null, StoredPayload.NONE);
+        };
+    }
+
+    /**
+     * Reads back the command stored in a step record.
+     *
+     * @throws IllegalStateException if the step record no longer holds its command
+     */
+    public <T> T readCommand(SagaStepInstance step, Class<T> commandType) {
+        StepPayloadFormat format = formatOf(step);
+        try {
+            return switch (format) {
+                case JSON -> objectMapper.readValue(step.getPayload(), commandType);
+                case COMPRESSED -> sagaBinaryCodec.decode(inflate(step.getPayloadData()), commandType);
+                case KAFKA_OFFSET, NONE -> throw new IllegalStateException("Step " + step.getId() + " does not hold its "
+                        + commandType.getSimpleName() + " (payload format " + format + ")");
+            };
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to deserialize command " + commandType.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Renders a stored payload as JSON for display; offsets are rendered as {@code {"kafkaOffset": "topic-partition@offset"}}.
+     */
+    public Optional<String> render(StepPayloadFormat format, String text, byte[] data) {
+        try {
+            return switch (format != null ? format : StepPayloadFormat.JSON) {
+                case JSON -> Optional.ofNullable(text);
+                case KAFKA_OFFSET -> Optional.of(objectMapper.writeValueAsString(Map.of("kafkaOffset", text)));
+                case COMPRESSED -> Optional.of(objectMapper.writeValueAsString(sagaBinaryCodec.decode(inflate(data), Object.class)));
+                case NONE -> Optional.empty();
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode step payload", e);
+        }
+    }
+
+    private StepPayloadFormat formatOf(SagaStepInstance step) {
+        // Records written before payload formats were introduced hold JSON or toString() text
+        return step.getPayloadFormat() != null ? step.getPayloadFormat() : StepPayloadFormat.JSON;
+    }
+
+    /**
+     * @param json the payload as JSON, or null if it was not serialized, which leaves the saved bytes unreported
+     */
+    private StoredPayload record(String json, StoredPayload stored) {
+        long bytes = stored.data() != null ? stored.data().length
+                : stored.text() != null ? stored.text().getBytes(StandardCharsets.UTF_8).length : 0;
+        storedBytes.get(stored.format()).increment(bytes);
+        if (json != null) {
+            savedBytes.get(stored.format()).increment(json.getBytes(StandardCharsets.UTF_8).length - bytes);
+        }
+        return stored;
+    }
+
+    /**
+     * Compresses a value the way COMPRESSED payloads are stored, e.g. for archived saga history.
+     */
+    public byte[] compress(Object value) {
+        try {
+            return deflate(sagaBinaryCodec.encode(value));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Reads back a value written by {@link #compress(Object)}.
+     */
+    public <T> T decompress(byte[] data, Class<T> type) {
+        try {
+            return sagaBinaryCodec.decode(inflate(data), type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decompress " + type.getSimpleName(), e);
+        }
+    }
+
+    private StoredPayload compressPayload(Object payload) {
+        return new StoredPayload(StepPayloadFormat.COMPRESSED, null, compress(payload));
+    }
+
+    private byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try (DeflaterOutputStream deflating = new DeflaterOutputStream(out, deflater)) {
+            deflating.write(data);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try (InflaterInputStream inflating = new InflaterInputStream(new ByteArrayInputStream(data), inflater)) {
+            return inflating.readAllBytes();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private String toJson(Object payload) {
+        if (payload instanceof String json) {
+            return json;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize step payload " + payload.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Optional write-behind batcher for saga step completions and failures.
+ *
+ * When enabled, COMPLETED and FAILED transitions change the step record in the {@link SagaStateCache}
+ * and are queued on the current transaction. Just before it commits, the queue is written with one
+ * JDBC batch of UPDATEs by primary key, so a poll of replies handled in one transaction by the
+ * {@link com.rajeswaran.sagaorchestrator.saga.engine.SagaEventDispatcher} costs one round trip for all
+ * of its step updates. A step updated several times in the transaction is written once, with its final
+ * state. New STARTED steps are always inserted right away, in the same transaction as their outbox row.
+ *
+ * The updates commit or roll back together with the transaction that made them, and the dispatcher commits
+ * the Kafka offsets of a poll only after that, so a crash loses no step bookkeeping: replies not yet committed
+ * are redelivered and handled again. Everything is written on the thread that owns the transaction.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class SagaStepWriteBehind {
+
+    private static final String UPDATE_STEP_SQL =
+            "UPDATE saga_step_instance SET status = ?, payload_format = ?, payload = ?, payload_data = ?, deadline = ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public SagaStepWriteBehind(JdbcTemplate jdbcTemplate,
+                               @Value("${saga.state.write-behind.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an update of a step record that already has a row. Outside a transaction it is written at once.
+     */
+    public void enqueue(SagaStepInstance stepInstance) {
+        if (stepInstance.getId() == null) {
+            throw new IllegalArgumentException("Step '" + stepInstance.getStepName() + "' has not been inserted yet");
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(List.of(stepInstance));
+            return;
+        }
+
+        PendingSteps pendingSteps = (PendingSteps) TransactionSynchronizationManager.getResource(this);
+        if (pendingSteps == null) {
+            pendingSteps = new PendingSteps();
+            TransactionSynchronizationManager.bindResource(this, pendingSteps);
+            TransactionSynchronizationManager.registerSynchronization(pendingSteps);
+        }
+        pendingSteps.add(stepInstance);
+    }
+
+    /**
+     * Writes the updates queued on the current transaction now, e.g. before the step table is queried.
+     */
+    public void flush() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PendingSteps pendingSteps = (PendingSteps) TransactionSynchronizationManager.getResource(this);
+        if (pendingSteps != null) {
+            pendingSteps.writePending();
+        }
+    }
+
+    private void write(List<SagaStepInstance> steps) {
+        List<Object[]> updates = new ArrayList<>(steps.size());
+        for (SagaStepInstance stepInstance : steps) {
+            updates.add(new Object[]{
+                    stepInstance.getStatus().name(),
+                    stepInstance.getPayloadFormat() != null ? stepInstance.getPayloadFormat().name() : null,
+                    stepInstance.getPayload(),
+                    stepInstance.getPayloadData(),
+                    stepInstance.getDeadline() != null ? Timestamp.valueOf(stepInstance.getDeadline()) : null,
+                    Timestamp.valueOf(stepInstance.getUpdatedAt()),
+                    stepInstance.getId()
+            });
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_STEP_SQL, updates);
+        for (int i = 0; i < counts.length; i++) {
+            // Batches rewritten by the driver may report SUCCESS_NO_INFO (-2); only 0 means the row does not exist
+            if (counts[i] == 0) {
+                SagaStepInstance missing = steps.get(i);
+                throw new IllegalStateException("Step instance " + missing.getId() + " ('" + missing.getStepName()
+                        + "') of saga " + missing.getSagaInstance().getId() + " not found");
+            }
+        }
+        log.debug("Wrote {} saga step transitions", steps.size());
+    }
+
+    /**
+     * Step records queued on one transaction, written just before it commits.
+     */
+    private final class PendingSteps implements TransactionSynchronization {
+
+        private final List<SagaStepInstance> steps = new ArrayList<>();
+        private final Set<SagaStepInstance> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private void add(SagaStepInstance stepInstance) {
+            if (queued.add(stepInstance)) {
+                steps.add(stepInstance);
+            }
+        }
+
+        private void writePending() {
+            if (!steps.isEmpty()) {
+                List<SagaStepInstance> batch = List.copyOf(steps);
+                steps.clear();
+                queued.clear();
+                write(batch);
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            writePending();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SagaStepWriteBehind.this);
+        }
+    }
+}
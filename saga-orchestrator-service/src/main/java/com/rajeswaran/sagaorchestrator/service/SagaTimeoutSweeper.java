@@ -0,0 +1,76 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import com.rajeswaran.sagaorchestrator.saga.engine.SagaEventDispatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Detects saga steps whose reply never arrived.
+ *
+ * On a fixed interval, STARTED steps past their deadline are read through the (status, deadline)
+ * index in bounded batches, so the cost of a sweep depends on the number of overdue steps and not on
+ * the number of sagas. Each step is claimed with a conditional update before it is retried or
+ * compensated by the {@link SagaEventDispatcher}, so a step is handled once even with several
+ * orchestrator instances running.
+ *
+ * @author Rajeswaran
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class SagaTimeoutSweeper {
+
+    private final SagaStateManager sagaStateManager;
+    private final SagaEventDispatcher sagaEventDispatcher;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    public SagaTimeoutSweeper(SagaStateManager sagaStateManager,
+                              SagaEventDispatcher sagaEventDispatcher,
+                              @Value("${saga.timeout.batch-size:200}") int batchSize,
+                              @Value("${saga.timeout.max-attempts:3}") int maxAttempts) {
+        this.sagaStateManager = sagaStateManager;
+        this.sagaEventDispatcher = sagaEventDispatcher;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Scheduled(fixedDelayString = "${saga.timeout.sweep-interval-ms:5000}")
+    public void sweep() {
+        List<SagaStepInstance> expired;
+        long handled;
+        do {
+            expired = sagaStateManager.findExpiredSteps(batchSize);
+            handled = expired.stream().filter(this::handleTimeout).count();
+        } while (expired.size() == batchSize && handled > 0);
+    }
+
+    /**
+     * Returns false if the step could not be claimed, so a failing database does not keep the sweep looping.
+     */
+    private boolean handleTimeout(SagaStepInstance step) {
+        Long sagaId = step.getSagaInstance().getId();
+        try {
+            if (!sagaStateManager.timeoutStep(step)) {
+                // The reply arrived or another instance claimed the step in the meantime
+                return true;
+            }
+        } catch (Exception e) {
+            log.error("Failed to time out step '{}' for saga {}: {}", step.getStepName(), sagaId, e.getMessage(), e);
+            return false;
+        }
+
+        try {
+            boolean retryAllowed = sagaStateManager.countStepAttempts(sagaId, step.getStepName()) < maxAttempts;
+            sagaEventDispatcher.dispatchTimeout(step, retryAllowed);
+        } catch (Exception e) {
+            log.error("Failed to handle timeout of step '{}' for saga {}: {}", step.getStepName(), sagaId, e.getMessage(), e);
+        }
+        return true;
+    }
+}
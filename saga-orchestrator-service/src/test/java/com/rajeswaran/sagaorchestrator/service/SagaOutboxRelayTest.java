@@ -0,0 +1,163 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.rajeswaran.common.messaging.SagaBinaryCodec;
+import com.rajeswaran.sagaorchestrator.entity.SagaOutboxMessage;
+import com.rajeswaran.sagaorchestrator.repository.SagaOutboxMessageRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.cloud.stream.binder.ProducerProperties;
+import org.springframework.cloud.stream.config.BindingProperties;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class SagaOutboxRelayTest {
+
+    private static final String BINDING = "processPaymentCommand-out-0";
+
+    private final List<ProducerRecord<String, byte[]>> sent = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, CompletableFuture<SendResult<String, byte[]>>> acknowledgements = new ConcurrentHashMap<>();
+    private SagaOutboxMessageRepository outboxMessageRepository;
+    private SagaOutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        outboxMessageRepository = Mockito.mock(SagaOutboxMessageRepository.class);
+        KafkaTemplate<String, byte[]> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        // Each send is acknowledged when the test completes its future, keyed by the payload
+        Mockito.when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any())).thenAnswer(invocation -> {
+            ProducerRecord<String, byte[]> record = invocation.getArgument(0);
+            sent.add(record);
+            return acknowledgements.computeIfAbsent(payloadOf(record), payload -> new CompletableFuture<>());
+        });
+
+        BindingServiceProperties bindingServiceProperties = new BindingServiceProperties();
+        BindingProperties bindingProperties = new BindingProperties();
+        bindingProperties.setDestination("process-payment-command");
+        ProducerProperties producerProperties = new ProducerProperties();
+        producerProperties.setPartitionCount(6);
+        bindingProperties.setProducer(producerProperties);
+        bindingServiceProperties.setBindings(Map.of(BINDING, bindingProperties));
+
+        // The mocked repository takes part in no transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class));
+        relay = new SagaOutboxRelay(outboxMessageRepository, kafkaTemplate, bindingServiceProperties, transactionTemplate,
+                500, 50, 10_000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        relay.stop();
+    }
+
+    @Test
+    void messagesOfASagaAreSentOneAfterTheOther() {
+        SagaOutboxMessage firstOfA = message(1, 100, "a1");
+        SagaOutboxMessage firstOfB = message(2, 200, "b1");
+        SagaOutboxMessage secondOfA = message(3, 100, "a2");
+        pending(List.of(firstOfA, firstOfB), List.of(firstOfA, firstOfB, secondOfA));
+
+        relay.start();
+
+        // Both sagas start at once; the second command of saga 100 waits for the first one's acknowledgement
+        awaitSent("a1", "b1");
+        acknowledge("b1");
+        assertStillSent("a1", "b1");
+        acknowledge("a1");
+        awaitSent("a1", "b1", "a2");
+        acknowledge("a2");
+
+        Mockito.verify(outboxMessageRepository, Mockito.timeout(5_000)).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void failedSendHoldsBackTheRestOfItsSagaOnly() {
+        SagaOutboxMessage firstOfA = message(1, 100, "a1");
+        SagaOutboxMessage firstOfB = message(2, 200, "b1");
+        SagaOutboxMessage secondOfA = message(3, 100, "a2");
+        SagaOutboxMessage secondOfB = message(4, 200, "b2");
+        pending(List.of(firstOfA, firstOfB), List.of(firstOfA, firstOfB, secondOfA, secondOfB));
+
+        relay.start();
+
+        awaitSent("a1", "b1");
+        acknowledgements.get("a1").completeExceptionally(new IllegalStateException("Broker unavailable"));
+        acknowledge("b1");
+        awaitSent("a1", "b1", "b2");
+        acknowledge("b2");
+
+        // Saga 100 stays in the outbox, both of its commands, to be sent again in order with the next batch
+        Mockito.verify(outboxMessageRepository, Mockito.timeout(5_000)).deleteAllByIdInBatch(List.of(2L, 4L));
+        Assertions.assertEquals(List.of("a1", "b1", "b2"), sent.stream().map(SagaOutboxRelayTest::payloadOf).toList());
+    }
+
+    @Test
+    void commandsOfAKeyGoToTheBindingDestinationAndOnePartition() {
+        SagaOutboxMessage first = message(1, 100, "a1");
+        SagaOutboxMessage second = message(2, 200, "b1");
+        first.setPartitionKey("10001");
+        second.setPartitionKey("10001");
+        pending(List.of(first, second), List.of(first, second));
+
+        relay.start();
+
+        awaitSent("a1", "b1");
+        Assertions.assertTrue(sent.stream().allMatch(record -> "process-payment-command".equals(record.topic())));
+        Assertions.assertTrue(sent.stream().allMatch(record -> "10001".equals(record.key())));
+        Assertions.assertEquals(sent.get(0).partition(), sent.get(1).partition());
+        Assertions.assertEquals(SagaBinaryCodec.CONTENT_TYPE,
+                new String(sent.get(0).headers().lastHeader("contentType").value(), StandardCharsets.UTF_8).replace("\"", ""));
+    }
+
+    private void pending(List<SagaOutboxMessage> heads, List<SagaOutboxMessage> batch) {
+        Mockito.when(outboxMessageRepository.findNextBatch(ArgumentMatchers.anyInt())).thenReturn(heads, List.of());
+        Mockito.when(outboxMessageRepository.findPendingForSagas(ArgumentMatchers.anyCollection(), ArgumentMatchers.anyInt()))
+                .thenReturn(batch);
+    }
+
+    private void acknowledge(String payload) {
+        acknowledgements.get(payload).complete(null);
+    }
+
+    private void awaitSent(String... payloads) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.size() < payloads.length && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertStillSent(payloads);
+    }
+
+    private void assertStillSent(String... payloads) {
+        Assertions.assertEquals(List.of(payloads), sent.stream().map(SagaOutboxRelayTest::payloadOf).toList());
+    }
+
+    private static SagaOutboxMessage message(long id, long sagaId, String payload) {
+        return SagaOutboxMessage.builder()
+                .id(id)
+                .sagaId(sagaId)
+                .bindingName(BINDING)
+                .payloadData(payload.getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static String payloadOf(ProducerRecord<String, byte[]> record) {
+        return new String(record.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,167 @@
+package com.rajeswaran.sagaorchestrator.service;
+
+import com.rajeswaran.sagaorchestrator.constants.SagaConstants;
+import com.rajeswaran.sagaorchestrator.entity.SagaInstance;
+import com.rajeswaran.sagaorchestrator.entity.SagaStepInstance;
+import com.rajeswaran.sagaorchestrator.repository.SagaInstanceRepository;
+import com.rajeswaran.sagaorchestrator.repository.SagaStepInstanceRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = SagaStepWriteBehindTest.JpaConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SagaStepWriteBehindTest {
+
+    // Only the JPA layer; the application class would scan every component of the service
+    @Configuration
+    @EntityScan({"com.rajeswaran.common.entity", "com.rajeswaran.sagaorchestrator.entity"})
+    @EnableJpaRepositories(basePackageClasses = SagaInstanceRepository.class)
+    static class JpaConfiguration {
+    }
+
+    @Autowired
+    private SagaInstanceRepository sagaInstanceRepository;
+    @Autowired
+    private SagaStepInstanceRepository stepInstanceRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate countingJdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SagaStepWriteBehind writeBehind;
+    private SagaInstance sagaInstance;
+
+    @BeforeEach
+    void setUp() {
+        stepInstanceRepository.deleteAll();
+        sagaInstanceRepository.deleteAll();
+        countingJdbcTemplate = Mockito.spy(jdbcTemplate);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writeBehind = new SagaStepWriteBehind(countingJdbcTemplate, true);
+        sagaInstance = sagaInstanceRepository.save(SagaInstance.builder()
+                .sagaName("PaymentSaga")
+                .status(SagaConstants.SagaStatus.IN_PROGRESS)
+                .build());
+    }
+
+    @Test
+    void stepUpdatesOfATransactionAreWrittenInOneBatchBeforeItCommits() {
+        SagaStepInstance first = startedStep("ValidatePaymentStep");
+        SagaStepInstance second = startedStep("ProcessPaymentStep");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            complete(first);
+            complete(second);
+            // Queued again with its final state; still written once
+            fail(first);
+            Assertions.assertEquals("STARTED", statusOf(first));
+        });
+
+        Assertions.assertEquals("FAILED", statusOf(first));
+        Assertions.assertEquals("COMPLETED", statusOf(second));
+        Assertions.assertNull(stepInstanceRepository.findById(second.getId()).orElseThrow().getDeadline());
+        Mockito.verify(countingJdbcTemplate, Mockito.times(1)).batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<List<Object[]>>any());
+    }
+
+    @Test
+    void rolledBackTransactionWritesNothing() {
+        SagaStepInstance step = startedStep("ValidatePaymentStep");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            complete(step);
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertEquals("STARTED", statusOf(step));
+        Mockito.verify(countingJdbcTemplate, Mockito.never()).batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<List<Object[]>>any());
+    }
+
+    @Test
+    void flushWritesQueuedUpdatesBeforeTheStepTableIsRead() {
+        SagaStepInstance step = startedStep("ValidatePaymentStep");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            complete(step);
+            writeBehind.flush();
+            Assertions.assertEquals("COMPLETED", statusOf(step));
+        });
+
+        // Nothing left to write at commit
+        Mockito.verify(countingJdbcTemplate, Mockito.times(1)).batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<List<Object[]>>any());
+    }
+
+    @Test
+    void updateOfAMissingStepFailsTheTransaction() {
+        SagaStepInstance step = startedStep("ValidatePaymentStep");
+        SagaStepInstance deleted = startedStep("ProcessPaymentStep");
+        stepInstanceRepository.deleteById(deleted.getId());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            complete(step);
+            complete(deleted);
+        }));
+
+        Assertions.assertEquals("STARTED", statusOf(step));
+    }
+
+    @Test
+    void updateOutsideATransactionIsWrittenAtOnce() {
+        SagaStepInstance step = startedStep("ValidatePaymentStep");
+
+        complete(step);
+
+        Assertions.assertEquals("COMPLETED", statusOf(step));
+    }
+
+    private SagaStepInstance startedStep(String stepName) {
+        return stepInstanceRepository.save(SagaStepInstance.builder()
+                .sagaInstance(sagaInstance)
+                .stepName(stepName)
+                .status(SagaConstants.SagaStepStatus.STARTED)
+                .deadline(LocalDateTime.now().plusMinutes(5))
+                .build());
+    }
+
+    private void complete(SagaStepInstance step) {
+        transition(step, SagaConstants.SagaStepStatus.COMPLETED);
+    }
+
+    private void fail(SagaStepInstance step) {
+        transition(step, SagaConstants.SagaStepStatus.FAILED);
+    }
+
+    private void transition(SagaStepInstance step, SagaConstants.SagaStepStatus status) {
+        step.setStatus(status);
+        step.setDeadline(null);
+        step.setUpdatedAt(LocalDateTime.now());
+        writeBehind.enqueue(step);
+    }
+
+    private String statusOf(SagaStepInstance step) {
+        return jdbcTemplate.queryForObject("SELECT status FROM saga_step_instance WHERE id = ?", String.class, step.getId());
+    }
+}
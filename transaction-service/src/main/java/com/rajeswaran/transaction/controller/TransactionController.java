@@ -1,17 +1,31 @@
 package com.rajeswaran.transaction.controller;
 
+import com.rajeswaran.common.pagination.KeysetPage;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
 import com.rajeswaran.common.util.SecurityUtil;
 import com.rajeswaran.common.entity.Transaction;
+import com.rajeswaran.transaction.dto.AccountBalance;
+import com.rajeswaran.transaction.dto.AccountStatement;
+import com.rajeswaran.common.AppConstants;
+import com.rajeswaran.transaction.service.StatementExportService;
 import com.rajeswaran.transaction.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +35,8 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class TransactionController {
     private final TransactionService transactionService;
+    private final StatementExportService statementExportService;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
 
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
     @GetMapping
@@ -31,6 +47,25 @@ public class TransactionController {
         return transactions;
     }
 
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping("/page")
+    public KeysetPage<Transaction> getTransactionsPage(@RequestParam(required = false) Long afterId,
+                                        @RequestParam(required = false) Integer size) {
+        log.info("Received request: getTransactionsPage, afterId={}, size={}", afterId, size);
+        KeysetPage<Transaction> page = transactionService.getTransactionsPage(afterId, size);
+        log.info("Completed request: getTransactionsPage, count={}, nextCursor={}", page.items().size(), page.nextCursor());
+        return page;
+    }
+
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTransactions() {
+        log.info("Received request: streamAllTransactions");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonStreamWriter.stream(transactionService::streamAllTransactions));
+    }
+
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN) or hasRole(T(com.rajeswaran.common.AppConstants).ROLE_ACCOUNT_HOLDER)")
     @GetMapping("/{id}")
     public ResponseEntity<Transaction> getTransactionById(@PathVariable Long id) {
@@ -45,6 +80,76 @@ public class TransactionController {
         }
     }
 
+    /**
+     * Balance of the account as of the given time. Account holders only get their own accounts.
+     */
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN) or hasRole(T(com.rajeswaran.common.AppConstants).ROLE_ACCOUNT_HOLDER)")
+    @GetMapping("/accounts/{accountNumber}/balance")
+    public ResponseEntity<AccountBalance> getBalanceAsOf(@PathVariable String accountNumber,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        log.info("Received request: getBalanceAsOf, accountNumber={}, asOf={}", accountNumber, asOf);
+        if (!canRead(accountNumber)) {
+            log.info("Completed request: getBalanceAsOf, accountNumber={} not owned by the caller", accountNumber);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        AccountBalance balance = transactionService.getBalanceAsOf(accountNumber, asOf);
+        log.info("Completed request: getBalanceAsOf, accountNumber={}, checkpointAt={}", accountNumber, balance.checkpointAt());
+        return ResponseEntity.ok(balance);
+    }
+
+    /**
+     * Transactions of the account in (from, to] with opening and closing balance. Account holders only get
+     * their own accounts.
+     */
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN) or hasRole(T(com.rajeswaran.common.AppConstants).ROLE_ACCOUNT_HOLDER)")
+    @GetMapping("/accounts/{accountNumber}/statement")
+    public ResponseEntity<AccountStatement> getStatement(@PathVariable String accountNumber,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Received request: getStatement, accountNumber={}, from={}, to={}", accountNumber, from, to);
+        if (!canRead(accountNumber)) {
+            log.info("Completed request: getStatement, accountNumber={} not owned by the caller", accountNumber);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        AccountStatement statement = transactionService.getStatement(accountNumber, from, to);
+        log.info("Completed request: getStatement, accountNumber={}, count={}", accountNumber, statement.transactions().size());
+        return ResponseEntity.ok(statement);
+    }
+
+    /**
+     * Streams transactions in (from, to] as CSV or NDJSON, gzip-compressed if the client accepts it.
+     * Account holders only get their own transactions.
+     */
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN) or hasRole(T(com.rajeswaran.common.AppConstants).ROLE_ACCOUNT_HOLDER)")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Received request: exportStatement, format={}, accountNumber={}, from={}, to={}", format, accountNumber, from, to);
+        StatementExportService.Format exportFormat;
+        try {
+            exportFormat = StatementExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            log.info("Completed request: exportStatement, {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        String username = SecurityUtil.extractRolesFromJwt().contains(AppConstants.ROLE_BAAS_ADMIN) ? null : SecurityUtil.getCurrentUsername();
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(exportFormat == StatementExportService.Format.CSV ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"statement." + exportFormat.name().toLowerCase() + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(statementExportService.export(exportFormat, username, accountNumber, from, to, gzip));
+    }
+
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_ACCOUNT_HOLDER)")
     @GetMapping("/my-transactions")
     public List<Transaction> getMyTransactions() {
@@ -54,4 +159,9 @@ public class TransactionController {
         log.info("User {} requesting their transactions, count={}", username, transactions.size());
         return transactions;
     }
+
+    private boolean canRead(String accountNumber) {
+        return SecurityUtil.extractRolesFromJwt().contains(AppConstants.ROLE_BAAS_ADMIN)
+                || transactionService.isAccountOwner(accountNumber, SecurityUtil.getCurrentUsername());
+    }
 }
@@ -0,0 +1,7 @@
+package com.rajeswaran.transaction.dto;
+
+/**
+ * Net balance change and number of transactions of an account over a period.
+ */
+public record AccountActivity(String accountNumber, long netAmount, long transactionCount) {
+}
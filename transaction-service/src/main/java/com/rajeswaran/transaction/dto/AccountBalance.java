@@ -0,0 +1,13 @@
+package com.rajeswaran.transaction.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Balance of an account as of a point in time, in minor units, and the checkpoint it was computed from.
+ */
+public record AccountBalance(
+        String accountNumber,
+        long balance,
+        LocalDateTime asOf,
+        LocalDateTime checkpointAt) {
+}
@@ -0,0 +1,18 @@
+package com.rajeswaran.transaction.dto;
+
+import com.rajeswaran.common.entity.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactions of an account in the period (from, to], with the balances before and after it.
+ */
+public record AccountStatement(
+        String accountNumber,
+        LocalDateTime from,
+        LocalDateTime to,
+        long openingBalance,
+        long closingBalance,
+        List<Transaction> transactions) {
+}
@@ -0,0 +1,43 @@
+package com.rajeswaran.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Balance of an account at the end of a checkpoint period, computed from the previous checkpoint and
+ * the transactions recorded in between.
+ *
+ * Balance and statement queries start from the nearest checkpoint and only read the transactions
+ * after it, so their cost depends on the queried range and not on the age of the account.
+ */
+@Entity
+@Table(name = "balance_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_checkpoint", columnNames = {"account_number", "checkpoint_at"})
+}, indexes = {
+        @Index(name = "idx_balance_checkpoints_checkpoint_at", columnList = "checkpoint_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_number", nullable = false)
+    private String accountNumber;
+
+    @Column(name = "checkpoint_at", nullable = false)
+    private LocalDateTime checkpointAt;
+
+    @Column(name = "balance_minor", nullable = false)
+    private long balance; // Minor units of the account currency
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount; // Transactions since the previous checkpoint
+}
@@ -1,10 +1,15 @@
 package com.rajeswaran.transaction.listener;
 
-import com.rajeswaran.common.entity.Payment;
 import com.rajeswaran.common.entity.Transaction;
+import com.rajeswaran.common.saga.payment.commands.RecordTransactionBatchCommand;
 import com.rajeswaran.common.saga.payment.commands.RecordTransactionCommand;
+import com.rajeswaran.common.saga.payment.events.TransactionBatchFailedEvent;
+import com.rajeswaran.common.saga.payment.events.TransactionBatchRecordedEvent;
 import com.rajeswaran.common.saga.payment.events.TransactionFailedEvent;
 import com.rajeswaran.common.saga.payment.events.TransactionRecordedEvent;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.payment.payload.PaymentSettlement;
+import com.rajeswaran.common.util.CorrelationIdMessageUtils;
 import com.rajeswaran.transaction.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,8 +17,11 @@ import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 @Slf4j
@@ -23,61 +31,142 @@ public class TransactionCommandListener {
 
     private final StreamBridge streamBridge;
     private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * Records the debit and credit rows of every RecordTransactionCommand in a poll with one batched insert.
+     * If the batch insert fails, each command is retried on its own so a bad payment only fails its own saga.
+     */
     @Bean
-    public Consumer<Message<RecordTransactionCommand>> recordTransactionCommand() {
-        return message -> {
-            RecordTransactionCommand cmd = message.getPayload();
-            Payment payment = cmd.getPayment();
-            log.info("[Transaction] Received RecordTransactionCommand for saga {} and payment: {}", cmd.getSagaId(), payment);
+    public Consumer<List<Message<RecordTransactionCommand>>> recordTransactionCommand() {
+        return messages -> {
+            log.info("[Transaction] Received batch of {} RecordTransactionCommands", messages.size());
+
+            List<Message<RecordTransactionCommand>> valid = new ArrayList<>(messages.size());
+            List<Transaction> transactions = new ArrayList<>(messages.size() * 2);
+            for (Message<RecordTransactionCommand> message : messages) {
+                try {
+                    transactions.addAll(toTransactions(message.getPayload().getPayment()));
+                    valid.add(message);
+                } catch (Exception e) {
+                    publishFailed(message, e);
+                }
+            }
+            if (valid.isEmpty()) {
+                return;
+            }
+
             try {
-                // Map RecordTransactionCommand to Transaction entity and persist
-                Transaction transaction = new Transaction();
-                transaction.setAccountNumber(payment.getSourceAccountNumber());
-                transaction.setAmount(payment.getAmount());
-                transaction.setType("PAYMENT");
-                transaction.setDescription(payment.getDescription());
-                transaction.setStatus("COMPLETED");
-                transaction.setReference("Payment ID: " + payment.getId());
-                transaction.setTimestamp(LocalDateTime.now());
-                transaction.setUsername(payment.getCreatedBy());
-                transaction.setBalance(payment.getSourceAccountBalance());
-                // Optionally set username and balance if available in cmd
-                transactionRepository.save(transaction);
-                log.info("[Transaction] Persisted transaction: {}", transaction);
-
-                // Also persist destination transaction
-                Transaction destTransaction = new Transaction();
-                destTransaction.setAccountNumber(payment.getDestinationAccountNumber());
-                destTransaction.setAmount(payment.getAmount());
-                destTransaction.setType("PAYMENT_RECEIVED");
-                destTransaction.setDescription(payment.getDescription());
-                destTransaction.setStatus("COMPLETED");
-                destTransaction.setReference("Payment ID: " + payment.getId());
-                destTransaction.setTimestamp(LocalDateTime.now());
-                destTransaction.setUsername(payment.getDestinationAccountUserName());
-                destTransaction.setBalance(payment.getDestinationAccountBalance());
-                // Optionally set username and balance if available in cmd
-                transactionRepository.save(destTransaction);
-                log.info("[Transaction] Persisted destination transaction: {}", destTransaction);
-
-                // On success, emit TransactionRecordedEvent
-                TransactionRecordedEvent event = TransactionRecordedEvent.create(
-                        cmd.getSagaId(),
-                        payment
-                );
-                streamBridge.send("transactionRecordedEvent-out-0", event);
-                log.info("[Transaction] Published TransactionRecordedEvent for saga {} and payment: {}", cmd.getSagaId(), payment.getId());
-            } catch (Exception e) {
-                log.error("[Transaction] Failed to record transaction for saga {} and payment {}: {}", cmd.getSagaId(), payment.getId(), e.getMessage(), e);
-                // On failure, emit TransactionFailedEvent
-                TransactionFailedEvent event = TransactionFailedEvent.create(
-                        cmd.getSagaId(),
-                        payment,
-                        "Failed to record transaction: " + e.getMessage()
-                );
-                streamBridge.send("transactionFailedEvent-out-0", event);
+                transactionTemplate.executeWithoutResult(status -> transactionRepository.saveAll(transactions));
+                log.info("[Transaction] Persisted {} transactions for {} payments", transactions.size(), valid.size());
+                valid.forEach(this::publishRecorded);
+            } catch (Exception batchError) {
+                log.warn("[Transaction] Batch insert failed, recording {} payments individually: {}", valid.size(), batchError.getMessage());
+                valid.forEach(this::recordIndividually);
             }
         };
     }
+
+    /**
+     * Records the debit and credit rows of all payments in a bulk payment batch with one batched insert.
+     */
+    @Bean
+    public Consumer<Message<RecordTransactionBatchCommand>> recordTransactionBatchCommand() {
+        return message -> {
+            RecordTransactionBatchCommand cmd = message.getPayload();
+            log.info("[Transaction] Received RecordTransactionBatchCommand for saga {} with {} payments", cmd.getSagaId(), cmd.getPayments().size());
+
+            CorrelationIdMessageUtils.withCorrelationId(CorrelationIdMessageUtils.getCorrelationIdFromMessage(message), () -> {
+                try {
+                    List<Transaction> transactions = new ArrayList<>(cmd.getPayments().size() * 2);
+                    cmd.getPayments().forEach(payment -> transactions.addAll(toTransactions(payment)));
+                    transactionTemplate.executeWithoutResult(status -> transactionRepository.saveAll(transactions));
+
+                    streamBridge.send("transactionBatchRecordedEvent-out-0", TransactionBatchRecordedEvent.create(
+                            cmd.getSagaId(),
+                            cmd.getPayments().size()
+                    ));
+                    log.info("[Transaction] Persisted {} transactions for saga {}", transactions.size(), cmd.getSagaId());
+                } catch (Exception e) {
+                    log.error("[Transaction] Failed to record transaction batch for saga {}: {}", cmd.getSagaId(), e.getMessage(), e);
+                    streamBridge.send("transactionBatchFailedEvent-out-0", TransactionBatchFailedEvent.create(
+                            cmd.getSagaId(),
+                            cmd.getPayments().size(),
+                            "Failed to record transactions: " + e.getMessage()
+                    ));
+                }
+            });
+        };
+    }
+
+    private void recordIndividually(Message<RecordTransactionCommand> message) {
+        try {
+            List<Transaction> transactions = toTransactions(message.getPayload().getPayment());
+            transactionTemplate.executeWithoutResult(status -> transactionRepository.saveAll(transactions));
+            publishRecorded(message);
+        } catch (Exception e) {
+            publishFailed(message, e);
+        }
+    }
+
+    private List<Transaction> toTransactions(PaymentSettlement settlement) {
+        PaymentInstruction payment = settlement.payment();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Map RecordTransactionCommand to the source account transaction
+        Transaction transaction = new Transaction();
+        transaction.setAccountNumber(payment.sourceAccountNumber());
+        transaction.setAmount(payment.amount());
+        transaction.setCurrency(payment.currency());
+        transaction.setType("PAYMENT");
+        transaction.setDescription(payment.description());
+        transaction.setStatus("COMPLETED");
+        transaction.setReference("Payment ID: " + payment.paymentId());
+        transaction.setTimestamp(now);
+        transaction.setUsername(payment.createdBy());
+        transaction.setBalance(settlement.sourceAccountBalance());
+
+        // Also record the destination account transaction
+        Transaction destTransaction = new Transaction();
+        destTransaction.setAccountNumber(payment.destinationAccountNumber());
+        destTransaction.setAmount(payment.amount());
+        destTransaction.setCurrency(payment.currency());
+        destTransaction.setType("PAYMENT_RECEIVED");
+        destTransaction.setDescription(payment.description());
+        destTransaction.setStatus("COMPLETED");
+        destTransaction.setReference("Payment ID: " + payment.paymentId());
+        destTransaction.setTimestamp(now);
+        destTransaction.setUsername(settlement.destinationAccountUserName());
+        destTransaction.setBalance(settlement.destinationAccountBalance());
+
+        return List.of(transaction, destTransaction);
+    }
+
+    private void publishRecorded(Message<RecordTransactionCommand> message) {
+        RecordTransactionCommand cmd = message.getPayload();
+        CorrelationIdMessageUtils.withCorrelationId(CorrelationIdMessageUtils.getCorrelationIdFromMessage(message), () -> {
+            // On success, emit TransactionRecordedEvent
+            TransactionRecordedEvent event = TransactionRecordedEvent.create(
+                    cmd.getSagaId(),
+                    cmd.getPayment().paymentId()
+            );
+            streamBridge.send("transactionRecordedEvent-out-0", event);
+            log.info("[Transaction] Published TransactionRecordedEvent for saga {} and payment: {}", cmd.getSagaId(), cmd.getPayment().paymentId());
+        });
+    }
+
+    private void publishFailed(Message<RecordTransactionCommand> message, Exception e) {
+        RecordTransactionCommand cmd = message.getPayload();
+        CorrelationIdMessageUtils.withCorrelationId(CorrelationIdMessageUtils.getCorrelationIdFromMessage(message), () -> {
+            log.error("[Transaction] Failed to record transaction for saga {}: {}", cmd.getSagaId(), e.getMessage(), e);
+            // On failure, emit TransactionFailedEvent
+            // A malformed command may come without its payment
+            TransactionFailedEvent event = TransactionFailedEvent.create(
+                    cmd.getSagaId(),
+                    cmd.getPayment() != null ? cmd.getPayment().paymentId() : null,
+                    "Failed to record transaction: " + e.getMessage()
+            );
+            streamBridge.send("transactionFailedEvent-out-0", event);
+        });
+    }
 }
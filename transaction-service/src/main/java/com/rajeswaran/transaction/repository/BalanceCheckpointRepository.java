@@ -0,0 +1,34 @@
+package com.rajeswaran.transaction.repository;
+
+import com.rajeswaran.transaction.entity.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+
+    /**
+     * Nearest checkpoint of an account at or before the given time.
+     */
+    Optional<BalanceCheckpoint> findFirstByAccountNumberAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(String accountNumber, LocalDateTime at);
+
+    /**
+     * End of the last checkpoint period, or null if no checkpoint was taken yet.
+     */
+    @Query("SELECT MAX(c.checkpointAt) FROM BalanceCheckpoint c")
+    LocalDateTime findLastCheckpointAt();
+
+    /**
+     * Latest checkpoint of each of the given accounts.
+     */
+    @Query("SELECT c FROM BalanceCheckpoint c WHERE c.accountNumber IN :accountNumbers AND c.checkpointAt = "
+            + "(SELECT MAX(c2.checkpointAt) FROM BalanceCheckpoint c2 WHERE c2.accountNumber = c.accountNumber)")
+    List<BalanceCheckpoint> findLatestByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+}
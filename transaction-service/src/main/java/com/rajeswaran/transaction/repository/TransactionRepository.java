@@ -1,13 +1,76 @@
 package com.rajeswaran.transaction.repository;
 
 import com.rajeswaran.common.entity.Transaction;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
+import com.rajeswaran.transaction.dto.AccountActivity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     // Custom query methods if needed
     List<Transaction> findByUsername(String username);
+
+    List<Transaction> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NdjsonStreamWriter.FETCH_SIZE))
+    @Query("SELECT t FROM Transaction t ORDER BY t.id")
+    Stream<Transaction> streamAll();
+
+    /**
+     * Transactions in (from, to] for a statement export, optionally limited to one user and/or account.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NdjsonStreamWriter.FETCH_SIZE))
+    @Query("SELECT t FROM Transaction t WHERE (:username IS NULL OR t.username = :username) "
+            + "AND (:accountNumber IS NULL OR t.accountNumber = :accountNumber) "
+            + "AND t.timestamp > :from AND t.timestamp <= :to ORDER BY t.timestamp, t.id")
+    Stream<Transaction> streamForExport(@Param("username") String username,
+                                        @Param("accountNumber") String accountNumber,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+
+    Optional<Transaction> findFirstByAccountNumberOrderByTimestampAscIdAsc(String accountNumber);
+
+    boolean existsByAccountNumberAndUsername(String accountNumber, String username);
+
+    /**
+     * Transactions of an account in (from, to], read through the (account_number, timestamp) index.
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.accountNumber = :accountNumber AND t.timestamp > :from AND t.timestamp <= :to "
+            + "ORDER BY t.timestamp, t.id")
+    List<Transaction> findByAccountNumberInRange(@Param("accountNumber") String accountNumber,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+
+    /**
+     * Net balance change of an account in (from, to]; debit types count negative.
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type IN :debitTypes THEN -t.amount ELSE t.amount END), 0) FROM Transaction t "
+            + "WHERE t.accountNumber = :accountNumber AND t.timestamp > :from AND t.timestamp <= :to")
+    long sumNetAmount(@Param("accountNumber") String accountNumber,
+                      @Param("from") LocalDateTime from,
+                      @Param("to") LocalDateTime to,
+                      @Param("debitTypes") Collection<String> debitTypes);
+
+    /**
+     * Net balance change and transaction count of every account with transactions in (from, to].
+     */
+    @Query("SELECT new com.rajeswaran.transaction.dto.AccountActivity(t.accountNumber, "
+            + "SUM(CASE WHEN t.type IN :debitTypes THEN -t.amount ELSE t.amount END), COUNT(t)) FROM Transaction t "
+            + "WHERE t.timestamp > :from AND t.timestamp <= :to GROUP BY t.accountNumber")
+    List<AccountActivity> summarizeActivity(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("debitTypes") Collection<String> debitTypes);
 }
@@ -0,0 +1,104 @@
+package com.rajeswaran.transaction.service;
+
+import com.rajeswaran.common.money.Money;
+import com.rajeswaran.transaction.dto.AccountActivity;
+import com.rajeswaran.transaction.entity.BalanceCheckpoint;
+import com.rajeswaran.transaction.repository.BalanceCheckpointRepository;
+import com.rajeswaran.transaction.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Takes per-account balance checkpoints at the end of every checkpoint period.
+ *
+ * Period ends are aligned to multiples of the period, so every instance computes the same checkpoint
+ * time; the unique (account_number, checkpoint_at) constraint lets only one of them store it. A period
+ * is only checkpointed once its end is older than the settle delay, so transactions still being
+ * recorded for it are not missed. Only accounts with transactions in the period get a new checkpoint;
+ * for the others the previous one still holds.
+ */
+@Service
+@Slf4j
+public class BalanceCheckpointService {
+
+    private static final int LOOKUP_BATCH_SIZE = 500;
+
+    private final TransactionRepository transactionRepository;
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration period;
+    private final Duration settleDelay;
+
+    public BalanceCheckpointService(TransactionRepository transactionRepository,
+                                    BalanceCheckpointRepository balanceCheckpointRepository,
+                                    TransactionService transactionService,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${transaction.checkpoints.period:1h}") Duration period,
+                                    @Value("${transaction.checkpoints.settle-delay:5m}") Duration settleDelay) {
+        this.transactionRepository = transactionRepository;
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.transactionService = transactionService;
+        this.transactionTemplate = transactionTemplate;
+        this.period = period;
+        this.settleDelay = settleDelay;
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.checkpoints.check-interval-ms:60000}")
+    public void takeCheckpoints() {
+        LocalDateTime checkpointAt = periodEnd(LocalDateTime.now().minus(settleDelay));
+        LocalDateTime lastCheckpointAt = balanceCheckpointRepository.findLastCheckpointAt();
+        if (lastCheckpointAt != null && !checkpointAt.isAfter(lastCheckpointAt)) {
+            return;
+        }
+
+        try {
+            // All checkpoints of a period are stored together, so the next period can build on all of them
+            int count = transactionTemplate.execute(status -> checkpoint(
+                    lastCheckpointAt != null ? lastCheckpointAt : TransactionService.BEGINNING, checkpointAt));
+            log.info("Took {} balance checkpoints at {}", count, checkpointAt);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Balance checkpoints at {} were taken by another instance", checkpointAt);
+        } catch (Exception e) {
+            log.error("Failed to take balance checkpoints at {}: {}", checkpointAt, e.getMessage(), e);
+        }
+    }
+
+    private int checkpoint(LocalDateTime from, LocalDateTime checkpointAt) {
+        List<AccountActivity> activity = transactionRepository.summarizeActivity(from, checkpointAt, TransactionService.DEBIT_TYPES);
+        List<BalanceCheckpoint> checkpoints = new ArrayList<>(activity.size());
+        for (int start = 0; start < activity.size(); start += LOOKUP_BATCH_SIZE) {
+            List<AccountActivity> batch = activity.subList(start, Math.min(start + LOOKUP_BATCH_SIZE, activity.size()));
+
+            Map<String, Long> previousBalances = new HashMap<>();
+            balanceCheckpointRepository.findLatestByAccountNumberIn(batch.stream().map(AccountActivity::accountNumber).toList())
+                    .forEach(previous -> previousBalances.put(previous.getAccountNumber(), previous.getBalance()));
+
+            for (AccountActivity account : batch) {
+                Long previousBalance = previousBalances.get(account.accountNumber());
+                long base = previousBalance != null ? previousBalance : transactionService.getOpeningBalance(account.accountNumber());
+                checkpoints.add(new BalanceCheckpoint(null, account.accountNumber(), checkpointAt,
+                        Money.add(base, account.netAmount()), account.transactionCount()));
+            }
+        }
+        balanceCheckpointRepository.saveAll(checkpoints);
+        return checkpoints.size();
+    }
+
+    private LocalDateTime periodEnd(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(seconds - Math.floorMod(seconds, period.toSeconds()), 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,89 @@
+package com.rajeswaran.transaction.service;
+
+import com.rajeswaran.common.entity.Transaction;
+import com.rajeswaran.common.money.Money;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
+import com.rajeswaran.transaction.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams statement exports straight from a database cursor, as CSV or NDJSON.
+ *
+ * Rows are encoded one at a time and flushed in chunks by the {@link NdjsonStreamWriter}, so an export
+ * of years of transactions needs no more memory than a single chunk.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatementExportService {
+
+    private static final byte[] CSV_HEADER = ("id,account_number,timestamp,type,amount,currency,balance,status,reference,description,username\n")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final TransactionRepository transactionRepository;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format parse(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + format);
+            }
+        }
+    }
+
+    /**
+     * @param username      only export this user's transactions, or all users' if null
+     * @param accountNumber only export this account, or all accounts if null
+     */
+    public StreamingResponseBody export(Format format, String username, String accountNumber,
+                                        LocalDateTime from, LocalDateTime to, boolean gzip) {
+        LocalDateTime start = from != null ? from : TransactionService.BEGINNING;
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        Supplier<Stream<Transaction>> query = () -> transactionRepository.streamForExport(username, accountNumber, start, end);
+
+        if (format == Format.CSV) {
+            return ndjsonStreamWriter.stream(query, CSV_HEADER, StatementExportService::writeCsvLine, gzip);
+        }
+        return ndjsonStreamWriter.stream(query, gzip);
+    }
+
+    private static void writeCsvLine(Transaction transaction, OutputStream outputStream) throws IOException {
+        String line = String.join(",",
+                String.valueOf(transaction.getId()),
+                csv(transaction.getAccountNumber()),
+                csv(transaction.getTimestamp() != null ? transaction.getTimestamp().toString() : null),
+                csv(transaction.getType()),
+                Money.toMajorUnits(transaction.getAmount(), transaction.getCurrency()).toPlainString(),
+                csv(transaction.getCurrency()),
+                Money.toMajorUnits(transaction.getBalance(), transaction.getCurrency()).toPlainString(),
+                csv(transaction.getStatus()),
+                csv(transaction.getReference()),
+                csv(transaction.getDescription()),
+                csv(transaction.getUsername()));
+        outputStream.write(line.getBytes(StandardCharsets.UTF_8));
+        outputStream.write('\n');
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,22 +1,52 @@
 package com.rajeswaran.transaction.service;
 
 import com.rajeswaran.common.entity.Transaction;
+import com.rajeswaran.common.money.Money;
+import com.rajeswaran.common.pagination.KeysetPage;
+import com.rajeswaran.transaction.dto.AccountBalance;
+import com.rajeswaran.transaction.dto.AccountStatement;
+import com.rajeswaran.transaction.entity.BalanceCheckpoint;
+import com.rajeswaran.transaction.repository.BalanceCheckpointRepository;
 import com.rajeswaran.transaction.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    /**
+     * Transaction types that take money out of the account.
+     */
+    public static final List<String> DEBIT_TYPES = List.of("PAYMENT");
+
+    /**
+     * Lower bound for range queries of accounts without a checkpoint.
+     */
+    public static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     private final TransactionRepository transactionRepository;
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
 
     public List<Transaction> getAllTransactions() {
         return transactionRepository.findAll();
     }
 
+    public KeysetPage<Transaction> getTransactionsPage(Long afterId, Integer size) {
+        int pageSize = KeysetPage.boundedSize(size);
+        List<Transaction> items = transactionRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.startAfter(afterId), Limit.of(pageSize));
+        return KeysetPage.of(items, pageSize, Transaction::getId);
+    }
+
+    public Stream<Transaction> streamAllTransactions() {
+        return transactionRepository.streamAll();
+    }
+
     public Optional<Transaction> getTransactionById(Long id) {
         return transactionRepository.findById(id);
     }
@@ -25,6 +55,64 @@ public class TransactionService {
         return transactionRepository.findByUsername(username);
     }
 
+    /**
+     * Whether the user owns the account, i.e. the account's transactions are recorded under the user's name.
+     * This is the same rule the statement export filters by.
+     */
+    public boolean isAccountOwner(String accountNumber, String username) {
+        return transactionRepository.existsByAccountNumberAndUsername(accountNumber, username);
+    }
+
+    /**
+     * Balance of an account as of the given time: the nearest checkpoint before it plus the net amount
+     * of the transactions since.
+     */
+    public AccountBalance getBalanceAsOf(String accountNumber, LocalDateTime asOf) {
+        Optional<BalanceCheckpoint> checkpoint = balanceCheckpointRepository
+                .findFirstByAccountNumberAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(accountNumber, asOf);
+        LocalDateTime from = checkpoint.map(BalanceCheckpoint::getCheckpointAt).orElse(BEGINNING);
+        long base = checkpoint.isPresent() ? checkpoint.get().getBalance() : getOpeningBalance(accountNumber);
+
+        long balance = Money.add(base, transactionRepository.sumNetAmount(accountNumber, from, asOf, DEBIT_TYPES));
+        return new AccountBalance(accountNumber, balance, asOf, checkpoint.map(BalanceCheckpoint::getCheckpointAt).orElse(null));
+    }
+
+    /**
+     * Transactions of an account in (from, to] with the opening and closing balance of the period.
+     */
+    public AccountStatement getStatement(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Statement period ends before it starts: " + from + " - " + to);
+        }
+        long openingBalance = getBalanceAsOf(accountNumber, from).balance();
+        List<Transaction> transactions = transactionRepository.findByAccountNumberInRange(accountNumber, from, to);
+        long closingBalance = openingBalance;
+        for (Transaction transaction : transactions) {
+            closingBalance = Money.add(closingBalance, signedAmount(transaction));
+        }
+        return new AccountStatement(accountNumber, from, to, openingBalance, closingBalance, transactions);
+    }
+
+    /**
+     * Balance of an account before its first transaction, or 0 if it has none.
+     *
+     * Account openings are not recorded here, so the opening balance is derived from the first recorded
+     * transaction by (timestamp, id): its balance after the transaction minus its amount. Transactions are
+     * recorded asynchronously, so two transactions of a new account that settle within the same instant
+     * may be ordered differently than they were applied, and balances before the account's first
+     * checkpoint can then be off by the difference. Once a checkpoint exists, balances build on it
+     * instead. The account service's journal is the authoritative balance history.
+     */
+    public long getOpeningBalance(String accountNumber) {
+        return transactionRepository.findFirstByAccountNumberOrderByTimestampAscIdAsc(accountNumber)
+                .map(first -> Money.subtract(first.getBalance(), signedAmount(first)))
+                .orElse(0L);
+    }
+
+    public static long signedAmount(Transaction transaction) {
+        return DEBIT_TYPES.contains(transaction.getType()) ? -transaction.getAmount() : transaction.getAmount();
+    }
+
     public Transaction createTransaction(Transaction transaction) {
         return transactionRepository.save(transaction);
     }
@@ -0,0 +1,100 @@
+package com.rajeswaran.transaction.listener;
+
+import com.rajeswaran.common.entity.Transaction;
+import com.rajeswaran.common.saga.payment.commands.RecordTransactionCommand;
+import com.rajeswaran.common.saga.payment.events.TransactionFailedEvent;
+import com.rajeswaran.common.saga.payment.events.TransactionRecordedEvent;
+import com.rajeswaran.common.saga.payment.payload.PaymentInstruction;
+import com.rajeswaran.common.saga.payment.payload.PaymentSettlement;
+import com.rajeswaran.transaction.repository.TransactionRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class TransactionCommandListenerTest {
+
+    private final List<List<Transaction>> inserts = new ArrayList<>();
+    private final Map<Long, Object> replies = new HashMap<>();
+    private TransactionCommandListener listener;
+
+    @BeforeEach
+    void setUp() {
+        TransactionRepository transactionRepository = Mockito.mock(TransactionRepository.class);
+        // Rows of an account numbered "invalid" violate a constraint, failing the whole insert they are part of
+        Mockito.when(transactionRepository.saveAll(ArgumentMatchers.anyIterable())).thenAnswer(invocation -> {
+            List<Transaction> transactions = new ArrayList<>();
+            invocation.<Iterable<Transaction>>getArgument(0).forEach(transactions::add);
+            inserts.add(transactions);
+            if (transactions.stream().anyMatch(transaction -> "invalid".equals(transaction.getAccountNumber()))) {
+                throw new DataIntegrityViolationException("Invalid account number");
+            }
+            return transactions;
+        });
+        StreamBridge streamBridge = Mockito.mock(StreamBridge.class);
+        Mockito.when(streamBridge.send(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            Object event = invocation.getArgument(1);
+            replies.put(event instanceof TransactionRecordedEvent recorded ? recorded.getPaymentId()
+                    : ((TransactionFailedEvent) event).getPaymentId(), event);
+            return true;
+        });
+        // The mocked repository takes part in no transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class));
+
+        listener = new TransactionCommandListener(streamBridge, transactionRepository, transactionTemplate);
+    }
+
+    @Test
+    void recordsAPollWithOneInsert() {
+        listener.recordTransactionCommand().accept(List.of(message(1, "50002"), message(2, "50003"), message(3, "50004")));
+
+        Assertions.assertEquals(1, inserts.size());
+        Assertions.assertEquals(6, inserts.get(0).size());
+        Assertions.assertEquals(List.of("PAYMENT", "PAYMENT_RECEIVED"),
+                inserts.get(0).subList(0, 2).stream().map(Transaction::getType).toList());
+        Assertions.assertEquals(Set.of(1L, 2L, 3L), replies.keySet());
+        Assertions.assertTrue(replies.values().stream().allMatch(TransactionRecordedEvent.class::isInstance));
+    }
+
+    @Test
+    void failedInsertFallsBackToOnePaymentAtATime() {
+        listener.recordTransactionCommand().accept(List.of(message(1, "50002"), message(2, "invalid"), message(3, "50004")));
+
+        // The batch, then each payment on its own
+        Assertions.assertEquals(4, inserts.size());
+        Assertions.assertInstanceOf(TransactionRecordedEvent.class, replies.get(1L));
+        Assertions.assertInstanceOf(TransactionFailedEvent.class, replies.get(2L));
+        Assertions.assertInstanceOf(TransactionRecordedEvent.class, replies.get(3L));
+        Assertions.assertTrue(((TransactionFailedEvent) replies.get(2L)).getReason().contains("Invalid account number"));
+    }
+
+    @Test
+    void malformedCommandFailsWithoutHoldingUpTheRest() {
+        RecordTransactionCommand malformed = RecordTransactionCommand.create(2, null);
+
+        listener.recordTransactionCommand().accept(List.of(message(1, "50002"), MessageBuilder.withPayload(malformed).build()));
+
+        Assertions.assertEquals(1, inserts.size());
+        Assertions.assertEquals(2, inserts.get(0).size());
+        Assertions.assertInstanceOf(TransactionRecordedEvent.class, replies.get(1L));
+        Assertions.assertInstanceOf(TransactionFailedEvent.class, replies.get(null));
+    }
+
+    private static Message<RecordTransactionCommand> message(long paymentId, String destinationAccountNumber) {
+        PaymentInstruction payment = new PaymentInstruction(paymentId, "50001", destinationAccountNumber, 100, null, "Test", "payer");
+        return MessageBuilder.withPayload(RecordTransactionCommand.create(paymentId, new PaymentSettlement(payment, "payee", 900, 100))).build();
+    }
+}
@@ -2,6 +2,8 @@ package com.rajeswaran.user.controller;
 
 import java.util.List;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -9,9 +11,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.rajeswaran.common.entity.User;
+import com.rajeswaran.common.pagination.KeysetPage;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
 import com.rajeswaran.user.dto.UpdateUserRequest;
 import com.rajeswaran.common.util.SecurityUtil;
 import com.rajeswaran.user.service.UserService;
@@ -25,6 +31,7 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
 
     @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
     @PutMapping("/{id}")
@@ -42,6 +49,25 @@ public class UserController {
         return users;
     }
 
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping("/page")
+    public KeysetPage<User> getUsersPage(@RequestParam(required = false) Long afterId,
+                                        @RequestParam(required = false) Integer size) {
+        log.info("Received request: getUsersPage, afterId={}, size={}", afterId, size);
+        KeysetPage<User> page = userService.getUsersPage(afterId, size);
+        log.info("Completed request: getUsersPage, count={}, nextCursor={}", page.items().size(), page.nextCursor());
+        return page;
+    }
+
+    @PreAuthorize("hasRole(T(com.rajeswaran.common.AppConstants).ROLE_BAAS_ADMIN)")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        log.info("Received request: streamAllUsers");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonStreamWriter.stream(userService::streamAllUsers));
+    }
+
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/me")
     public User getCurrentUser() {
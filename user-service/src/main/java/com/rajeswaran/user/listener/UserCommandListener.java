@@ -7,6 +7,7 @@ import com.rajeswaran.common.saga.useronboarding.events.UserCreatedEvent;
 import com.rajeswaran.common.saga.useronboarding.events.UserCreationFailedEvent;
 import com.rajeswaran.common.saga.useronboarding.events.UserDeletedEvent;
 import com.rajeswaran.common.saga.useronboarding.events.UserDeletionFailedEvent;
+import com.rajeswaran.common.saga.useronboarding.payload.UserProfile;
 import com.rajeswaran.user.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,7 +31,7 @@ public class UserCommandListener {
     public Consumer<Message<CreateUserCommand>> createUserCommand() {
         return message -> {
             CreateUserCommand command = message.getPayload();
-            User user = command.getUser();
+            User user = command.getUser().toUser();
             log.info("Received createUserCommand for saga {} and user: {}", command.getSagaId(), user.getUsername());
             
             try {
@@ -39,7 +40,7 @@ public class UserCommandListener {
                 
                 UserCreatedEvent event = UserCreatedEvent.create(
                     command.getSagaId(),
-                    createdUser
+                    UserProfile.from(createdUser)
                 );
                 
                 streamBridge.send("userCreatedEvent-out-0", event);
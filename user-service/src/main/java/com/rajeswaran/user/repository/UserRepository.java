@@ -1,10 +1,24 @@
 package com.rajeswaran.user.repository;
 
 import com.rajeswaran.common.entity.User;
+import com.rajeswaran.common.pagination.NdjsonStreamWriter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    List<User> findByUserIdGreaterThanOrderByUserIdAsc(Long afterUserId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NdjsonStreamWriter.FETCH_SIZE))
+    @Query("SELECT u FROM User u ORDER BY u.userId")
+    Stream<User> streamAll();
 }
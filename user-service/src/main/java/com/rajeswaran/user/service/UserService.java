@@ -2,10 +2,13 @@ package com.rajeswaran.user.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import com.rajeswaran.common.entity.User;
+import com.rajeswaran.common.pagination.KeysetPage;
 import com.rajeswaran.user.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -30,6 +33,16 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    public KeysetPage<User> getUsersPage(Long afterId, Integer size) {
+        int pageSize = KeysetPage.boundedSize(size);
+        List<User> items = userRepository.findByUserIdGreaterThanOrderByUserIdAsc(KeysetPage.startAfter(afterId), Limit.of(pageSize));
+        return KeysetPage.of(items, pageSize, User::getUserId);
+    }
+
+    public Stream<User> streamAllUsers() {
+        return userRepository.streamAll();
+    }
+
 
     public Optional<User> getUserByUsername(String username) {
         return userRepository.findByUsername(username);